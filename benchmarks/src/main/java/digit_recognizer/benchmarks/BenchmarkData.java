@@ -0,0 +1,223 @@
+package digit_recognizer.benchmarks;
+
+import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistDataSet;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+/**
+ * <h1>Data of the benchmarks.</h1>
+ * <p>
+ * Benchmarks use the MNIST files from the {@code MNIST} directory of the repository when they are present.
+ * Otherwise synthetic IDX files of the same shape are generated once into
+ * {@code ${java.io.tmpdir}/digit-recognizer-benchmarks}, so the benchmarks run offline.
+ * <br>
+ * Synthetic digits are ten random stroke templates, every image is a template with jittered strokes,
+ * a random shift and some noise. The generator is seeded, so all runs compare the same data.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class BenchmarkData {
+
+    /** System property that overrides the directory with IDX files.
+     * */
+    public static final String DATA_DIRECTORY_PROPERTY = "digit_recognizer.benchmarks.data";
+
+    /** Number of synthetic training images, the size of the MNIST training set.
+     * */
+    private static final int SYNTHETIC_TRAIN_SIZE = 60000;
+
+    /** Number of synthetic test images, the size of the MNIST t10k set.
+     * */
+    private static final int SYNTHETIC_TEST_SIZE = 10000;
+
+    /** Side of the images.
+     * */
+    private static final int SIDE = 28;
+
+    /** Number of strokes of every template.
+     * */
+    private static final int STROKES = 4;
+
+    /** Seed of the generator.
+     * */
+    private static final long SEED = 20261018L;
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @return path of the training images.
+     * */
+    public static String trainImages() {
+        return directory().resolve("train-images.idx3-ubyte").toString();
+    }
+
+    /**
+     * @return path of the training labels.
+     * */
+    public static String trainLabels() {
+        return directory().resolve("train-labels.idx1-ubyte").toString();
+    }
+
+    /**
+     * @return path of the test images.
+     * */
+    public static String testImages() {
+        return directory().resolve("t10k-images.idx3-ubyte").toString();
+    }
+
+    /**
+     * @return path of the test labels.
+     * */
+    public static String testLabels() {
+        return directory().resolve("t10k-labels.idx1-ubyte").toString();
+    }
+
+    /**
+     * @return training {@link MnistDataSet}.
+     * */
+    public static MnistDataSet train() {
+        return read(trainImages(), trainLabels());
+    }
+
+    /**
+     * @return test {@link MnistDataSet}.
+     * */
+    public static MnistDataSet test() {
+        return read(testImages(), testLabels());
+    }
+
+    /** Returns the directory with all four IDX files, generating synthetic ones if needed.
+     *
+     * @return directory with IDX files.
+     * */
+    public static synchronized Path directory() {
+        String configured = System.getProperty(DATA_DIRECTORY_PROPERTY);
+        if (configured != null) return Paths.get(configured);
+
+        for (Path candidate : new Path[] {Paths.get("MNIST"), Paths.get("..", "MNIST")})
+            if (isComplete(candidate)) return candidate;
+
+        Path synthetic = Paths.get(System.getProperty("java.io.tmpdir"), "digit-recognizer-benchmarks");
+        if (!isComplete(synthetic)) {
+            try {
+                generate(synthetic, SYNTHETIC_TRAIN_SIZE, SYNTHETIC_TEST_SIZE, SEED);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return synthetic;
+    }
+
+    /** Writes synthetic training and test IDX files.
+     *
+     * @param directory target directory.
+     * @param trainSize number of training images.
+     * @param testSize number of test images.
+     * @param seed seed of the generator.
+     * @throws IOException if the files can't be written.
+     * */
+    public static void generate(Path directory, int trainSize, int testSize, long seed) throws IOException {
+        Files.createDirectories(directory);
+
+        Random random = new Random(seed);
+        double[][][] templates = new double[10][STROKES][4];
+        for (double[][] template : templates)
+            for (double[] stroke : template)
+                for (int i = 0; i < stroke.length; i++) stroke[i] = 6 + random.nextDouble() * (SIDE - 12);
+
+        write(directory, "train", trainSize, templates, random);
+        write(directory, "t10k", testSize, templates, random);
+    }
+
+    private static void write(Path directory, String prefix, int size, double[][][] templates, Random random) throws IOException {
+        Path images = directory.resolve(prefix + "-images.idx3-ubyte");
+        Path labels = directory.resolve(prefix + "-labels.idx1-ubyte");
+        Path imagesTemporary = Files.createTempFile(directory, prefix, ".tmp");
+        Path labelsTemporary = Files.createTempFile(directory, prefix, ".tmp");
+
+        try (DataOutputStream imagesOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(imagesTemporary)));
+             DataOutputStream labelsOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(labelsTemporary)))) {
+            imagesOut.writeInt(MnistDataReader.IMAGES_MAGIC_NUMBER);
+            imagesOut.writeInt(size);
+            imagesOut.writeInt(SIDE);
+            imagesOut.writeInt(SIDE);
+            labelsOut.writeInt(MnistDataReader.LABELS_MAGIC_NUMBER);
+            labelsOut.writeInt(size);
+
+            byte[] image = new byte[SIDE * SIDE];
+            for (int i = 0; i < size; i++) {
+                int label = random.nextInt(templates.length);
+                draw(templates[label], random, image);
+                imagesOut.write(image);
+                labelsOut.writeByte(label);
+            }
+        }
+
+        // labels are moved last, so an interrupted generation is never taken for a complete one
+        Files.move(imagesTemporary, images, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(labelsTemporary, labels, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Draws a jittered, shifted and noisy copy of a template.
+     *
+     * @param template strokes of the template, {x1, y1, x2, y2} each.
+     * @param random {@link Random}.
+     * @param image array the pixels are written to.
+     * */
+    private static void draw(double[][] template, Random random, byte[] image) {
+        double shiftX = random.nextGaussian();
+        double shiftY = random.nextGaussian();
+        double[][] strokes = new double[template.length][4];
+        for (int s = 0; s < template.length; s++)
+            for (int i = 0; i < 4; i++)
+                strokes[s][i] = template[s][i] + (i % 2 == 0 ? shiftX : shiftY) + random.nextGaussian() * 0.8;
+
+        for (int y = 0; y < SIDE; y++) {
+            for (int x = 0; x < SIDE; x++) {
+                double nearest = Double.POSITIVE_INFINITY;
+                for (double[] stroke : strokes) nearest = Math.min(nearest, distanceToSegment(x, y, stroke));
+
+                // strokes are about 3 pixels wide with soft edges, like the anti-aliased MNIST digits
+                double value = 255 * Math.max(0, Math.min(1, 2 - nearest));
+                if (value == 0 && random.nextInt(50) == 0) value = random.nextInt(64);
+                image[y * SIDE + x] = (byte) value;
+            }
+        }
+    }
+
+    private static double distanceToSegment(double x, double y, double[] stroke) {
+        double dx = stroke[2] - stroke[0];
+        double dy = stroke[3] - stroke[1];
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - stroke[0]) * dx + (y - stroke[1]) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(x - stroke[0] - t * dx, y - stroke[1] - t * dy);
+    }
+
+    private static boolean isComplete(Path directory) {
+        return Files.isRegularFile(directory.resolve("train-images.idx3-ubyte"))
+                && Files.isRegularFile(directory.resolve("train-labels.idx1-ubyte"))
+                && Files.isRegularFile(directory.resolve("t10k-images.idx3-ubyte"))
+                && Files.isRegularFile(directory.resolve("t10k-labels.idx1-ubyte"));
+    }
+
+    private static MnistDataSet read(String images, String labels) {
+        try {
+            return new MnistDataReader().readDataSet(images, labels);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package digit_recognizer.benchmarks;
+
+import digit_recognizer.DistanceKernel;
+import digit_recognizer.DistanceKernels;
+import digit_recognizer.Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>Benchmarks of distances between two images.</h1>
+ * <p>
+ * Measures {@link Metrics#euclideanDistance(MnistMatrix, MnistMatrix)} and {@link Metrics#taxicabGeometry(MnistMatrix, MnistMatrix)},
+ * which use the default kernel, and both {@link DistanceKernel} implementations directly, with and without a cutoff.
+ * Every call compares the next pair of a fixed set of training images, so the data stays in cache
+ * and only the arithmetic is measured.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class DistanceBenchmark {
+
+    /** Number of images compared in turn, a power of two.
+     * */
+    private static final int IMAGES = 256;
+
+    /** Images compared by one benchmark thread.
+     * */
+    @State(Scope.Thread)
+    public static class Images {
+
+        MnistMatrix[] matrices;
+        byte[] pixels;
+        int imageSize;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            MnistDataSet train = BenchmarkData.train();
+            matrices = new MnistMatrix[IMAGES];
+            for (int i = 0; i < IMAGES; i++) matrices[i] = train.getMatrix(i);
+            pixels = train.getPixels();
+            imageSize = train.getImageSize();
+        }
+
+        int next() {
+            return next = (next + 1) & (IMAGES - 1);
+        }
+    }
+
+    /** Kernel selected by name, see {@link DistanceKernels#select(String)}.
+     * */
+    @State(Scope.Benchmark)
+    public static class Kernel {
+
+        @Param({"scalar", "vector"})
+        public String name;
+
+        DistanceKernel kernel;
+
+        /** Cutoff of about half of a typical distance, so abandoning pays off for most pairs.
+         * */
+        int taxicabCutoff;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            kernel = DistanceKernels.select(name);
+            if (!kernel.getName().equals(name))
+                System.err.println("Kernel " + name + " is not available, measuring " + kernel.getName());
+
+            MnistDataSet train = BenchmarkData.train();
+            long sum = 0;
+            for (int i = 1; i < IMAGES; i++)
+                sum += kernel.taxicab(train.getPixels(), 0, train.getPixels(), train.getOffset(i), train.getImageSize());
+            taxicabCutoff = (int) (sum / (IMAGES - 1) / 2);
+        }
+    }
+
+    @Benchmark
+    public double metricsEuclideanDistance(Images images) {
+        int i = images.next();
+        return Metrics.euclideanDistance(images.matrices[i], images.matrices[(i + 1) & (IMAGES - 1)]);
+    }
+
+    @Benchmark
+    public double metricsTaxicabGeometry(Images images) {
+        int i = images.next();
+        return Metrics.taxicabGeometry(images.matrices[i], images.matrices[(i + 1) & (IMAGES - 1)]);
+    }
+
+    @Benchmark
+    public int kernelSquaredEuclidean(Images images, Kernel kernel) {
+        int i = images.next();
+        return kernel.kernel.squaredEuclidean(images.pixels, i * images.imageSize,
+                images.pixels, ((i + 1) & (IMAGES - 1)) * images.imageSize, images.imageSize);
+    }
+
+    @Benchmark
+    public int kernelTaxicab(Images images, Kernel kernel) {
+        int i = images.next();
+        return kernel.kernel.taxicab(images.pixels, i * images.imageSize,
+                images.pixels, ((i + 1) & (IMAGES - 1)) * images.imageSize, images.imageSize);
+    }
+
+    @Benchmark
+    public int kernelTaxicabWithCutoff(Images images, Kernel kernel) {
+        int i = images.next();
+        return kernel.kernel.taxicab(images.pixels, i * images.imageSize,
+                images.pixels, ((i + 1) & (IMAGES - 1)) * images.imageSize, images.imageSize, kernel.taxicabCutoff);
+    }
+
+    @Benchmark
+    public int kernelDotProduct(Images images, Kernel kernel) {
+        int i = images.next();
+        return kernel.kernel.dotProduct(images.pixels, i * images.imageSize,
+                images.pixels, ((i + 1) & (IMAGES - 1)) * images.imageSize, images.imageSize);
+    }
+}
@@ -0,0 +1,69 @@
+package digit_recognizer.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * <h1>Benchmarks of loading the training set.</h1>
+ * <p>
+ * Measures {@link MnistDataReader#readData(String, String)}, {@link MnistDataReader#readDataSet(String, String)}
+ * and a parallel {@link MnistDataReader#stream(String, String)} over the training files.
+ * Files are read from the page cache after the first iteration, so the results show parsing cost, not disk speed.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class ReadDataBenchmark {
+
+    private final MnistDataReader reader = new MnistDataReader();
+
+    private String images;
+
+    private String labels;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        images = BenchmarkData.trainImages();
+        labels = BenchmarkData.trainLabels();
+    }
+
+    @Benchmark
+    public MnistMatrix[] readData() throws IOException {
+        return reader.readData(images, labels);
+    }
+
+    @Benchmark
+    public MnistDataSet readDataSet() throws IOException {
+        return reader.readDataSet(images, labels);
+    }
+
+    @Benchmark
+    public long parallelStream() throws IOException {
+        try (Stream<MnistMatrix> stream = reader.stream(images, labels)) {
+            return stream.parallel().mapToInt(MnistMatrix::getLabel).sum();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package digit_recognizer.benchmarks;
+
+import digit_recognizer.MetricTypes;
+import digit_recognizer.Recognizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>End-to-end recognition throughput.</h1>
+ * <p>
+ * Recognizes a fixed set of test queries against the whole training set on a {@link ForkJoinPool}
+ * of {@code threads} workers, one query at a time with {@link Recognizer#recognize(MnistMatrix)}
+ * and in blocks with {@link Recognizer#recognizeBatch(MnistMatrix[])}. Scores are queries per second.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class RecognizeBenchmark {
+
+    /** Number of test queries recognized per invocation.
+     * */
+    private static final int QUERIES = 256;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"TAXICAB", "EUCLIDEAN"})
+    public MetricTypes metricType;
+
+    @Param({"20"})
+    public int k;
+
+    private Recognizer recognizer;
+
+    private MnistMatrix[] queries;
+
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MnistDataSet test = BenchmarkData.test();
+        recognizer = new Recognizer(k, metricType, BenchmarkData.train());
+        queries = Arrays.copyOf(test.toMatrices(), Math.min(QUERIES, test.size()));
+        pool = new ForkJoinPool(threads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int recognize() {
+        return pool.submit(() -> IntStream.range(0, queries.length).parallel()
+                .map(i -> recognizer.recognize(queries[i]))
+                .sum()).join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(QUERIES)
+    public int[] recognizeBatch() {
+        // parallel streams run on the pool of the task that starts them
+        return pool.submit(() -> recognizer.recognizeBatch(queries)).join();
+    }
+}
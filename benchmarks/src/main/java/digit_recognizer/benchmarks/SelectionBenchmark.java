@@ -0,0 +1,79 @@
+package digit_recognizer.benchmarks;
+
+import digit_recognizer.DistanceKernels;
+import digit_recognizer.MetricTypes;
+import digit_recognizer.NeighborHeap;
+import digit_recognizer.Recognizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>Benchmarks of the top-k neighbor selection.</h1>
+ * <p>
+ * {@code heapSelection} offers precomputed distances of one query to all training images to a {@link NeighborHeap}
+ * and sorts it, which is the selection step of {@code Recognizer.predict} without the distances.
+ * {@code findNeighbors} measures the whole search of {@link Recognizer#findNeighbors(MnistMatrix)}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class SelectionBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int k;
+
+    private final NeighborHeap heap = new NeighborHeap(0);
+
+    private double[] distances;
+
+    private Recognizer recognizer;
+
+    private MnistMatrix query;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MnistDataSet train = BenchmarkData.train();
+        MnistDataSet test = BenchmarkData.test();
+
+        distances = new double[train.size()];
+        for (int i = 0; i < train.size(); i++)
+            distances[i] = DistanceKernels.getDefault().taxicab(test.getPixels(), 0, train.getPixels(), train.getOffset(i), train.getImageSize());
+
+        recognizer = new Recognizer(k, MetricTypes.TAXICAB, train);
+        query = test.getMatrix(0);
+    }
+
+    @Benchmark
+    public int heapSelection() {
+        heap.reset(k);
+        for (int i = 0; i < distances.length; i++) heap.offer(distances[i], i);
+        heap.sort();
+        return heap.getIndex(0);
+    }
+
+    @Benchmark
+    public int[] findNeighbors() {
+        return recognizer.findNeighbors(query);
+    }
+}
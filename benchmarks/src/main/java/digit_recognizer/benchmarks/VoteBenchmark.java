@@ -0,0 +1,66 @@
+package digit_recognizer.benchmarks;
+
+import digit_recognizer.MetricTypes;
+import digit_recognizer.Recognizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>Benchmarks of the majority vote.</h1>
+ * <p>
+ * Measures {@link Recognizer#vote(int[])}, which votes exactly like the private {@code findMajority}
+ * used by {@link Recognizer#recognize}, over neighbor lists of real test queries.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class VoteBenchmark {
+
+    /** Number of neighbor lists voted in turn, a power of two.
+     * */
+    private static final int QUERIES = 64;
+
+    @Param({"1", "20", "100"})
+    public int k;
+
+    private Recognizer recognizer;
+
+    private int[][] neighbors;
+
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MnistDataSet test = BenchmarkData.test();
+        recognizer = new Recognizer(k, MetricTypes.TAXICAB, BenchmarkData.train());
+
+        neighbors = new int[QUERIES][];
+        for (int i = 0; i < QUERIES; i++) neighbors[i] = recognizer.findNeighbors(test.getMatrix(i));
+    }
+
+    @Benchmark
+    public int vote() {
+        next = (next + 1) & (QUERIES - 1);
+        return recognizer.vote(neighbors[next]);
+    }
+}
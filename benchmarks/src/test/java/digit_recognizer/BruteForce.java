@@ -0,0 +1,155 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Reference k nearest neighbors search for the equivalence tests.</h1>
+ * <p>
+ * Sorts all training images by distance and index and votes by counting labels, without any of the kernels,
+ * heaps and indexes of the recognizer. Exact search has to give the same neighbors and labels,
+ * equal distances included.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class BruteForce {
+
+    /** Number of rows and columns of the synthetic images.
+     * */
+    public static final int SIDE = 8;
+
+    /** Number of labels of the synthetic images.
+     * */
+    public static final int NUMBER_OF_CLASSES = 10;
+
+    private BruteForce() {
+    }
+
+    /** Returns synthetic images with many equal distances.
+     * <p>
+     * Every image is one of {@link BruteForce#NUMBER_OF_CLASSES} random binary patterns with a few pixels changed
+     * to 0, 128 or 255, so distances take few distinct values. Every fourth image gets a random label and every tenth
+     * one is a copy of an earlier image, which makes ties in distances and in votes common.
+     *
+     * @param size number of images.
+     * @param seed seed of the images, the patterns are the same for every seed.
+     * @return {@link MnistDataSet} of {@link BruteForce#SIDE}x{@link BruteForce#SIDE} images.
+     * */
+    public static MnistDataSet tiedData(int size, long seed) {
+        int imageSize = SIDE * SIDE;
+        byte[] patterns = new byte[NUMBER_OF_CLASSES * imageSize];
+        Random patternRandom = new Random(42);
+        for (int i = 0; i < patterns.length; i++) patterns[i] = (byte) (patternRandom.nextBoolean() ? 255 : 0);
+
+        Random random = new Random(seed);
+        byte[] pixels = new byte[size * imageSize];
+        byte[] labels = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            // the first images cover every label, so every data set has the same number of classes
+            int label = i < NUMBER_OF_CLASSES ? i : random.nextInt(NUMBER_OF_CLASSES);
+            if (i >= NUMBER_OF_CLASSES && i % 10 == 0) {
+                int copy = random.nextInt(i);
+                System.arraycopy(pixels, copy * imageSize, pixels, i * imageSize, imageSize);
+                labels[i] = labels[copy];
+                continue;
+            }
+
+            System.arraycopy(patterns, label * imageSize, pixels, i * imageSize, imageSize);
+            for (int changes = random.nextInt(6); changes > 0; changes--)
+                pixels[i * imageSize + random.nextInt(imageSize)] = (byte) (random.nextInt(3) * 255 / 2);
+
+            labels[i] = (byte) (i >= NUMBER_OF_CLASSES && i % 4 == 0 ? random.nextInt(NUMBER_OF_CLASSES) : label);
+        }
+
+        return new MnistDataSet(pixels, labels, SIDE, SIDE);
+    }
+
+    /** Returns the distance of two images, squared for {@link MetricTypes#EUCLIDEAN}.
+     *
+     * @param metricType {@link MetricTypes}.
+     * @param first first image.
+     * @param second second image.
+     * @return distance.
+     * */
+    public static long distance(MetricTypes metricType, MnistMatrix first, MnistMatrix second) {
+        long distance = 0;
+        for (int r = 0; r < first.getNumberOfRows(); r++) {
+            for (int c = 0; c < first.getNumberOfColumns(); c++) {
+                long difference = first.getValue(r, c) - second.getValue(r, c);
+                distance += metricType == MetricTypes.TAXICAB ? Math.abs(difference) : difference * difference;
+            }
+        }
+        return distance;
+    }
+
+    /** Returns the k nearest training images, an equal distance is won by the lower index.
+     *
+     * @param trainData training data.
+     * @param metricType {@link MetricTypes}.
+     * @param query query image.
+     * @param k number of neighbors.
+     * @return indices of the neighbors, from the nearest to the farthest.
+     * */
+    public static int[] neighbors(MnistDataSet trainData, MetricTypes metricType, MnistMatrix query, int k) {
+        return neighbors(trainData, metricType, query, k, i -> true);
+    }
+
+    /** Returns the k nearest of the selected training images, an equal distance is won by the lower index.
+     *
+     * @param trainData training data.
+     * @param metricType {@link MetricTypes}.
+     * @param query query image.
+     * @param k number of neighbors.
+     * @param selected selects the training images that may be neighbors.
+     * @return indices of the neighbors, from the nearest to the farthest.
+     * */
+    public static int[] neighbors(MnistDataSet trainData, MetricTypes metricType, MnistMatrix query, int k, IntPredicate selected) {
+        long[] distances = new long[trainData.size()];
+        for (int i = 0; i < distances.length; i++) distances[i] = distance(metricType, query, trainData.getMatrix(i));
+
+        return IntStream.range(0, trainData.size())
+                .filter(selected)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingLong(i -> distances[i]).thenComparingInt(i -> i))
+                .limit(k)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    /** Returns the label with the most neighbors, a tie is won by the label of the nearest neighbor among them.
+     *
+     * @param trainData training data.
+     * @param neighbors indices of the neighbors, from the nearest to the farthest.
+     * @return label, or -1 if there are no neighbors.
+     * */
+    public static int vote(MnistDataSet trainData, int[] neighbors) {
+        int[] counts = new int[trainData.getNumberOfClasses()];
+        for (int neighbor : neighbors) counts[trainData.getLabel(neighbor)]++;
+
+        int best = Arrays.stream(counts).max().orElse(0);
+        for (int neighbor : neighbors)
+            if (counts[trainData.getLabel(neighbor)] == best) return trainData.getLabel(neighbor);
+        return -1;
+    }
+
+    /** Returns the label voted by the k nearest training images.
+     *
+     * @param trainData training data.
+     * @param metricType {@link MetricTypes}.
+     * @param query query image.
+     * @param k number of neighbors.
+     * @return label.
+     * */
+    public static int recognize(MnistDataSet trainData, MetricTypes metricType, MnistMatrix query, int k) {
+        return vote(trainData, neighbors(trainData, metricType, query, k));
+    }
+}
@@ -0,0 +1,79 @@
+package digit_recognizer;
+
+import org.junit.jupiter.api.Test;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <h1>Hyperparameter sweep and cross-validation against the brute-force search.</h1>
+ * <p>
+ * Both evaluate every k from one neighbor list per image, the error counts must be the ones of recognizing
+ * every image with {@link BruteForce} for every k separately.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+class EvaluationTest {
+
+    private static final MnistDataSet DATA = BruteForce.tiedData(240, 3);
+    private static final int MAX_K = 12;
+
+    @Test
+    void uniformSweepCountsTheBruteForceErrors() {
+        MnistDataSet trainData = BruteForce.tiedData(300, 1);
+        MnistMatrix[] testMatrices = DATA.toMatrices();
+        SweepResult result = HyperparameterSweep.run(trainData, testMatrices, MAX_K);
+
+        for (MetricTypes metricType : MetricTypes.values()) {
+            for (int k = 1; k <= MAX_K; k++) {
+                int errors = 0;
+                for (MnistMatrix testMatrix : testMatrices)
+                    if (BruteForce.recognize(trainData, metricType, testMatrix, k) != testMatrix.getLabel()) errors++;
+
+                assertEquals(errors, result.getNumberOfErrors(metricType, VoteTypes.UNIFORM, k), metricType + ", k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void kFoldCrossValidationCountsTheBruteForceErrors() {
+        int numberOfFolds = 5;
+        int[] folds = CrossValidation.assignFolds(DATA.size(), numberOfFolds, 11);
+
+        for (MetricTypes metricType : MetricTypes.values()) {
+            CrossValidationResult result = CrossValidation.run(DATA, metricType, MAX_K, folds, numberOfFolds, DistanceKernels.getDefault());
+
+            for (int k = 1; k <= MAX_K; k++) {
+                int errors = 0;
+                for (int i = 0; i < DATA.size(); i++) {
+                    int fold = folds[i];
+                    int[] neighbors = BruteForce.neighbors(DATA, metricType, DATA.getMatrix(i), k, j -> folds[j] != fold);
+                    if (BruteForce.vote(DATA, neighbors) != DATA.getLabel(i)) errors++;
+                }
+
+                assertEquals(errors, result.getNumberOfErrors(k), metricType + ", k=" + k);
+            }
+        }
+    }
+
+    @Test
+    void leaveOneOutCountsTheBruteForceErrors() {
+        for (MetricTypes metricType : MetricTypes.values()) {
+            CrossValidationResult result = CrossValidation.leaveOneOut(DATA, metricType, MAX_K);
+
+            for (int k = 1; k <= MAX_K; k++) {
+                int errors = 0;
+                for (int i = 0; i < DATA.size(); i++) {
+                    int self = i;
+                    int[] neighbors = BruteForce.neighbors(DATA, metricType, DATA.getMatrix(i), k, j -> j != self);
+                    if (BruteForce.vote(DATA, neighbors) != DATA.getLabel(i)) errors++;
+                }
+
+                assertEquals(errors, result.getNumberOfErrors(k), metricType + ", k=" + k);
+            }
+        }
+    }
+}
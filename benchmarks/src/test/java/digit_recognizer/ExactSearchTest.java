@@ -0,0 +1,82 @@
+package digit_recognizer;
+
+import org.junit.jupiter.api.Test;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <h1>Exact indexes against the brute-force search.</h1>
+ * <p>
+ * The linear scan, the vantage-point tree and the cascade are exact. The inverted file with every cell probed and
+ * the fingerprint index with a shortlist of all training images must be exact as well. All of them have to return
+ * the neighbors and labels of {@link BruteForce}, also through {@link Recognizer#recognizeBatch}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+class ExactSearchTest {
+
+    private static final MnistDataSet TRAIN_DATA = BruteForce.tiedData(300, 1);
+    private static final MnistMatrix[] QUERIES = BruteForce.tiedData(120, 2).toMatrices();
+    private static final int[] KS = {1, 4, 9};
+
+    private static Map<String, NeighborIndexFactory> exactIndexes() {
+        DistanceKernel kernel = DistanceKernels.getDefault();
+        Map<String, NeighborIndexFactory> factories = new LinkedHashMap<>();
+        factories.put("linear scan", LinearScanIndex.factory());
+        factories.put("vantage-point tree", (trainData, metricType) -> new VantagePointTreeIndex(trainData, metricType, kernel, 4));
+        factories.put("cascade", (trainData, metricType) -> new CascadeIndex(trainData, metricType, kernel, 4, 2));
+        factories.put("inverted file, all cells", (trainData, metricType) ->
+                new InvertedFileIndex(trainData, metricType, kernel, 8, 8, 5, 7));
+        factories.put("fingerprint, full shortlist", (trainData, metricType) ->
+                new FingerprintIndex(trainData, metricType, kernel, trainData.size(), FingerprintIndex.DEFAULT_THRESHOLD));
+        return factories;
+    }
+
+    @Test
+    void exactIndexesFindTheBruteForceNeighbors() {
+        for (Map.Entry<String, NeighborIndexFactory> factory : exactIndexes().entrySet()) {
+            for (MetricTypes metricType : MetricTypes.values()) {
+                for (int k : KS) {
+                    Recognizer recognizer = new Recognizer(k, metricType, TRAIN_DATA, factory.getValue());
+                    for (int i = 0; i < QUERIES.length; i++) {
+                        String message = factory.getKey() + ", " + metricType + ", k=" + k + ", query " + i;
+                        int[] expected = BruteForce.neighbors(TRAIN_DATA, metricType, QUERIES[i], k);
+                        assertArrayEquals(expected, recognizer.findNeighbors(QUERIES[i]), message);
+                        assertEquals(BruteForce.vote(TRAIN_DATA, expected), recognizer.recognize(QUERIES[i]), message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void recognizeBatchVotesLikeBruteForce() {
+        for (Map.Entry<String, NeighborIndexFactory> factory : exactIndexes().entrySet()) {
+            for (MetricTypes metricType : MetricTypes.values()) {
+                for (int k : KS) {
+                    int[] expected = new int[QUERIES.length];
+                    for (int i = 0; i < QUERIES.length; i++)
+                        expected[i] = BruteForce.recognize(TRAIN_DATA, metricType, QUERIES[i], k);
+
+                    String message = factory.getKey() + ", " + metricType + ", k=" + k;
+                    Recognizer recognizer = new Recognizer(k, metricType, TRAIN_DATA, factory.getValue());
+                    recognizer.setQueryBlockSize(16);
+                    assertArrayEquals(expected, recognizer.recognizeBatch(QUERIES), message);
+
+                    recognizer.setParallelism(3);
+                    assertArrayEquals(expected, recognizer.recognizeBatch(QUERIES), message + ", 3 threads");
+                    recognizer.setParallelism(1);
+                    assertArrayEquals(expected, recognizer.recognizeBatch(QUERIES), message + ", 1 thread");
+                }
+            }
+        }
+    }
+}
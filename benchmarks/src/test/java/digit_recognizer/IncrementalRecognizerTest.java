@@ -0,0 +1,81 @@
+package digit_recognizer;
+
+import org.junit.jupiter.api.Test;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * <h1>Incremental recognizer against the brute-force search.</h1>
+ * <p>
+ * After removes, with deleted images still in their segments and again after compaction, the recognizer has to
+ * return the neighbors and labels of {@link BruteForce} over its live images.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+class IncrementalRecognizerTest {
+
+    private static final MnistDataSet TRAIN_DATA = BruteForce.tiedData(320, 1);
+    private static final MnistMatrix[] QUERIES = BruteForce.tiedData(120, 2).toMatrices();
+
+    @Test
+    void searchesLiveImagesAfterRemovesAndCompaction() {
+        for (MetricTypes metricType : MetricTypes.values()) {
+            for (int k : new int[]{1, 4, 9}) {
+                IncrementalRecognizer recognizer = new IncrementalRecognizer(k, metricType, BruteForce.SIDE, BruteForce.SIDE,
+                        LinearScanIndex.factory(), 64);
+                try {
+                    long[] ids = recognizer.appendAll(TRAIN_DATA);
+                    // without the background maintenance every removed image is compacted below
+                    recognizer.close();
+
+                    // five full segments, every third image and most of the second and third ones are removed
+                    List<Long> live = new ArrayList<>();
+                    for (int i = 0; i < ids.length; i++) {
+                        if (i % 3 == 0 || (i >= 70 && i < 180)) assertTrue(recognizer.remove(ids[i]));
+                        else live.add(ids[i]);
+                    }
+
+                    String message = metricType + ", k=" + k;
+                    assertMatchesBruteForce(recognizer, live, metricType, k, message + ", after removes");
+
+                    // the first run seals the full segments, the second one compacts them
+                    recognizer.compact();
+                    recognizer.compact();
+                    assertEquals(live.size(), recognizer.size(), message);
+                    assertEquals(0, recognizer.getNumberOfDeleted(), message);
+                    assertMatchesBruteForce(recognizer, live, metricType, k, message + ", after compaction");
+                } finally {
+                    recognizer.close();
+                }
+            }
+        }
+    }
+
+    private static void assertMatchesBruteForce(IncrementalRecognizer recognizer, List<Long> live, MetricTypes metricType,
+                                                int k, String message) {
+        MnistDataSet liveData = recognizer.toDataSet();
+        assertEquals(live.size(), liveData.size(), message);
+
+        int[] expectedLabels = new int[QUERIES.length];
+        for (int i = 0; i < QUERIES.length; i++) {
+            int[] neighbors = BruteForce.neighbors(liveData, metricType, QUERIES[i], k);
+            long[] expectedIds = new long[neighbors.length];
+            for (int j = 0; j < neighbors.length; j++) expectedIds[j] = live.get(neighbors[j]);
+            expectedLabels[i] = BruteForce.vote(liveData, neighbors);
+
+            assertArrayEquals(expectedIds, recognizer.findNeighbors(QUERIES[i]), message + ", query " + i);
+            assertEquals(expectedLabels[i], recognizer.recognize(QUERIES[i]), message + ", query " + i);
+        }
+
+        assertArrayEquals(expectedLabels, recognizer.recognizeBatch(QUERIES), message);
+    }
+}
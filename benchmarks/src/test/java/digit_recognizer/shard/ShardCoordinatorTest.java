@@ -0,0 +1,72 @@
+package digit_recognizer.shard;
+
+import digit_recognizer.BruteForce;
+import digit_recognizer.MetricTypes;
+import digit_recognizer.Recognizer;
+import org.junit.jupiter.api.Test;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * <h1>Sharded recognition against the brute-force search.</h1>
+ * <p>
+ * Three local {@link ShardWorker}s hold consecutive parts of the training data. The {@link ShardCoordinator}
+ * has to merge their neighbors into the neighbors and labels of {@link BruteForce} over the whole data.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+class ShardCoordinatorTest {
+
+    private static final MnistDataSet TRAIN_DATA = BruteForce.tiedData(300, 1);
+    private static final MnistMatrix[] QUERIES = BruteForce.tiedData(120, 2).toMatrices();
+    private static final int NUMBER_OF_SHARDS = 3;
+
+    @Test
+    void threeShardsFindTheBruteForceNeighbors() throws IOException {
+        for (MetricTypes metricType : MetricTypes.values()) {
+            List<ShardWorker> workers = new ArrayList<>();
+            List<InetSocketAddress> addresses = new ArrayList<>();
+            try {
+                for (int shard = 0; shard < NUMBER_OF_SHARDS; shard++) {
+                    int from = ShardWorker.shardStart(TRAIN_DATA.size(), shard, NUMBER_OF_SHARDS);
+                    int to = ShardWorker.shardStart(TRAIN_DATA.size(), shard + 1, NUMBER_OF_SHARDS);
+                    Recognizer recognizer = new Recognizer(1, metricType, TRAIN_DATA.subset(IntStream.range(from, to).toArray()));
+
+                    ShardWorker worker = new ShardWorker(recognizer, from, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                    workers.add(worker);
+                    addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), worker.getPort()));
+                }
+
+                for (int k : new int[]{1, 4, 9}) {
+                    try (ShardCoordinator coordinator = new ShardCoordinator(addresses, k, 10000, ShardFailurePolicies.FAIL)) {
+                        int[] expectedLabels = new int[QUERIES.length];
+                        for (int i = 0; i < QUERIES.length; i++) {
+                            String message = metricType + ", k=" + k + ", query " + i;
+                            int[] expected = BruteForce.neighbors(TRAIN_DATA, metricType, QUERIES[i], k);
+                            expectedLabels[i] = BruteForce.vote(TRAIN_DATA, expected);
+
+                            assertArrayEquals(expected, coordinator.findNeighbors(QUERIES[i]), message);
+                            assertEquals(expectedLabels[i], coordinator.recognize(QUERIES[i]), message);
+                        }
+
+                        assertArrayEquals(expectedLabels, coordinator.recognizeBatch(QUERIES), metricType + ", k=" + k);
+                    }
+                }
+            } finally {
+                for (ShardWorker worker : workers) worker.close();
+            }
+        }
+    }
+}
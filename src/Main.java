@@ -1,9 +1,13 @@
+import digit_recognizer.AutoTuner;
 import digit_recognizer.MetricTypes;
 import digit_recognizer.Recognizer;
+import digit_recognizer.TuningProfile;
 import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistDataSet;
 import utils.mnist_data_io.MnistMatrix;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 
 public class Main {
 
@@ -13,11 +17,17 @@ public class Main {
         MnistDataReader mnistDataReader = new MnistDataReader();
 
         // Load training and test images.
-        MnistMatrix[] trainMatrices = mnistDataReader.readData("./MNIST/train-images.idx3-ubyte", "./MNIST/train-labels.idx1-ubyte");
+        MnistDataSet trainData = mnistDataReader.readDataSet("./MNIST/train-images.idx3-ubyte", "./MNIST/train-labels.idx1-ubyte");
         MnistMatrix[] testMatrices = mnistDataReader.readData("./MNIST/t10k-images.idx3-ubyte", "./MNIST/t10k-labels.idx1-ubyte");
 
         // Create recognizer instance.
-        Recognizer recognizer = new Recognizer(20, MetricTypes.TAXICAB, trainMatrices);
+        Recognizer recognizer = new Recognizer(20, MetricTypes.TAXICAB, trainData);
+
+        // Load the tuning profile of this host or tune a new one, then apply it.
+        TuningProfile profile = AutoTuner.loadOrTune(Paths.get("./tuning.properties"), trainData, recognizer.getMetricType(),
+                recognizer.getK(), AutoTuner.calibrationQueries(testMatrices), System.out);
+        System.out.println(profile);
+        profile.apply(recognizer);
 
         // Get one matrix for recognition.
         MnistMatrix firstMnistMatrix = testMatrices[0];
@@ -26,7 +36,7 @@ public class Main {
         System.out.println("Selected digit: " + firstMnistMatrix.getLabel());
         System.out.println("Recognized digit: " + recognizer.recognize(firstMnistMatrix));
 
-        // To check error rate.
-        recognizer.checkErrorRate(testMatrices, 4);
+        // To check error rate and wait for the result.
+        recognizer.checkErrorRate(testMatrices, recognizer.getParallelism()).join();
     }
 }
\ No newline at end of file
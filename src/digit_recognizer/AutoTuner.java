@@ -0,0 +1,288 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * <h1>Startup auto-tuner of the {@link Recognizer}.</h1>
+ * <p>
+ * The fastest configuration depends on the number of cores, the cache sizes and the size of the training set,
+ * so it is measured on the host instead of hard-coded. Short calibration runs of {@link Recognizer#recognizeBatch}
+ * tune one parameter at a time, keeping the best value of every step:
+ * <ol>
+ *     <li>the {@link DistanceKernel}, scalar or vector;</li>
+ *     <li>the size of a tile of training data of {@link LinearScanIndex}, around the L2 cache size if it is known;</li>
+ *     <li>the number of queries recognized together;</li>
+ *     <li>the engine, see {@link EngineTypes};</li>
+ *     <li>the number of threads, the smallest one within {@link AutoTuner#THREADS_TOLERANCE} of the fastest wins.</li>
+ * </ol>
+ * Only exact engines are tuned, so the chosen configuration never changes results, only the speed.
+ * Every run is measured {@link AutoTuner#REPETITIONS} times after a warm-up run and the fastest one counts.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class AutoTuner {
+
+    /** Number of measured runs of every configuration.
+     * */
+    private static final int REPETITIONS = 2;
+
+    /** Fewer threads are chosen if their throughput is at most this fraction below the fastest one,
+     * it leaves cores to the rest of the service.
+     * */
+    private static final double THREADS_TOLERANCE = 0.03;
+
+    /** Tried sizes in bytes of a tile of training data.
+     * */
+    private static final int[] TRAIN_BLOCK_BYTES = {32 * 1024, 64 * 1024, 128 * 1024, 192 * 1024, 256 * 1024, 512 * 1024, 1024 * 1024};
+
+    /** Tried numbers of queries recognized together.
+     * */
+    private static final int[] QUERY_BLOCK_SIZES = {8, 16, 32, 64, 128};
+
+    /** Minimal number of calibration queries.
+     * */
+    private static final int MIN_CALIBRATION_QUERIES = 128;
+
+    /** Number of calibration queries per processor.
+     * */
+    private static final int CALIBRATION_QUERIES_PER_PROCESSOR = 32;
+
+    private AutoTuner() {}
+
+    /** Loads the profile or, if it doesn't exist or was tuned for another host or recognizer, tunes and stores a new one.
+     *
+     * @param path the properties file of the profile.
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param k the number of neighbors.
+     * @param queries calibration queries, see {@link AutoTuner#calibrationQueries(MnistMatrix[])}.
+     * @param log where the calibration runs are printed, may be null.
+     * @throws IOException if the new profile can't be stored.
+     * @return {@link TuningProfile}.
+     * */
+    public static TuningProfile loadOrTune(Path path, MnistDataSet trainData, MetricTypes metricType, int k,
+                                           MnistMatrix[] queries, PrintStream log) throws IOException {
+        if (Files.exists(path)) {
+            try {
+                TuningProfile profile = TuningProfile.load(path);
+                if (profile.matches(trainData, metricType, k)) {
+                    if (log != null) log.println("Loaded tuning profile " + path);
+                    return profile;
+                }
+                if (log != null) log.println("Tuning profile " + path + " was tuned for another host or recognizer");
+            } catch (IOException e) {
+                if (log != null) log.println(e.getMessage());
+            }
+        }
+
+        TuningProfile profile = tune(trainData, metricType, k, queries, log);
+        profile.store(path);
+        return profile;
+    }
+
+    /** Measures configurations on this host and returns the fastest one.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param k the number of neighbors.
+     * @param queries calibration queries, see {@link AutoTuner#calibrationQueries(MnistMatrix[])}.
+     * @param log where the calibration runs are printed, may be null.
+     * @throws IllegalArgumentException if there are no queries.
+     * @return {@link TuningProfile}.
+     * */
+    public static TuningProfile tune(MnistDataSet trainData, MetricTypes metricType, int k, MnistMatrix[] queries, PrintStream log) {
+        if (queries.length == 0) throw new IllegalArgumentException("At least one calibration query is needed");
+
+        int processors = Runtime.getRuntime().availableProcessors();
+        long l2CacheBytes = l2CacheBytes();
+        Recognizer recognizer = new Recognizer(k, metricType, trainData);
+        ForkJoinPool pool = new ForkJoinPool(processors);
+
+        try {
+            if (log != null) log.println("Tuning on " + processors + " processors, L2 cache: "
+                    + (l2CacheBytes < 0 ? "unknown" : l2CacheBytes / 1024 + "KiB") + ", " + trainData.size() + " training images");
+
+            String kernel = "scalar";
+            int trainBlockBytes = LinearScanIndex.DEFAULT_TRAIN_BLOCK_BYTES;
+            int queryBlockSize = Recognizer.DEFAULT_QUERY_BLOCK_SIZE;
+            EngineTypes engine = EngineTypes.LINEAR_SCAN;
+            double best = 0;
+
+            List<String> kernels = new ArrayList<>(List.of("scalar"));
+            if (DistanceKernels.isVectorAvailable()) kernels.add("vector");
+            for (String candidate : kernels) {
+                double speed = measure(recognizer, pool, engine, candidate, trainBlockBytes, queryBlockSize, queries, log);
+                if (speed > best) {
+                    best = speed;
+                    kernel = candidate;
+                }
+            }
+
+            for (int candidate : trainBlockCandidates(l2CacheBytes)) {
+                if (candidate == LinearScanIndex.DEFAULT_TRAIN_BLOCK_BYTES) continue;
+                double speed = measure(recognizer, pool, engine, kernel, candidate, queryBlockSize, queries, log);
+                if (speed > best) {
+                    best = speed;
+                    trainBlockBytes = candidate;
+                }
+            }
+
+            for (int candidate : QUERY_BLOCK_SIZES) {
+                if (candidate == Recognizer.DEFAULT_QUERY_BLOCK_SIZE) continue;
+                double speed = measure(recognizer, pool, engine, kernel, trainBlockBytes, candidate, queries, log);
+                if (speed > best) {
+                    best = speed;
+                    queryBlockSize = candidate;
+                }
+            }
+
+            for (EngineTypes candidate : EngineTypes.values()) {
+                if (candidate == EngineTypes.LINEAR_SCAN) continue;
+                try {
+                    double speed = measure(recognizer, pool, candidate, kernel, trainBlockBytes, queryBlockSize, queries, log);
+                    if (speed > best) {
+                        best = speed;
+                        engine = candidate;
+                    }
+                } catch (IllegalArgumentException e) {
+                    if (log != null) log.println(candidate + " is not supported: " + e.getMessage());
+                }
+            }
+
+            recognizer.setIndexFactory(engine.factory(DistanceKernels.select(kernel), trainBlockBytes));
+            recognizer.setQueryBlockSize(queryBlockSize);
+            int numberOfThreads = processors;
+            double[] speeds = new double[processors + 1];
+            speeds[processors] = best;
+            for (int threads : threadCandidates(processors)) {
+                if (threads == processors) continue;
+                ForkJoinPool threadsPool = new ForkJoinPool(threads);
+                try {
+                    speeds[threads] = measure(recognizer, threadsPool, queries);
+                } finally {
+                    threadsPool.shutdown();
+                }
+                if (log != null) log.printf("  %d threads: %.0f queries/s%n", threads, speeds[threads]);
+                best = Math.max(best, speeds[threads]);
+            }
+            for (int threads : threadCandidates(processors)) {
+                if (speeds[threads] >= best * (1 - THREADS_TOLERANCE)) {
+                    numberOfThreads = threads;
+                    break;
+                }
+            }
+
+            TuningProfile profile = new TuningProfile(numberOfThreads, queryBlockSize, trainBlockBytes, kernel, engine,
+                    speeds[numberOfThreads], processors, l2CacheBytes, DistanceKernels.isVectorAvailable(), trainData.size(), trainData.getImageSize(), metricType, k);
+            if (log != null) log.println("Tuned: " + profile);
+            return profile;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /** Returns the calibration queries, enough of them to keep every processor busy.
+     *
+     * @param matrices test or training matrices.
+     * @return the first {@code max(128, 32 * processors)} matrices, or all of them.
+     * */
+    public static MnistMatrix[] calibrationQueries(MnistMatrix[] matrices) {
+        int count = Math.max(MIN_CALIBRATION_QUERIES, CALIBRATION_QUERIES_PER_PROCESSOR * Runtime.getRuntime().availableProcessors());
+        return Arrays.copyOf(matrices, Math.min(count, matrices.length));
+    }
+
+    /** Returns the size of the L2 cache of the first processor.
+     * <p>
+     * Read from {@code /sys/devices/system/cpu/cpu0/cache}, so it is only known on Linux.
+     *
+     * @return size in bytes, -1 if unknown.
+     * */
+    public static long l2CacheBytes() {
+        Path cache = Paths.get("/sys/devices/system/cpu/cpu0/cache");
+        for (int index = 0; index < 8; index++) {
+            Path directory = cache.resolve("index" + index);
+            try {
+                if (!Files.isDirectory(directory)) continue;
+                if (!Files.readString(directory.resolve("level")).trim().equals("2")) continue;
+                if (Files.readString(directory.resolve("type")).trim().equals("Instruction")) continue;
+
+                String size = Files.readString(directory.resolve("size")).trim().toUpperCase();
+                long multiplier = 1;
+                if (size.endsWith("K")) multiplier = 1024;
+                else if (size.endsWith("M")) multiplier = 1024 * 1024;
+                if (multiplier != 1) size = size.substring(0, size.length() - 1);
+                return Long.parseLong(size) * multiplier;
+            } catch (IOException | NumberFormatException e) {
+                // try the next cache
+            }
+        }
+        return -1;
+    }
+
+    /** Rebuilds the index of the recognizer with the given configuration and measures it.
+     *
+     * @return throughput, queries per second.
+     * */
+    private static double measure(Recognizer recognizer, ForkJoinPool pool, EngineTypes engine, String kernel,
+                                  int trainBlockBytes, int queryBlockSize, MnistMatrix[] queries, PrintStream log) {
+        recognizer.setIndexFactory(engine.factory(DistanceKernels.select(kernel), trainBlockBytes));
+        recognizer.setQueryBlockSize(queryBlockSize);
+        double speed = measure(recognizer, pool, queries);
+        if (log != null) log.printf("  %s, %s kernel, train block: %dKiB, query block: %d: %.0f queries/s%n",
+                engine, kernel, trainBlockBytes / 1024, queryBlockSize, speed);
+        return speed;
+    }
+
+    /** Runs a warm-up batch and then {@link AutoTuner#REPETITIONS} measured batches on the pool.
+     *
+     * @return throughput of the fastest batch, queries per second.
+     * */
+    private static double measure(Recognizer recognizer, ForkJoinPool pool, MnistMatrix[] queries) {
+        pool.submit(() -> recognizer.recognizeBatch(queries)).join();
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            pool.submit(() -> recognizer.recognizeBatch(queries)).join();
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return queries.length * 1e9 / Math.max(1, fastest);
+    }
+
+    /**
+     * @return the default sizes and, if the L2 cache size is known, a half and a quarter of it, in ascending order.
+     * */
+    private static int[] trainBlockCandidates(long l2CacheBytes) {
+        TreeSet<Integer> candidates = new TreeSet<>();
+        for (int candidate : TRAIN_BLOCK_BYTES) candidates.add(candidate);
+        if (l2CacheBytes > 0) {
+            candidates.add((int) Math.min(Integer.MAX_VALUE, l2CacheBytes / 2));
+            candidates.add((int) Math.min(Integer.MAX_VALUE, l2CacheBytes / 4));
+        }
+        return candidates.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return powers of two below the number of processors and the number of processors, in ascending order.
+     * */
+    private static int[] threadCandidates(int processors) {
+        TreeSet<Integer> candidates = new TreeSet<>();
+        for (int threads = 1; threads < processors; threads *= 2) candidates.add(threads);
+        candidates.add(processors);
+        return candidates.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,357 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Exact nearest neighbor index with a coarse-to-fine lower bound cascade.</h1>
+ * <p>
+ * For every training image the index precomputes pixel sums over square cells, by default 4x4 cells (a 7x7 grid)
+ * and 2x2 cells (a 14x14 grid) of a 28x28 image. Pooled sums give cheap lower bounds of the full distance:
+ * <ul>
+ *     <li>{@link MetricTypes#TAXICAB}: {@code sum |Sa - Sb|} over the cells, by the triangle inequality.</li>
+ *     <li>{@link MetricTypes#EUCLIDEAN}: {@code sum (Sa - Sb)^2 / m} over the cells, where {@code m} is the number
+ *     of pixels of a cell, by the Cauchy-Schwarz inequality.</li>
+ * </ul>
+ * Once k neighbors are found, a training image is rejected by the first level whose bound is strictly greater
+ * than the current k-th distance, and images that pass all levels get an early-abandoning full distance.
+ * Bounds are computed with integers, so results are identical to {@link LinearScanIndex}.
+ * Pooled sums are kept as ints, which the JIT compiler vectorizes better than shorts,
+ * so the default levels take {@code 245} ints per training image.
+ * The index counts images rejected by every level, see {@link CascadeIndex#getPrunedFraction(int)}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class CascadeIndex implements NeighborIndex {
+
+    /** Default cell sizes, from the coarsest level to the finest one.
+     * */
+    public static final int[] DEFAULT_CELL_SIZES = {4, 2};
+
+    /** Number of cells between two checks of a partial lower bound.
+     * */
+    private static final int CHECK_INTERVAL = 28;
+
+    /** Per-thread search buffers.
+     * */
+    private final ThreadLocal<Scratch> scratch;
+
+    /** Training data.
+     * */
+    private final MnistDataSet trainData;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The kernel that computes distances.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Side of the square cells of every level.
+     * */
+    private final int[] cellSizes;
+
+    /** Number of cells of every level.
+     * */
+    private final int[] numberOfCells;
+
+    /** Pooled sums of all training images for every level, {@link CascadeIndex#numberOfCells} values per image.
+     * */
+    private final int[][] pools;
+
+    /** Number of searches.
+     * */
+    private final LongAdder queries = new LongAdder();
+
+    /** Number of training images rejected by every level.
+     * */
+    private final LongAdder[] pruned;
+
+    /** Number of full distances started by all searches.
+     * */
+    private final LongAdder computedDistances = new LongAdder();
+
+    /** Number of full distances that exceeded the cutoff, most of them abandoned early.
+     * */
+    private final LongAdder abandonedDistances = new LongAdder();
+
+    /** Constructor for the {@link CascadeIndex} class.
+     *
+     * @param trainData {@link CascadeIndex#trainData description}.
+     * @param metricType {@link CascadeIndex#metricType description}.
+     * @param kernel {@link CascadeIndex#kernel description}.
+     * @param cellSizes {@link CascadeIndex#cellSizes description}, from the coarsest level to the finest one.
+     * @throws IllegalArgumentException if a cell size is not positive.
+     * */
+    public CascadeIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int... cellSizes) {
+        this(trainData, metricType, kernel, cellSizes.clone(), pools(trainData, cellSizes));
+    }
+
+    /** Constructor for the {@link CascadeIndex} class with precomputed pooled sums, used by {@link RecognizerSnapshot}.
+     *
+     * @param trainData {@link CascadeIndex#trainData description}.
+     * @param metricType {@link CascadeIndex#metricType description}.
+     * @param kernel {@link CascadeIndex#kernel description}.
+     * @param cellSizes {@link CascadeIndex#cellSizes description}.
+     * @param pools {@link CascadeIndex#pools description}.
+     * */
+    CascadeIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int[] cellSizes, int[][] pools) {
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.cellSizes = cellSizes;
+        this.pools = pools;
+        this.numberOfCells = new int[cellSizes.length];
+        this.pruned = new LongAdder[cellSizes.length];
+
+        for (int level = 0; level < cellSizes.length; level++) {
+            numberOfCells[level] = numberOfCells(trainData, cellSizes[level]);
+            pruned[level] = new LongAdder();
+        }
+
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(numberOfCells));
+    }
+
+    /**
+     * @return factory of {@link CascadeIndex} with {@link CascadeIndex#DEFAULT_CELL_SIZES}.
+     * */
+    public static NeighborIndexFactory factory() {
+        return factory(DEFAULT_CELL_SIZES);
+    }
+
+    /**
+     * @param cellSizes side of the square cells of every level, from the coarsest level to the finest one.
+     * @return factory of {@link CascadeIndex} that uses {@link DistanceKernels#getDefault()}.
+     * */
+    public static NeighborIndexFactory factory(int... cellSizes) {
+        int[] sizes = cellSizes.clone();
+        return (trainData, metricType) -> new CascadeIndex(trainData, metricType, DistanceKernels.getDefault(), sizes);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        Scratch scratch = this.scratch.get();
+        int[][] queryPool = scratch.queryPools;
+        for (int level = 0; level < cellSizes.length; level++)
+            pool(query, queryOffset, trainData.getNumberOfRows(), trainData.getNumberOfColumns(), cellSizes[level], queryPool[level]);
+
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+        int[] prunedByLevel = scratch.prunedByLevel;
+        Arrays.fill(prunedByLevel, 0);
+        int distances = 0;
+        int abandoned = 0;
+
+        candidates:
+        for (int i = 0; i < trainData.size(); i++) {
+            if (!neighbors.isFull()) {
+                neighbors.offer(kernel.distance(metricType, query, queryOffset, pixels, trainData.getOffset(i), imageSize), i);
+                distances++;
+                continue;
+            }
+
+            int cutoff = LinearScanIndex.cutoff(neighbors);
+            for (int level = 0; level < cellSizes.length; level++) {
+                if (exceedsCutoff(queryPool[level], level, i, cutoff)) {
+                    prunedByLevel[level]++;
+                    continue candidates;
+                }
+            }
+
+            int distance = kernel.distance(metricType, query, queryOffset, pixels, trainData.getOffset(i), imageSize, cutoff);
+            distances++;
+            if (distance > cutoff) abandoned++;
+            else neighbors.offer(distance, i);
+        }
+
+        queries.increment();
+        for (int level = 0; level < cellSizes.length; level++) pruned[level].add(prunedByLevel[level]);
+        computedDistances.add(distances);
+        abandonedDistances.add(abandoned);
+        return distances;
+    }
+
+    /**
+     * @param level level of the cascade, 0 is the coarsest one.
+     * @return fraction of all scanned training images rejected by the level.
+     * */
+    public double getPrunedFraction(int level) {
+        long scanned = queries.sum() * trainData.size();
+        return scanned == 0 ? 0 : (double) pruned[level].sum() / scanned;
+    }
+
+    /**
+     * @return fraction of all scanned training images whose full distance was not computed.
+     * */
+    public double getAvoidedFraction() {
+        long scanned = queries.sum() * trainData.size();
+        return scanned == 0 ? 0 : 1 - (double) computedDistances.sum() / scanned;
+    }
+
+    /**
+     * @return average number of full distances started per search.
+     * */
+    public double getAverageDistances() {
+        long count = queries.sum();
+        return count == 0 ? 0 : (double) computedDistances.sum() / count;
+    }
+
+    /**
+     * @return average number of full distances per search that exceeded the cutoff.
+     * */
+    public double getAverageAbandonedDistances() {
+        long count = queries.sum();
+        return count == 0 ? 0 : (double) abandonedDistances.sum() / count;
+    }
+
+    /**
+     * @return number of searches.
+     * */
+    public long getNumberOfQueries() {
+        return queries.sum();
+    }
+
+    /** Resets the search statistics.
+     * */
+    public void resetStatistics() {
+        queries.reset();
+        for (LongAdder adder : pruned) adder.reset();
+        computedDistances.reset();
+        abandonedDistances.reset();
+    }
+
+    /**
+     * @return copy of {@link CascadeIndex#cellSizes}.
+     * */
+    public int[] getCellSizes() {
+        return cellSizes.clone();
+    }
+
+    /**
+     * @return {@link CascadeIndex#pools}.
+     * */
+    int[][] getPools() {
+        return pools;
+    }
+
+    /**
+     * @return {@link CascadeIndex#kernel}.
+     * */
+    public DistanceKernel getKernel() {
+        return kernel;
+    }
+
+    /** Returns true if the lower bound of given level is strictly greater than the cutoff.
+     *
+     * @param queryPool pooled sums of the query.
+     * @param level level of the cascade.
+     * @param index training index.
+     * @param cutoff current k-th distance.
+     * @return true if the training image can't be a better neighbor.
+     * */
+    private boolean exceedsCutoff(int[] queryPool, int level, int index, int cutoff) {
+        int[] pool = pools[level];
+        int cells = numberOfCells[level];
+        int offset = index * cells;
+
+        if (metricType == MetricTypes.EUCLIDEAN) {
+            // sum (dS)^2 / m > cutoff, multiplied by the number of pixels m of a full cell
+            long limit = (long) cellSizes[level] * cellSizes[level] * cutoff;
+            long sum = 0;
+            for (int from = 0; from < cells; from += CHECK_INTERVAL) {
+                int to = Math.min(cells, from + CHECK_INTERVAL);
+                for (int cell = from; cell < to; cell++) {
+                    int difference = queryPool[cell] - pool[offset + cell];
+                    sum += (long) difference * difference;
+                }
+                if (sum > limit) return true;
+            }
+            return false;
+        }
+
+        int sum = 0;
+        for (int from = 0; from < cells; from += CHECK_INTERVAL) {
+            int to = Math.min(cells, from + CHECK_INTERVAL);
+            for (int cell = from; cell < to; cell++) sum += Math.abs(queryPool[cell] - pool[offset + cell]);
+            if (sum > cutoff) return true;
+        }
+        return false;
+    }
+
+    /** Returns pooled sums of all images of a data set for every level.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param cellSizes {@link CascadeIndex#cellSizes description}.
+     * @return {@link CascadeIndex#pools description}.
+     * @throws IllegalArgumentException if a cell size is not positive.
+     * */
+    private static int[][] pools(MnistDataSet data, int[] cellSizes) {
+        int[][] pools = new int[cellSizes.length][];
+
+        for (int level = 0; level < cellSizes.length; level++) {
+            int cellSize = cellSizes[level];
+            if (cellSize < 1) throw new IllegalArgumentException("Cell size must be positive, but got " + cellSize);
+
+            int cells = numberOfCells(data, cellSize);
+            int[] pool = new int[data.size() * cells];
+            int[] sums = new int[cells];
+
+            for (int i = 0; i < data.size(); i++) {
+                pool(data.getPixels(), data.getOffset(i), data.getNumberOfRows(), data.getNumberOfColumns(), cellSize, sums);
+                System.arraycopy(sums, 0, pool, i * cells, cells);
+            }
+
+            pools[level] = pool;
+        }
+
+        return pools;
+    }
+
+    /** Sums pixels of an image over square cells.
+     *
+     * @param pixels block of unsigned pixels.
+     * @param offset offset of the image in the block.
+     * @param nRows number of rows of the image.
+     * @param nCols number of columns of the image.
+     * @param cellSize side of the cells.
+     * @param sums array the cell sums are written to.
+     * */
+    private static void pool(byte[] pixels, int offset, int nRows, int nCols, int cellSize, int[] sums) {
+        int cellCols = ceilDiv(nCols, cellSize);
+
+        Arrays.fill(sums, 0);
+        for (int row = 0; row < nRows; row++) {
+            int rowOffset = offset + row * nCols;
+            int cellRow = (row / cellSize) * cellCols;
+            for (int col = 0; col < nCols; col++)
+                sums[cellRow + col / cellSize] += pixels[rowOffset + col] & 0xFF;
+        }
+    }
+
+    private static int numberOfCells(MnistDataSet data, int cellSize) {
+        return ceilDiv(data.getNumberOfRows(), cellSize) * ceilDiv(data.getNumberOfColumns(), cellSize);
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    /** Per-thread search buffers.
+     * */
+    private static final class Scratch {
+
+        private final int[][] queryPools;
+        private final int[] prunedByLevel;
+
+        private Scratch(int[] numberOfCells) {
+            this.queryPools = new int[numberOfCells.length][];
+            for (int level = 0; level < numberOfCells.length; level++) queryPools[level] = new int[numberOfCells[level]];
+            this.prunedByLevel = new int[numberOfCells.length];
+        }
+    }
+}
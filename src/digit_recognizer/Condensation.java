@@ -0,0 +1,188 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Training set condensation, prototype selection.</h1>
+ * <p>
+ * Most training images lie deep inside the region of their digit and never decide a vote,
+ * yet every query computes its distance to all of them. Condensation keeps only the prototypes that do.
+ * <ol>
+ *     <li>Wilson's editing, {@link Condensation#edit}, first removes images that are recognized wrongly
+ *     by their k nearest other images, which are mostly noise and outliers.</li>
+ *     <li>Hart's Condensed Nearest Neighbor, {@link Condensation#condense}, then keeps a subset that recognizes
+ *     every remaining image correctly with 1-NN: images are added to the subset only if the subset recognizes them wrongly,
+ *     passes are repeated until no image is added.</li>
+ * </ol>
+ * Editing reuses the {@link NeighborGraph}, which computes every distance once in parallel.
+ * Hart's passes process images in chunks: the nearest prototype of every image of a chunk is updated in parallel,
+ * then misclassified images are added in order, checked against the prototypes added before them in the chunk.
+ * Every image remembers its nearest prototype, so a distance between an image and a prototype is computed at most once
+ * over all passes. Ties are broken by the same rule as {@link NeighborHeap}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class Condensation {
+
+    /** Number of images whose nearest prototypes are updated in parallel before any of them is added.
+     * */
+    private static final int CHUNK_SIZE = 1024;
+
+    private Condensation() {}
+
+    /** Edits and condenses the data set with {@link DistanceKernels#getDefault()}.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param metricType {@link MetricTypes}.
+     * @param editK the number of neighbors of Wilson's editing, 0 to skip editing.
+     * @return {@link CondensationResult}.
+     * */
+    public static CondensationResult run(MnistDataSet data, MetricTypes metricType, int editK) {
+        return run(data, metricType, editK, DistanceKernels.getDefault());
+    }
+
+    /** Edits and condenses the data set.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param metricType {@link MetricTypes}.
+     * @param editK the number of neighbors of Wilson's editing, 0 to skip editing.
+     * @param kernel {@link DistanceKernel} to use.
+     * @return {@link CondensationResult}.
+     * */
+    public static CondensationResult run(MnistDataSet data, MetricTypes metricType, int editK, DistanceKernel kernel) {
+        if (editK < 0) throw new IllegalArgumentException("editK must not be negative, but got " + editK);
+
+        long start = System.nanoTime();
+        int[] edited = editK == 0 ? identity(data.size()) : edit(data, metricType, editK, kernel);
+        long middle = System.nanoTime();
+        int[] prototypes = condense(data, edited, metricType, kernel);
+        long end = System.nanoTime();
+
+        return new CondensationResult(data.size(), edited.length, prototypes, data.subset(prototypes), middle - start, end - middle);
+    }
+
+    /** Returns images kept by Wilson's editing.
+     * <p>
+     * An image is kept if the vote of its k nearest other images, by the rules of {@link Recognizer}, equals its label.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param metricType {@link MetricTypes}.
+     * @param k the number of neighbors.
+     * @param kernel {@link DistanceKernel} to use.
+     * @return indices of kept images, in ascending order.
+     * */
+    public static int[] edit(MnistDataSet data, MetricTypes metricType, int k, DistanceKernel kernel) {
+        NeighborGraph graph = NeighborGraph.build(data, metricType, k, null, kernel);
+
+        boolean[] kept = new boolean[data.size()];
+        IntStream.range(0, data.size()).parallel().forEach(row -> {
+            int[] neighborLabels = new int[graph.getNumberOfNeighbors(row)];
+            for (int i = 0; i < neighborLabels.length; i++) neighborLabels[i] = data.getLabel(graph.getNeighbor(row, i));
+            double[] votes = new double[data.getNumberOfClasses()];
+            kept[row] = Recognizer.majority(neighborLabels, neighborLabels.length, votes) == data.getLabel(row);
+        });
+
+        return IntStream.range(0, data.size()).filter(row -> kept[row]).toArray();
+    }
+
+    /** Returns prototypes selected by Hart's Condensed Nearest Neighbor.
+     * <p>
+     * Every candidate is recognized correctly by its nearest prototype.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param candidates indices of images to condense, in the order they are visited.
+     * @param metricType {@link MetricTypes}.
+     * @param kernel {@link DistanceKernel} to use.
+     * @return indices of prototypes, in the order they were selected.
+     * */
+    public static int[] condense(MnistDataSet data, int[] candidates, MetricTypes metricType, DistanceKernel kernel) {
+        int n = candidates.length;
+        if (n == 0) return new int[0];
+
+        int[] prototypes = new int[n];
+        boolean[] selected = new boolean[n];
+        int[] nearestDistances = new int[n];
+        int[] nearestPrototypes = new int[n];
+        int[] checked = new int[n];
+        Arrays.fill(nearestDistances, Integer.MAX_VALUE);
+        Arrays.fill(nearestPrototypes, -1);
+
+        prototypes[0] = candidates[0];
+        selected[0] = true;
+        int numberOfPrototypes = 1;
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            for (int chunkStart = 0; chunkStart < n; chunkStart += CHUNK_SIZE) {
+                int chunkEnd = Math.min(chunkStart + CHUNK_SIZE, n);
+                int known = numberOfPrototypes;
+
+                IntStream.range(chunkStart, chunkEnd).parallel().forEach(c -> {
+                    if (!selected[c]) updateNearest(data, metricType, kernel, candidates[c], prototypes, known, c,
+                            nearestDistances, nearestPrototypes, checked);
+                });
+
+                for (int c = chunkStart; c < chunkEnd; c++) {
+                    if (selected[c]) continue;
+                    updateNearest(data, metricType, kernel, candidates[c], prototypes, numberOfPrototypes, c,
+                            nearestDistances, nearestPrototypes, checked);
+
+                    if (data.getLabel(nearestPrototypes[c]) != data.getLabel(candidates[c])) {
+                        prototypes[numberOfPrototypes++] = candidates[c];
+                        selected[c] = true;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOf(prototypes, numberOfPrototypes);
+    }
+
+    /** Compares a candidate with prototypes it was not compared with yet.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param kernel {@link DistanceKernel} to use.
+     * @param image index of the candidate image.
+     * @param prototypes indices of prototypes.
+     * @param numberOfPrototypes number of prototypes to compare with.
+     * @param c position of the candidate.
+     * @param nearestDistances distance to the nearest prototype of every candidate.
+     * @param nearestPrototypes index of the nearest prototype of every candidate.
+     * @param checked number of prototypes every candidate was compared with.
+     * */
+    private static void updateNearest(MnistDataSet data, MetricTypes metricType, DistanceKernel kernel, int image,
+                                      int[] prototypes, int numberOfPrototypes, int c,
+                                      int[] nearestDistances, int[] nearestPrototypes, int[] checked) {
+        byte[] pixels = data.getPixels();
+        int offset = data.getOffset(image);
+        int nearestDistance = nearestDistances[c];
+        int nearestPrototype = nearestPrototypes[c];
+
+        for (int p = checked[c]; p < numberOfPrototypes; p++) {
+            int prototype = prototypes[p];
+            int distance = kernel.distance(metricType, pixels, offset, pixels, data.getOffset(prototype), data.getImageSize(), nearestDistance);
+            if (distance > nearestDistance) continue;
+            if (nearestPrototype == -1 || NeighborHeap.isWorse(nearestDistance, nearestPrototype, distance, prototype)) {
+                nearestDistance = distance;
+                nearestPrototype = prototype;
+            }
+        }
+
+        nearestDistances[c] = nearestDistance;
+        nearestPrototypes[c] = nearestPrototype;
+        checked[c] = numberOfPrototypes;
+    }
+
+    private static int[] identity(int size) {
+        return IntStream.range(0, size).toArray();
+    }
+}
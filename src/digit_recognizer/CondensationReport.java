@@ -0,0 +1,189 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistMatrix;
+
+/**
+ * <h1>Accuracy and speed report of a condensed training set.</h1>
+ * <p>
+ * Recognizes the same test matrices with a {@link Recognizer} over the original training data
+ * and with one over the prototypes of {@link Condensation}: sizes of both training sets,
+ * error rates and wall clock times of {@link Recognizer#recognizeBatch}.
+ * <br>
+ * Both recognizers first run once untimed, so neither pays the JIT warm-up, then timed runs alternate
+ * between them and the fastest run of each is reported.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class CondensationReport {
+
+    /** Number of timed runs of every recognizer, the fastest one is reported.
+     * */
+    private static final int REPETITIONS = 3;
+
+    /** Number of recognized test matrices.
+     * */
+    private final int numberOfMatrices;
+
+    /** Number of training images of the original recognizer.
+     * */
+    private final int originalSize;
+
+    /** Number of training images of the condensed recognizer.
+     * */
+    private final int condensedSize;
+
+    /** Error rate of the original recognizer, in percent.
+     * */
+    private final double originalErrorRate;
+
+    /** Error rate of the condensed recognizer, in percent.
+     * */
+    private final double condensedErrorRate;
+
+    /** Fastest wall clock time of the original recognizer in nanoseconds.
+     * */
+    private final long originalNanos;
+
+    /** Fastest wall clock time of the condensed recognizer in nanoseconds.
+     * */
+    private final long condensedNanos;
+
+    /** Constructor for the {@link CondensationReport} class.
+     *
+     * @param numberOfMatrices {@link CondensationReport#numberOfMatrices description}.
+     * @param originalSize {@link CondensationReport#originalSize description}.
+     * @param condensedSize {@link CondensationReport#condensedSize description}.
+     * @param originalErrorRate {@link CondensationReport#originalErrorRate description}.
+     * @param condensedErrorRate {@link CondensationReport#condensedErrorRate description}.
+     * @param originalNanos {@link CondensationReport#originalNanos description}.
+     * @param condensedNanos {@link CondensationReport#condensedNanos description}.
+     * */
+    public CondensationReport(int numberOfMatrices, int originalSize, int condensedSize, double originalErrorRate,
+                              double condensedErrorRate, long originalNanos, long condensedNanos) {
+        this.numberOfMatrices = numberOfMatrices;
+        this.originalSize = originalSize;
+        this.condensedSize = condensedSize;
+        this.originalErrorRate = originalErrorRate;
+        this.condensedErrorRate = condensedErrorRate;
+        this.originalNanos = originalNanos;
+        this.condensedNanos = condensedNanos;
+    }
+
+    /** Recognizes the test matrices with both recognizers.
+     * <p>
+     * Error rates come from the untimed warm-up runs, times are the best of {@link CondensationReport#REPETITIONS}
+     * alternating runs. The recognizers should have no {@link RecognitionCache}, repeated runs would be answered from it.
+     *
+     * @param original {@link Recognizer} over the original training data.
+     * @param condensed {@link Recognizer} over the prototypes.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels.
+     * @return {@link CondensationReport}.
+     * */
+    public static CondensationReport compare(Recognizer original, Recognizer condensed, MnistMatrix[] testMatrices) {
+        int[] originalLabels = original.recognizeBatch(testMatrices);
+        int[] condensedLabels = condensed.recognizeBatch(testMatrices);
+
+        long originalNanos = Long.MAX_VALUE, condensedNanos = Long.MAX_VALUE;
+        for (int i = 0; i < REPETITIONS; i++) {
+            long start = System.nanoTime();
+            original.recognizeBatch(testMatrices);
+            long middle = System.nanoTime();
+            condensed.recognizeBatch(testMatrices);
+            long end = System.nanoTime();
+
+            originalNanos = Math.min(originalNanos, middle - start);
+            condensedNanos = Math.min(condensedNanos, end - middle);
+        }
+
+        int originalErrors = 0, condensedErrors = 0;
+        for (int i = 0; i < testMatrices.length; i++) {
+            if (originalLabels[i] != testMatrices[i].getLabel()) originalErrors++;
+            if (condensedLabels[i] != testMatrices[i].getLabel()) condensedErrors++;
+        }
+
+        int n = Math.max(1, testMatrices.length);
+        return new CondensationReport(testMatrices.length, original.getTrainData().size(), condensed.getTrainData().size(),
+                100d * originalErrors / n, 100d * condensedErrors / n, originalNanos, condensedNanos);
+    }
+
+    /**
+     * @return {@link CondensationReport#numberOfMatrices}.
+     * */
+    public int getNumberOfMatrices() {
+        return numberOfMatrices;
+    }
+
+    /**
+     * @return {@link CondensationReport#originalSize}.
+     * */
+    public int getOriginalSize() {
+        return originalSize;
+    }
+
+    /**
+     * @return {@link CondensationReport#condensedSize}.
+     * */
+    public int getCondensedSize() {
+        return condensedSize;
+    }
+
+    /**
+     * @return original number of training images divided by the condensed one.
+     * */
+    public double getReduction() {
+        return condensedSize == 0 ? 0 : (double) originalSize / condensedSize;
+    }
+
+    /**
+     * @return {@link CondensationReport#originalErrorRate}.
+     * */
+    public double getOriginalErrorRate() {
+        return originalErrorRate;
+    }
+
+    /**
+     * @return {@link CondensationReport#condensedErrorRate}.
+     * */
+    public double getCondensedErrorRate() {
+        return condensedErrorRate;
+    }
+
+    /**
+     * @return difference of error rates, condensed minus original, in percentage points.
+     * */
+    public double getErrorRateDelta() {
+        return condensedErrorRate - originalErrorRate;
+    }
+
+    /**
+     * @return {@link CondensationReport#originalNanos}.
+     * */
+    public long getOriginalNanos() {
+        return originalNanos;
+    }
+
+    /**
+     * @return {@link CondensationReport#condensedNanos}.
+     * */
+    public long getCondensedNanos() {
+        return condensedNanos;
+    }
+
+    /**
+     * @return wall clock time of the original recognizer divided by the condensed one.
+     * */
+    public double getSpeedup() {
+        return condensedNanos == 0 ? 0 : (double) originalNanos / condensedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Matrices: %d, training images: %d original, %d condensed (x%.1f smaller), "
+                        + "error rate: %.2f%% original, %.2f%% condensed (%+.2f), time: %.2fs original, %.2fs condensed (x%.1f)",
+                numberOfMatrices, originalSize, condensedSize, getReduction(),
+                originalErrorRate, condensedErrorRate, getErrorRateDelta(),
+                originalNanos / 1e9, condensedNanos / 1e9, getSpeedup());
+    }
+}
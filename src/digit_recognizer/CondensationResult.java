@@ -0,0 +1,120 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+/**
+ * <h1>Result of the {@link Condensation}.</h1>
+ * <p>
+ * Contains the selected prototypes, both as indices into the original data set and as a new {@link MnistDataSet},
+ * which can be used for training or written by {@link utils.mnist_data_io.MnistDataWriter}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class CondensationResult {
+
+    /** Number of images of the original data set.
+     * */
+    private final int originalSize;
+
+    /** Number of images kept by editing.
+     * */
+    private final int editedSize;
+
+    /** Indices of prototypes in the original data set, in the order they were selected.
+     * */
+    private final int[] indices;
+
+    /** The prototypes.
+     * */
+    private final MnistDataSet data;
+
+    /** Wall clock time of editing in nanoseconds.
+     * */
+    private final long editNanos;
+
+    /** Wall clock time of condensing in nanoseconds.
+     * */
+    private final long condenseNanos;
+
+    /** Constructor for the {@link CondensationResult} class.
+     *
+     * @param originalSize {@link CondensationResult#originalSize description}.
+     * @param editedSize {@link CondensationResult#editedSize description}.
+     * @param indices {@link CondensationResult#indices description}.
+     * @param data {@link CondensationResult#data description}.
+     * @param editNanos {@link CondensationResult#editNanos description}.
+     * @param condenseNanos {@link CondensationResult#condenseNanos description}.
+     * */
+    public CondensationResult(int originalSize, int editedSize, int[] indices, MnistDataSet data, long editNanos, long condenseNanos) {
+        this.originalSize = originalSize;
+        this.editedSize = editedSize;
+        this.indices = indices;
+        this.data = data;
+        this.editNanos = editNanos;
+        this.condenseNanos = condenseNanos;
+    }
+
+    /**
+     * @return number of prototypes divided by the original number of images.
+     * */
+    public double getRetainedFraction() {
+        return originalSize == 0 ? 0 : (double) indices.length / originalSize;
+    }
+
+    /**
+     * @return {@link CondensationResult#originalSize}.
+     * */
+    public int getOriginalSize() {
+        return originalSize;
+    }
+
+    /**
+     * @return {@link CondensationResult#editedSize}.
+     * */
+    public int getEditedSize() {
+        return editedSize;
+    }
+
+    /**
+     * @return number of prototypes.
+     * */
+    public int size() {
+        return indices.length;
+    }
+
+    /**
+     * @return {@link CondensationResult#indices}.
+     * */
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * @return {@link CondensationResult#data}.
+     * */
+    public MnistDataSet getData() {
+        return data;
+    }
+
+    /**
+     * @return {@link CondensationResult#editNanos}.
+     * */
+    public long getEditNanos() {
+        return editNanos;
+    }
+
+    /**
+     * @return {@link CondensationResult#condenseNanos}.
+     * */
+    public long getCondenseNanos() {
+        return condenseNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Images: %d, after editing: %d, prototypes: %d (%.2f%%), editing: %.2fs, condensing: %.2fs",
+                originalSize, editedSize, indices.length, 100 * getRetainedFraction(), editNanos / 1e9, condenseNanos / 1e9);
+    }
+}
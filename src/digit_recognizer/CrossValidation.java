@@ -0,0 +1,136 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>K-fold and leave-one-out cross-validation over one data set.</h1>
+ * <p>
+ * Instead of a fixed train/test split, every image is recognized by the images of the other folds.
+ * The {@link NeighborGraph} of the data set is built once with images of the same fold excluded,
+ * which computes every distance once, and the error rate of every fold and every {@code k <= maxK}
+ * is derived from it without computing any distance again. Leave-one-out is the case of one image per fold.
+ * <br>
+ * Votes follow the rules of {@link Recognizer}, memory stays {@code O(n * maxK)}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class CrossValidation {
+
+    private CrossValidation() {}
+
+    /** Runs k-fold cross-validation with {@link DistanceKernels#getDefault()}.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param metricType {@link MetricTypes}.
+     * @param maxK the greatest evaluated k.
+     * @param numberOfFolds number of folds, from 2 to the size of the data set.
+     * @param seed seed of the random assignment of images to folds.
+     * @return {@link CrossValidationResult}.
+     * */
+    public static CrossValidationResult run(MnistDataSet data, MetricTypes metricType, int maxK, int numberOfFolds, long seed) {
+        return run(data, metricType, maxK, assignFolds(data.size(), numberOfFolds, seed), numberOfFolds, DistanceKernels.getDefault());
+    }
+
+    /** Runs leave-one-out cross-validation with {@link DistanceKernels#getDefault()}.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param metricType {@link MetricTypes}.
+     * @param maxK the greatest evaluated k.
+     * @return {@link CrossValidationResult} with one fold per image.
+     * */
+    public static CrossValidationResult leaveOneOut(MnistDataSet data, MetricTypes metricType, int maxK) {
+        return run(data, metricType, maxK, null, data.size(), DistanceKernels.getDefault());
+    }
+
+    /** Runs cross-validation with given folds.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param metricType {@link MetricTypes}.
+     * @param maxK the greatest evaluated k.
+     * @param folds fold of every image, from 0 to numberOfFolds - 1, or null for leave-one-out.
+     * @param numberOfFolds number of folds.
+     * @param kernel {@link DistanceKernel} to use.
+     * @return {@link CrossValidationResult}.
+     * */
+    public static CrossValidationResult run(MnistDataSet data, MetricTypes metricType, int maxK, int[] folds,
+                                            int numberOfFolds, DistanceKernel kernel) {
+        if (numberOfFolds < 2 || numberOfFolds > data.size())
+            throw new IllegalArgumentException("Number of folds must be between 2 and " + data.size() + ", got " + numberOfFolds);
+
+        if (folds != null) {
+            for (int fold : folds)
+                if (fold < 0 || fold >= numberOfFolds)
+                    throw new IllegalArgumentException("Folds must be between 0 and " + (numberOfFolds - 1) + ", got " + fold);
+        }
+
+        long start = System.nanoTime();
+        NeighborGraph graph = NeighborGraph.build(data, metricType, maxK, folds, kernel);
+
+        int[] foldSizes = new int[numberOfFolds];
+        int[] errors = new int[numberOfFolds * maxK];
+        int[] totalErrors = new int[maxK];
+        byte[] wrong = new byte[data.size() * maxK];
+
+        IntStream.range(0, data.size()).parallel().forEach(row -> vote(data, graph, row, wrong));
+
+        for (int row = 0; row < data.size(); row++) {
+            int fold = folds == null ? row : folds[row];
+            foldSizes[fold]++;
+            for (int k = 1; k <= maxK; k++) {
+                if (wrong[row * maxK + k - 1] == 0) continue;
+                errors[fold * maxK + k - 1]++;
+                totalErrors[k - 1]++;
+            }
+        }
+
+        return new CrossValidationResult(metricType, maxK, foldSizes, errors, totalErrors, System.nanoTime() - start);
+    }
+
+    /** Returns a balanced random assignment of images to folds.
+     *
+     * @param size number of images.
+     * @param numberOfFolds number of folds.
+     * @param seed seed of the shuffle.
+     * @return fold of every image, fold sizes differ by at most one.
+     * */
+    public static int[] assignFolds(int size, int numberOfFolds, long seed) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+
+        Random random = new Random(seed);
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+
+        int[] folds = new int[size];
+        for (int i = 0; i < size; i++) folds[order[i]] = i % numberOfFolds;
+        return folds;
+    }
+
+    /** Votes the neighbors of one image for every k, the way {@link Recognizer} does.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @param graph {@link NeighborGraph} of the data set.
+     * @param row index of the image.
+     * @param wrong flags set to 1 for every k the image is recognized wrongly with, {@code wrong[row * maxK + k - 1]}.
+     * */
+    private static void vote(MnistDataSet data, NeighborGraph graph, int row, byte[] wrong) {
+        int maxK = graph.getMaxK();
+        int label = data.getLabel(row);
+        int numberOfNeighbors = graph.getNumberOfNeighbors(row);
+        int[] neighborLabels = new int[numberOfNeighbors];
+        for (int i = 0; i < numberOfNeighbors; i++) neighborLabels[i] = data.getLabel(graph.getNeighbor(row, i));
+        double[] votes = new double[data.getNumberOfClasses()];
+
+        for (int k = 1; k <= maxK; k++)
+            if (Recognizer.majority(neighborLabels, Math.min(k, numberOfNeighbors), votes) != label) wrong[row * maxK + k - 1] = 1;
+    }
+}
@@ -0,0 +1,184 @@
+package digit_recognizer;
+
+/**
+ * <h1>Result of the {@link CrossValidation}.</h1>
+ * <p>
+ * Contains the number of errors of every fold and every k from 1 to {@link CrossValidationResult#maxK}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class CrossValidationResult {
+
+    /** Greatest number of folds printed by {@link CrossValidationResult#toString()}.
+     * */
+    private static final int PRINTED_FOLDS = 20;
+
+    /** The metric of the validation.
+     * */
+    private final MetricTypes metricType;
+
+    /** The greatest evaluated k.
+     * */
+    private final int maxK;
+
+    /** The number of images of every fold.
+     * */
+    private final int[] foldSizes;
+
+    /** The number of errors of every fold and k, {@code errors[fold * maxK + k - 1]}.
+     * */
+    private final int[] errors;
+
+    /** The number of errors of every k over all folds.
+     * */
+    private final int[] totalErrors;
+
+    /** Wall clock time of the validation in nanoseconds.
+     * */
+    private final long wallTimeNanos;
+
+    /** Constructor for the {@link CrossValidationResult} class.
+     *
+     * @param metricType {@link CrossValidationResult#metricType description}.
+     * @param maxK {@link CrossValidationResult#maxK description}.
+     * @param foldSizes {@link CrossValidationResult#foldSizes description}.
+     * @param errors {@link CrossValidationResult#errors description}.
+     * @param totalErrors {@link CrossValidationResult#totalErrors description}.
+     * @param wallTimeNanos {@link CrossValidationResult#wallTimeNanos description}.
+     * */
+    public CrossValidationResult(MetricTypes metricType, int maxK, int[] foldSizes, int[] errors, int[] totalErrors, long wallTimeNanos) {
+        this.metricType = metricType;
+        this.maxK = maxK;
+        this.foldSizes = foldSizes;
+        this.errors = errors;
+        this.totalErrors = totalErrors;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    /**
+     * @param k the number of neighbors, from 1 to {@link CrossValidationResult#maxK}.
+     * @return the error rate over all folds in percent.
+     * */
+    public double getErrorRate(int k) {
+        int total = getNumberOfMatrices();
+        return total == 0 ? 0 : 100d * totalErrors[checkK(k) - 1] / total;
+    }
+
+    /**
+     * @param fold index of the fold.
+     * @param k the number of neighbors, from 1 to {@link CrossValidationResult#maxK}.
+     * @return the error rate of the fold in percent.
+     * */
+    public double getErrorRate(int fold, int k) {
+        return foldSizes[fold] == 0 ? 0 : 100d * errors[fold * maxK + checkK(k) - 1] / foldSizes[fold];
+    }
+
+    /** Returns the standard deviation of the error rate between folds.
+     *
+     * @param k the number of neighbors, from 1 to {@link CrossValidationResult#maxK}.
+     * @return the sample standard deviation in percentage points, 0 for a single fold.
+     * */
+    public double getErrorRateDeviation(int k) {
+        int numberOfFolds = foldSizes.length;
+        if (numberOfFolds < 2) return 0;
+
+        double mean = 0;
+        for (int fold = 0; fold < numberOfFolds; fold++) mean += getErrorRate(fold, k);
+        mean /= numberOfFolds;
+
+        double sum = 0;
+        for (int fold = 0; fold < numberOfFolds; fold++) {
+            double difference = getErrorRate(fold, k) - mean;
+            sum += difference * difference;
+        }
+        return Math.sqrt(sum / (numberOfFolds - 1));
+    }
+
+    /** Returns the k with the fewest errors over all folds, the smallest one on ties.
+     *
+     * @return the best k.
+     * */
+    public int getBestK() {
+        int bestK = 1;
+        for (int k = 2; k <= maxK; k++)
+            if (totalErrors[k - 1] < totalErrors[bestK - 1]) bestK = k;
+        return bestK;
+    }
+
+    /**
+     * @param k the number of neighbors, from 1 to {@link CrossValidationResult#maxK}.
+     * @return the number of errors over all folds.
+     * */
+    public int getNumberOfErrors(int k) {
+        return totalErrors[checkK(k) - 1];
+    }
+
+    /**
+     * @return the number of validated images.
+     * */
+    public int getNumberOfMatrices() {
+        int total = 0;
+        for (int size : foldSizes) total += size;
+        return total;
+    }
+
+    /**
+     * @return number of folds.
+     * */
+    public int getNumberOfFolds() {
+        return foldSizes.length;
+    }
+
+    /**
+     * @return {@link CrossValidationResult#metricType}.
+     * */
+    public MetricTypes getMetricType() {
+        return metricType;
+    }
+
+    /**
+     * @return {@link CrossValidationResult#maxK}.
+     * */
+    public int getMaxK() {
+        return maxK;
+    }
+
+    /**
+     * @return {@link CrossValidationResult#wallTimeNanos}.
+     * */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    private int checkK(int k) {
+        if (k < 1 || k > maxK) throw new IllegalArgumentException("k must be between 1 and " + maxK + ", got " + k);
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        boolean leaveOneOut = foldSizes.length == getNumberOfMatrices();
+        boolean printFolds = !leaveOneOut && foldSizes.length <= PRINTED_FOLDS;
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%s cross-validation of %d matrices with %s in %.2fs, error rates in %%:%n",
+                leaveOneOut ? "Leave-one-out" : foldSizes.length + "-fold", getNumberOfMatrices(), metricType, wallTimeNanos / 1e9));
+
+        builder.append(String.format("%4s%9s", "k", "all"));
+        if (!leaveOneOut) builder.append(String.format("%9s", "stddev"));
+        if (printFolds) for (int fold = 0; fold < foldSizes.length; fold++) builder.append(String.format("%8s", "#" + fold));
+        builder.append(System.lineSeparator());
+
+        int bestK = getBestK();
+        for (int k = 1; k <= maxK; k++) {
+            builder.append(String.format("%4d%8.2f%s", k, getErrorRate(k), k == bestK ? "*" : " "));
+            if (!leaveOneOut) builder.append(String.format("%9.2f", getErrorRateDeviation(k)));
+            if (printFolds) for (int fold = 0; fold < foldSizes.length; fold++) builder.append(String.format("%8.2f", getErrorRate(fold, k)));
+            builder.append(System.lineSeparator());
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,165 @@
+package digit_recognizer;
+
+/**
+ * <h1>Interface of distance kernels over packed images.</h1>
+ * <p>
+ * A kernel computes distances between two images stored as unsigned bytes, one byte per grayscale pixel,
+ * such as the blocks of {@link utils.mnist_data_io.MnistDataSet}.
+ * <br>
+ * Implementations: {@link ScalarDistanceKernel}, {@link VectorDistanceKernel}, picked by {@link DistanceKernels}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public interface DistanceKernel {
+
+    /** Returns the Taxicab distance between two packed images.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return Sum of absolute differences between pixels.
+     * @see <a href="https://en.wikipedia.org/wiki/Taxicab_geometry">Taxicab geometry</a>
+     * */
+    int taxicab(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+    /** Returns the squared Euclidean distance between two packed images.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return Sum of squared differences between pixels.
+     * @see <a href="https://en.wikipedia.org/wiki/Euclidean_distance">Euclidean distance</a>
+     * */
+    int squaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+    /** Returns the Taxicab distance, or any value greater than the cutoff as soon as the partial sum exceeds it.
+     * <p>
+     * Partial sums never decrease, so a result greater than the cutoff proves the full distance is greater too,
+     * and the remaining pixels don't need to be compared.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @param cutoff distance above which the computation may stop.
+     * @return the distance if it is at most the cutoff, otherwise a value greater than the cutoff.
+     * */
+    int taxicab(byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff);
+
+    /** Returns the squared Euclidean distance, or any value greater than the cutoff as soon as the partial sum exceeds it.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @param cutoff distance above which the computation may stop.
+     * @return the distance if it is at most the cutoff, otherwise a value greater than the cutoff.
+     * @see DistanceKernel#taxicab(byte[], int, byte[], int, int, int)
+     * */
+    int squaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff);
+
+    /** Returns both the Taxicab and the squared Euclidean distance, computed in one pass over the pixels.
+     * <p>
+     * Both sums are less than 2^31 for images of up to 33025 pixels, so they are packed into one long
+     * and the call doesn't allocate. Use {@link DistanceKernel#taxicabOf(long)} and
+     * {@link DistanceKernel#squaredEuclideanOf(long)} to unpack them.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return the Taxicab distance in the high 32 bits, the squared Euclidean distance in the low 32 bits.
+     * */
+    default long taxicabAndSquaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return pack(taxicab(a, aOffset, b, bOffset, length), squaredEuclidean(a, aOffset, b, bOffset, length));
+    }
+
+    /** Packs distances returned by {@link DistanceKernel#taxicabAndSquaredEuclidean}.
+     *
+     * @param taxicab the Taxicab distance.
+     * @param squaredEuclidean the squared Euclidean distance.
+     * @return packed distances.
+     * */
+    static long pack(int taxicab, int squaredEuclidean) {
+        return (long) taxicab << 32 | (squaredEuclidean & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @param distances distances packed by {@link DistanceKernel#taxicabAndSquaredEuclidean}.
+     * @return the Taxicab distance.
+     * */
+    static int taxicabOf(long distances) {
+        return (int) (distances >>> 32);
+    }
+
+    /**
+     * @param distances distances packed by {@link DistanceKernel#taxicabAndSquaredEuclidean}.
+     * @return the squared Euclidean distance.
+     * */
+    static int squaredEuclideanOf(long distances) {
+        return (int) distances;
+    }
+
+    /** Returns the dot product of two packed images.
+     * <p>
+     * Together with squared norms it gives the squared Euclidean distance as
+     * {@code ||a||^2 + ||b||^2 - 2 a.b}, see {@link LinearScanIndex#searchBatch}.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return Sum of products of pixels.
+     * */
+    int dotProduct(byte[] a, int aOffset, byte[] b, int bOffset, int length);
+
+    /** Returns the distance of given metric type used to rank neighbors.
+     * <p>
+     * For {@link MetricTypes#EUCLIDEAN} it is the squared distance, which ranks neighbors the same way.
+     *
+     * @param metricType {@link MetricTypes}.
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return distance between images.
+     * */
+    default int distance(MetricTypes metricType, byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return metricType == MetricTypes.EUCLIDEAN
+                ? squaredEuclidean(a, aOffset, b, bOffset, length)
+                : taxicab(a, aOffset, b, bOffset, length);
+    }
+
+    /** Returns the distance of given metric type, or any value greater than the cutoff once it is exceeded.
+     *
+     * @param metricType {@link MetricTypes}.
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @param cutoff distance above which the computation may stop.
+     * @return the distance if it is at most the cutoff, otherwise a value greater than the cutoff.
+     * */
+    default int distance(MetricTypes metricType, byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff) {
+        return metricType == MetricTypes.EUCLIDEAN
+                ? squaredEuclidean(a, aOffset, b, bOffset, length, cutoff)
+                : taxicab(a, aOffset, b, bOffset, length, cutoff);
+    }
+
+    /**
+     * @return short name of the kernel.
+     * */
+    String getName();
+}
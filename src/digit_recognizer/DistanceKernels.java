@@ -0,0 +1,71 @@
+package digit_recognizer;
+
+/**
+ * <h1>Class that picks the distance kernel.</h1>
+ * <p>
+ * At startup the class checks whether the {@code jdk.incubator.vector} module is present
+ * and uses {@link VectorDistanceKernel} if it is, otherwise {@link ScalarDistanceKernel}.
+ * <br>
+ * The choice can be forced with the {@code digit_recognizer.kernel} system property, set to {@code scalar} or {@code vector}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class DistanceKernels {
+
+    /** Name of the system property that forces the kernel.
+     * */
+    public static final String KERNEL_PROPERTY = "digit_recognizer.kernel";
+
+    /** Name of the Vector API module.
+     * */
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+
+    /** Kernel picked at startup.
+     * */
+    private static final DistanceKernel DEFAULT = select(System.getProperty(KERNEL_PROPERTY, "vector"));
+
+    private DistanceKernels() {}
+
+    /**
+     * @return the kernel picked at startup.
+     * */
+    public static DistanceKernel getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return true if the Vector API module is available.
+     * */
+    public static boolean isVectorAvailable() {
+        return loadVectorKernel() != null;
+    }
+
+    /** Returns the kernel with the given name.
+     * <p>
+     * If {@code vector} is asked but the Vector API is not available, the scalar kernel is returned.
+     *
+     * @param name {@code scalar} or {@code vector}.
+     * @return {@link DistanceKernel}.
+     * */
+    public static DistanceKernel select(String name) {
+        if ("scalar".equalsIgnoreCase(name)) return ScalarDistanceKernel.INSTANCE;
+
+        DistanceKernel vectorKernel = loadVectorKernel();
+        return vectorKernel != null ? vectorKernel : ScalarDistanceKernel.INSTANCE;
+    }
+
+    /**
+     * @return {@link VectorDistanceKernel#INSTANCE} or null if the Vector API is not available.
+     * */
+    private static DistanceKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) return null;
+
+        try {
+            return (DistanceKernel) Class.forName("digit_recognizer.VectorDistanceKernel").getField("INSTANCE").get(null);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
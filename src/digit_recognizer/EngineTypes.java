@@ -0,0 +1,39 @@
+package digit_recognizer;
+
+/**
+ * <h1>Enum that contains exact search engines chosen by the {@link AutoTuner}.</h1>
+ * <p>
+ * Enum that contains engine types, all of them give the same results as the brute force search.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public enum EngineTypes {
+    /** The brute force search, {@link LinearScanIndex}.
+     * */
+    LINEAR_SCAN,
+    /** The vantage-point tree, {@link VantagePointTreeIndex}.
+     * */
+    VANTAGE_POINT_TREE,
+    /** The lower bound cascade, {@link CascadeIndex}.
+     * */
+    CASCADE;
+
+    /** Returns the factory of the engine.
+     *
+     * @param kernel {@link DistanceKernel} to use.
+     * @param trainBlockBytes size in bytes of one tile of training data of {@link LinearScanIndex}.
+     * @return {@link NeighborIndexFactory}.
+     * */
+    NeighborIndexFactory factory(DistanceKernel kernel, int trainBlockBytes) {
+        switch (this) {
+            case VANTAGE_POINT_TREE:
+                return (trainData, metricType) -> new VantagePointTreeIndex(trainData, metricType, kernel, VantagePointTreeIndex.DEFAULT_LEAF_SIZE);
+            case CASCADE:
+                return (trainData, metricType) -> new CascadeIndex(trainData, metricType, kernel, CascadeIndex.DEFAULT_CELL_SIZES);
+            default:
+                return LinearScanIndex.factory(kernel, trainBlockBytes);
+        }
+    }
+}
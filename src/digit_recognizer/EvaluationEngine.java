@@ -0,0 +1,175 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistMatrix;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Class that evaluates the recognition error rate.</h1>
+ * <p>
+ * Test matrices are recursively split into small chunks of {@link EvaluationEngine#CHUNK_SIZE} matrices
+ * and recognized on a {@link ForkJoinPool}, idle workers steal chunks from busy ones,
+ * so a slow part of the test data doesn't leave cores idle.
+ * <br>
+ * The result is returned as a {@link CompletableFuture}, cancelling it stops the evaluation after the current matrices.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class EvaluationEngine {
+
+    /** The number of test matrices recognized by one task.
+     * */
+    private static final int CHUNK_SIZE = 8;
+
+    /** The pool that runs evaluation tasks.
+     * */
+    private final ForkJoinPool pool;
+
+    /** Default constructor for the {@link EvaluationEngine} class.
+     * <p>
+     * Evaluations run on {@link ForkJoinPool#commonPool()}.
+     * */
+    public EvaluationEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /** Constructor for the {@link EvaluationEngine} class.
+     *
+     * @param pool {@link EvaluationEngine#pool description}.
+     * */
+    public EvaluationEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /** Starts the evaluation and returns its future result.
+     *
+     * @param recognizer the {@link Recognizer} to evaluate.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels.
+     * @param listener the {@link EvaluationListener}, may be null.
+     * @return the future {@link EvaluationResult}.
+     * */
+    public CompletableFuture<EvaluationResult> evaluate(Recognizer recognizer, MnistMatrix[] testMatrices, EvaluationListener listener) {
+        CompletableFuture<EvaluationResult> future = new CompletableFuture<>();
+        Evaluation evaluation = new Evaluation(recognizer, testMatrices, listener, future);
+
+        pool.execute(ForkJoinTask.adapt(() -> {
+            try {
+                new ChunkTask(evaluation, 0, testMatrices.length).invoke();
+                future.complete(evaluation.toResult());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }));
+
+        return future;
+    }
+
+    /** State of one running evaluation.
+     * */
+    private static final class Evaluation {
+
+        private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+        private final Recognizer recognizer;
+        private final MnistMatrix[] testMatrices;
+        private final EvaluationListener listener;
+        private final CompletableFuture<EvaluationResult> future;
+        private final int numberOfClasses;
+        private final AtomicIntegerArray confusionMatrix;
+        private final AtomicInteger recognized = new AtomicInteger();
+        private final AtomicInteger errors = new AtomicInteger();
+        private final LongAdder cpuTimeNanos = new LongAdder();
+        private final long startTime = System.nanoTime();
+
+        private Evaluation(Recognizer recognizer, MnistMatrix[] testMatrices, EvaluationListener listener,
+                           CompletableFuture<EvaluationResult> future) {
+            this.recognizer = recognizer;
+            this.testMatrices = testMatrices;
+            this.listener = listener;
+            this.future = future;
+
+            int numberOfClasses = recognizer.getTrainData().getNumberOfClasses();
+            for (MnistMatrix testMatrix : testMatrices) numberOfClasses = Math.max(numberOfClasses, testMatrix.getLabel() + 1);
+            this.numberOfClasses = numberOfClasses;
+            this.confusionMatrix = new AtomicIntegerArray(numberOfClasses * numberOfClasses);
+        }
+
+        private void recognize(int from, int to) {
+            long cpuStart = currentThreadCpuTime();
+            int chunkErrors = 0;
+            int chunkRecognized = 0;
+            RecognizerMetrics metrics = recognizer.getMetrics();
+
+            for (int i = from; i < to && !future.isDone(); i++) {
+                int label = testMatrices[i].getLabel();
+                int recognizedLabel = recognizer.recognize(testMatrices[i]);
+
+                if (metrics != null) metrics.recordResult(label, recognizedLabel);
+                if (recognizedLabel != label) chunkErrors++;
+                if (recognizedLabel >= 0 && recognizedLabel < numberOfClasses)
+                    confusionMatrix.incrementAndGet(label * numberOfClasses + recognizedLabel);
+                chunkRecognized++;
+            }
+
+            cpuTimeNanos.add(currentThreadCpuTime() - cpuStart);
+            int totalErrors = errors.addAndGet(chunkErrors);
+            int totalRecognized = recognized.addAndGet(chunkRecognized);
+
+            if (listener != null && chunkRecognized > 0)
+                listener.onProgress(totalRecognized, testMatrices.length, totalErrors);
+        }
+
+        private EvaluationResult toResult() {
+            int[][] matrix = new int[numberOfClasses][numberOfClasses];
+            for (int actual = 0; actual < numberOfClasses; actual++)
+                for (int predicted = 0; predicted < numberOfClasses; predicted++)
+                    matrix[actual][predicted] = confusionMatrix.get(actual * numberOfClasses + predicted);
+
+            return new EvaluationResult(recognized.get(), errors.get(), matrix, System.nanoTime() - startTime, cpuTimeNanos.sum());
+        }
+
+        private static long currentThreadCpuTime() {
+            return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+        }
+    }
+
+    /** Task that recognizes a range of test matrices.
+     * */
+    private static final class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Evaluation evaluation;
+        private final int from;
+        private final int to;
+
+        private ChunkTask(Evaluation evaluation, int from, int to) {
+            this.evaluation = evaluation;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (evaluation.future.isDone()) return;
+
+            if (to - from <= CHUNK_SIZE) {
+                evaluation.recognize(from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ChunkTask(evaluation, from, middle), new ChunkTask(evaluation, middle, to));
+        }
+    }
+}
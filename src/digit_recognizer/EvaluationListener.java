@@ -0,0 +1,23 @@
+package digit_recognizer;
+
+/**
+ * <h1>Listener of the evaluation progress.</h1>
+ * <p>
+ * Passed to {@link EvaluationEngine#evaluate(Recognizer, utils.mnist_data_io.MnistMatrix[], EvaluationListener)}.
+ * It is called from worker threads after every chunk of test matrices, so implementations must be thread-safe.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@FunctionalInterface
+public interface EvaluationListener {
+
+    /** Called after a chunk of test matrices was recognized.
+     *
+     * @param recognized number of test matrices recognized so far.
+     * @param total number of test matrices.
+     * @param errors number of matrices recognized incorrectly so far.
+     * */
+    void onProgress(int recognized, int total, int errors);
+}
@@ -0,0 +1,120 @@
+package digit_recognizer;
+
+/**
+ * <h1>Result of the recognition error rate evaluation.</h1>
+ * <p>
+ * Contains the number of errors, the confusion matrix and the time spent,
+ * produced by {@link EvaluationEngine}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class EvaluationResult {
+
+    /** The number of recognized test matrices.
+     * */
+    private final int numberOfMatrices;
+
+    /** The number of matrices recognized incorrectly.
+     * */
+    private final int numberOfErrors;
+
+    /** The confusion matrix.
+     * <p>
+     * {@code confusionMatrix[actual][recognized]} is the number of test matrices
+     * with label {@code actual} which were recognized as {@code recognized}.
+     * */
+    private final int[][] confusionMatrix;
+
+    /** Wall clock time of the evaluation in nanoseconds.
+     * */
+    private final long wallTimeNanos;
+
+    /** CPU time of all worker threads in nanoseconds.
+     * */
+    private final long cpuTimeNanos;
+
+    /** Constructor for the {@link EvaluationResult} class.
+     *
+     * @param numberOfMatrices {@link EvaluationResult#numberOfMatrices description}.
+     * @param numberOfErrors {@link EvaluationResult#numberOfErrors description}.
+     * @param confusionMatrix {@link EvaluationResult#confusionMatrix description}.
+     * @param wallTimeNanos {@link EvaluationResult#wallTimeNanos description}.
+     * @param cpuTimeNanos {@link EvaluationResult#cpuTimeNanos description}.
+     * */
+    public EvaluationResult(int numberOfMatrices, int numberOfErrors, int[][] confusionMatrix, long wallTimeNanos, long cpuTimeNanos) {
+        this.numberOfMatrices = numberOfMatrices;
+        this.numberOfErrors = numberOfErrors;
+        this.confusionMatrix = confusionMatrix;
+        this.wallTimeNanos = wallTimeNanos;
+        this.cpuTimeNanos = cpuTimeNanos;
+    }
+
+    /**
+     * @return error rate in percent.
+     * */
+    public double getErrorRate() {
+        return numberOfMatrices == 0 ? 0 : 100d * numberOfErrors / numberOfMatrices;
+    }
+
+    /**
+     * @param label label of the class.
+     * @return error rate of the class in percent.
+     * */
+    public double getErrorRate(int label) {
+        int total = 0;
+        for (int count : confusionMatrix[label]) total += count;
+        return total == 0 ? 0 : 100d * (total - confusionMatrix[label][label]) / total;
+    }
+
+    /**
+     * @return {@link EvaluationResult#numberOfMatrices}.
+     * */
+    public int getNumberOfMatrices() {
+        return numberOfMatrices;
+    }
+
+    /**
+     * @return {@link EvaluationResult#numberOfErrors}.
+     * */
+    public int getNumberOfErrors() {
+        return numberOfErrors;
+    }
+
+    /**
+     * @return {@link EvaluationResult#confusionMatrix}.
+     * */
+    public int[][] getConfusionMatrix() {
+        return confusionMatrix;
+    }
+
+    /**
+     * @return {@link EvaluationResult#wallTimeNanos}.
+     * */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    /**
+     * @return {@link EvaluationResult#cpuTimeNanos}.
+     * */
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Error rate is: %.2f%% (%d of %d)%n", getErrorRate(), numberOfErrors, numberOfMatrices));
+        builder.append(String.format("Wall time: %.2fs, CPU time: %.2fs%n", wallTimeNanos / 1e9, cpuTimeNanos / 1e9));
+
+        builder.append("Confusion matrix (rows are actual labels):").append(System.lineSeparator());
+        for (int[] row : confusionMatrix) {
+            for (int count : row) builder.append(String.format("%6d", count));
+            builder.append(System.lineSeparator());
+        }
+
+        return builder.toString();
+    }
+}
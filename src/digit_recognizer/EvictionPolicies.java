@@ -0,0 +1,28 @@
+package digit_recognizer;
+
+/**
+ * <h1>Enum that contains eviction policies of the {@link RecognitionCache}.</h1>
+ * <p>
+ * Enum that contains eviction policy types.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public enum EvictionPolicies {
+    /** Least recently used.
+     * <p>
+     * The entry that was read or written the longest time ago is evicted.
+     *
+     * @see <a href="https://en.wikipedia.org/wiki/Cache_replacement_policies#LRU">Least recently used</a>
+     * */
+    LRU,
+    /** Window TinyLFU.
+     * <p>
+     * New entries go to a small LRU window, an entry leaving the window replaces the victim of the main
+     * segmented LRU only if it was requested more often, so one-off images don't flush frequent duplicates.
+     *
+     * @see <a href="https://arxiv.org/abs/1512.00727">TinyLFU: A Highly Efficient Cache Admission Policy</a>
+     * */
+    W_TINY_LFU
+}
@@ -0,0 +1,251 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.List;
+
+/**
+ * <h1>Approximate nearest neighbor index on binarized fingerprints.</h1>
+ * <p>
+ * MNIST pixels are nearly binary, so every training image is also stored as a fingerprint with one bit per pixel,
+ * set when the pixel is at least {@link FingerprintIndex#threshold}. A 28x28 image takes 13 longs, about 100 bytes
+ * instead of 784.
+ * <br>
+ * A search first scans all fingerprints by Hamming distance, computed with {@link Long#bitCount(long)},
+ * and keeps a shortlist of the {@link FingerprintIndex#shortlistSize} nearest ones. Only the shortlist is reranked
+ * with the exact distances of {@link DistanceKernel#distance}, so neighbors missed by the prefilter are the only
+ * source of error. {@link FingerprintIndex#shortlistSweep} reports the trade-off against exact search.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class FingerprintIndex implements NeighborIndex {
+
+    /** Default pixel value from which a fingerprint bit is set.
+     * */
+    public static final int DEFAULT_THRESHOLD = 128;
+
+    /** Default number of fingerprints reranked with the exact distance.
+     * */
+    public static final int DEFAULT_SHORTLIST_SIZE = 500;
+
+    /** Training data.
+     * */
+    private final MnistDataSet trainData;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The kernel that computes exact distances.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Pixel value from which a fingerprint bit is set.
+     * */
+    private final int threshold;
+
+    /** Number of fingerprints reranked with the exact distance, at least k.
+     * */
+    private final int shortlistSize;
+
+    /** Number of longs per fingerprint.
+     * */
+    private final int words;
+
+    /** Fingerprints of all training images, {@link FingerprintIndex#words} longs per image.
+     * */
+    private final long[] fingerprints;
+
+    /** Per-thread search buffers.
+     * */
+    private final ThreadLocal<Scratch> scratch;
+
+    /** Constructor for the {@link FingerprintIndex} class, computes fingerprints of the training images.
+     *
+     * @param trainData {@link FingerprintIndex#trainData description}.
+     * @param metricType {@link FingerprintIndex#metricType description}.
+     * @param kernel {@link FingerprintIndex#kernel description}.
+     * @param shortlistSize {@link FingerprintIndex#shortlistSize description}.
+     * @param threshold {@link FingerprintIndex#threshold description}.
+     * */
+    public FingerprintIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int shortlistSize, int threshold) {
+        this(trainData, metricType, kernel, shortlistSize, threshold, fingerprints(trainData, threshold));
+    }
+
+    /** Constructor for the {@link FingerprintIndex} class with precomputed fingerprints.
+     *
+     * @param trainData {@link FingerprintIndex#trainData description}.
+     * @param metricType {@link FingerprintIndex#metricType description}.
+     * @param kernel {@link FingerprintIndex#kernel description}.
+     * @param shortlistSize {@link FingerprintIndex#shortlistSize description}.
+     * @param threshold {@link FingerprintIndex#threshold description}.
+     * @param fingerprints {@link FingerprintIndex#fingerprints description}.
+     * */
+    FingerprintIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int shortlistSize, int threshold,
+                     long[] fingerprints) {
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.shortlistSize = Math.max(1, shortlistSize);
+        this.threshold = threshold;
+        this.words = numberOfWords(trainData.getImageSize());
+        this.fingerprints = fingerprints;
+        this.scratch = ThreadLocal.withInitial(() -> new Scratch(words));
+
+        if (fingerprints.length != trainData.size() * words)
+            throw new IllegalArgumentException("Expected " + trainData.size() * words + " fingerprint words, but got " + fingerprints.length);
+    }
+
+    /**
+     * @return factory of {@link FingerprintIndex} with default parameters.
+     * */
+    public static NeighborIndexFactory factory() {
+        return factory(DEFAULT_SHORTLIST_SIZE);
+    }
+
+    /**
+     * @param shortlistSize {@link FingerprintIndex#shortlistSize description}.
+     * @return factory of {@link FingerprintIndex} with {@link FingerprintIndex#DEFAULT_THRESHOLD}.
+     * */
+    public static NeighborIndexFactory factory(int shortlistSize) {
+        return factory(shortlistSize, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param shortlistSize {@link FingerprintIndex#shortlistSize description}.
+     * @param threshold {@link FingerprintIndex#threshold description}.
+     * @return factory of {@link FingerprintIndex} that uses {@link DistanceKernels#getDefault()}.
+     * */
+    public static NeighborIndexFactory factory(int shortlistSize, int threshold) {
+        return (trainData, metricType) -> new FingerprintIndex(trainData, metricType, DistanceKernels.getDefault(), shortlistSize, threshold);
+    }
+
+    /** Returns a view of this index with another {@link FingerprintIndex#shortlistSize}, fingerprints are shared.
+     *
+     * @param shortlistSize {@link FingerprintIndex#shortlistSize description}.
+     * @return {@link FingerprintIndex}.
+     * */
+    public FingerprintIndex withShortlistSize(int shortlistSize) {
+        return new FingerprintIndex(trainData, metricType, kernel, shortlistSize, threshold, fingerprints);
+    }
+
+    /** Reports recall and error rate of the index for several values of {@link FingerprintIndex#shortlistSize}
+     * by {@link RecallReport#sweep}.
+     *
+     * @param exact exact {@link Recognizer} with the same training data, k and metric type.
+     * @param fingerprintRecognizer {@link Recognizer} with {@link FingerprintIndex}.
+     * @param shortlistSizes values of {@link FingerprintIndex#shortlistSize} to try.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels, such as the t10k set.
+     * @return one {@link RecallReport} per value, in the order of the values.
+     * */
+    public static List<RecallReport> shortlistSweep(Recognizer exact, Recognizer fingerprintRecognizer, int[] shortlistSizes,
+                                                    MnistMatrix[] testMatrices) {
+        FingerprintIndex index = (FingerprintIndex) fingerprintRecognizer.getIndex();
+        return RecallReport.sweep(exact, fingerprintRecognizer, shortlistSizes, index::withShortlistSize, testMatrices);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        Scratch scratch = this.scratch.get();
+        long[] queryFingerprint = scratch.fingerprint;
+        fingerprint(query, queryOffset, trainData.getImageSize(), threshold, queryFingerprint, 0);
+
+        NeighborHeap shortlist = scratch.shortlist;
+        shortlist.reset(Math.max(shortlistSize, neighbors.getCapacity()));
+
+        for (int i = 0, offset = 0; i < trainData.size(); i++, offset += words) {
+            int hamming = 0;
+            for (int word = 0; word < words; word++)
+                hamming += Long.bitCount(queryFingerprint[word] ^ fingerprints[offset + word]);
+
+            // fingerprints are scanned by ascending index, so an equal Hamming distance loses the tie
+            if (hamming < shortlist.worstDistance()) shortlist.offer(hamming, i);
+        }
+
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+
+        for (int i = 0; i < shortlist.size(); i++) {
+            int index = shortlist.getIndex(i);
+            int distance = neighbors.isFull()
+                    ? kernel.distance(metricType, query, queryOffset, pixels, trainData.getOffset(index), imageSize, LinearScanIndex.cutoff(neighbors))
+                    : kernel.distance(metricType, query, queryOffset, pixels, trainData.getOffset(index), imageSize);
+            neighbors.offer(distance, index);
+        }
+
+        return shortlist.size();
+    }
+
+    /** Computes the fingerprint of an image.
+     *
+     * @param pixels block of unsigned pixels.
+     * @param offset offset of the image in the block.
+     * @param length number of pixels.
+     * @param threshold {@link FingerprintIndex#threshold description}.
+     * @param fingerprint array the fingerprint is written to.
+     * @param fingerprintOffset offset of the fingerprint in the array.
+     * */
+    public static void fingerprint(byte[] pixels, int offset, int length, int threshold, long[] fingerprint, int fingerprintOffset) {
+        for (int word = 0, from = 0; from < length; word++, from += Long.SIZE) {
+            int to = Math.min(length, from + Long.SIZE);
+            long bits = 0;
+            for (int i = from; i < to; i++)
+                if ((pixels[offset + i] & 0xFF) >= threshold) bits |= 1L << (i - from);
+            fingerprint[fingerprintOffset + word] = bits;
+        }
+    }
+
+    /** Computes fingerprints of all images of a data set.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param threshold {@link FingerprintIndex#threshold description}.
+     * @return fingerprints, {@link FingerprintIndex#words} longs per image.
+     * */
+    static long[] fingerprints(MnistDataSet data, int threshold) {
+        int words = numberOfWords(data.getImageSize());
+        long[] fingerprints = new long[data.size() * words];
+        for (int i = 0; i < data.size(); i++)
+            fingerprint(data.getPixels(), data.getOffset(i), data.getImageSize(), threshold, fingerprints, i * words);
+        return fingerprints;
+    }
+
+    /**
+     * @return {@link FingerprintIndex#threshold}.
+     * */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @return {@link FingerprintIndex#shortlistSize}.
+     * */
+    public int getShortlistSize() {
+        return shortlistSize;
+    }
+
+    /**
+     * @return {@link FingerprintIndex#fingerprints}.
+     * */
+    long[] getFingerprints() {
+        return fingerprints;
+    }
+
+    private static int numberOfWords(int imageSize) {
+        return (imageSize + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    /** Per-thread search buffers.
+     * */
+    private static final class Scratch {
+
+        private final long[] fingerprint;
+        private final NeighborHeap shortlist = new NeighborHeap(0);
+
+        private Scratch(int words) {
+            this.fingerprint = new long[words];
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <h1>Approximate nearest neighbor index on a hierarchical navigable small world graph.</h1>
+ * <p>
+ * Every training image is a node of a layered proximity graph (HNSW). A query descends greedily
+ * from the sparse top layer and then runs a best-first search over the dense bottom layer,
+ * visiting {@link HnswIndex#efSearch} candidates instead of the whole training set.
+ * <br>
+ * {@link HnswIndex#m} bounds the number of links per node ({@code 2 * m} on the bottom layer),
+ * {@link HnswIndex#efConstruction} is the breadth of the search used while inserting nodes,
+ * and {@link HnswIndex#efSearch} is the recall knob of queries. Larger values give better recall and slower searches,
+ * {@link HnswIndex#recallSweep} reports the trade-off against exact search.
+ * <br>
+ * The graph is built sequentially, so it is deterministic for a given seed, and read-only afterwards.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ * @see <a href="https://arxiv.org/abs/1603.09320">Efficient and robust approximate nearest neighbor search using HNSW graphs</a>
+ */
+public class HnswIndex implements NeighborIndex {
+
+    /** Default maximal number of links per node on upper layers.
+     * */
+    public static final int DEFAULT_M = 16;
+
+    /** Default breadth of the search while inserting nodes.
+     * */
+    public static final int DEFAULT_EF_CONSTRUCTION = 100;
+
+    /** Default breadth of the search of queries.
+     * */
+    public static final int DEFAULT_EF_SEARCH = 64;
+
+    /** Training data.
+     * */
+    private final MnistDataSet trainData;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The kernel that computes distances.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Maximal number of links per node on upper layers.
+     * */
+    private final int m;
+
+    /** Breadth of the search while inserting nodes.
+     * */
+    private final int efConstruction;
+
+    /** Breadth of the search of queries.
+     * */
+    private final int efSearch;
+
+    /** The graph shared by all views with different {@link HnswIndex#efSearch}, together with their search buffers.
+     * */
+    private final Graph graph;
+
+    /** Constructor for the {@link HnswIndex} class, builds the graph.
+     *
+     * @param trainData {@link HnswIndex#trainData description}.
+     * @param metricType {@link HnswIndex#metricType description}.
+     * @param kernel {@link HnswIndex#kernel description}.
+     * @param m {@link HnswIndex#m description}.
+     * @param efConstruction {@link HnswIndex#efConstruction description}.
+     * @param efSearch {@link HnswIndex#efSearch description}.
+     * @param seed seed of the random levels of nodes.
+     * */
+    public HnswIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel,
+                     int m, int efConstruction, int efSearch, long seed) {
+        if (m < 2) throw new IllegalArgumentException("m must be at least 2, got " + m);
+
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.m = m;
+        this.efConstruction = Math.max(efConstruction, m);
+        this.efSearch = Math.max(1, efSearch);
+        this.graph = new Graph(trainData.size(), m);
+
+        Random random = new Random(seed);
+        double levelMultiplier = 1 / Math.log(m);
+        for (int node = 0; node < trainData.size(); node++)
+            insert(node, (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier));
+    }
+
+    /** Constructor of a view over an existing graph with another {@link HnswIndex#efSearch}.
+     *
+     * @param index {@link HnswIndex} to share the graph with.
+     * @param efSearch {@link HnswIndex#efSearch description}.
+     * */
+    private HnswIndex(HnswIndex index, int efSearch) {
+        this.trainData = index.trainData;
+        this.metricType = index.metricType;
+        this.kernel = index.kernel;
+        this.m = index.m;
+        this.efConstruction = index.efConstruction;
+        this.efSearch = Math.max(1, efSearch);
+        this.graph = index.graph;
+    }
+
+    /** Constructor for the {@link HnswIndex} class with a built graph, used by {@link RecognizerSnapshot}.
+     *
+     * @param trainData {@link HnswIndex#trainData description}.
+     * @param metricType {@link HnswIndex#metricType description}.
+     * @param kernel {@link HnswIndex#kernel description}.
+     * @param efConstruction {@link HnswIndex#efConstruction description}.
+     * @param efSearch {@link HnswIndex#efSearch description}.
+     * @param graph {@link HnswIndex#graph description}.
+     * */
+    HnswIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int efConstruction, int efSearch, Graph graph) {
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.m = graph.m;
+        this.efConstruction = efConstruction;
+        this.efSearch = Math.max(1, efSearch);
+        this.graph = graph;
+    }
+
+    /**
+     * @return factory of {@link HnswIndex} with default parameters.
+     * */
+    public static NeighborIndexFactory factory() {
+        return factory(DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_EF_SEARCH);
+    }
+
+    /**
+     * @param m {@link HnswIndex#m description}.
+     * @param efConstruction {@link HnswIndex#efConstruction description}.
+     * @param efSearch {@link HnswIndex#efSearch description}.
+     * @return factory of {@link HnswIndex} that uses {@link DistanceKernels#getDefault()}.
+     * */
+    public static NeighborIndexFactory factory(int m, int efConstruction, int efSearch) {
+        return (trainData, metricType) -> new HnswIndex(trainData, metricType, DistanceKernels.getDefault(),
+                m, efConstruction, efSearch, 42);
+    }
+
+    /** Returns a view of this index with another {@link HnswIndex#efSearch}, the graph is shared and not rebuilt.
+     *
+     * @param efSearch {@link HnswIndex#efSearch description}.
+     * @return {@link HnswIndex}.
+     * */
+    public HnswIndex withEfSearch(int efSearch) {
+        return new HnswIndex(this, efSearch);
+    }
+
+    /** Reports recall and error rate of the index for several values of {@link HnswIndex#efSearch}
+     * by {@link RecallReport#sweep}.
+     *
+     * @param exact exact {@link Recognizer} with the same training data, k and metric type.
+     * @param hnswRecognizer {@link Recognizer} with {@link HnswIndex}.
+     * @param efSearchValues values of {@link HnswIndex#efSearch} to try.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels, such as the t10k set.
+     * @return one {@link RecallReport} per value, in the order of the values.
+     * */
+    public static List<RecallReport> recallSweep(Recognizer exact, Recognizer hnswRecognizer, int[] efSearchValues, MnistMatrix[] testMatrices) {
+        HnswIndex index = (HnswIndex) hnswRecognizer.getIndex();
+        return RecallReport.sweep(exact, hnswRecognizer, efSearchValues, index::withEfSearch, testMatrices);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        if (graph.entryPoint < 0) return 0;
+
+        Scratch scratch = graph.scratch.get();
+        scratch.distances = 0;
+
+        int entryPoint = graph.entryPoint;
+        for (int level = graph.maxLevel; level > 0; level--)
+            entryPoint = greedy(query, queryOffset, entryPoint, level, scratch);
+
+        NeighborHeap results = searchLayer(query, queryOffset, entryPoint, Math.max(efSearch, neighbors.getCapacity()), 0, scratch);
+        for (int i = 0; i < results.size(); i++) neighbors.offer(results.getDistance(i), results.getIndex(i));
+
+        return scratch.distances;
+    }
+
+    /**
+     * @return {@link HnswIndex#m}.
+     * */
+    public int getM() {
+        return m;
+    }
+
+    /**
+     * @return {@link HnswIndex#efConstruction}.
+     * */
+    public int getEfConstruction() {
+        return efConstruction;
+    }
+
+    /**
+     * @return {@link HnswIndex#efSearch}.
+     * */
+    public int getEfSearch() {
+        return efSearch;
+    }
+
+    /**
+     * @return {@link HnswIndex#graph}.
+     * */
+    Graph getGraph() {
+        return graph;
+    }
+
+    /** Inserts a training image into the graph.
+     *
+     * @param node index of the training image.
+     * @param level top layer of the node.
+     * */
+    private void insert(int node, int level) {
+        graph.setLevel(node, level);
+
+        if (graph.entryPoint < 0) {
+            graph.entryPoint = node;
+            graph.maxLevel = level;
+            return;
+        }
+
+        Scratch scratch = graph.scratch.get();
+        byte[] pixels = trainData.getPixels();
+        int offset = trainData.getOffset(node);
+
+        int entryPoint = graph.entryPoint;
+        for (int layer = graph.maxLevel; layer > level; layer--)
+            entryPoint = greedy(pixels, offset, entryPoint, layer, scratch);
+
+        for (int layer = Math.min(level, graph.maxLevel); layer >= 0; layer--) {
+            NeighborHeap candidates = searchLayer(pixels, offset, entryPoint, efConstruction, layer, scratch);
+            int[] selected = selectNeighbors(candidates, graph.maxLinks(layer) / (layer == 0 ? 2 : 1));
+
+            graph.setLinks(node, layer, selected, selected.length);
+            for (int neighbor : selected) link(neighbor, node, layer);
+
+            entryPoint = candidates.getIndex(0);
+        }
+
+        if (level > graph.maxLevel) {
+            graph.entryPoint = node;
+            graph.maxLevel = level;
+        }
+    }
+
+    /** Adds a link from one node to another, shrinking the links of the first node if there are too many.
+     *
+     * @param from node whose links are changed.
+     * @param to linked node.
+     * @param layer layer of the link.
+     * */
+    private void link(int from, int to, int layer) {
+        int[] links = graph.getLinks(from, layer);
+        int base = graph.getLinksOffset(from, layer);
+        int count = links[base];
+        int maxLinks = graph.maxLinks(layer);
+
+        if (count < maxLinks) {
+            links[base + count + 1] = to;
+            links[base] = count + 1;
+            return;
+        }
+
+        NeighborHeap candidates = new NeighborHeap(count + 1);
+        for (int i = 1; i <= count; i++) candidates.offer(distance(from, links[base + i]), links[base + i]);
+        candidates.offer(distance(from, to), to);
+        candidates.sort();
+
+        int[] selected = selectNeighbors(candidates, maxLinks);
+        graph.setLinks(from, layer, selected, selected.length);
+    }
+
+    /** Selects diverse neighbors with the HNSW heuristic.
+     * <p>
+     * A candidate is kept only if it is closer to the base node than to every neighbor kept before,
+     * which keeps links spread in different directions.
+     *
+     * @param candidates sorted {@link NeighborHeap} of candidates.
+     * @param maxNeighbors maximal number of neighbors.
+     * @return selected neighbors.
+     * */
+    private int[] selectNeighbors(NeighborHeap candidates, int maxNeighbors) {
+        int[] selected = new int[Math.min(maxNeighbors, candidates.size())];
+        int count = 0;
+
+        for (int i = 0; i < candidates.size() && count < selected.length; i++) {
+            int candidate = candidates.getIndex(i);
+            double distance = candidates.getDistance(i);
+            boolean keep = true;
+
+            for (int j = 0; j < count && keep; j++)
+                keep = distance(candidate, selected[j]) > distance;
+
+            if (keep) selected[count++] = candidate;
+        }
+
+        return count == selected.length ? selected : Arrays.copyOf(selected, count);
+    }
+
+    /** Moves greedily to the neighbor nearest to the query on one layer.
+     *
+     * @param query block of unsigned pixels.
+     * @param queryOffset offset of the query image.
+     * @param entryPoint node to start from.
+     * @param layer layer of the graph.
+     * @param scratch {@link Scratch} of the current thread.
+     * @return the nearest node found.
+     * */
+    private int greedy(byte[] query, int queryOffset, int entryPoint, int layer, Scratch scratch) {
+        int current = entryPoint;
+        double currentDistance = distance(query, queryOffset, current, scratch);
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+            int[] links = graph.getLinks(current, layer);
+            int base = graph.getLinksOffset(current, layer);
+
+            for (int i = base + 1; i <= base + links[base]; i++) {
+                double distance = distance(query, queryOffset, links[i], scratch);
+                if (NeighborHeap.isWorse(currentDistance, current, distance, links[i])) {
+                    current = links[i];
+                    currentDistance = distance;
+                    changed = true;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /** Best-first search on one layer.
+     *
+     * @param query block of unsigned pixels.
+     * @param queryOffset offset of the query image.
+     * @param entryPoint node to start from.
+     * @param ef number of nearest nodes to keep.
+     * @param layer layer of the graph.
+     * @param scratch {@link Scratch} of the current thread.
+     * @return sorted {@link NeighborHeap} of the nearest nodes found, owned by the scratch.
+     * */
+    private NeighborHeap searchLayer(byte[] query, int queryOffset, int entryPoint, int ef, int layer, Scratch scratch) {
+        NeighborHeap results = scratch.results;
+        CandidateQueue candidates = scratch.candidates;
+        results.reset(ef);
+        candidates.clear();
+        scratch.nextVisit();
+
+        double entryDistance = distance(query, queryOffset, entryPoint, scratch);
+        scratch.visit(entryPoint);
+        results.offer(entryDistance, entryPoint);
+        candidates.push(entryDistance, entryPoint);
+
+        while (!candidates.isEmpty()) {
+            double candidateDistance = candidates.peekDistance();
+            int candidate = candidates.pop();
+            if (candidateDistance > results.worstDistance()) break;
+
+            int[] links = graph.getLinks(candidate, layer);
+            int base = graph.getLinksOffset(candidate, layer);
+            for (int i = base + 1; i <= base + links[base]; i++) {
+                int neighbor = links[i];
+                if (!scratch.visit(neighbor)) continue;
+
+                double distance = distance(query, queryOffset, neighbor, scratch);
+                if (results.offer(distance, neighbor)) candidates.push(distance, neighbor);
+            }
+        }
+
+        results.sort();
+        return results;
+    }
+
+    private double distance(byte[] query, int queryOffset, int node, Scratch scratch) {
+        scratch.distances++;
+        return kernel.distance(metricType, query, queryOffset, trainData.getPixels(), trainData.getOffset(node), trainData.getImageSize());
+    }
+
+    private double distance(int a, int b) {
+        byte[] pixels = trainData.getPixels();
+        return kernel.distance(metricType, pixels, trainData.getOffset(a), pixels, trainData.getOffset(b), trainData.getImageSize());
+    }
+
+    /** Links of all nodes on all layers.
+     * <p>
+     * Every link list is a range of an int array whose first element is the number of links.
+     * */
+    static final class Graph {
+
+        /** Maximal number of links per node on upper layers.
+         * */
+        final int m;
+
+        /** Top layer of every node.
+         * */
+        final int[] levels;
+
+        /** Links of the bottom layer, {@code 2 * m + 1} ints per node.
+         * */
+        final int[] bottomLinks;
+
+        /** Links of upper layers, {@code upperLinks[node][layer - 1]}, null for nodes that only live on the bottom layer.
+         * */
+        final int[][][] upperLinks;
+
+        /** Node where searches start.
+         * */
+        int entryPoint;
+
+        /** Top layer of the graph.
+         * */
+        int maxLevel;
+
+        /** Per-thread search buffers of all views of the graph, a thread searches one view at a time.
+         * */
+        final ThreadLocal<Scratch> scratch;
+
+        Graph(int size, int m) {
+            this(m, new int[size], new int[size * (2 * m + 1)], new int[size][][], -1, 0);
+        }
+
+        Graph(int m, int[] levels, int[] bottomLinks, int[][][] upperLinks, int entryPoint, int maxLevel) {
+            this.m = m;
+            this.levels = levels;
+            this.bottomLinks = bottomLinks;
+            this.upperLinks = upperLinks;
+            this.entryPoint = entryPoint;
+            this.maxLevel = maxLevel;
+            this.scratch = ThreadLocal.withInitial(() -> new Scratch(levels.length));
+        }
+
+        int maxLinks(int layer) {
+            return layer == 0 ? 2 * m : m;
+        }
+
+        void setLevel(int node, int level) {
+            levels[node] = level;
+            if (level > 0) {
+                upperLinks[node] = new int[level][];
+                for (int layer = 1; layer <= level; layer++) upperLinks[node][layer - 1] = new int[m + 1];
+            }
+        }
+
+        /** Returns the array that holds the link list of the node,
+         * the list starts at {@link Graph#getLinksOffset(int, int)}.
+         * */
+        int[] getLinks(int node, int layer) {
+            return layer > 0 ? upperLinks[node][layer - 1] : bottomLinks;
+        }
+
+        int getLinksOffset(int node, int layer) {
+            return layer > 0 ? 0 : node * (2 * m + 1);
+        }
+
+        void setLinks(int node, int layer, int[] links, int count) {
+            int[] target = getLinks(node, layer);
+            int offset = getLinksOffset(node, layer);
+
+            target[offset] = count;
+            System.arraycopy(links, 0, target, offset + 1, count);
+        }
+    }
+
+    /** Min-heap of candidates ordered by distance and then by index.
+     * */
+    private static final class CandidateQueue {
+
+        private double[] distances = new double[64];
+        private int[] indices = new int[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekDistance() {
+            return distances[0];
+        }
+
+        void push(double distance, int index) {
+            if (size == distances.length) {
+                distances = Arrays.copyOf(distances, size * 2);
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!NeighborHeap.isWorse(distances[parent], indices[parent], distance, index)) break;
+                distances[i] = distances[parent];
+                indices[i] = indices[parent];
+                i = parent;
+            }
+            distances[i] = distance;
+            indices[i] = index;
+        }
+
+        int pop() {
+            int result = indices[0];
+            double distance = distances[--size];
+            int index = indices[size];
+
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) break;
+                if (child + 1 < size && NeighborHeap.isWorse(distances[child], indices[child], distances[child + 1], indices[child + 1])) child++;
+                if (!NeighborHeap.isWorse(distance, index, distances[child], indices[child])) break;
+                distances[i] = distances[child];
+                indices[i] = indices[child];
+                i = child;
+            }
+            distances[i] = distance;
+            indices[i] = index;
+
+            return result;
+        }
+    }
+
+    /** Search buffers of one thread.
+     * */
+    private static final class Scratch {
+
+        private final int[] visits;
+        private int visit;
+        private final NeighborHeap results = new NeighborHeap(0);
+        private final CandidateQueue candidates = new CandidateQueue();
+        private int distances;
+
+        private Scratch(int size) {
+            this.visits = new int[size];
+        }
+
+        private void nextVisit() {
+            if (++visit == Integer.MAX_VALUE) {
+                Arrays.fill(visits, 0);
+                visit = 1;
+            }
+        }
+
+        /** Marks the node as visited, returns false if it was already visited. */
+        private boolean visit(int node) {
+            if (visits[node] == visit) return false;
+            visits[node] = visit;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Evaluation of every k, metric and vote in one pass.</h1>
+ * <p>
+ * Calling {@link Recognizer#checkErrorRate} for every candidate k recomputes all distances every time.
+ * The sweep instead keeps the {@code maxK} nearest neighbors of every test matrix for both {@link MetricTypes}:
+ * one scan over the training data computes the Taxicab and the squared Euclidean distance of every pair
+ * at once by {@link DistanceKernel#taxicabAndSquaredEuclidean}. The error rate of every {@code k <= maxK}
+ * and every {@link VoteTypes} is then counted from the sorted neighbor lists.
+ * <br>
+ * Neighbors are ranked by the same rules as {@link Recognizer}, so the {@link VoteTypes#UNIFORM} results equal
+ * the results of {@link Recognizer#checkErrorRate} with a linear scan. Test matrices are processed in blocks in parallel,
+ * every block walks the training data in tiles that fit into the L2 cache.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class HyperparameterSweep {
+
+    /** Number of test matrices sharing one pass over the training data.
+     * */
+    private static final int QUERY_BLOCK_SIZE = 32;
+
+    /** Size in bytes of one tile of training data.
+     * */
+    private static final int TRAIN_BLOCK_BYTES = 192 * 1024;
+
+    private HyperparameterSweep() {}
+
+    /** Runs the sweep with {@link DistanceKernels#getDefault()}.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels.
+     * @param maxK the greatest evaluated k.
+     * @return {@link SweepResult}.
+     * */
+    public static SweepResult run(MnistDataSet trainData, MnistMatrix[] testMatrices, int maxK) {
+        return run(trainData, testMatrices, maxK, DistanceKernels.getDefault());
+    }
+
+    /** Runs the sweep.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels.
+     * @param maxK the greatest evaluated k.
+     * @param kernel {@link DistanceKernel} to use.
+     * @return {@link SweepResult}.
+     * */
+    public static SweepResult run(MnistDataSet trainData, MnistMatrix[] testMatrices, int maxK, DistanceKernel kernel) {
+        if (maxK < 1) throw new IllegalArgumentException("maxK must be positive, but got " + maxK);
+
+        long start = System.nanoTime();
+        AtomicIntegerArray errors = new AtomicIntegerArray(MetricTypes.values().length * VoteTypes.values().length * maxK);
+        int numberOfBlocks = (testMatrices.length + QUERY_BLOCK_SIZE - 1) / QUERY_BLOCK_SIZE;
+
+        IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+            int from = block * QUERY_BLOCK_SIZE;
+            sweepBlock(trainData, testMatrices, from, Math.min(from + QUERY_BLOCK_SIZE, testMatrices.length), maxK, kernel, errors);
+        });
+
+        int[] counts = new int[errors.length()];
+        for (int i = 0; i < counts.length; i++) counts[i] = errors.get(i);
+        return new SweepResult(testMatrices.length, maxK, counts, System.nanoTime() - start);
+    }
+
+    /** Finds neighbors of one block of test matrices and counts their errors.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels.
+     * @param from index of the first test matrix of the block, inclusive.
+     * @param to index of the last test matrix of the block, exclusive.
+     * @param maxK the greatest evaluated k.
+     * @param kernel {@link DistanceKernel} to use.
+     * @param errors error counters, see {@link SweepResult#index(MetricTypes, VoteTypes, int, int)}.
+     * */
+    private static void sweepBlock(MnistDataSet trainData, MnistMatrix[] testMatrices, int from, int to, int maxK,
+                                   DistanceKernel kernel, AtomicIntegerArray errors) {
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+        int trainBlockSize = Math.max(1, TRAIN_BLOCK_BYTES / Math.max(1, imageSize));
+
+        NeighborHeap[] taxicab = new NeighborHeap[to - from];
+        NeighborHeap[] euclidean = new NeighborHeap[to - from];
+        for (int q = 0; q < to - from; q++) {
+            taxicab[q] = new NeighborHeap(maxK);
+            euclidean[q] = new NeighborHeap(maxK);
+        }
+
+        for (int blockStart = 0; blockStart < trainData.size(); blockStart += trainBlockSize) {
+            int blockEnd = Math.min(blockStart + trainBlockSize, trainData.size());
+
+            for (int q = from; q < to; q++) {
+                byte[] query = testMatrices[q].getData();
+                int queryOffset = testMatrices[q].getOffset();
+                NeighborHeap taxicabNeighbors = taxicab[q - from];
+                NeighborHeap euclideanNeighbors = euclidean[q - from];
+
+                for (int i = blockStart; i < blockEnd; i++) {
+                    long distances = kernel.taxicabAndSquaredEuclidean(query, queryOffset, pixels, trainData.getOffset(i), imageSize);
+                    taxicabNeighbors.offer(DistanceKernel.taxicabOf(distances), i);
+                    euclideanNeighbors.offer(DistanceKernel.squaredEuclideanOf(distances), i);
+                }
+            }
+        }
+
+        int[] neighborLabels = new int[maxK];
+        double[] neighborWeights = new double[maxK];
+        double[] votes = new double[trainData.getNumberOfClasses()];
+        int[] blockErrors = new int[errors.length()];
+        for (int q = from; q < to; q++) {
+            int label = testMatrices[q].getLabel();
+            countErrors(trainData, taxicab[q - from], MetricTypes.TAXICAB, label, maxK, neighborLabels, neighborWeights, votes, blockErrors);
+            countErrors(trainData, euclidean[q - from], MetricTypes.EUCLIDEAN, label, maxK, neighborLabels, neighborWeights, votes, blockErrors);
+        }
+
+        for (int i = 0; i < blockErrors.length; i++)
+            if (blockErrors[i] != 0) errors.addAndGet(i, blockErrors[i]);
+    }
+
+    /** Counts errors of every k and vote type of one test matrix.
+     * <p>
+     * Every k votes with {@link Recognizer#majority(int[], double[], int, double[])} over its first k neighbors.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param neighbors the {@link NeighborHeap} with at most maxK neighbors.
+     * @param metricType {@link MetricTypes} of the neighbors.
+     * @param label the true label.
+     * @param maxK the greatest evaluated k.
+     * @param neighborLabels reused buffer of maxK labels.
+     * @param neighborWeights reused buffer of maxK weights.
+     * @param votes reused vote counters, one per label.
+     * @param errors error counters of the block.
+     * */
+    private static void countErrors(MnistDataSet trainData, NeighborHeap neighbors, MetricTypes metricType, int label,
+                                    int maxK, int[] neighborLabels, double[] neighborWeights, double[] votes, int[] errors) {
+        neighbors.sort();
+        for (int i = 0; i < neighbors.size(); i++) neighborLabels[i] = trainData.getLabel(neighbors.getIndex(i));
+
+        for (VoteTypes voteType : VoteTypes.values()) {
+            for (int i = 0; i < neighbors.size(); i++) {
+                double distance = neighbors.getDistance(i);
+                if (metricType == MetricTypes.EUCLIDEAN) distance = Math.sqrt(distance);
+                neighborWeights[i] = voteType.weight(i, distance);
+            }
+
+            for (int k = 1; k <= maxK; k++) {
+                int majority = Recognizer.majority(neighborLabels, neighborWeights, Math.min(k, neighbors.size()), votes);
+                if (majority != label) errors[SweepResult.index(metricType, voteType, k, maxK)]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,730 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Recognizer with training images added and removed while it recognizes.</h1>
+ * <p>
+ * {@link Recognizer#setTrainMatrices} replaces all training data and rebuilds the whole index.
+ * This recognizer instead keeps training images in segments of at most {@link IncrementalRecognizer#segmentCapacity} images:
+ * <ul>
+ *     <li>{@link IncrementalRecognizer#append} writes into the open segment, which is searched by a linear scan.
+ *     A full segment is sealed in the background: it gets its own {@link NeighborIndex} built by the
+ *     {@link NeighborIndexFactory}, so norms, fingerprints and trees are built per segment and never for the whole data.</li>
+ *     <li>{@link IncrementalRecognizer#remove} only marks the image as deleted. A segment with at least
+ *     {@link IncrementalRecognizer#COMPACTION_THRESHOLD} deleted images is compacted in the background,
+ *     merged with the following small segments, and its index is rebuilt.</li>
+ * </ul>
+ * Segments are never modified once published: appends write beyond the published size, deletes copy the bitmap
+ * of deleted images, compaction builds new segments. Every change publishes a new immutable {@link Snapshot}
+ * through a volatile field, so queries read one consistent snapshot without any lock, while writers are serialized.
+ * <br>
+ * A sealed segment is searched for {@code k} plus its number of deleted images, deleted ones are skipped and
+ * the rest is merged into the {@code k} nearest. Ties are broken by the order of appending, so with an exact index
+ * results equal the ones of {@link Recognizer} over {@link IncrementalRecognizer#toDataSet()}.
+ * <br>
+ * Images are identified by ids returned by {@link IncrementalRecognizer#append}, ids never change, even after compaction.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class IncrementalRecognizer implements AutoCloseable {
+
+    /** Default greatest number of images of one segment.
+     * */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 4096;
+
+    /** Share of deleted images of a segment from which it is compacted.
+     * */
+    private static final double COMPACTION_THRESHOLD = 0.25;
+
+    /** Number of queries searched together by {@link IncrementalRecognizer#recognizeBatch(MnistMatrix[])}.
+     * */
+    private static final int QUERY_BLOCK_SIZE = 32;
+
+    /** Per-thread scratch buffers of queries.
+     * */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** The number of neighbors.
+     * */
+    private final int k;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The factory of indexes of sealed segments.
+     * */
+    private final NeighborIndexFactory indexFactory;
+
+    /** The kernel that scans the open segment.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Number of rows of every image.
+     * */
+    private final int nRows;
+
+    /** Number of columns of every image.
+     * */
+    private final int nCols;
+
+    /** Greatest number of images of one segment.
+     * */
+    private final int segmentCapacity;
+
+    /** The current snapshot, replaced by every change.
+     * */
+    private volatile Snapshot snapshot;
+
+    /** Id of the next appended image, guarded by this.
+     * */
+    private long nextId;
+
+    /** Thread that seals and compacts segments.
+     * */
+    private final ExecutorService maintenance;
+
+    /** True while a maintenance run is queued and not started yet.
+     * */
+    private final AtomicBoolean maintenanceScheduled = new AtomicBoolean();
+
+    /** Constructor for the {@link IncrementalRecognizer} class with {@link LinearScanIndex#factory()}.
+     * <p>
+     * Images of the initial data get ids from 0 to its size - 1.
+     *
+     * @param k {@link IncrementalRecognizer#k description}.
+     * @param metricType {@link IncrementalRecognizer#metricType description}.
+     * @param initialData {@link MnistDataSet} appended at once, it may be empty.
+     * */
+    public IncrementalRecognizer(int k, MetricTypes metricType, MnistDataSet initialData) {
+        this(k, metricType, initialData.getNumberOfRows(), initialData.getNumberOfColumns(),
+                LinearScanIndex.factory(), DEFAULT_SEGMENT_CAPACITY);
+        appendAll(initialData);
+    }
+
+    /** Constructor for the {@link IncrementalRecognizer} class.
+     *
+     * @param k {@link IncrementalRecognizer#k description}.
+     * @param metricType {@link IncrementalRecognizer#metricType description}.
+     * @param nRows {@link IncrementalRecognizer#nRows description}.
+     * @param nCols {@link IncrementalRecognizer#nCols description}.
+     * @param indexFactory {@link IncrementalRecognizer#indexFactory description}.
+     * @param segmentCapacity {@link IncrementalRecognizer#segmentCapacity description}.
+     * */
+    public IncrementalRecognizer(int k, MetricTypes metricType, int nRows, int nCols,
+                                 NeighborIndexFactory indexFactory, int segmentCapacity) {
+        if (k < 1) throw new IllegalArgumentException("k must be positive, but got " + k);
+        if (segmentCapacity < 1) throw new IllegalArgumentException("Segment capacity must be positive, but got " + segmentCapacity);
+
+        this.k = k;
+        this.metricType = metricType;
+        this.indexFactory = indexFactory;
+        this.kernel = DistanceKernels.getDefault();
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.segmentCapacity = segmentCapacity;
+        this.snapshot = new Snapshot(new Segment[0], 0, 0);
+        this.maintenance = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "incremental-recognizer-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Adds a training image.
+     * <p>
+     * The image is seen by queries that start after the method returns.
+     *
+     * @param matrix {@link MnistMatrix} with a known label, its pixels are copied.
+     * @throws IllegalArgumentException if the size of the matrix differs from the size of training images.
+     * @return id of the image.
+     * */
+    public synchronized long append(MnistMatrix matrix) {
+        if (matrix.getNumberOfRows() != nRows || matrix.getNumberOfColumns() != nCols)
+            throw new IllegalArgumentException("Expected a " + nRows + "x" + nCols + " matrix, but got "
+                    + matrix.getNumberOfRows() + "x" + matrix.getNumberOfColumns());
+
+        Snapshot snapshot = this.snapshot;
+        Segment[] segments = snapshot.segments;
+        Segment open = segments.length > 0 ? segments[segments.length - 1] : null;
+
+        if (open == null || open.index != null || open.size == segmentCapacity) {
+            open = Segment.open(segmentCapacity, nRows * nCols);
+            segments = Arrays.copyOf(segments, segments.length + 1);
+        } else {
+            segments = segments.clone();
+        }
+
+        // positions beyond the published size are never read, so the shared arrays may be written before publishing
+        int imageSize = nRows * nCols;
+        System.arraycopy(matrix.getData(), matrix.getOffset(), open.pixels, open.size * imageSize, imageSize);
+        open.labels[open.size] = (byte) matrix.getLabel();
+        long id = nextId++;
+        open.ids[open.size] = id;
+
+        Segment appended = open.withSize(open.size + 1);
+        segments[segments.length - 1] = appended;
+        this.snapshot = new Snapshot(segments, snapshot.size + 1, Math.max(snapshot.numberOfClasses, matrix.getLabel() + 1));
+
+        if (appended.size == segmentCapacity) scheduleMaintenance();
+        return id;
+    }
+
+    /** Adds all images of a data set.
+     *
+     * @param data {@link MnistDataSet} with known labels.
+     * @return ids of the images, in the order of the data set.
+     * */
+    public synchronized long[] appendAll(MnistDataSet data) {
+        long[] ids = new long[data.size()];
+        for (int i = 0; i < ids.length; i++) ids[i] = append(data.getMatrix(i));
+        return ids;
+    }
+
+    /** Removes a training image.
+     * <p>
+     * The image is not seen by queries that start after the method returns.
+     *
+     * @param id id of the image.
+     * @return true if the image was removed, false if there is no such image.
+     * */
+    public synchronized boolean remove(long id) {
+        Snapshot snapshot = this.snapshot;
+        Segment[] segments = snapshot.segments;
+
+        int s = findSegment(segments, id);
+        if (s < 0) return false;
+        Segment segment = segments[s];
+        int position = Arrays.binarySearch(segment.ids, 0, segment.size, id);
+        if (position < 0 || segment.isDeleted(position)) return false;
+
+        Segment removed = segment.withDeleted(position);
+        segments = segments.clone();
+        segments[s] = removed;
+        this.snapshot = new Snapshot(segments, snapshot.size - 1, snapshot.numberOfClasses);
+
+        if (removed.index != null && removed.numberOfDeleted >= COMPACTION_THRESHOLD * removed.size) scheduleMaintenance();
+        return true;
+    }
+
+    /** Returns the position of the segment that may contain the id.
+     *
+     * @param segments segments in the order of ids.
+     * @param id id of the image.
+     * @return position of the last segment whose first id is not greater than the id, or -1.
+     * */
+    private static int findSegment(Segment[] segments, long id) {
+        int low = 0, high = segments.length - 1, found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (segments[middle].ids[0] <= id) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found;
+    }
+
+    /** Returns the recognized digit.
+     *
+     * @param matrix a simple {@link MnistMatrix} that needs to be recognized.
+     * @return recognized digit, or -1 if there are no training images.
+     * */
+    public int recognize(MnistMatrix matrix) {
+        Snapshot snapshot = this.snapshot;
+        Scratch scratch = SCRATCH.get();
+        NeighborHeap neighbors = scratch.neighbors(k);
+
+        search(snapshot, matrix.getData(), matrix.getOffset(), neighbors, scratch.segmentNeighbors);
+        neighbors.sort();
+        return findMajority(snapshot, neighbors, scratch.labels(k), scratch.votes(snapshot.numberOfClasses));
+    }
+
+    /** Returns the nearest neighbors of the matrix.
+     *
+     * @param matrix a simple {@link MnistMatrix}.
+     * @return ids of the k nearest training images, from the nearest to the farthest.
+     * */
+    public long[] findNeighbors(MnistMatrix matrix) {
+        Snapshot snapshot = this.snapshot;
+        Scratch scratch = SCRATCH.get();
+        NeighborHeap neighbors = scratch.neighbors(k);
+
+        search(snapshot, matrix.getData(), matrix.getOffset(), neighbors, scratch.segmentNeighbors);
+        neighbors.sort();
+
+        long[] ids = new long[neighbors.size()];
+        for (int i = 0; i < ids.length; i++) {
+            int neighbor = neighbors.getIndex(i);
+            ids[i] = snapshot.segments[neighbor / segmentCapacity].ids[neighbor % segmentCapacity];
+        }
+        return ids;
+    }
+
+    /** Returns recognized digits of many matrices at once.
+     * <p>
+     * Blocks of {@link IncrementalRecognizer#QUERY_BLOCK_SIZE} queries are recognized in parallel,
+     * every sealed segment is searched by {@link NeighborIndex#searchBatch} once per block.
+     * All queries see the same snapshot.
+     *
+     * @param queries an array of {@link MnistMatrix} that need to be recognized.
+     * @return recognized digits, in the order of queries.
+     * */
+    public int[] recognizeBatch(MnistMatrix[] queries) {
+        Snapshot snapshot = this.snapshot;
+        int[] labels = new int[queries.length];
+        int numberOfBlocks = (queries.length + QUERY_BLOCK_SIZE - 1) / QUERY_BLOCK_SIZE;
+
+        IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+            int from = block * QUERY_BLOCK_SIZE;
+            recognizeBlock(snapshot, queries, from, Math.min(from + QUERY_BLOCK_SIZE, queries.length), labels);
+        });
+
+        return labels;
+    }
+
+    /** Recognizes one block of queries.
+     *
+     * @param snapshot {@link Snapshot} to search.
+     * @param queries an array of {@link MnistMatrix} that need to be recognized.
+     * @param from index of the first query of the block, inclusive.
+     * @param to index of the last query of the block, exclusive.
+     * @param labels array where recognized digits are stored.
+     * */
+    private void recognizeBlock(Snapshot snapshot, MnistMatrix[] queries, int from, int to, int[] labels) {
+        NeighborHeap[] neighbors = new NeighborHeap[to - from];
+        NeighborHeap[] segmentNeighbors = new NeighborHeap[to - from];
+        for (int q = 0; q < to - from; q++) {
+            neighbors[q] = new NeighborHeap(k);
+            segmentNeighbors[q] = new NeighborHeap(k);
+        }
+
+        Segment[] segments = snapshot.segments;
+        for (int s = 0; s < segments.length; s++) {
+            Segment segment = segments[s];
+            if (segment.index == null) {
+                for (int q = from; q < to; q++) scan(segment, s, queries[q].getData(), queries[q].getOffset(), neighbors[q - from]);
+                continue;
+            }
+
+            for (NeighborHeap heap : segmentNeighbors) heap.reset(k + segment.numberOfDeleted);
+            segment.index.searchBatch(queries, from, to, segmentNeighbors);
+            for (int q = 0; q < to - from; q++) merge(segment, s, segmentNeighbors[q], neighbors[q]);
+        }
+
+        int[] neighborLabels = new int[k];
+        double[] votes = new double[snapshot.numberOfClasses];
+        for (int q = from; q < to; q++) {
+            neighbors[q - from].sort();
+            labels[q] = findMajority(snapshot, neighbors[q - from], neighborLabels, votes);
+        }
+    }
+
+    /** Finds the nearest live training images of the query in every segment of the snapshot.
+     *
+     * @param snapshot {@link Snapshot} to search.
+     * @param query block of unsigned pixels.
+     * @param queryOffset offset of the query image in the block.
+     * @param neighbors empty {@link NeighborHeap} with capacity k, receives neighbors as {@code segment * segmentCapacity + position}.
+     * @param segmentNeighbors reused {@link NeighborHeap} of one segment.
+     * */
+    private void search(Snapshot snapshot, byte[] query, int queryOffset, NeighborHeap neighbors, NeighborHeap segmentNeighbors) {
+        Segment[] segments = snapshot.segments;
+        for (int s = 0; s < segments.length; s++) {
+            Segment segment = segments[s];
+            if (segment.index == null) {
+                scan(segment, s, query, queryOffset, neighbors);
+                continue;
+            }
+
+            // at most numberOfDeleted of the nearest images of the segment are skipped
+            segmentNeighbors.reset(k + segment.numberOfDeleted);
+            segment.index.search(query, queryOffset, segmentNeighbors);
+            merge(segment, s, segmentNeighbors, neighbors);
+        }
+    }
+
+    /** Compares the query with every live image of the open segment.
+     *
+     * @param segment the open {@link Segment}.
+     * @param s position of the segment in the snapshot.
+     * @param query block of unsigned pixels.
+     * @param queryOffset offset of the query image in the block.
+     * @param neighbors {@link NeighborHeap} of the query.
+     * */
+    private void scan(Segment segment, int s, byte[] query, int queryOffset, NeighborHeap neighbors) {
+        int imageSize = nRows * nCols;
+        for (int i = 0; i < segment.size; i++) {
+            if (segment.isDeleted(i)) continue;
+            int cutoff = neighbors.isFull() ? (int) neighbors.worstDistance() : Integer.MAX_VALUE;
+            int distance = kernel.distance(metricType, query, queryOffset, segment.pixels, i * imageSize, imageSize, cutoff);
+            if (distance <= cutoff) neighbors.offer(distance, s * segmentCapacity + i);
+        }
+    }
+
+    /** Offers live neighbors found in one sealed segment.
+     *
+     * @param segment the sealed {@link Segment}.
+     * @param s position of the segment in the snapshot.
+     * @param segmentNeighbors neighbors found in the segment.
+     * @param neighbors {@link NeighborHeap} of the query.
+     * */
+    private void merge(Segment segment, int s, NeighborHeap segmentNeighbors, NeighborHeap neighbors) {
+        for (int i = 0; i < segmentNeighbors.size(); i++) {
+            int position = segmentNeighbors.getIndex(i);
+            if (!segment.isDeleted(position)) neighbors.offer(segmentNeighbors.getDistance(i), s * segmentCapacity + position);
+        }
+    }
+
+    /** Returns the majority label of sorted neighbors, voted by {@link Recognizer#majority(int[], int, double[])}.
+     *
+     * @param snapshot {@link Snapshot} the neighbors were found in.
+     * @param neighbors sorted {@link NeighborHeap}.
+     * @param neighborLabels reused buffer of at least k labels.
+     * @param votes reused vote counters, one per label.
+     * @return label of the majority, or -1 if there are no neighbors.
+     * */
+    private int findMajority(Snapshot snapshot, NeighborHeap neighbors, int[] neighborLabels, double[] votes) {
+        for (int i = 0; i < neighbors.size(); i++) neighborLabels[i] = label(snapshot, neighbors.getIndex(i));
+        return Recognizer.majority(neighborLabels, neighbors.size(), votes);
+    }
+
+    private int label(Snapshot snapshot, int neighbor) {
+        return snapshot.segments[neighbor / segmentCapacity].labels[neighbor % segmentCapacity] & 0xFF;
+    }
+
+    /** Queues a maintenance run unless one is already queued or the recognizer is closed.
+     * */
+    private void scheduleMaintenance() {
+        if (!maintenanceScheduled.compareAndSet(false, true)) return;
+        try {
+            maintenance.execute(this::maintain);
+        } catch (RejectedExecutionException e) {
+            // closed, segments are sealed and compacted only by an explicit compact()
+            maintenanceScheduled.set(false);
+        }
+    }
+
+    /** Seals full segments and compacts segments with many deleted images.
+     * <p>
+     * Runs in the background after appends and removes, may also be called to compact at once.
+     * Indexes are built without holding the lock, changes made meanwhile are carried over when the result is published.
+     * */
+    public void compact() {
+        Segment[] segments = snapshot.segments;
+
+        for (int s = 0; s < segments.length; s++) {
+            Segment segment = segments[s];
+            if (segment.index == null) {
+                if (segment.size == segmentCapacity) replace(new Segment[]{segment}, seal(segment));
+                continue;
+            }
+            if (segment.numberOfDeleted < COMPACTION_THRESHOLD * segment.size) continue;
+
+            // merge the following sealed segments while the live images fit into one segment
+            int end = s + 1, live = segment.size - segment.numberOfDeleted;
+            while (end < segments.length && segments[end].index != null
+                    && live + segments[end].size - segments[end].numberOfDeleted <= segmentCapacity) {
+                live += segments[end].size - segments[end].numberOfDeleted;
+                end++;
+            }
+
+            Segment[] originals = Arrays.copyOfRange(segments, s, end);
+            replace(originals, live == 0 ? null : merge(originals, live));
+            s = end - 1;
+        }
+    }
+
+    private void maintain() {
+        maintenanceScheduled.set(false);
+        compact();
+    }
+
+    /** Returns a sealed copy of a full open segment.
+     *
+     * @param open the full open {@link Segment}, its arrays are not written anymore.
+     * @return the sealed {@link Segment} with the same arrays and deleted images.
+     * */
+    private Segment seal(Segment open) {
+        MnistDataSet data = new MnistDataSet(open.pixels, open.labels, nRows, nCols);
+        return new Segment(open.pixels, open.labels, open.ids, open.size, open.deleted, open.numberOfDeleted,
+                indexFactory.build(data, metricType));
+    }
+
+    /** Returns one sealed segment with the live images of the segments.
+     *
+     * @param segments consecutive {@link Segment}s.
+     * @param live number of their live images.
+     * @return the sealed {@link Segment}.
+     * */
+    private Segment merge(Segment[] segments, int live) {
+        int imageSize = nRows * nCols;
+        byte[] pixels = new byte[live * imageSize];
+        byte[] labels = new byte[live];
+        long[] ids = new long[live];
+
+        int size = 0;
+        for (Segment segment : segments) {
+            for (int i = 0; i < segment.size; i++) {
+                if (segment.isDeleted(i)) continue;
+                System.arraycopy(segment.pixels, i * imageSize, pixels, size * imageSize, imageSize);
+                labels[size] = segment.labels[i];
+                ids[size++] = segment.ids[i];
+            }
+        }
+
+        MnistDataSet data = new MnistDataSet(pixels, labels, nRows, nCols);
+        return new Segment(pixels, labels, ids, size, new long[(size + 63) / 64], 0, indexFactory.build(data, metricType));
+    }
+
+    /** Publishes a replacement of consecutive segments.
+     * <p>
+     * Images removed from the originals since they were read are removed from the replacement too.
+     *
+     * @param originals consecutive {@link Segment}s as they were read.
+     * @param replacement {@link Segment} with their live images, or null if there are none.
+     * @return false if the originals were replaced meanwhile.
+     * */
+    private synchronized boolean replace(Segment[] originals, Segment replacement) {
+        Snapshot snapshot = this.snapshot;
+        Segment[] segments = snapshot.segments;
+
+        // a segment keeps its ids array through appends and removes, so the array identifies it
+        int start = 0;
+        while (start < segments.length && segments[start].ids != originals[0].ids) start++;
+        if (start + originals.length > segments.length) return false;
+        for (int i = 0; i < originals.length; i++)
+            if (segments[start + i].ids != originals[i].ids || segments[start + i].size != originals[i].size) return false;
+
+        for (int i = 0; i < originals.length && replacement != null; i++) {
+            Segment original = originals[i], current = segments[start + i];
+            if (current.numberOfDeleted == original.numberOfDeleted) continue;
+            for (int j = 0; j < original.size; j++) {
+                if (!current.isDeleted(j) || original.isDeleted(j)) continue;
+                int position = Arrays.binarySearch(replacement.ids, 0, replacement.size, original.ids[j]);
+                if (position >= 0 && !replacement.isDeleted(position)) replacement = replacement.withDeleted(position);
+            }
+        }
+
+        Segment[] replaced = new Segment[segments.length - originals.length + (replacement != null ? 1 : 0)];
+        System.arraycopy(segments, 0, replaced, 0, start);
+        if (replacement != null) replaced[start] = replacement;
+        System.arraycopy(segments, start + originals.length, replaced, replacement != null ? start + 1 : start,
+                segments.length - start - originals.length);
+
+        this.snapshot = new Snapshot(replaced, snapshot.size, snapshot.numberOfClasses);
+        return true;
+    }
+
+    /** Returns the live training images, in the order they were appended.
+     *
+     * @return {@link MnistDataSet} with copies of the images.
+     * */
+    public MnistDataSet toDataSet() {
+        Snapshot snapshot = this.snapshot;
+        int imageSize = nRows * nCols;
+        byte[] pixels = new byte[snapshot.size * imageSize];
+        byte[] labels = new byte[snapshot.size];
+
+        int size = 0;
+        for (Segment segment : snapshot.segments) {
+            for (int i = 0; i < segment.size; i++) {
+                if (segment.isDeleted(i)) continue;
+                System.arraycopy(segment.pixels, i * imageSize, pixels, size * imageSize, imageSize);
+                labels[size++] = segment.labels[i];
+            }
+        }
+
+        return new MnistDataSet(pixels, labels, nRows, nCols);
+    }
+
+    /**
+     * @return number of live training images.
+     * */
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * @return number of segments, sealed and open.
+     * */
+    public int getNumberOfSegments() {
+        return snapshot.segments.length;
+    }
+
+    /**
+     * @return number of removed images that are not compacted yet.
+     * */
+    public int getNumberOfDeleted() {
+        int deleted = 0;
+        for (Segment segment : snapshot.segments) deleted += segment.numberOfDeleted;
+        return deleted;
+    }
+
+    /**
+     * @return {@link IncrementalRecognizer#k}.
+     * */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return {@link IncrementalRecognizer#metricType}.
+     * */
+    public MetricTypes getMetricType() {
+        return metricType;
+    }
+
+    /** Stops the background maintenance and waits for a running one to finish.
+     * <p>
+     * The recognizer stays usable, segments are no longer sealed or compacted unless {@link IncrementalRecognizer#compact()} is called.
+     * If the current thread is interrupted, it stops waiting and keeps the interrupt status.
+     * */
+    @Override
+    public void close() {
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        Snapshot snapshot = this.snapshot;
+        int sealed = 0;
+        for (Segment segment : snapshot.segments) if (segment.index != null) sealed++;
+        return String.format("Images: %d, segments: %d (%d sealed), deleted: %d",
+                snapshot.size, snapshot.segments.length, sealed, getNumberOfDeleted());
+    }
+
+    /** Immutable state seen by queries.
+     * */
+    private static final class Snapshot {
+
+        /** Segments in the order of ids, the last one may be open.
+         * */
+        private final Segment[] segments;
+
+        /** Number of live images.
+         * */
+        private final int size;
+
+        /** Number of classes, the greatest appended label plus one.
+         * */
+        private final int numberOfClasses;
+
+        private Snapshot(Segment[] segments, int size, int numberOfClasses) {
+            this.segments = segments;
+            this.size = size;
+            this.numberOfClasses = numberOfClasses;
+        }
+    }
+
+    /** Immutable view of a segment.
+     * <p>
+     * An open segment shares its arrays with later views which append beyond {@link Segment#size}.
+     * */
+    private static final class Segment {
+
+        /** Pixels of the images, row-major.
+         * */
+        private final byte[] pixels;
+
+        /** Labels of the images.
+         * */
+        private final byte[] labels;
+
+        /** Ids of the images, ascending.
+         * */
+        private final long[] ids;
+
+        /** Number of published images.
+         * */
+        private final int size;
+
+        /** Bitmap of deleted images, copied on every remove.
+         * */
+        private final long[] deleted;
+
+        /** Number of deleted images.
+         * */
+        private final int numberOfDeleted;
+
+        /** Index of a sealed segment, null for the open one.
+         * */
+        private final NeighborIndex index;
+
+        private Segment(byte[] pixels, byte[] labels, long[] ids, int size, long[] deleted, int numberOfDeleted, NeighborIndex index) {
+            this.pixels = pixels;
+            this.labels = labels;
+            this.ids = ids;
+            this.size = size;
+            this.deleted = deleted;
+            this.numberOfDeleted = numberOfDeleted;
+            this.index = index;
+        }
+
+        private static Segment open(int capacity, int imageSize) {
+            return new Segment(new byte[capacity * imageSize], new byte[capacity], new long[capacity], 0,
+                    new long[(capacity + 63) / 64], 0, null);
+        }
+
+        private Segment withSize(int size) {
+            return new Segment(pixels, labels, ids, size, deleted, numberOfDeleted, index);
+        }
+
+        private Segment withDeleted(int position) {
+            long[] deleted = this.deleted.clone();
+            deleted[position >>> 6] |= 1L << position;
+            return new Segment(pixels, labels, ids, size, deleted, numberOfDeleted + 1, index);
+        }
+
+        private boolean isDeleted(int position) {
+            return (deleted[position >>> 6] & (1L << position)) != 0;
+        }
+    }
+
+    /** Scratch buffers of one thread.
+     * */
+    private static final class Scratch {
+
+        private final NeighborHeap neighbors = new NeighborHeap(0);
+
+        private final NeighborHeap segmentNeighbors = new NeighborHeap(0);
+
+        private double[] votes = new double[10];
+
+        private int[] labels = new int[0];
+
+        NeighborHeap neighbors(int k) {
+            neighbors.reset(k);
+            return neighbors;
+        }
+
+        double[] votes(int numberOfClasses) {
+            if (votes.length != numberOfClasses) votes = new double[numberOfClasses];
+            return votes;
+        }
+
+        int[] labels(int k) {
+            if (labels.length < k) labels = new int[k];
+            return labels;
+        }
+    }
+}
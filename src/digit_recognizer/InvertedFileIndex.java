@@ -0,0 +1,452 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Approximate nearest neighbor index on an inverted file of k-means cells.</h1>
+ * <p>
+ * Training images are partitioned into a few hundred cells by k-means, a coarse quantizer.
+ * A query computes its distance to all centroids and scans only the images of the {@link InvertedFileIndex#nprobe}
+ * nearest cells, nearest first, so the k-th distance is small early and later distances are abandoned sooner.
+ * Neighbors lying in cells that are not probed are the only source of error, {@link InvertedFileIndex#nprobeSweep}
+ * reports the trade-off against exact search.
+ * <br>
+ * Lloyd iterations run on the fork/join pool: images are assigned to their nearest centroid in parallel,
+ * then every centroid is recomputed in parallel as the rounded mean of its images, so centroids are images too and
+ * are compared with the same {@link DistanceKernel}. The centroids are trained on a random sample of at most
+ * {@link InvertedFileIndex#SAMPLE_SIZE_PER_CELL} images per cell, then all images are assigned once.
+ * <br>
+ * Pixels are copied in cell order, so the images of a cell are scanned sequentially from one block of memory.
+ * Building is cheap compared to graph indexes, so a changed training set is simply indexed again.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class InvertedFileIndex implements NeighborIndex {
+
+    /** Default number of cells.
+     * */
+    public static final int DEFAULT_NUMBER_OF_CELLS = 256;
+
+    /** Default number of cells scanned by a query.
+     * */
+    public static final int DEFAULT_NPROBE = 8;
+
+    /** Default maximal number of Lloyd iterations.
+     * */
+    public static final int DEFAULT_ITERATIONS = 10;
+
+    /** Maximal number of sampled images per cell used to train the centroids.
+     * */
+    private static final int SAMPLE_SIZE_PER_CELL = 64;
+
+    /** Training data.
+     * */
+    private final MnistDataSet trainData;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The kernel that computes distances.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Number of cells scanned by a query.
+     * */
+    private final int nprobe;
+
+    /** The cells shared by all views with different {@link InvertedFileIndex#nprobe}.
+     * */
+    private final Cells cells;
+
+    /** Per-thread search buffers.
+     * */
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /** Constructor for the {@link InvertedFileIndex} class, runs k-means over the training data.
+     *
+     * @param trainData {@link InvertedFileIndex#trainData description}.
+     * @param metricType {@link InvertedFileIndex#metricType description}.
+     * @param kernel {@link InvertedFileIndex#kernel description}.
+     * @param numberOfCells number of k-means cells, at most the number of training images are used.
+     * @param nprobe {@link InvertedFileIndex#nprobe description}.
+     * @param iterations maximal number of Lloyd iterations, they stop earlier once no sampled image changes its cell.
+     * @param seed seed of the sample and of the initial centroids.
+     * */
+    public InvertedFileIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel,
+                             int numberOfCells, int nprobe, int iterations, long seed) {
+        this(trainData, metricType, kernel, nprobe, build(trainData, metricType, kernel, numberOfCells, iterations, seed));
+    }
+
+    /** Constructor for the {@link InvertedFileIndex} class with built cells, used by views and {@link RecognizerSnapshot}.
+     *
+     * @param trainData {@link InvertedFileIndex#trainData description}.
+     * @param metricType {@link InvertedFileIndex#metricType description}.
+     * @param kernel {@link InvertedFileIndex#kernel description}.
+     * @param nprobe {@link InvertedFileIndex#nprobe description}.
+     * @param cells {@link InvertedFileIndex#cells description}.
+     * */
+    InvertedFileIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int nprobe, Cells cells) {
+        if (cells.ids.length != trainData.size())
+            throw new IllegalArgumentException("Expected " + trainData.size() + " images in cells, but got " + cells.ids.length);
+
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.nprobe = Math.max(1, nprobe);
+        this.cells = cells;
+    }
+
+    /**
+     * @return factory of {@link InvertedFileIndex} with default parameters.
+     * */
+    public static NeighborIndexFactory factory() {
+        return factory(DEFAULT_NUMBER_OF_CELLS, DEFAULT_NPROBE);
+    }
+
+    /**
+     * @param numberOfCells number of k-means cells.
+     * @param nprobe {@link InvertedFileIndex#nprobe description}.
+     * @return factory of {@link InvertedFileIndex} that uses {@link DistanceKernels#getDefault()}.
+     * */
+    public static NeighborIndexFactory factory(int numberOfCells, int nprobe) {
+        return (trainData, metricType) -> new InvertedFileIndex(trainData, metricType, DistanceKernels.getDefault(),
+                numberOfCells, nprobe, DEFAULT_ITERATIONS, 42);
+    }
+
+    /** Returns a view of this index with another {@link InvertedFileIndex#nprobe}, the cells are shared and not rebuilt.
+     *
+     * @param nprobe {@link InvertedFileIndex#nprobe description}.
+     * @return {@link InvertedFileIndex}.
+     * */
+    public InvertedFileIndex withNprobe(int nprobe) {
+        return new InvertedFileIndex(trainData, metricType, kernel, nprobe, cells);
+    }
+
+    /** Reports recall and error rate of the index for several values of {@link InvertedFileIndex#nprobe}
+     * by {@link RecallReport#sweep}.
+     *
+     * @param exact exact {@link Recognizer} with the same training data, k and metric type.
+     * @param ivfRecognizer {@link Recognizer} with {@link InvertedFileIndex}.
+     * @param nprobeValues values of {@link InvertedFileIndex#nprobe} to try.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels, such as the t10k set.
+     * @return one {@link RecallReport} per value, in the order of the values.
+     * */
+    public static List<RecallReport> nprobeSweep(Recognizer exact, Recognizer ivfRecognizer, int[] nprobeValues, MnistMatrix[] testMatrices) {
+        InvertedFileIndex index = (InvertedFileIndex) ivfRecognizer.getIndex();
+        return RecallReport.sweep(exact, ivfRecognizer, nprobeValues, index::withNprobe, testMatrices);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        int numberOfCells = cells.getNumberOfCells();
+        if (numberOfCells == 0) return 0;
+
+        NeighborHeap probes = nearestCells(query, queryOffset);
+        probes.sort();
+
+        int imageSize = trainData.getImageSize();
+        int distances = numberOfCells;
+        for (int p = 0; p < probes.size(); p++) {
+            int cell = probes.getIndex(p);
+            for (int i = cells.starts[cell]; i < cells.starts[cell + 1]; i++) {
+                double worst = neighbors.worstDistance();
+                int cutoff = worst == Double.POSITIVE_INFINITY ? Integer.MAX_VALUE : (int) worst;
+                int distance = kernel.distance(metricType, query, queryOffset, cells.pixels, i * imageSize, imageSize, cutoff);
+                if (distance <= cutoff) neighbors.offer(distance, cells.ids[i]);
+            }
+            distances += cells.starts[cell + 1] - cells.starts[cell];
+        }
+
+        return distances;
+    }
+
+    /** Finds nearest training images of a block of queries.
+     * <p>
+     * Probed cells of all queries are scanned in cell order, so a cell is loaded into cache once
+     * and compared with every query of the block that probes it. Every query scans the same images as in
+     * {@link InvertedFileIndex#search}, so the result is the same.
+     * */
+    @Override
+    public long searchBatch(MnistMatrix[] queries, int from, int to, NeighborHeap[] neighbors) {
+        int numberOfCells = cells.getNumberOfCells();
+        if (numberOfCells == 0) return 0;
+
+        int[] counts = new int[numberOfCells + 1];
+        int[][] probed = new int[to - from][];
+        for (int q = from; q < to; q++) {
+            NeighborHeap probes = nearestCells(queries[q].getData(), queries[q].getOffset());
+            probed[q - from] = new int[probes.size()];
+            for (int p = 0; p < probes.size(); p++) {
+                probed[q - from][p] = probes.getIndex(p);
+                counts[probes.getIndex(p) + 1]++;
+            }
+        }
+
+        for (int cell = 0; cell < numberOfCells; cell++) counts[cell + 1] += counts[cell];
+        int[] queriesOfCells = new int[counts[numberOfCells]];
+        int[] next = counts.clone();
+        for (int q = 0; q < probed.length; q++)
+            for (int cell : probed[q]) queriesOfCells[next[cell]++] = q;
+
+        int imageSize = trainData.getImageSize();
+        long distances = (long) numberOfCells * (to - from);
+        for (int cell = 0; cell < numberOfCells; cell++) {
+            for (int i = cells.starts[cell]; i < cells.starts[cell + 1]; i++) {
+                for (int j = counts[cell]; j < counts[cell + 1]; j++) {
+                    int q = queriesOfCells[j];
+                    MnistMatrix query = queries[from + q];
+                    double worst = neighbors[q].worstDistance();
+                    int cutoff = worst == Double.POSITIVE_INFINITY ? Integer.MAX_VALUE : (int) worst;
+                    int distance = kernel.distance(metricType, query.getData(), query.getOffset(), cells.pixels, i * imageSize, imageSize, cutoff);
+                    if (distance <= cutoff) neighbors[q].offer(distance, cells.ids[i]);
+                }
+            }
+            distances += (long) (cells.starts[cell + 1] - cells.starts[cell]) * (counts[cell + 1] - counts[cell]);
+        }
+
+        return distances;
+    }
+
+    /**
+     * @return {@link InvertedFileIndex#nprobe}.
+     * */
+    public int getNprobe() {
+        return nprobe;
+    }
+
+    /**
+     * @return number of k-means cells.
+     * */
+    public int getNumberOfCells() {
+        return cells.getNumberOfCells();
+    }
+
+    /**
+     * @return number of images in every cell.
+     * */
+    public int[] getCellSizes() {
+        int[] sizes = new int[cells.getNumberOfCells()];
+        for (int cell = 0; cell < sizes.length; cell++) sizes[cell] = cells.starts[cell + 1] - cells.starts[cell];
+        return sizes;
+    }
+
+    /**
+     * @return expected fraction of training images scanned by a query if cells were probed uniformly, {@code nprobe / cells}.
+     * */
+    public double getScannedFraction() {
+        int numberOfCells = cells.getNumberOfCells();
+        return numberOfCells == 0 ? 0 : Math.min(1, (double) nprobe / numberOfCells);
+    }
+
+    /**
+     * @return {@link InvertedFileIndex#cells}.
+     * */
+    Cells getCells() {
+        return cells;
+    }
+
+    /** Returns the {@link InvertedFileIndex#nprobe} nearest cells of the query, unsorted.
+     * <p>
+     * The heap is the buffer of the calling thread, it's valid until the next call.
+     *
+     * @param query block of unsigned pixels.
+     * @param queryOffset offset of the query image in the block.
+     * @return {@link NeighborHeap} of cells.
+     * */
+    private NeighborHeap nearestCells(byte[] query, int queryOffset) {
+        int imageSize = trainData.getImageSize();
+        NeighborHeap probes = scratch.get().probes;
+        probes.reset(Math.min(nprobe, cells.getNumberOfCells()));
+        for (int cell = 0; cell < cells.getNumberOfCells(); cell++)
+            probes.offer(kernel.distance(metricType, query, queryOffset, cells.centroids, cell * imageSize, imageSize), cell);
+        return probes;
+    }
+
+    /** Runs k-means over the training data and stores the images in cell order.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param kernel {@link DistanceKernel}.
+     * @param numberOfCells number of k-means cells.
+     * @param iterations maximal number of Lloyd iterations.
+     * @param seed seed of the sample and of the initial centroids.
+     * @return {@link Cells}.
+     * */
+    private static Cells build(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel,
+                               int numberOfCells, int iterations, long seed) {
+        if (numberOfCells < 1) throw new IllegalArgumentException("Number of cells must be positive, but got " + numberOfCells);
+        if (iterations < 0) throw new IllegalArgumentException("Number of iterations must not be negative, but got " + iterations);
+
+        int size = trainData.size();
+        int imageSize = trainData.getImageSize();
+        numberOfCells = Math.min(numberOfCells, size);
+
+        // The first sampleSize images of a random permutation are the sample, the first numberOfCells of them the initial centroids.
+        int sampleSize = (int) Math.min(size, (long) numberOfCells * SAMPLE_SIZE_PER_CELL);
+        int[] permutation = IntStream.range(0, size).toArray();
+        Random random = new Random(seed);
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(size - i);
+            int swap = permutation[i];
+            permutation[i] = permutation[j];
+            permutation[j] = swap;
+        }
+        int[] sample = new int[sampleSize];
+        System.arraycopy(permutation, 0, sample, 0, sampleSize);
+
+        byte[] pixels = trainData.getPixels();
+        byte[] centroids = new byte[numberOfCells * imageSize];
+        for (int cell = 0; cell < numberOfCells; cell++)
+            System.arraycopy(pixels, trainData.getOffset(sample[cell]), centroids, cell * imageSize, imageSize);
+
+        int[] assignment = new int[sampleSize];
+        Arrays.fill(assignment, -1);
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            if (assign(trainData, metricType, kernel, centroids, numberOfCells, sample, assignment) == 0) break;
+            update(trainData, centroids, numberOfCells, sample, assignment);
+        }
+
+        int[] all = IntStream.range(0, size).toArray();
+        int[] cellOfImage = new int[size];
+        assign(trainData, metricType, kernel, centroids, numberOfCells, all, cellOfImage);
+
+        int[] starts = new int[numberOfCells + 1];
+        for (int cell : cellOfImage) starts[cell + 1]++;
+        for (int cell = 0; cell < numberOfCells; cell++) starts[cell + 1] += starts[cell];
+        int[] ids = new int[size];
+        int[] next = starts.clone();
+        for (int image = 0; image < size; image++) ids[next[cellOfImage[image]]++] = image;
+
+        return new Cells(centroids, starts, ids, trainData);
+    }
+
+    /** Assigns images to their nearest centroids in parallel, ties go to the lower cell.
+     *
+     * @return number of images whose cell changed.
+     * */
+    private static long assign(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, byte[] centroids,
+                               int numberOfCells, int[] images, int[] assignment) {
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+        LongAdder changed = new LongAdder();
+
+        IntStream.range(0, images.length).parallel().forEach(i -> {
+            int offset = trainData.getOffset(images[i]);
+            int nearest = 0;
+            int nearestDistance = Integer.MAX_VALUE;
+            for (int cell = 0; cell < numberOfCells; cell++) {
+                int distance = kernel.distance(metricType, pixels, offset, centroids, cell * imageSize, imageSize, nearestDistance);
+                if (distance < nearestDistance) {
+                    nearestDistance = distance;
+                    nearest = cell;
+                }
+            }
+            if (assignment[i] != nearest) {
+                assignment[i] = nearest;
+                changed.increment();
+            }
+        });
+
+        return changed.sum();
+    }
+
+    /** Recomputes every centroid in parallel as the rounded mean of its images, empty cells keep their centroid.
+     * */
+    private static void update(MnistDataSet trainData, byte[] centroids, int numberOfCells, int[] images, int[] assignment) {
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+
+        int[] starts = new int[numberOfCells + 1];
+        for (int cell : assignment) starts[cell + 1]++;
+        for (int cell = 0; cell < numberOfCells; cell++) starts[cell + 1] += starts[cell];
+        int[] members = new int[images.length];
+        int[] next = starts.clone();
+        for (int i = 0; i < images.length; i++) members[next[assignment[i]]++] = images[i];
+
+        IntStream.range(0, numberOfCells).parallel().forEach(cell -> {
+            int count = starts[cell + 1] - starts[cell];
+            if (count == 0) return;
+
+            long[] sums = new long[imageSize];
+            for (int m = starts[cell]; m < starts[cell + 1]; m++) {
+                int offset = trainData.getOffset(members[m]);
+                for (int p = 0; p < imageSize; p++) sums[p] += pixels[offset + p] & 0xFF;
+            }
+            for (int p = 0; p < imageSize; p++) centroids[cell * imageSize + p] = (byte) ((sums[p] + count / 2) / count);
+        });
+    }
+
+    /** Centroids and images of all cells.
+     * <p>
+     * Images of cell c are {@code ids[starts[c]]..ids[starts[c + 1] - 1]}, their pixels are stored in the same order.
+     * */
+    static final class Cells {
+
+        /** Centroids of all cells, one image per cell.
+         * */
+        final byte[] centroids;
+
+        /** Position of the first image of every cell, the last element is the number of images.
+         * */
+        final int[] starts;
+
+        /** Training indices of images in cell order.
+         * */
+        final int[] ids;
+
+        /** Pixels of images in cell order.
+         * */
+        final byte[] pixels;
+
+        /** Constructor for the {@link Cells} class, copies pixels of the training images in cell order.
+         *
+         * @param centroids {@link Cells#centroids description}.
+         * @param starts {@link Cells#starts description}.
+         * @param ids {@link Cells#ids description}.
+         * @param trainData training {@link MnistDataSet}.
+         * */
+        Cells(byte[] centroids, int[] starts, int[] ids, MnistDataSet trainData) {
+            int imageSize = trainData.getImageSize();
+            int numberOfCells = starts.length - 1;
+            if (numberOfCells < 0 || centroids.length != numberOfCells * imageSize)
+                throw new IllegalArgumentException("Expected " + numberOfCells * imageSize + " centroid pixels, but got " + centroids.length);
+            if (starts[0] != 0 || starts[numberOfCells] != ids.length)
+                throw new IllegalArgumentException("Cell starts don't cover " + ids.length + " images");
+            for (int cell = 0; cell < numberOfCells; cell++)
+                if (starts[cell] > starts[cell + 1]) throw new IllegalArgumentException("Cell starts are not sorted");
+
+            this.centroids = centroids;
+            this.starts = starts;
+            this.ids = ids;
+            this.pixels = new byte[ids.length * imageSize];
+
+            byte[] trainPixels = trainData.getPixels();
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] < 0 || ids[i] >= trainData.size())
+                    throw new IllegalArgumentException("Image " + ids[i] + " is out of range");
+                System.arraycopy(trainPixels, trainData.getOffset(ids[i]), pixels, i * imageSize, imageSize);
+            }
+        }
+
+        int getNumberOfCells() {
+            return starts.length - 1;
+        }
+    }
+
+    /** Per-thread search buffers.
+     * */
+    private static final class Scratch {
+
+        private final NeighborHeap probes = new NeighborHeap(0);
+    }
+}
@@ -0,0 +1,166 @@
+package digit_recognizer;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Concurrent histogram of latencies in nanoseconds.</h1>
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into {@code 16} sub-buckets,
+ * so a percentile is reported with at most {@code 1/16} (about 6%) relative error, from a nanosecond up to centuries.
+ * <br>
+ * Recording is lock-free and allocation-free. Bucket counters are striped by thread, so concurrent recognizer threads
+ * don't contend on the same cache lines, and stripes are only summed when a percentile is read.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class LatencyHistogram {
+
+    /** Number of bits of the sub-bucket index.
+     * */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    /** Number of sub-buckets per power of two.
+     * */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /** Number of buckets, enough for every non-negative long.
+     * */
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    /** Number of stripes, a power of two of about twice the number of processors, at most 32.
+     * */
+    private static final int STRIPES = Math.min(32, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2));
+
+    /** Bucket counters, {@link LatencyHistogram#BUCKETS} per stripe.
+     * */
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+
+    /** Number of recorded values.
+     * */
+    private final LongAdder count = new LongAdder();
+
+    /** Sum of recorded values.
+     * */
+    private final LongAdder sum = new LongAdder();
+
+    /** Greatest recorded value.
+     * */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Records a latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as 0.
+     * */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /** Records the same latency several times.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as 0.
+     * @param times number of times the latency is recorded.
+     * */
+    public void record(long nanos, int times) {
+        long value = Math.max(0, nanos);
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+
+        counts.getAndAdd(stripe * BUCKETS + bucket(value), times);
+        count.add(times);
+        sum.add(value * times);
+        max.accumulate(value);
+    }
+
+    /** Returns the value below which the given share of latencies falls.
+     *
+     * @param quantile share of latencies in range [0, 1], such as 0.99.
+     * @return the upper bound of the bucket of the percentile, at most the greatest latency, in nanoseconds, 0 if nothing is recorded.
+     * */
+    public long getPercentile(double quantile) {
+        return Math.min(percentile(snapshot(), quantile), getMax());
+    }
+
+    /** Returns bucket counts summed over all stripes.
+     *
+     * @return counts of {@link LatencyHistogram#BUCKETS} buckets.
+     * */
+    public long[] snapshot() {
+        long[] buckets = new long[BUCKETS];
+        for (int stripe = 0; stripe < STRIPES; stripe++)
+            for (int bucket = 0; bucket < BUCKETS; bucket++)
+                buckets[bucket] += counts.get(stripe * BUCKETS + bucket);
+        return buckets;
+    }
+
+    /** Returns a percentile of bucket counts returned by {@link LatencyHistogram#snapshot()}.
+     *
+     * @param buckets bucket counts.
+     * @param quantile share of latencies in range [0, 1].
+     * @return the upper bound of the bucket of the percentile in nanoseconds, 0 if the buckets are empty.
+     * */
+    public static long percentile(long[] buckets, double quantile) {
+        long total = 0;
+        for (long bucketCount : buckets) total += bucketCount;
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            seen += buckets[bucket];
+            if (seen >= rank) return upperBound(bucket);
+        }
+        return upperBound(buckets.length - 1);
+    }
+
+    /**
+     * @return number of recorded latencies.
+     * */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * @return mean latency in nanoseconds, 0 if nothing is recorded.
+     * */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * @return greatest recorded latency in nanoseconds.
+     * */
+    public long getMax() {
+        return max.get();
+    }
+
+    /** Removes all recorded latencies.
+     * <p>
+     * Values recorded concurrently with the reset may be partially kept.
+     * */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
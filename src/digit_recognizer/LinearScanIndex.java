@@ -0,0 +1,219 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+/**
+ * <h1>Brute force nearest neighbor index.</h1>
+ * <p>
+ * Compares the query with every training image, scanning the packed pixels sequentially.
+ * This is the exact reference all other indexes are compared with, and the default index of {@link Recognizer}.
+ * <br>
+ * Distances are the ones of {@link DistanceKernel#distance}, so {@link MetricTypes#EUCLIDEAN} neighbors are ranked by squared distance.
+ * Once k neighbors are found, a distance is abandoned as soon as its partial sum exceeds the current k-th distance.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class LinearScanIndex implements NeighborIndex {
+
+    /** Default size in bytes of one tile of training data in {@link LinearScanIndex#searchBatch}.
+     * <p>
+     * Chosen so that a tile fits into a typical L2 cache together with the block of queries.
+     * */
+    public static final int DEFAULT_TRAIN_BLOCK_BYTES = 192 * 1024;
+
+    /** Training data.
+     * */
+    private final MnistDataSet trainData;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The kernel that computes distances.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Squared norms of the training images.
+     * <p>
+     * Used by {@link LinearScanIndex#searchBatch} to rank {@link MetricTypes#EUCLIDEAN} neighbors by dot products.
+     * */
+    private final int[] trainNorms;
+
+    /** Size in bytes of one tile of training data in {@link LinearScanIndex#searchBatch}.
+     * */
+    private final int trainBlockBytes;
+
+    /** Constructor for the {@link LinearScanIndex} class.
+     *
+     * @param trainData {@link LinearScanIndex#trainData description}.
+     * @param metricType {@link LinearScanIndex#metricType description}.
+     * @param kernel {@link LinearScanIndex#kernel description}.
+     * */
+    public LinearScanIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel) {
+        this(trainData, metricType, kernel, DEFAULT_TRAIN_BLOCK_BYTES);
+    }
+
+    /** Constructor for the {@link LinearScanIndex} class.
+     *
+     * @param trainData {@link LinearScanIndex#trainData description}.
+     * @param metricType {@link LinearScanIndex#metricType description}.
+     * @param kernel {@link LinearScanIndex#kernel description}.
+     * @param trainBlockBytes {@link LinearScanIndex#trainBlockBytes description}.
+     * */
+    public LinearScanIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int trainBlockBytes) {
+        this(trainData, metricType, kernel, metricType == MetricTypes.EUCLIDEAN ? squaredNorms(trainData, kernel) : null, trainBlockBytes);
+    }
+
+    /** Constructor for the {@link LinearScanIndex} class with precomputed norms, used by {@link RecognizerSnapshot}.
+     *
+     * @param trainData {@link LinearScanIndex#trainData description}.
+     * @param metricType {@link LinearScanIndex#metricType description}.
+     * @param kernel {@link LinearScanIndex#kernel description}.
+     * @param trainNorms {@link LinearScanIndex#trainNorms description}, may be null for {@link MetricTypes#TAXICAB}.
+     * @param trainBlockBytes {@link LinearScanIndex#trainBlockBytes description}.
+     * */
+    LinearScanIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int[] trainNorms, int trainBlockBytes) {
+        if (trainBlockBytes < 1) throw new IllegalArgumentException("Train block size must be positive, but got " + trainBlockBytes);
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.trainNorms = trainNorms;
+        this.trainBlockBytes = trainBlockBytes;
+    }
+
+    /**
+     * @return factory of {@link LinearScanIndex} that uses {@link DistanceKernels#getDefault()}.
+     * */
+    public static NeighborIndexFactory factory() {
+        return factory(DistanceKernels.getDefault());
+    }
+
+    /**
+     * @param kernel {@link LinearScanIndex#kernel description}.
+     * @return factory of {@link LinearScanIndex} that uses the given kernel.
+     * */
+    public static NeighborIndexFactory factory(DistanceKernel kernel) {
+        return factory(kernel, DEFAULT_TRAIN_BLOCK_BYTES);
+    }
+
+    /**
+     * @param kernel {@link LinearScanIndex#kernel description}.
+     * @param trainBlockBytes {@link LinearScanIndex#trainBlockBytes description}.
+     * @return factory of {@link LinearScanIndex} that uses the given kernel and tiles of training data.
+     * */
+    public static NeighborIndexFactory factory(DistanceKernel kernel, int trainBlockBytes) {
+        return (trainData, metricType) -> new LinearScanIndex(trainData, metricType, kernel, trainBlockBytes);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+
+        for (int i = 0; i < trainData.size(); i++) {
+            int distance = neighbors.isFull()
+                    ? kernel.distance(metricType, query, queryOffset, pixels, trainData.getOffset(i), imageSize, cutoff(neighbors))
+                    : kernel.distance(metricType, query, queryOffset, pixels, trainData.getOffset(i), imageSize);
+            neighbors.offer(distance, i);
+        }
+
+        return trainData.size();
+    }
+
+    /** Finds nearest training images of a block of queries.
+     * <p>
+     * The training data is walked in tiles of about {@link LinearScanIndex#trainBlockBytes} bytes,
+     * so a tile is loaded into cache once and compared with all queries of the block before moving on.
+     * <br>
+     * For {@link MetricTypes#EUCLIDEAN} the squared distance is computed as {@code ||q||^2 + ||t||^2 - 2 q.t}
+     * with integer dot products and precomputed training norms, which gives exactly the same ranking as {@link LinearScanIndex#search}.
+     * */
+    @Override
+    public long searchBatch(MnistMatrix[] queries, int from, int to, NeighborHeap[] neighbors) {
+        boolean euclidean = metricType == MetricTypes.EUCLIDEAN;
+        byte[] pixels = trainData.getPixels();
+        int imageSize = trainData.getImageSize();
+        int trainBlockSize = Math.max(1, trainBlockBytes / Math.max(1, imageSize));
+
+        int[] queryNorms = new int[to - from];
+        if (euclidean) {
+            for (int q = from; q < to; q++)
+                queryNorms[q - from] = kernel.dotProduct(queries[q].getData(), queries[q].getOffset(),
+                        queries[q].getData(), queries[q].getOffset(), imageSize);
+        }
+
+        for (int trainFrom = 0; trainFrom < trainData.size(); trainFrom += trainBlockSize) {
+            int trainTo = Math.min(trainFrom + trainBlockSize, trainData.size());
+
+            for (int q = from; q < to; q++) {
+                byte[] query = queries[q].getData();
+                int queryOffset = queries[q].getOffset();
+                NeighborHeap heap = neighbors[q - from];
+
+                for (int i = trainFrom; i < trainTo; i++) {
+                    int distance = euclidean
+                            ? queryNorms[q - from] + trainNorms[i]
+                                - 2 * kernel.dotProduct(query, queryOffset, pixels, trainData.getOffset(i), imageSize)
+                            : kernel.taxicab(query, queryOffset, pixels, trainData.getOffset(i), imageSize);
+                    heap.offer(distance, i);
+                }
+            }
+        }
+
+        return (long) (to - from) * trainData.size();
+    }
+
+    /** Returns the cutoff for early abandoning.
+     * <p>
+     * Training images are scanned by ascending index, so a later image with a distance equal to
+     * the k-th distance loses the tie and only strictly smaller distances matter.
+     *
+     * @param neighbors full {@link NeighborHeap}.
+     * @return the current k-th distance.
+     * */
+    static int cutoff(NeighborHeap neighbors) {
+        return (int) neighbors.worstDistance();
+    }
+
+    /**
+     * @return {@link LinearScanIndex#kernel}.
+     * */
+    public DistanceKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * @return {@link LinearScanIndex#trainBlockBytes}.
+     * */
+    public int getTrainBlockBytes() {
+        return trainBlockBytes;
+    }
+
+    /**
+     * @return {@link LinearScanIndex#trainNorms}, null for {@link MetricTypes#TAXICAB}.
+     * */
+    int[] getTrainNorms() {
+        return trainNorms;
+    }
+
+    /** Returns squared norms of all training images.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param kernel {@link DistanceKernel} that computes dot products.
+     * @return one norm per image.
+     * */
+    static int[] squaredNorms(MnistDataSet trainData, DistanceKernel kernel) {
+        byte[] pixels = trainData.getPixels();
+        int[] norms = new int[trainData.size()];
+
+        for (int i = 0; i < norms.length; i++) {
+            int offset = trainData.getOffset(i);
+            norms[i] = kernel.dotProduct(pixels, offset, pixels, offset, trainData.getImageSize());
+        }
+
+        return norms;
+    }
+}
@@ -6,6 +6,9 @@ import utils.mnist_data_io.MnistMatrix;
  * <h1>Class that contains two types of metrics.</h1>
  * <p>
  * Class contains metrics methods that uses to calculate the sum of greyscale differences between pixels.
+ * <br>
+ * The packed variants work directly on unsigned byte blocks, such as {@link utils.mnist_data_io.MnistDataSet#getPixels()},
+ * and delegate to the {@link DistanceKernel} picked by {@link DistanceKernels#getDefault()}.
  *
  * @author  Orest Maiatskyi
  * @version 1.0
@@ -21,15 +24,8 @@ public class Metrics {
      * @see <a href="https://en.wikipedia.org/wiki/Euclidean_distance">Euclidean distance</a>
      * */
     public static double euclideanDistance(MnistMatrix matrixToBeRecognized, MnistMatrix trainMatrix) {
-        int sum = 0;
-
-        for (int r = 0; r < trainMatrix.getNumberOfRows(); r++) {
-            for (int c = 0; c < trainMatrix.getNumberOfColumns(); c++) {
-                sum += Math.pow(matrixToBeRecognized.getValue(r, c) - trainMatrix.getValue(r, c), 2);
-            }
-        }
-
-        return Math.sqrt(sum);
+        return Math.sqrt(squaredEuclideanDistance(matrixToBeRecognized.getData(), matrixToBeRecognized.getOffset(),
+                trainMatrix.getData(), trainMatrix.getOffset(), imageSize(trainMatrix)));
     }
 
     /** Returns the sum of differences between pixels.
@@ -40,14 +36,43 @@ public class Metrics {
      * @see <a href="https://en.wikipedia.org/wiki/Taxicab_geometry">Taxicab geometry</a>
      * */
     public static double taxicabGeometry(MnistMatrix matrixToBeRecognized, MnistMatrix trainMatrix) {
-        int sum = 0;
+        return taxicabGeometry(matrixToBeRecognized.getData(), matrixToBeRecognized.getOffset(),
+                trainMatrix.getData(), trainMatrix.getOffset(), imageSize(trainMatrix));
+    }
 
-        for (int r = 0; r < trainMatrix.getNumberOfRows(); r++) {
-            for (int c = 0; c < trainMatrix.getNumberOfColumns(); c++) {
-                sum += Math.abs(matrixToBeRecognized.getValue(r, c) - trainMatrix.getValue(r, c));
-            }
-        }
+    /** Returns the squared Euclidean distance between two packed images.
+     * <p>
+     * The square root is monotonic, so this value ranks neighbors exactly as {@link Metrics#euclideanDistance} does.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return Sum of squared differences between pixels.
+     * */
+    public static int squaredEuclideanDistance(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return DistanceKernels.getDefault().squaredEuclidean(a, aOffset, b, bOffset, length);
+    }
 
-        return sum;
+    /** Returns the Taxicab distance between two packed images.
+     *
+     * @param a first block of unsigned pixels.
+     * @param aOffset offset of the first image in a.
+     * @param b second block of unsigned pixels.
+     * @param bOffset offset of the second image in b.
+     * @param length number of pixels.
+     * @return Sum of absolute differences between pixels.
+     * */
+    public static int taxicabGeometry(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        return DistanceKernels.getDefault().taxicab(a, aOffset, b, bOffset, length);
+    }
+
+    /**
+     * @param mnistMatrix {@link MnistMatrix}.
+     * @return number of pixels of the matrix.
+     * */
+    private static int imageSize(MnistMatrix mnistMatrix) {
+        return mnistMatrix.getNumberOfRows() * mnistMatrix.getNumberOfColumns();
     }
 }
@@ -0,0 +1,34 @@
+package digit_recognizer;
+
+/**
+ * <h1>Receiver of periodic metrics snapshots.</h1>
+ * <p>
+ * Reporters are scheduled by {@link RecognizerMetrics#startReporting}, which calls
+ * {@link MetricsReporter#report} from a single background thread, so implementations don't need to be thread-safe.
+ * They may push snapshots to a log, a file or any metrics backend.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@FunctionalInterface
+public interface MetricsReporter {
+
+    /** Reports a snapshot.
+     *
+     * @param snapshot the current {@link MetricsSnapshot}.
+     * @param previous the previously reported {@link MetricsSnapshot}, or null for the first report.
+     * */
+    void report(MetricsSnapshot snapshot, MetricsSnapshot previous);
+
+    /**
+     * @return reporter that prints every snapshot and the throughput since the previous one to the console.
+     * */
+    static MetricsReporter console() {
+        return (snapshot, previous) -> {
+            String interval = previous == null ? ""
+                    : String.format(" (%.1f queries/s since last report)", snapshot.getQueriesPerSecondSince(previous));
+            System.out.println(snapshot + interval);
+        };
+    }
+}
@@ -0,0 +1,243 @@
+package digit_recognizer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <h1>Immutable snapshot of {@link RecognizerMetrics}.</h1>
+ * <p>
+ * Holds counters, the throughput and latency percentiles of every stage at one moment,
+ * {@link MetricsReporter} implementations receive it periodically.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class MetricsSnapshot {
+
+    /** Value of {@link System#nanoTime()} when the snapshot was taken.
+     * */
+    private final long timestampNanos;
+
+    /** Number of recognized queries.
+     * */
+    private final long queries;
+
+    /** Mean number of queries per second since the creation or the last reset of the metrics.
+     * */
+    private final double queriesPerSecond;
+
+    /** Number of full distances computed by all searches.
+     * */
+    private final long distances;
+
+    /** Latency of whole queries.
+     * */
+    private final Latency latency;
+
+    /** Latency of the neighbor search stage.
+     * */
+    private final Latency searchLatency;
+
+    /** Latency of the neighbor sorting stage.
+     * */
+    private final Latency selectionLatency;
+
+    /** Latency of the voting stage.
+     * */
+    private final Latency voteLatency;
+
+    /** Number of evaluated queries per actual label.
+     * */
+    private final long[] evaluatedCounts;
+
+    /** Number of wrongly recognized queries per actual label.
+     * */
+    private final long[] errorCounts;
+
+    /** Constructor for the {@link MetricsSnapshot} class.
+     *
+     * @param timestampNanos {@link MetricsSnapshot#timestampNanos description}.
+     * @param queries {@link MetricsSnapshot#queries description}.
+     * @param queriesPerSecond {@link MetricsSnapshot#queriesPerSecond description}.
+     * @param distances {@link MetricsSnapshot#distances description}.
+     * @param latency {@link MetricsSnapshot#latency description}.
+     * @param searchLatency {@link MetricsSnapshot#searchLatency description}.
+     * @param selectionLatency {@link MetricsSnapshot#selectionLatency description}.
+     * @param voteLatency {@link MetricsSnapshot#voteLatency description}.
+     * @param evaluatedCounts {@link MetricsSnapshot#evaluatedCounts description}.
+     * @param errorCounts {@link MetricsSnapshot#errorCounts description}.
+     * */
+    public MetricsSnapshot(long timestampNanos, long queries, double queriesPerSecond, long distances,
+                           Latency latency, Latency searchLatency, Latency selectionLatency, Latency voteLatency,
+                           long[] evaluatedCounts, long[] errorCounts) {
+        this.timestampNanos = timestampNanos;
+        this.queries = queries;
+        this.queriesPerSecond = queriesPerSecond;
+        this.distances = distances;
+        this.latency = latency;
+        this.searchLatency = searchLatency;
+        this.selectionLatency = selectionLatency;
+        this.voteLatency = voteLatency;
+        this.evaluatedCounts = evaluatedCounts;
+        this.errorCounts = errorCounts;
+    }
+
+    /** Returns the throughput between two snapshots.
+     *
+     * @param previous an earlier {@link MetricsSnapshot} of the same metrics.
+     * @return queries per second between the snapshots.
+     * */
+    public double getQueriesPerSecondSince(MetricsSnapshot previous) {
+        long nanos = timestampNanos - previous.timestampNanos;
+        return nanos <= 0 ? 0 : (queries - previous.queries) * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#timestampNanos}.
+     * */
+    public long getTimestampNanos() {
+        return timestampNanos;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#queries}.
+     * */
+    public long getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#queriesPerSecond}.
+     * */
+    public double getQueriesPerSecond() {
+        return queriesPerSecond;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#distances}.
+     * */
+    public long getDistances() {
+        return distances;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#latency}.
+     * */
+    public Latency getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#searchLatency}.
+     * */
+    public Latency getSearchLatency() {
+        return searchLatency;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#selectionLatency}.
+     * */
+    public Latency getSelectionLatency() {
+        return selectionLatency;
+    }
+
+    /**
+     * @return {@link MetricsSnapshot#voteLatency}.
+     * */
+    public Latency getVoteLatency() {
+        return voteLatency;
+    }
+
+    /**
+     * @return copy of {@link MetricsSnapshot#evaluatedCounts}.
+     * */
+    public long[] getEvaluatedCounts() {
+        return evaluatedCounts.clone();
+    }
+
+    /**
+     * @return copy of {@link MetricsSnapshot#errorCounts}.
+     * */
+    public long[] getErrorCounts() {
+        return errorCounts.clone();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Queries: %d, %.1f queries/s, %.0f distances/query%n",
+                queries, queriesPerSecond, queries == 0 ? 0.0 : (double) distances / queries));
+        builder.append("  total:     ").append(latency).append(System.lineSeparator());
+        builder.append("  search:    ").append(searchLatency).append(System.lineSeparator());
+        builder.append("  selection: ").append(selectionLatency).append(System.lineSeparator());
+        builder.append("  vote:      ").append(voteLatency).append(System.lineSeparator());
+        builder.append("  errors per label:");
+        for (int label = 0; label < errorCounts.length; label++)
+            builder.append(' ').append(label).append('=').append(errorCounts[label]).append('/').append(evaluatedCounts[label]);
+        return builder.toString();
+    }
+
+    /** Latency summary of one stage, all values in nanoseconds.
+     * */
+    public static final class Latency {
+
+        private final long count;
+        private final double mean;
+        private final long p50;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        /** Returns the summary of a histogram.
+         *
+         * @param histogram {@link LatencyHistogram}.
+         * @return {@link Latency}.
+         * */
+        public static Latency of(LatencyHistogram histogram) {
+            long[] buckets = histogram.snapshot();
+            long max = histogram.getMax();
+            return new Latency(histogram.getCount(), histogram.getMean(),
+                    Math.min(LatencyHistogram.percentile(buckets, 0.5), max), Math.min(LatencyHistogram.percentile(buckets, 0.99), max),
+                    Math.min(LatencyHistogram.percentile(buckets, 0.999), max), max);
+        }
+
+        public Latency(long count, double mean, long p50, long p99, long p999, long max) {
+            this.count = count;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p99 = p99;
+            this.p999 = p999;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        public long getP999() {
+            return p999;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean %.1fus, p50 %.1fus, p99 %.1fus, p999 %.1fus, max %.1fus",
+                    mean / 1e3, p50 / 1e3, p99 / 1e3, p999 / 1e3, max / 1e3);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>The k nearest neighbor graph of a data set over itself.</h1>
+ * <p>
+ * Every image of the data set keeps its {@link NeighborGraph#maxK} nearest other images. Images of the same group,
+ * such as the same cross-validation fold, are never neighbors of each other, and an image is never its own neighbor.
+ * <br>
+ * The graph is built from the symmetric distance matrix without ever materializing it: the data set is split into
+ * tiles, and every pair of tiles, the upper triangle only, is one parallel task, so the distance of every pair
+ * is computed exactly once and serves both images. A task keeps candidates in its own heaps and merges them into
+ * the graph under one lock per tile. The distance is abandoned early once it can't be kept by either image.
+ * <br>
+ * Neighbors are kept in flat primitive arrays, {@code n * maxK} indices and distances, sorted from the nearest
+ * with the same tie rule as {@link NeighborHeap}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class NeighborGraph {
+
+    /** Number of images of one tile, two tiles fit into a typical L2 cache.
+     * */
+    private static final int TILE_SIZE = 128;
+
+    /** Number of images.
+     * */
+    private final int size;
+
+    /** Greatest number of neighbors of an image.
+     * */
+    private final int maxK;
+
+    /** Neighbor indices, {@link NeighborGraph#maxK} per image.
+     * */
+    private final int[] indices;
+
+    /** Ranking distances of neighbors, parallel to {@link NeighborGraph#indices}.
+     * <p>
+     * For {@link MetricTypes#EUCLIDEAN} they are squared.
+     * */
+    private final int[] distances;
+
+    /** Number of kept neighbors of every image.
+     * */
+    private final int[] sizes;
+
+    /** Worst kept distance of every full row, {@link Integer#MAX_VALUE} while the row is not full.
+     * <p>
+     * Only decreases, so a stale value read without the lock is still a valid cutoff.
+     * */
+    private final int[] worstDistances;
+
+    private NeighborGraph(int size, int maxK) {
+        this.size = size;
+        this.maxK = maxK;
+        this.indices = new int[size * maxK];
+        this.distances = new int[size * maxK];
+        this.sizes = new int[size];
+        this.worstDistances = new int[size];
+        Arrays.fill(worstDistances, Integer.MAX_VALUE);
+    }
+
+    /** Builds the graph with {@link DistanceKernels#getDefault()}.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param maxK greatest number of neighbors of an image.
+     * @param groups group of every image, images of the same group are not neighbors, or null.
+     * @return {@link NeighborGraph}.
+     * */
+    public static NeighborGraph build(MnistDataSet data, MetricTypes metricType, int maxK, int[] groups) {
+        return build(data, metricType, maxK, groups, DistanceKernels.getDefault());
+    }
+
+    /** Builds the graph.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param maxK greatest number of neighbors of an image.
+     * @param groups group of every image, images of the same group are not neighbors, or null.
+     * @param kernel {@link DistanceKernel} to use.
+     * @return {@link NeighborGraph}.
+     * */
+    public static NeighborGraph build(MnistDataSet data, MetricTypes metricType, int maxK, int[] groups, DistanceKernel kernel) {
+        if (maxK < 1) throw new IllegalArgumentException("maxK must be positive, but got " + maxK);
+        if (groups != null && groups.length != data.size())
+            throw new IllegalArgumentException("Expected " + data.size() + " groups, but got " + groups.length);
+
+        NeighborGraph graph = new NeighborGraph(data.size(), maxK);
+        int numberOfTiles = (data.size() + TILE_SIZE - 1) / TILE_SIZE;
+
+        Object[] tileLocks = new Object[numberOfTiles];
+        for (int t = 0; t < numberOfTiles; t++) tileLocks[t] = new Object();
+
+        // pairs of tiles of the upper triangle, one task each
+        int numberOfPairs = numberOfTiles * (numberOfTiles + 1) / 2;
+        int[] firstTiles = new int[numberOfPairs];
+        int[] secondTiles = new int[numberOfPairs];
+        for (int first = 0, pair = 0; first < numberOfTiles; first++) {
+            for (int second = first; second < numberOfTiles; second++, pair++) {
+                firstTiles[pair] = first;
+                secondTiles[pair] = second;
+            }
+        }
+
+        ThreadLocal<NeighborHeap[]> scratch = ThreadLocal.withInitial(() -> {
+            NeighborHeap[] heaps = new NeighborHeap[2 * TILE_SIZE];
+            for (int i = 0; i < heaps.length; i++) heaps[i] = new NeighborHeap(maxK);
+            return heaps;
+        });
+
+        IntStream.range(0, numberOfPairs).parallel().forEach(pair ->
+                graph.computeTiles(data, metricType, groups, kernel, firstTiles[pair], secondTiles[pair], tileLocks, scratch.get()));
+
+        IntStream.range(0, graph.size).parallel().forEach(graph::sortRow);
+        return graph;
+    }
+
+    /** Computes distances between two tiles and merges the candidates into the graph.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param groups groups of images, or null.
+     * @param kernel {@link DistanceKernel} to use.
+     * @param first index of the first tile.
+     * @param second index of the second tile, not less than the first one.
+     * @param tileLocks one lock per tile.
+     * @param heaps reused heaps, the first half for rows of the first tile, the second half for rows of the second one.
+     * */
+    private void computeTiles(MnistDataSet data, MetricTypes metricType, int[] groups, DistanceKernel kernel,
+                              int first, int second, Object[] tileLocks, NeighborHeap[] heaps) {
+        byte[] pixels = data.getPixels();
+        int imageSize = data.getImageSize();
+        int firstFrom = first * TILE_SIZE, firstTo = Math.min(firstFrom + TILE_SIZE, size);
+        int secondFrom = second * TILE_SIZE, secondTo = Math.min(secondFrom + TILE_SIZE, size);
+        boolean diagonal = first == second;
+
+        for (int i = 0; i < heaps.length; i++) heaps[i].reset(maxK);
+        // on the diagonal tile both images of a pair are rows of the first half
+        int secondBase = diagonal ? 0 : TILE_SIZE;
+
+        for (int i = firstFrom; i < firstTo; i++) {
+            NeighborHeap rowI = heaps[i - firstFrom];
+            int offsetI = data.getOffset(i);
+
+            for (int j = diagonal ? i + 1 : secondFrom; j < secondTo; j++) {
+                if (groups != null && groups[i] == groups[j]) continue;
+                NeighborHeap rowJ = heaps[secondBase + j - secondFrom];
+
+                int cutoff = Math.max(cutoff(rowI, i), cutoff(rowJ, j));
+                int distance = kernel.distance(metricType, pixels, offsetI, pixels, data.getOffset(j), imageSize, cutoff);
+                if (distance > cutoff) continue;
+
+                rowI.offer(distance, j);
+                rowJ.offer(distance, i);
+            }
+        }
+
+        merge(heaps, 0, firstFrom, firstTo, tileLocks[first]);
+        if (!diagonal) merge(heaps, TILE_SIZE, secondFrom, secondTo, tileLocks[second]);
+    }
+
+    /** Returns the distance a candidate must not exceed to be kept by a row.
+     *
+     * @param local heap of the row in the current task.
+     * @param row index of the image.
+     * @return the cutoff.
+     * */
+    private int cutoff(NeighborHeap local, int row) {
+        int cutoff = worstDistances[row];
+        if (local.isFull()) cutoff = Math.min(cutoff, (int) local.worstDistance());
+        return cutoff;
+    }
+
+    /** Merges candidates of a task into rows of one tile.
+     *
+     * @param heaps heaps of the task.
+     * @param base index of the heap of the first row.
+     * @param from index of the first image of the tile, inclusive.
+     * @param to index of the last image of the tile, exclusive.
+     * @param lock lock of the tile.
+     * */
+    private void merge(NeighborHeap[] heaps, int base, int from, int to, Object lock) {
+        synchronized (lock) {
+            for (int row = from; row < to; row++) {
+                NeighborHeap heap = heaps[base + row - from];
+                for (int i = 0; i < heap.size(); i++) offer(row, (int) heap.getDistance(i), heap.getIndex(i));
+                if (sizes[row] == maxK) worstDistances[row] = distances[row * maxK];
+            }
+        }
+    }
+
+    /** Offers a neighbor to the bounded max-heap of a row.
+     *
+     * @param row index of the image.
+     * @param distance distance of the neighbor.
+     * @param index index of the neighbor.
+     * */
+    private void offer(int row, int distance, int index) {
+        int base = row * maxK;
+        int size = sizes[row];
+
+        if (size < maxK) {
+            int i = size;
+            distances[base + i] = distance;
+            indices[base + i] = index;
+            sizes[row] = size + 1;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!isWorse(base + i, base + parent)) break;
+                swap(base + i, base + parent);
+                i = parent;
+            }
+            return;
+        }
+
+        if (!NeighborHeap.isWorse(distances[base], indices[base], distance, index)) return;
+        distances[base] = distance;
+        indices[base] = index;
+        siftDown(base, 0, size);
+    }
+
+    /** Sorts neighbors of a row from the nearest to the farthest.
+     *
+     * @param row index of the image.
+     * */
+    private void sortRow(int row) {
+        int base = row * maxK;
+        for (int end = sizes[row] - 1; end > 0; end--) {
+            swap(base, base + end);
+            siftDown(base, 0, end);
+        }
+    }
+
+    private void siftDown(int base, int i, int end) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= end) break;
+            if (child + 1 < end && isWorse(base + child + 1, base + child)) child++;
+            if (!isWorse(base + child, base + i)) break;
+            swap(base + i, base + child);
+            i = child;
+        }
+    }
+
+    private boolean isWorse(int a, int b) {
+        return NeighborHeap.isWorse(distances[a], indices[a], distances[b], indices[b]);
+    }
+
+    private void swap(int a, int b) {
+        int distance = distances[a];
+        distances[a] = distances[b];
+        distances[b] = distance;
+        int index = indices[a];
+        indices[a] = indices[b];
+        indices[b] = index;
+    }
+
+    /**
+     * @return number of images.
+     * */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@link NeighborGraph#maxK}.
+     * */
+    public int getMaxK() {
+        return maxK;
+    }
+
+    /**
+     * @param row index of the image.
+     * @return number of kept neighbors, less than maxK only if there are fewer candidates.
+     * */
+    public int getNumberOfNeighbors(int row) {
+        return sizes[row];
+    }
+
+    /**
+     * @param row index of the image.
+     * @param i position of the neighbor, the nearest first.
+     * @return index of the neighbor.
+     * */
+    public int getNeighbor(int row, int i) {
+        return indices[row * maxK + i];
+    }
+
+    /**
+     * @param row index of the image.
+     * @param i position of the neighbor, the nearest first.
+     * @return ranking distance of the neighbor, squared for {@link MetricTypes#EUCLIDEAN}.
+     * */
+    public int getDistance(int row, int i) {
+        return distances[row * maxK + i];
+    }
+
+    /**
+     * @param row index of the image.
+     * @return indices of the neighbors, the nearest first.
+     * */
+    public int[] getNeighbors(int row) {
+        return Arrays.copyOfRange(indices, row * maxK, row * maxK + sizes[row]);
+    }
+}
@@ -0,0 +1,180 @@
+package digit_recognizer;
+
+/**
+ * <h1>Bounded max-heap of nearest neighbors.</h1>
+ * <p>
+ * Class keeps the {@code capacity} best (distance, index) pairs seen so far in two primitive arrays,
+ * so selecting k neighbors out of n costs O(n log k) and allocates nothing per query.
+ * <br>
+ * Neighbors are ordered by distance and then by index, so equal distances are never dropped
+ * and the neighbor with the lower training index always wins a tie.
+ * The instance is not thread-safe, {@link Recognizer} keeps one per thread and reuses it via {@link NeighborHeap#reset(int)}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class NeighborHeap {
+
+    /** Distances of the kept neighbors, the root holds the worst one.
+     * */
+    private double[] distances;
+
+    /** Training indices of the kept neighbors, parallel to {@link NeighborHeap#distances}.
+     * */
+    private int[] indices;
+
+    /** Maximal number of neighbors kept.
+     * */
+    private int capacity;
+
+    /** Current number of neighbors kept.
+     * */
+    private int size;
+
+    /** Constructor for the {@link NeighborHeap} class.
+     *
+     * @param capacity {@link NeighborHeap#capacity description}.
+     * */
+    public NeighborHeap(int capacity) {
+        this.distances = new double[capacity];
+        this.indices = new int[capacity];
+        this.capacity = capacity;
+    }
+
+    /** Removes all neighbors and sets a new capacity.
+     * <p>
+     * The arrays are only reallocated if the new capacity is greater than any previous one.
+     *
+     * @param capacity {@link NeighborHeap#capacity description}.
+     * */
+    public void reset(int capacity) {
+        if (capacity > distances.length) {
+            distances = new double[capacity];
+            indices = new int[capacity];
+        }
+        this.capacity = capacity;
+        this.size = 0;
+    }
+
+    /** Offers a neighbor to the heap.
+     *
+     * @param distance distance between the query and the neighbor.
+     * @param index training index of the neighbor.
+     * @return true if the neighbor was kept.
+     * */
+    public boolean offer(double distance, int index) {
+        if (size < capacity) {
+            distances[size] = distance;
+            indices[size] = index;
+            siftUp(size++);
+            return true;
+        }
+
+        if (size == 0 || !isWorse(distances[0], indices[0], distance, index)) return false;
+
+        distances[0] = distance;
+        indices[0] = index;
+        siftDown(0, size);
+        return true;
+    }
+
+    /** Returns the distance a new neighbor has to beat to be kept.
+     *
+     * @return the worst kept distance, or {@link Double#POSITIVE_INFINITY} while the heap is not full.
+     * */
+    public double worstDistance() {
+        return size < capacity || size == 0 ? Double.POSITIVE_INFINITY : distances[0];
+    }
+
+    /** Sorts kept neighbors from the nearest to the farthest.
+     * <p>
+     * After sorting {@link NeighborHeap#getIndex(int)} and {@link NeighborHeap#getDistance(int)} return neighbors in order,
+     * the heap must be {@link NeighborHeap#reset(int) reset} before new neighbors are offered.
+     * */
+    public void sort() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    /**
+     * @return true if {@link NeighborHeap#capacity} neighbors are kept.
+     * */
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @return {@link NeighborHeap#size}.
+     * */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@link NeighborHeap#capacity}.
+     * */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param i position in the heap, or in sorted order after {@link NeighborHeap#sort()}.
+     * @return training index of the neighbor.
+     * */
+    public int getIndex(int i) {
+        return indices[i];
+    }
+
+    /**
+     * @param i position in the heap, or in sorted order after {@link NeighborHeap#sort()}.
+     * @return distance of the neighbor.
+     * */
+    public double getDistance(int i) {
+        return distances[i];
+    }
+
+    /** Returns true if the first neighbor is farther than the second one.
+     *
+     * @param distance1 distance of the first neighbor.
+     * @param index1 index of the first neighbor.
+     * @param distance2 distance of the second neighbor.
+     * @param index2 index of the second neighbor.
+     * @return true if the first neighbor ranks after the second one.
+     * */
+    public static boolean isWorse(double distance1, int index1, double distance2, int index2) {
+        return distance1 > distance2 || (distance1 == distance2 && index1 > index2);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!isWorse(distances[i], indices[i], distances[parent], indices[parent])) break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= end) break;
+            if (child + 1 < end && isWorse(distances[child + 1], indices[child + 1], distances[child], indices[child])) child++;
+            if (!isWorse(distances[child], indices[child], distances[i], indices[i])) break;
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+
+        int index = indices[i];
+        indices[i] = indices[j];
+        indices[j] = index;
+    }
+}
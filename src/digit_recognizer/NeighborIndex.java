@@ -0,0 +1,47 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistMatrix;
+
+/**
+ * <h1>Interface of nearest neighbor indexes.</h1>
+ * <p>
+ * An index is built once over the training data by a {@link NeighborIndexFactory} and answers
+ * k-nearest neighbor queries for {@link Recognizer}. Neighbors are identified by their index in the training
+ * {@link utils.mnist_data_io.MnistDataSet}, k is the capacity of the {@link NeighborHeap} passed to the search.
+ * <br>
+ * Implementations must be immutable after construction, so one index can serve any number of threads.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public interface NeighborIndex {
+
+    /** Finds nearest training images of the query.
+     * <p>
+     * Neighbors are offered to the heap, the heap is not sorted.
+     *
+     * @param query block of unsigned pixels.
+     * @param queryOffset offset of the query image in the block.
+     * @param neighbors empty {@link NeighborHeap} with capacity k.
+     * @return number of full distances computed.
+     * */
+    int search(byte[] query, int queryOffset, NeighborHeap neighbors);
+
+    /** Finds nearest training images of a block of queries.
+     * <p>
+     * The default implementation searches queries one by one, implementations may share work between them.
+     *
+     * @param queries an array of {@link MnistMatrix}.
+     * @param from index of the first query, inclusive.
+     * @param to index of the last query, exclusive.
+     * @param neighbors empty heaps, {@code neighbors[q - from]} receives neighbors of {@code queries[q]}.
+     * @return number of full distances computed.
+     * */
+    default long searchBatch(MnistMatrix[] queries, int from, int to, NeighborHeap[] neighbors) {
+        long distances = 0;
+        for (int q = from; q < to; q++)
+            distances += search(queries[q].getData(), queries[q].getOffset(), neighbors[q - from]);
+        return distances;
+    }
+}
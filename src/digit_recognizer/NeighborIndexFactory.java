@@ -0,0 +1,25 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+/**
+ * <h1>Factory of nearest neighbor indexes.</h1>
+ * <p>
+ * {@link Recognizer} keeps a factory instead of an index, so the index can be rebuilt
+ * whenever the training data or the metric type changes.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+@FunctionalInterface
+public interface NeighborIndexFactory {
+
+    /** Builds the index.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes} of the distances.
+     * @return {@link NeighborIndex}.
+     * */
+    NeighborIndex build(MnistDataSet trainData, MetricTypes metricType);
+}
@@ -0,0 +1,128 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+/**
+ * <h1>Nearest neighbor index in the PCA-reduced space.</h1>
+ * <p>
+ * Training images are projected once by a {@link PcaProjection}, every query is projected the same way
+ * and compared with all projections, which cuts the work per distance from the number of pixels
+ * to the number of components.
+ * <br>
+ * {@link MetricTypes#EUCLIDEAN} uses the squared Euclidean distance and {@link MetricTypes#TAXICAB} the Taxicab distance
+ * between projections. The search is approximate with respect to the raw pixels, use {@link RecallReport} to
+ * compare its error rate with {@link LinearScanIndex}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class PcaIndex implements NeighborIndex {
+
+    /** Per-thread buffer for the projected query.
+     * */
+    private static final ThreadLocal<float[]> QUERY = ThreadLocal.withInitial(() -> new float[0]);
+
+    /** The projection.
+     * */
+    private final PcaProjection projection;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** Projected training images, row-major.
+     * */
+    private final float[] projected;
+
+    /** Number of training images.
+     * */
+    private final int size;
+
+    /** Constructor for the {@link PcaIndex} class.
+     *
+     * @param projection {@link PcaIndex#projection description}.
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link PcaIndex#metricType description}.
+     * */
+    public PcaIndex(PcaProjection projection, MnistDataSet trainData, MetricTypes metricType) {
+        this.projection = projection;
+        this.metricType = metricType;
+        this.projected = projection.project(trainData);
+        this.size = trainData.size();
+    }
+
+    /** Constructor for the {@link PcaIndex} class with projected training images, used by {@link RecognizerSnapshot}.
+     *
+     * @param projection {@link PcaIndex#projection description}.
+     * @param metricType {@link PcaIndex#metricType description}.
+     * @param projected {@link PcaIndex#projected description}.
+     * */
+    PcaIndex(PcaProjection projection, MetricTypes metricType, float[] projected) {
+        this.projection = projection;
+        this.metricType = metricType;
+        this.projected = projected;
+        this.size = projected.length / Math.max(1, projection.getDimensions());
+    }
+
+    /** Returns the factory that fits a new projection for every training set.
+     *
+     * @param dimensions number of principal components, such as 40 to 100 for MNIST.
+     * @return factory of {@link PcaIndex}.
+     * */
+    public static NeighborIndexFactory factory(int dimensions) {
+        return (trainData, metricType) -> new PcaIndex(PcaProjection.fit(trainData, dimensions), trainData, metricType);
+    }
+
+    /** Returns the factory that uses an already fitted projection.
+     *
+     * @param projection {@link PcaIndex#projection description}.
+     * @return factory of {@link PcaIndex}.
+     * */
+    public static NeighborIndexFactory factory(PcaProjection projection) {
+        return (trainData, metricType) -> new PcaIndex(projection, trainData, metricType);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        int dimensions = projection.getDimensions();
+        float[] projectedQuery = QUERY.get();
+        if (projectedQuery.length < dimensions) {
+            projectedQuery = new float[dimensions];
+            QUERY.set(projectedQuery);
+        }
+
+        projection.project(query, queryOffset, projectedQuery, 0);
+        boolean euclidean = metricType == MetricTypes.EUCLIDEAN;
+
+        for (int i = 0, offset = 0; i < size; i++, offset += dimensions) {
+            float sum = 0;
+            if (euclidean) {
+                for (int c = 0; c < dimensions; c++) {
+                    float difference = projectedQuery[c] - projected[offset + c];
+                    sum += difference * difference;
+                }
+            } else {
+                for (int c = 0; c < dimensions; c++)
+                    sum += Math.abs(projectedQuery[c] - projected[offset + c]);
+            }
+            neighbors.offer(sum, i);
+        }
+
+        return size;
+    }
+
+    /**
+     * @return {@link PcaIndex#projection}.
+     * */
+    public PcaProjection getProjection() {
+        return projection;
+    }
+
+    /**
+     * @return {@link PcaIndex#projected}.
+     * */
+    float[] getProjected() {
+        return projected;
+    }
+}
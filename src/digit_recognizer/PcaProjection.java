@@ -0,0 +1,237 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Principal component analysis of MNIST images.</h1>
+ * <p>
+ * Fits a linear projection of images onto the principal components with the largest variance
+ * and projects images into that reduced space as float arrays.
+ * <br>
+ * The covariance matrix is accumulated exactly in integers, block by block of transposed images,
+ * and decomposed by {@link SymmetricEigenDecomposition}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class PcaProjection {
+
+    /** Number of images accumulated together into the covariance matrix.
+     * */
+    private static final int SAMPLE_BLOCK_SIZE = 256;
+
+    /** Number of pixels of projected images.
+     * */
+    private final int imageSize;
+
+    /** Number of principal components.
+     * */
+    private final int dimensions;
+
+    /** Principal components, row-major, {@link PcaProjection#imageSize} values per component.
+     * */
+    private final float[] components;
+
+    /** Projection of the mean image onto every component.
+     * <p>
+     * Subtracted from projections, so that the data is centered.
+     * */
+    private final float[] bias;
+
+    /** Share of the total variance kept by the components.
+     * */
+    private final double explainedVariance;
+
+    /** Constructor for the {@link PcaProjection} class.
+     *
+     * @param imageSize {@link PcaProjection#imageSize description}.
+     * @param dimensions {@link PcaProjection#dimensions description}.
+     * @param components {@link PcaProjection#components description}.
+     * @param bias {@link PcaProjection#bias description}.
+     * @param explainedVariance {@link PcaProjection#explainedVariance description}.
+     * */
+    public PcaProjection(int imageSize, int dimensions, float[] components, float[] bias, double explainedVariance) {
+        this.imageSize = imageSize;
+        this.dimensions = dimensions;
+        this.components = components;
+        this.bias = bias;
+        this.explainedVariance = explainedVariance;
+    }
+
+    /** Fits the projection on the data set.
+     *
+     * @param data training {@link MnistDataSet}.
+     * @param dimensions {@link PcaProjection#dimensions description}, at most the number of pixels.
+     * @return {@link PcaProjection}.
+     * */
+    public static PcaProjection fit(MnistDataSet data, int dimensions) {
+        int p = data.getImageSize();
+        int n = data.size();
+        if (dimensions <= 0 || dimensions > p)
+            throw new IllegalArgumentException("Dimensions must be between 1 and " + p + ", got " + dimensions);
+        if (n < 2)
+            throw new IllegalArgumentException("At least two images are needed to fit a projection");
+
+        long[] sums = new long[p];
+        long[][] products = accumulateProducts(data, sums);
+
+        double[][] covariance = new double[p][p];
+        for (int i = 0; i < p; i++) {
+            for (int j = i; j < p; j++) {
+                double value = (products[i][j] - (double) sums[i] * sums[j] / n) / (n - 1);
+                covariance[i][j] = value;
+                covariance[j][i] = value;
+            }
+        }
+
+        SymmetricEigenDecomposition decomposition = new SymmetricEigenDecomposition(covariance);
+        double[] eigenvalues = decomposition.getEigenvalues();
+        double[][] eigenvectors = decomposition.getEigenvectors();
+
+        Integer[] order = new Integer[p];
+        for (int i = 0; i < p; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(eigenvalues[b], eigenvalues[a]));
+
+        double totalVariance = 0;
+        for (double eigenvalue : eigenvalues) totalVariance += Math.max(0, eigenvalue);
+
+        float[] components = new float[dimensions * p];
+        float[] bias = new float[dimensions];
+        double keptVariance = 0;
+
+        for (int c = 0; c < dimensions; c++) {
+            double[] vector = eigenvectors[order[c]];
+            double projectedMean = 0;
+
+            for (int i = 0; i < p; i++) {
+                components[c * p + i] = (float) vector[i];
+                projectedMean += vector[i] * sums[i] / n;
+            }
+
+            bias[c] = (float) projectedMean;
+            keptVariance += Math.max(0, eigenvalues[order[c]]);
+        }
+
+        return new PcaProjection(p, dimensions, components, bias, totalVariance == 0 ? 1 : keptVariance / totalVariance);
+    }
+
+    /** Projects one image.
+     *
+     * @param image block of unsigned pixels.
+     * @param imageOffset offset of the image in the block.
+     * @param out array that receives {@link PcaProjection#dimensions} values.
+     * @param outOffset offset of the first value in out.
+     * */
+    public void project(byte[] image, int imageOffset, float[] out, int outOffset) {
+        for (int c = 0; c < dimensions; c++) {
+            int componentOffset = c * imageSize;
+            float sum = 0;
+            for (int i = 0; i < imageSize; i++)
+                sum += (image[imageOffset + i] & 0xFF) * components[componentOffset + i];
+            out[outOffset + c] = sum - bias[c];
+        }
+    }
+
+    /** Projects all images of the data set in parallel.
+     *
+     * @param data {@link MnistDataSet} with images of {@link PcaProjection#imageSize} pixels.
+     * @return projections, row-major, {@link PcaProjection#dimensions} values per image.
+     * */
+    public float[] project(MnistDataSet data) {
+        if (data.getImageSize() != imageSize)
+            throw new IllegalArgumentException("Expected images of " + imageSize + " pixels, got " + data.getImageSize());
+
+        float[] projected = new float[data.size() * dimensions];
+        IntStream.range(0, data.size()).parallel()
+                .forEach(i -> project(data.getPixels(), data.getOffset(i), projected, i * dimensions));
+        return projected;
+    }
+
+    /**
+     * @return {@link PcaProjection#imageSize}.
+     * */
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    /**
+     * @return {@link PcaProjection#dimensions}.
+     * */
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return {@link PcaProjection#components}.
+     * */
+    public float[] getComponents() {
+        return components;
+    }
+
+    /**
+     * @return {@link PcaProjection#bias}.
+     * */
+    public float[] getBias() {
+        return bias;
+    }
+
+    /**
+     * @return {@link PcaProjection#explainedVariance}.
+     * */
+    public double getExplainedVariance() {
+        return explainedVariance;
+    }
+
+    /** Accumulates pixel sums and the upper triangle of pixel products over all images.
+     * <p>
+     * Images are transposed block by block, so every product sum is a dot product of two contiguous rows,
+     * rows of pixels that are zero in the whole block are skipped. Rows of the result are computed in parallel.
+     *
+     * @param data {@link MnistDataSet}.
+     * @param sums array that receives the sum of every pixel.
+     * @return {@code products[i][j]}, for {@code j >= i}, the sum of products of pixels i and j.
+     * */
+    private static long[][] accumulateProducts(MnistDataSet data, long[] sums) {
+        int p = data.getImageSize();
+        byte[] pixels = data.getPixels();
+        long[][] products = new long[p][p];
+        int[][] block = new int[p][SAMPLE_BLOCK_SIZE];
+        boolean[] nonZero = new boolean[p];
+
+        for (int from = 0; from < data.size(); from += SAMPLE_BLOCK_SIZE) {
+            int size = Math.min(SAMPLE_BLOCK_SIZE, data.size() - from);
+            Arrays.fill(nonZero, false);
+
+            for (int s = 0; s < size; s++) {
+                int offset = data.getOffset(from + s);
+                for (int i = 0; i < p; i++) {
+                    int value = pixels[offset + i] & 0xFF;
+                    block[i][s] = value;
+                    sums[i] += value;
+                    nonZero[i] |= value != 0;
+                }
+            }
+
+            IntStream.range(0, p).parallel().forEach(i -> {
+                if (!nonZero[i]) return;
+
+                int[] row = block[i];
+                long[] productRow = products[i];
+                for (int j = i; j < p; j++) {
+                    if (!nonZero[j]) continue;
+
+                    int[] other = block[j];
+                    long sum = 0;
+                    for (int s = 0; s < size; s++) sum += row[s] * other[s];
+                    productRow[j] += sum;
+                }
+            });
+        }
+
+        return products;
+    }
+}
@@ -0,0 +1,211 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Accuracy report of an approximate recognizer.</h1>
+ * <p>
+ * Compares a candidate {@link Recognizer}, usually one with an approximate {@link NeighborIndex},
+ * with an exact one on the same test matrices: error rates of both, recall@k of the neighbor lists
+ * and the mean search latency.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class RecallReport {
+
+    /** Number of compared test matrices.
+     * */
+    private final int numberOfMatrices;
+
+    /** Number of neighbors compared per test matrix.
+     * */
+    private final int k;
+
+    /** Error rate of the exact recognizer, in percent.
+     * */
+    private final double exactErrorRate;
+
+    /** Error rate of the candidate recognizer, in percent.
+     * */
+    private final double candidateErrorRate;
+
+    /** Mean share of exact k nearest neighbors found by the candidate.
+     * */
+    private final double recall;
+
+    /** Mean search time of the exact recognizer in nanoseconds.
+     * */
+    private final double exactNanos;
+
+    /** Mean search time of the candidate recognizer in nanoseconds.
+     * */
+    private final double candidateNanos;
+
+    /** Constructor for the {@link RecallReport} class.
+     *
+     * @param numberOfMatrices {@link RecallReport#numberOfMatrices description}.
+     * @param k {@link RecallReport#k description}.
+     * @param exactErrorRate {@link RecallReport#exactErrorRate description}.
+     * @param candidateErrorRate {@link RecallReport#candidateErrorRate description}.
+     * @param recall {@link RecallReport#recall description}.
+     * @param exactNanos {@link RecallReport#exactNanos description}.
+     * @param candidateNanos {@link RecallReport#candidateNanos description}.
+     * */
+    public RecallReport(int numberOfMatrices, int k, double exactErrorRate, double candidateErrorRate, double recall,
+                        double exactNanos, double candidateNanos) {
+        this.numberOfMatrices = numberOfMatrices;
+        this.k = k;
+        this.exactErrorRate = exactErrorRate;
+        this.candidateErrorRate = candidateErrorRate;
+        this.recall = recall;
+        this.exactNanos = exactNanos;
+        this.candidateNanos = candidateNanos;
+    }
+
+    /** Compares the candidate recognizer with the exact one.
+     * <p>
+     * Test matrices are processed in parallel, both recognizers must use the same training matrices and k.
+     *
+     * @param exact exact {@link Recognizer}, such as one with {@link LinearScanIndex}.
+     * @param candidate {@link Recognizer} to evaluate.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels.
+     * @return {@link RecallReport}.
+     * */
+    public static RecallReport compare(Recognizer exact, Recognizer candidate, MnistMatrix[] testMatrices) {
+        LongAdder exactErrors = new LongAdder();
+        LongAdder candidateErrors = new LongAdder();
+        LongAdder found = new LongAdder();
+        LongAdder expected = new LongAdder();
+        LongAdder exactTime = new LongAdder();
+        LongAdder candidateTime = new LongAdder();
+
+        IntStream.range(0, testMatrices.length).parallel().forEach(i -> {
+            MnistMatrix testMatrix = testMatrices[i];
+
+            long start = System.nanoTime();
+            int[] exactNeighbors = exact.findNeighbors(testMatrix);
+            long middle = System.nanoTime();
+            int[] candidateNeighbors = candidate.findNeighbors(testMatrix);
+            long end = System.nanoTime();
+
+            exactTime.add(middle - start);
+            candidateTime.add(end - middle);
+
+            if (exact.vote(exactNeighbors) != testMatrix.getLabel()) exactErrors.increment();
+            if (candidate.vote(candidateNeighbors) != testMatrix.getLabel()) candidateErrors.increment();
+
+            expected.add(exactNeighbors.length);
+            for (int exactNeighbor : exactNeighbors) {
+                for (int candidateNeighbor : candidateNeighbors) {
+                    if (exactNeighbor == candidateNeighbor) {
+                        found.increment();
+                        break;
+                    }
+                }
+            }
+        });
+
+        int n = Math.max(1, testMatrices.length);
+        return new RecallReport(testMatrices.length, exact.getK(),
+                100d * exactErrors.sum() / n, 100d * candidateErrors.sum() / n,
+                expected.sum() == 0 ? 1 : (double) found.sum() / expected.sum(),
+                (double) exactTime.sum() / n, (double) candidateTime.sum() / n);
+    }
+
+    /** Compares views of an approximate index that differ in one parameter with the exact recognizer.
+     * <p>
+     * Every view is wrapped in a {@link Recognizer} with the training data, k and metric type of the approximate one
+     * and compared by {@link RecallReport#compare}. Views usually share the built structure of the index,
+     * such as {@link HnswIndex#withEfSearch(int)}, so it's not rebuilt for every value.
+     *
+     * @param exact exact {@link Recognizer} with the same training data, k and metric type.
+     * @param approximate {@link Recognizer} with the approximate index.
+     * @param values values of the parameter to try.
+     * @param view returns a view of the approximate index for one value.
+     * @param testMatrices an array of {@link MnistMatrix} with known labels, such as the t10k set.
+     * @return one {@link RecallReport} per value, in the order of the values.
+     * */
+    public static List<RecallReport> sweep(Recognizer exact, Recognizer approximate, int[] values,
+                                           IntFunction<NeighborIndex> view, MnistMatrix[] testMatrices) {
+        List<RecallReport> reports = new ArrayList<>();
+        for (int value : values) {
+            NeighborIndex index = view.apply(value);
+            Recognizer candidate = new Recognizer(approximate.getK(), approximate.getMetricType(),
+                    approximate.getTrainData(), (trainData, metricType) -> index);
+            reports.add(compare(exact, candidate, testMatrices));
+        }
+        return reports;
+    }
+
+    /**
+     * @return {@link RecallReport#numberOfMatrices}.
+     * */
+    public int getNumberOfMatrices() {
+        return numberOfMatrices;
+    }
+
+    /**
+     * @return {@link RecallReport#k}.
+     * */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return {@link RecallReport#exactErrorRate}.
+     * */
+    public double getExactErrorRate() {
+        return exactErrorRate;
+    }
+
+    /**
+     * @return {@link RecallReport#candidateErrorRate}.
+     * */
+    public double getCandidateErrorRate() {
+        return candidateErrorRate;
+    }
+
+    /**
+     * @return difference of error rates, candidate minus exact, in percentage points.
+     * */
+    public double getErrorRateDelta() {
+        return candidateErrorRate - exactErrorRate;
+    }
+
+    /**
+     * @return {@link RecallReport#recall}.
+     * */
+    public double getRecall() {
+        return recall;
+    }
+
+    /**
+     * @return {@link RecallReport#exactNanos}.
+     * */
+    public double getExactNanos() {
+        return exactNanos;
+    }
+
+    /**
+     * @return {@link RecallReport#candidateNanos}.
+     * */
+    public double getCandidateNanos() {
+        return candidateNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Matrices: %d, recall@%d: %.4f, error rate: %.2f%% exact, %.2f%% candidate (%+.2f), "
+                        + "mean search time: %.3fms exact, %.3fms candidate (x%.1f)",
+                numberOfMatrices, k, recall, exactErrorRate, candidateErrorRate, getErrorRateDelta(),
+                exactNanos / 1e6, candidateNanos / 1e6, candidateNanos == 0 ? 0 : exactNanos / candidateNanos);
+    }
+}
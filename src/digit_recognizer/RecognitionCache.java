@@ -0,0 +1,437 @@
+package digit_recognizer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Bounded cache of recognition results.</h1>
+ * <p>
+ * Exact duplicates of already recognized images, such as resubmitted forms and retries, are answered from the cache
+ * instead of a new neighbor search. Entries are keyed by a 64-bit hash of the pixels and hold a copy of the pixels,
+ * so a hash collision is detected by a byte comparison and never returns a wrong result.
+ * <br>
+ * The cache is split into segments by the hash, every segment is guarded by its own lock and evicts by
+ * its {@link EvictionPolicies}. Attach the cache with {@link Recognizer#setCache(RecognitionCache)},
+ * the recognizer invalidates it whenever its configuration changes.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class RecognitionCache {
+
+    /** Greatest number of segments.
+     * */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** Least capacity of a segment, smaller caches use fewer segments.
+     * */
+    private static final int MIN_SEGMENT_CAPACITY = 64;
+
+    /** Reads pixels eight at a time.
+     * */
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+
+    /** Greatest number of cached results.
+     * */
+    private final int maximumSize;
+
+    /** The eviction policy.
+     * */
+    private final EvictionPolicies policy;
+
+    /** Segments of the cache.
+     * */
+    private final Segment[] segments;
+
+    /** Generation of cached results, incremented by {@link RecognitionCache#invalidate()}.
+     * <p>
+     * Entries of earlier generations are never returned.
+     * */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** Constructor for the {@link RecognitionCache} class with the {@link EvictionPolicies#W_TINY_LFU} policy.
+     *
+     * @param maximumSize {@link RecognitionCache#maximumSize description}.
+     * */
+    public RecognitionCache(int maximumSize) {
+        this(maximumSize, EvictionPolicies.W_TINY_LFU);
+    }
+
+    /** Constructor for the {@link RecognitionCache} class.
+     *
+     * @param maximumSize {@link RecognitionCache#maximumSize description}.
+     * @param policy {@link RecognitionCache#policy description}.
+     * */
+    public RecognitionCache(int maximumSize, EvictionPolicies policy) {
+        if (maximumSize < 1) throw new IllegalArgumentException("Maximum size must be positive, but got " + maximumSize);
+
+        this.maximumSize = maximumSize;
+        this.policy = policy;
+
+        int numberOfSegments = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maximumSize / MIN_SEGMENT_CAPACITY)));
+        this.segments = new Segment[numberOfSegments];
+        for (int i = 0; i < numberOfSegments; i++)
+            segments[i] = new Segment(maximumSize / numberOfSegments + (i < maximumSize % numberOfSegments ? 1 : 0), policy);
+    }
+
+    /** Returns a 64-bit hash of pixels.
+     *
+     * @param pixels array that contains the image.
+     * @param offset index of the first pixel of the image.
+     * @param length number of pixels of the image.
+     * @return the hash.
+     * */
+    public static long hash(byte[] pixels, int offset, int length) {
+        long hash = PRIME_2 ^ length;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES)
+            hash = Long.rotateLeft(hash ^ (long) LONGS.get(pixels, offset + i) * PRIME_1, 31) * PRIME_2;
+        for (; i < length; i++)
+            hash = Long.rotateLeft(hash ^ (pixels[offset + i] & 0xFF) * PRIME_1, 11) * PRIME_2;
+
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    /** Returns the cached result of an image.
+     *
+     * @param generation value of {@link RecognitionCache#getGeneration()} read before the recognizer configuration.
+     * @param hash {@link RecognitionCache#hash} of the image.
+     * @param pixels array that contains the image.
+     * @param offset index of the first pixel of the image.
+     * @param length number of pixels of the image.
+     * @return the {@link Entry}, or null on a miss.
+     * */
+    Entry get(long generation, long hash, byte[] pixels, int offset, int length) {
+        Entry entry = segment(hash).get(hash);
+        if (entry != null && entry.generation == generation && entry.matches(pixels, offset, length)) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /** Caches the result of an image.
+     * <p>
+     * Results of an outdated generation are ignored.
+     *
+     * @param generation value of {@link RecognitionCache#getGeneration()} read before the recognizer configuration.
+     * @param hash {@link RecognitionCache#hash} of the image.
+     * @param pixels array that contains the image, the pixels are copied.
+     * @param offset index of the first pixel of the image.
+     * @param length number of pixels of the image.
+     * @param label recognized label.
+     * @param neighbors indices of the nearest neighbors, from the nearest to the farthest.
+     * */
+    void put(long generation, long hash, byte[] pixels, int offset, int length, int label, int[] neighbors) {
+        if (generation != this.generation.get()) return;
+
+        Entry entry = new Entry(generation, Arrays.copyOfRange(pixels, offset, offset + length), label, neighbors);
+        int evicted = segment(hash).put(hash, entry);
+        if (evicted > 0) evictions.add(evicted);
+    }
+
+    /** Removes all cached results.
+     * <p>
+     * Results computed concurrently with the previous configuration are not cached anymore.
+     * */
+    public void invalidate() {
+        generation.incrementAndGet();
+        for (Segment segment : segments) segment.clear();
+    }
+
+    /**
+     * @return the current generation of results.
+     * */
+    long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * @return number of cached results.
+     * */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) size += segment.size();
+        return size;
+    }
+
+    /**
+     * @return {@link RecognitionCache#maximumSize}.
+     * */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return {@link RecognitionCache#policy}.
+     * */
+    public EvictionPolicies getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return number of queries answered from the cache.
+     * */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of queries that were not cached.
+     * */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of results evicted or not admitted because the cache was full.
+     * */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return share of queries answered from the cache, 0 if there were no queries.
+     * */
+    public double getHitRate() {
+        long hits = this.hits.sum();
+        long total = hits + misses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /** Resets hit, miss and eviction counters.
+     * */
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s cache: %d/%d entries, %d hits, %d misses, hit rate %.2f%%, %d evictions",
+                policy, size(), maximumSize, getHits(), getMisses(), getHitRate() * 100, getEvictions());
+    }
+
+    private Segment segment(long hash) {
+        return segments[(int) (hash >>> 58) & (segments.length - 1)];
+    }
+
+    /** Cached result of one image.
+     * */
+    public static final class Entry {
+
+        private final long generation;
+        private final byte[] pixels;
+        private final int label;
+        private final int[] neighbors;
+
+        private Entry(long generation, byte[] pixels, int label, int[] neighbors) {
+            this.generation = generation;
+            this.pixels = pixels;
+            this.label = label;
+            this.neighbors = neighbors;
+        }
+
+        private boolean matches(byte[] pixels, int offset, int length) {
+            return Arrays.equals(this.pixels, 0, this.pixels.length, pixels, offset, offset + length);
+        }
+
+        /**
+         * @return recognized label.
+         * */
+        public int getLabel() {
+            return label;
+        }
+
+        /**
+         * @return copy of indices of the nearest neighbors, from the nearest to the farthest.
+         * */
+        public int[] getNeighbors() {
+            return neighbors.clone();
+        }
+    }
+
+    /** One segment of the cache.
+     * <p>
+     * With {@link EvictionPolicies#LRU} only the window is used and its least recently used entry is evicted.
+     * With {@link EvictionPolicies#W_TINY_LFU} the window holds 1% of the capacity, the rest is a segmented LRU
+     * with a probation part and a protected part of 80%. An entry requested again on probation is protected,
+     * an entry leaving the window replaces the probation victim only if the {@link FrequencySketch} estimates
+     * it was requested more often.
+     * */
+    private static final class Segment {
+
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final int protectedCapacity;
+
+        private final LinkedHashMap<Long, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, Entry> probation = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Long, Entry> protectedEntries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /** Request frequencies, null for {@link EvictionPolicies#LRU}.
+         * */
+        private final FrequencySketch sketch;
+
+        private Segment(int capacity, EvictionPolicies policy) {
+            if (policy == EvictionPolicies.LRU) {
+                this.windowCapacity = capacity;
+                this.sketch = null;
+            } else {
+                this.windowCapacity = Math.max(1, capacity / 100);
+                this.sketch = new FrequencySketch(capacity);
+            }
+            this.mainCapacity = capacity - windowCapacity;
+            this.protectedCapacity = mainCapacity * 4 / 5;
+        }
+
+        private synchronized Entry get(long hash) {
+            if (sketch != null) sketch.increment(hash);
+
+            Long key = hash;
+            Entry entry = window.get(key);
+            if (entry == null) entry = protectedEntries.get(key);
+            if (entry == null) {
+                entry = probation.remove(key);
+                if (entry != null) {
+                    protectedEntries.put(key, entry);
+                    if (protectedEntries.size() > protectedCapacity) {
+                        Long demoted = eldest(protectedEntries);
+                        probation.put(demoted, protectedEntries.remove(demoted));
+                    }
+                }
+            }
+            return entry;
+        }
+
+        /** Inserts an entry.
+         *
+         * @return number of evicted or rejected entries.
+         * */
+        private synchronized int put(long hash, Entry entry) {
+            Long key = hash;
+            if (window.containsKey(key)) {
+                window.put(key, entry);
+                return 0;
+            }
+            if (protectedEntries.containsKey(key)) {
+                protectedEntries.put(key, entry);
+                return 0;
+            }
+            if (probation.containsKey(key)) {
+                probation.put(key, entry);
+                return 0;
+            }
+
+            window.put(key, entry);
+            if (window.size() <= windowCapacity) return 0;
+
+            Long candidate = eldest(window);
+            Entry candidateEntry = window.remove(candidate);
+            if (mainCapacity == 0) return 1;
+
+            if (probation.size() + protectedEntries.size() < mainCapacity) {
+                probation.put(candidate, candidateEntry);
+                return 0;
+            }
+
+            LinkedHashMap<Long, Entry> victims = probation.isEmpty() ? protectedEntries : probation;
+            Long victim = eldest(victims);
+            if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+                victims.remove(victim);
+                probation.put(candidate, candidateEntry);
+            }
+            return 1;
+        }
+
+        private synchronized void clear() {
+            window.clear();
+            probation.clear();
+            protectedEntries.clear();
+        }
+
+        private synchronized int size() {
+            return window.size() + probation.size() + protectedEntries.size();
+        }
+
+        private static Long eldest(LinkedHashMap<Long, Entry> entries) {
+            return entries.keySet().iterator().next();
+        }
+    }
+
+    /** Count-min sketch of request frequencies with 4-bit counters.
+     * <p>
+     * Every hash increments four counters, the estimate is the least of them. After ten increments per cached entry
+     * all counters are halved, so the sketch follows changes of the traffic.
+     * */
+    private static final class FrequencySketch {
+
+        private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+        /** Counters, sixteen per long.
+         * */
+        private final long[] table;
+
+        private final int sampleSize;
+
+        private int additions;
+
+        private FrequencySketch(int capacity) {
+            this.table = new long[Integer.highestOneBit(Math.max(2, capacity) - 1) << 1];
+            this.sampleSize = 10 * Math.max(1, capacity);
+        }
+
+        private int frequency(long hash) {
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = mix(hash, i);
+                int index = (int) (h >>> 32) & (table.length - 1);
+                int shift = ((int) h & 15) << 2;
+                frequency = Math.min(frequency, (int) (table[index] >>> shift) & 15);
+            }
+            return frequency;
+        }
+
+        private void increment(long hash) {
+            boolean added = false;
+            for (int i = 0; i < SEEDS.length; i++) {
+                long h = mix(hash, i);
+                int index = (int) (h >>> 32) & (table.length - 1);
+                int shift = ((int) h & 15) << 2;
+                if (((table[index] >>> shift) & 15) < 15) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) {
+                for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+                additions /= 2;
+            }
+        }
+
+        private static long mix(long hash, int i) {
+            long h = (hash ^ SEEDS[i]) * 0x9E3779B97F4A7C15L;
+            return h ^ h >>> 29;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package digit_recognizer;
 
+import utils.mnist_data_io.MnistDataSet;
 import utils.mnist_data_io.MnistMatrix;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.IntStream;
 
 /**
  * <h1>Main recognizer class.</h1>
@@ -14,84 +20,180 @@ import java.util.*;
  * @since   04.07.2022
  */
 public class Recognizer {
-    /** The number of neighbors.
+    /** Current configuration of the recognizer.
      * <p>
-     * Also known as the coefficient k.
+     * The configuration is immutable, setters publish a new one, so {@link Recognizer#recognize(MnistMatrix)}
+     * reads it once per query and never needs a lock.
+     * */
+    private volatile Configuration configuration;
+
+    /** Constructor fot the {@link Recognizer} class
      *
-     * @see <a href="https://www.ibm.com/topics/knn">What is the k-nearest neighbors algorithm?</a>
-     */
-    private  int k;
-    /** The type of metric to use.
-     * <p>
-     * The selected metric will be responsible for the discrepancy in the color of the pixels in the image.
-     * <br>
-     * Metric types: {@link MetricTypes}.
+     * @param k {@link Configuration#k description}.
+     * @param metricType {@link Configuration#metricType description}.
+     * @param trainMatrix {@link Configuration#trainMatrices description}.
      * */
-    private MetricTypes metricType;
-    /** Array of mnist images in grayscale value set format.
-     * <p>
-     * The MnistMatrix is used to conveniently store images in this format.
-     * <br>
-     * MnistMatrix: {@link MnistMatrix}.
+    public Recognizer(int k, MetricTypes metricType, MnistMatrix[] trainMatrix) {
+        this(k, metricType, trainMatrix, LinearScanIndex.factory());
+    }
+
+    /** Constructor fot the {@link Recognizer} class
+     *
+     * @param k {@link Configuration#k description}.
+     * @param metricType {@link Configuration#metricType description}.
+     * @param trainMatrix {@link Configuration#trainMatrices description}.
+     * @param indexFactory {@link Configuration#indexFactory description}.
      * */
-    private MnistMatrix[] trainMatrices;
+    public Recognizer(int k, MetricTypes metricType, MnistMatrix[] trainMatrix, NeighborIndexFactory indexFactory) {
+        this.configuration = new Configuration(k, metricType, trainMatrix, MnistDataSet.of(trainMatrix), indexFactory);
+    }
 
     /** Constructor fot the {@link Recognizer} class
      *
-     * @param k {@link Recognizer#k description}.
-     * @param metricType {@link Recognizer#metricType description}.
-     * @param trainMatrix {@link Recognizer#trainMatrices description}.
+     * @param k {@link Configuration#k description}.
+     * @param metricType {@link Configuration#metricType description}.
+     * @param trainData {@link Configuration#trainData description}.
      * */
-    public Recognizer(int k, MetricTypes metricType, MnistMatrix[] trainMatrix) {
-        this.k = k;
-        this.metricType = metricType;
-        this.trainMatrices = trainMatrix;
+    public Recognizer(int k, MetricTypes metricType, MnistDataSet trainData) {
+        this(k, metricType, trainData, LinearScanIndex.factory());
     }
 
+    /** Constructor fot the {@link Recognizer} class
+     *
+     * @param k {@link Configuration#k description}.
+     * @param metricType {@link Configuration#metricType description}.
+     * @param trainData {@link Configuration#trainData description}.
+     * @param indexFactory {@link Configuration#indexFactory description}.
+     * */
+    public Recognizer(int k, MetricTypes metricType, MnistDataSet trainData, NeighborIndexFactory indexFactory) {
+        this.configuration = new Configuration(k, metricType, trainData.toMatrices(), trainData, indexFactory);
+    }
+
+    /** Default number of queries recognized together by {@link Recognizer#recognizeBatch(MnistMatrix[])}.
+     * */
+    public static final int DEFAULT_QUERY_BLOCK_SIZE = 32;
+
+    /** Per-thread scratch buffers of {@link Recognizer#predict(MnistMatrix)}.
+     * <p>
+     * Buffers are reused between queries, so recognition doesn't allocate.
+     * */
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    /** Instrumentation of the queries, null if queries are not timed.
+     * */
+    private volatile RecognizerMetrics metrics;
+
+    /** Cache of results of already recognized images, null if results are not cached.
+     * */
+    private volatile RecognitionCache cache;
+
+    /** Number of queries recognized together by {@link Recognizer#recognizeBatch(MnistMatrix[])}.
+     * <p>
+     * Doesn't affect results, only how much work {@link NeighborIndex#searchBatch} shares between queries.
+     * */
+    private volatile int queryBlockSize = DEFAULT_QUERY_BLOCK_SIZE;
+
+    /** Pool that recognizes the blocks of {@link Recognizer#recognizeBatch(MnistMatrix[])}, null for the common pool.
+     * */
+    private volatile ForkJoinPool pool;
+
     /** Returns the value of majority of the same {@link MnistMatrix}.
      *
-     * @param suitableMatrix the simple array that contains first {@link Recognizer#k} {@link MnistMatrix}.
-     * @return {@link MnistMatrix}.
+     * @param trainData {@link Configuration#trainData description}.
+     * @param neighbors the {@link NeighborHeap} that contains first {@link Configuration#k} neighbors, sorted by distance.
+     * @param neighborLabels reused buffer of at least {@link Configuration#k} labels.
+     * @param votes reused vote counters, one per label.
+     * @return label of the majority.
      * */
-    private int findMajority(MnistMatrix[] suitableMatrix) {
-        HashMap<Integer, Integer> occurrencesNum = new HashMap<>();
+    private static int findMajority(MnistDataSet trainData, NeighborHeap neighbors, int[] neighborLabels, double[] votes) {
+        for (int i = 0; i < neighbors.size(); i++) neighborLabels[i] = trainData.getLabel(neighbors.getIndex(i));
+        return majority(neighborLabels, neighbors.size(), votes);
+    }
 
-        for (MnistMatrix mnistMatrix : suitableMatrix) {
-            if (!occurrencesNum.containsKey(mnistMatrix.getLabel()))
-                occurrencesNum.put(mnistMatrix.getLabel(), mnistMatrix.getLabel());
-             else occurrencesNum.put(mnistMatrix.getLabel(), occurrencesNum.get(mnistMatrix.getLabel()) + 1);
+    /** Returns the majority label of neighbors, every neighbor has one vote.
+     *
+     * @param neighborLabels labels of neighbors, from the nearest to the farthest.
+     * @param count number of neighbors that vote, the first ones of neighborLabels.
+     * @param votes reused vote counters, one per label.
+     * @return label of the majority, or -1 if there are no neighbors.
+     * @see Recognizer#majority(int[], double[], int, double[])
+     * */
+    public static int majority(int[] neighborLabels, int count, double[] votes) {
+        return majority(neighborLabels, null, count, votes);
+    }
+
+    /** Returns the label with the greatest sum of weights of its neighbors.
+     * <p>
+     * If several labels have the same sum, the label of the nearest neighbor among them wins.
+     * Every component that must give the same results as {@link Recognizer} votes with this method.
+     *
+     * @param neighborLabels labels of neighbors, from the nearest to the farthest.
+     * @param neighborWeights weights of neighbors in the same order, null to give every neighbor one vote.
+     * @param count number of neighbors that vote, the first ones of neighborLabels.
+     * @param votes reused vote counters, one per label.
+     * @return label of the majority, or -1 if there are no neighbors.
+     * */
+    public static int majority(int[] neighborLabels, double[] neighborWeights, int count, double[] votes) {
+        Arrays.fill(votes, 0);
+        for (int i = 0; i < count; i++) votes[neighborLabels[i]] += neighborWeights != null ? neighborWeights[i] : 1;
+
+        int majority = -1;
+        for (int i = 0; i < count; i++) {
+            int label = neighborLabels[i];
+            if (majority == -1 || votes[label] > votes[majority]) majority = label;
         }
 
-        return Collections.max(occurrencesNum.entrySet(), Map.Entry.comparingByValue()).getKey();
+        return majority;
     }
 
     /** Returns the recognized digit.
+     * <p>
+     * All per-query state lives in local variables and thread-confined {@link Recognizer#SCRATCH} buffers,
+     * so the method may be called from any number of threads at once.
      *
      * @param matrixToBeRecognized a simple {@link MnistMatrix} that needs to be recognized.
      * @return recognized digit.
      * */
-    private synchronized int predict(MnistMatrix matrixToBeRecognized) {
-
-        TreeSet<MnistMatrix> mnistMatrixHashSet = new TreeSet<>();
+    private int predict(MnistMatrix matrixToBeRecognized) {
+        RecognitionCache cache = this.cache;
+        // the generation is read before the configuration, so a result of a replaced configuration is never cached as current
+        long generation = cache != null ? cache.getGeneration() : 0;
+        Configuration configuration = this.configuration;
+        MnistDataSet trainData = configuration.trainData;
 
-        for (MnistMatrix trainMatrix : trainMatrices) {
-            if (this.metricType == MetricTypes.EUCLIDEAN)
-                trainMatrix.setDistance(Metrics.euclideanDistance(matrixToBeRecognized, trainMatrix));
-            else if (this.metricType == MetricTypes.TAXICAB)
-                trainMatrix.setDistance(Metrics.taxicabGeometry(matrixToBeRecognized, trainMatrix));
+        RecognizerMetrics metrics = this.metrics;
+        long start = metrics != null ? System.nanoTime() : 0;
 
-            mnistMatrixHashSet.add(trainMatrix);
+        byte[] data = matrixToBeRecognized.getData();
+        int offset = matrixToBeRecognized.getOffset();
+        int length = imageSize(matrixToBeRecognized);
+        long hash = 0;
+        if (cache != null) {
+            hash = RecognitionCache.hash(data, offset, length);
+            RecognitionCache.Entry entry = cache.get(generation, hash, data, offset, length);
+            if (entry != null) {
+                if (metrics != null) metrics.recordCacheHit(System.nanoTime() - start);
+                return entry.getLabel();
+            }
         }
 
-        MnistMatrix[] suitableMatrix = new MnistMatrix[this.k];
-        int counter = 0;
-        for (MnistMatrix mnistMatrix : mnistMatrixHashSet) {
-            if (counter < k) suitableMatrix[counter] = mnistMatrix;
-            else break;
-            counter ++;
+        Scratch scratch = SCRATCH.get();
+        NeighborHeap neighbors = scratch.neighbors(configuration.k);
+
+        int distances = configuration.index.search(data, offset, neighbors);
+        long searched = metrics != null ? System.nanoTime() : 0;
+
+        neighbors.sort();
+        long sorted = metrics != null ? System.nanoTime() : 0;
+
+        int label = findMajority(trainData, neighbors, scratch.labels(configuration.k), scratch.votes(trainData.getNumberOfClasses()));
+        if (metrics != null) {
+            long voted = System.nanoTime();
+            metrics.recordQuery(voted - start, searched - start, sorted - searched, voted - sorted, distances);
         }
 
-        return findMajority(suitableMatrix);
+        if (cache != null) cache.put(generation, hash, data, offset, length, label, indices(neighbors));
+        return label;
     }
 
     /** Returns the same value as {@link Recognizer#predict(MnistMatrix)}.
@@ -105,85 +207,493 @@ public class Recognizer {
         return predict(matrixToBeRecognized);
     }
 
-    /** Print in console error rate.
+    /** Returns the nearest neighbors of the matrix.
+     *
+     * @param matrix a simple {@link MnistMatrix}.
+     * @return indices of the {@link Configuration#k} nearest training matrices, from the nearest to the farthest.
+     * */
+    public int[] findNeighbors(MnistMatrix matrix) {
+        RecognitionCache cache = this.cache;
+        long generation = cache != null ? cache.getGeneration() : 0;
+        Configuration configuration = this.configuration;
+
+        byte[] data = matrix.getData();
+        int offset = matrix.getOffset();
+        int length = imageSize(matrix);
+        long hash = 0;
+        if (cache != null) {
+            hash = RecognitionCache.hash(data, offset, length);
+            RecognitionCache.Entry entry = cache.get(generation, hash, data, offset, length);
+            if (entry != null) return entry.getNeighbors();
+        }
+
+        Scratch scratch = SCRATCH.get();
+        NeighborHeap neighbors = scratch.neighbors(configuration.k);
+
+        configuration.index.search(data, offset, neighbors);
+        neighbors.sort();
+
+        int[] indices = indices(neighbors);
+        if (cache != null) {
+            int label = findMajority(configuration.trainData, neighbors, scratch.labels(configuration.k),
+                    scratch.votes(configuration.trainData.getNumberOfClasses()));
+            cache.put(generation, hash, data, offset, length, label, indices.clone());
+        }
+        return indices;
+    }
+
+    /** Returns the majority label of given neighbors.
      * <p>
-     * This method used for detection error rate of recognition.
-     * This method creates instances of {@link StreamingRecognition} class to be able to use multithreading,
-     * after that, the recognition result will be displayed in the console
+     * Neighbors are voted the same way as by {@link Recognizer#recognize(MnistMatrix)}.
      *
-     * @param testMatrices an array of {@link MnistMatrix}.
-     * @param numberOfThreads that will be used for {@link MnistMatrix} recognition.
+     * @param neighbors indices of training matrices, from the nearest to the farthest, such as returned by {@link Recognizer#findNeighbors(MnistMatrix)}.
+     * @return label of the majority, or -1 if there are no neighbors.
+     * */
+    public int vote(int[] neighbors) {
+        MnistDataSet trainData = configuration.trainData;
+        Scratch scratch = SCRATCH.get();
+        int[] neighborLabels = scratch.labels(neighbors.length);
+        for (int i = 0; i < neighbors.length; i++) neighborLabels[i] = trainData.getLabel(neighbors[i]);
+
+        return majority(neighborLabels, neighbors.length, scratch.votes(trainData.getNumberOfClasses()));
+    }
+
+    /** Returns recognized digits of many matrices at once.
+     * <p>
+     * Queries are split into blocks of {@link Recognizer#queryBlockSize} matrices which are recognized in parallel
+     * by {@link NeighborIndex#searchBatch}. The default {@link LinearScanIndex} makes one cache-blocked pass over
+     * the training data per block. The result is exactly the same as calling {@link Recognizer#recognize(MnistMatrix)} for every matrix.
+     * <br>
+     * With a {@link RecognitionCache} cached queries are answered first and only the rest is searched.
+     * Blocks run on the pool of {@link Recognizer#setParallelism(int)}, or on the common pool if it's not set.
+     *
+     * @param queries an array of {@link MnistMatrix} that need to be recognized.
+     * @return recognized digits, in the order of queries.
+     * */
+    public int[] recognizeBatch(MnistMatrix[] queries) {
+        while (true) {
+            ForkJoinPool pool = this.pool;
+            if (pool == null || ForkJoinTask.getPool() == pool) return recognizeBlocks(queries);
+            try {
+                return pool.submit(() -> recognizeBlocks(queries)).join();
+            } catch (RejectedExecutionException e) {
+                // the pool was replaced meanwhile, run on the new one
+                if (this.pool == pool) throw e;
+            }
+        }
+    }
+
+    /** Recognizes queries on the current pool, see {@link Recognizer#recognizeBatch(MnistMatrix[])}.
+     *
+     * @param queries an array of {@link MnistMatrix} that need to be recognized.
+     * @return recognized digits, in the order of queries.
      * */
-    public void checkErrorRate(MnistMatrix[] testMatrices, int numberOfThreads) {
+    private int[] recognizeBlocks(MnistMatrix[] queries) {
+        RecognitionCache cache = this.cache;
+        long generation = cache != null ? cache.getGeneration() : 0;
+        Configuration configuration = this.configuration;
+        RecognizerMetrics metrics = this.metrics;
+        int queryBlockSize = this.queryBlockSize;
+        if (cache == null) return predictBatch(configuration, metrics, queries, queryBlockSize, null);
+
+        int[] labels = new int[queries.length];
+        long[] hashes = new long[queries.length];
+        boolean[] cached = new boolean[queries.length];
+        IntStream.range(0, queries.length).parallel().forEach(q -> {
+            long start = metrics != null ? System.nanoTime() : 0;
+            MnistMatrix query = queries[q];
+            hashes[q] = RecognitionCache.hash(query.getData(), query.getOffset(), imageSize(query));
+            RecognitionCache.Entry entry = cache.get(generation, hashes[q], query.getData(), query.getOffset(), imageSize(query));
+            if (entry != null) {
+                labels[q] = entry.getLabel();
+                cached[q] = true;
+                if (metrics != null) metrics.recordCacheHit(System.nanoTime() - start);
+            }
+        });
+
+        int[] missed = IntStream.range(0, queries.length).filter(q -> !cached[q]).toArray();
+        MnistMatrix[] missedQueries = new MnistMatrix[missed.length];
+        for (int i = 0; i < missed.length; i++) missedQueries[i] = queries[missed[i]];
 
-        StreamingRecognition[] streamingRecognitions = new StreamingRecognition[numberOfThreads];
-        int partLength = (testMatrices.length) / numberOfThreads;
+        int[][] neighbors = new int[missed.length][];
+        int[] missedLabels = predictBatch(configuration, metrics, missedQueries, queryBlockSize, neighbors);
+        for (int i = 0; i < missed.length; i++) {
+            MnistMatrix query = queries[missed[i]];
+            labels[missed[i]] = missedLabels[i];
+            cache.put(generation, hashes[missed[i]], query.getData(), query.getOffset(), imageSize(query), missedLabels[i], neighbors[i]);
+        }
+
+        return labels;
+    }
 
-        for (int i = 0; i < numberOfThreads; i++) {
-            MnistMatrix[] tempTestMatrices;
+    /** Recognizes queries in parallel blocks.
+     *
+     * @param configuration {@link Configuration} to use.
+     * @param metrics {@link RecognizerMetrics} to record blocks to, may be null.
+     * @param queries an array of {@link MnistMatrix} that need to be recognized.
+     * @param queryBlockSize {@link Recognizer#queryBlockSize description}.
+     * @param neighbors array where indices of the nearest neighbors of every query are stored, may be null.
+     * @return recognized digits, in the order of queries.
+     * */
+    private static int[] predictBatch(Configuration configuration, RecognizerMetrics metrics, MnistMatrix[] queries,
+                                      int queryBlockSize, int[][] neighbors) {
+        int[] labels = new int[queries.length];
+        int numberOfBlocks = (queries.length + queryBlockSize - 1) / queryBlockSize;
 
-            if (i == numberOfThreads-1)
-                tempTestMatrices = Arrays.copyOfRange(testMatrices, i * partLength, testMatrices.length);
-            else tempTestMatrices = Arrays.copyOfRange(testMatrices, i * partLength, (i + 1) * partLength);
+        IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+            int from = block * queryBlockSize;
+            predictBlock(configuration, metrics, queries, from, Math.min(from + queryBlockSize, queries.length), labels, neighbors);
+        });
 
-            streamingRecognitions[i] = new StreamingRecognition(new Recognizer(k, metricType, trainMatrices), tempTestMatrices);
+        return labels;
+    }
+
+    /** Recognizes one block of queries.
+     *
+     * @param configuration {@link Configuration} to use.
+     * @param metrics {@link RecognizerMetrics} to record the block to, may be null.
+     * @param queries an array of {@link MnistMatrix} that need to be recognized.
+     * @param from index of the first query of the block, inclusive.
+     * @param to index of the last query of the block, exclusive.
+     * @param labels array where recognized digits are stored.
+     * @param neighborIndices array where indices of the nearest neighbors are stored, may be null.
+     * */
+    private static void predictBlock(Configuration configuration, RecognizerMetrics metrics, MnistMatrix[] queries,
+                                     int from, int to, int[] labels, int[][] neighborIndices) {
+        NeighborHeap[] neighbors = new NeighborHeap[to - from];
+        for (int q = from; q < to; q++) neighbors[q - from] = new NeighborHeap(configuration.k);
+
+        long start = metrics != null ? System.nanoTime() : 0;
+        long distances = configuration.index.searchBatch(queries, from, to, neighbors);
+        long searched = metrics != null ? System.nanoTime() : 0;
+
+        for (NeighborHeap heap : neighbors) heap.sort();
+        long sorted = metrics != null ? System.nanoTime() : 0;
+
+        int[] neighborLabels = new int[configuration.k];
+        double[] votes = new double[configuration.trainData.getNumberOfClasses()];
+        for (int q = from; q < to; q++) labels[q] = findMajority(configuration.trainData, neighbors[q - from], neighborLabels, votes);
+
+        if (metrics != null) {
+            long voted = System.nanoTime();
+            metrics.recordBlock(to - from, voted - start, searched - start, sorted - searched, voted - sorted, distances);
         }
 
-        for (StreamingRecognition streamingRecognition : streamingRecognitions) streamingRecognition.start();
+        if (neighborIndices != null)
+            for (int q = from; q < to; q++) neighborIndices[q] = indices(neighbors[q - from]);
+    }
 
-        ErrorRateLogger errorRateLogger = new ErrorRateLogger(streamingRecognitions, testMatrices.length);
-        errorRateLogger.start();
+    /** Returns indices of sorted neighbors.
+     *
+     * @param neighbors sorted {@link NeighborHeap}.
+     * @return indices of the neighbors, from the nearest to the farthest.
+     * */
+    private static int[] indices(NeighborHeap neighbors) {
+        int[] indices = new int[neighbors.size()];
+        for (int i = 0; i < indices.length; i++) indices[i] = neighbors.getIndex(i);
+        return indices;
     }
 
+    private static int imageSize(MnistMatrix matrix) {
+        return matrix.getNumberOfRows() * matrix.getNumberOfColumns();
+    }
+
+    /** Print in console error rate.
+     * <p>
+     * This method used for detection error rate of recognition.
+     * This method runs an {@link EvaluationEngine} on its own pool of numberOfThreads workers,
+     * prints the progress to the console and, after that, the recognition result.
+     *
+     * @param testMatrices an array of {@link MnistMatrix}.
+     * @param numberOfThreads that will be used for {@link MnistMatrix} recognition.
+     * @return the future {@link EvaluationResult}, it may be used to wait for the result or to cancel the evaluation.
+     * */
+    public CompletableFuture<EvaluationResult> checkErrorRate(MnistMatrix[] testMatrices, int numberOfThreads) {
+        ForkJoinPool pool = new ForkJoinPool(numberOfThreads);
+
+        EvaluationListener logger = (recognized, total, errors) ->
+                System.out.print("Recognized: " + recognized + "/" + total + " errors: " + errors + "\r");
+
+        return new EvaluationEngine(pool).evaluate(this, testMatrices, logger).whenComplete((result, e) -> {
+            pool.shutdown();
+            if (result != null) System.out.println(System.lineSeparator() + result);
+        });
+    }
 
     /**
-     * @return {@link Recognizer#k}
+     * @return {@link Configuration#k}
      * */
     public int getK() {
-        return k;
+        return configuration.k;
     }
 
     /**
-     * @return {@link Recognizer#trainMatrices}
+     * @return {@link Configuration#trainMatrices}
      * */
     public MnistMatrix[] getTrainMatrices() {
-        return trainMatrices;
+        return configuration.trainMatrices;
     }
 
     /**
-     * @return {@link Recognizer#metricType}
+     * @return {@link Configuration#trainData}
+     * */
+    public MnistDataSet getTrainData() {
+        return configuration.trainData;
+    }
+
+    /**
+     * @return {@link Configuration#metricType}
      * */
     public MetricTypes getMetricType() {
-        return metricType;
+        return configuration.metricType;
+    }
+
+    /** set the {@link Configuration#k} property.
+     * <p>
+     * The value of {@link Configuration#k} <strong>can affect the recognition error rate</strong>.
+     * Queries that are already running finish with the previous value.
+     *
+     * @param k {@link Configuration#k description}.
+     * */
+    public synchronized void setK(int k) {
+        publish(configuration.withK(k));
+    }
+
+    /** Set the {@link Configuration#trainMatrices} property.
+     * <p>
+     * The value of {@link Configuration#trainMatrices} <strong>can affect the recognition error rate</strong>.
+     * Queries that are already running finish with the previous matrices.
+     *
+     * @param trainMatrices {@link Configuration#trainMatrices description}.
+     * */
+    public synchronized void setTrainMatrices(MnistMatrix[] trainMatrices) {
+        Configuration configuration = this.configuration;
+        publish(new Configuration(configuration.k, configuration.metricType, trainMatrices,
+                MnistDataSet.of(trainMatrices), configuration.indexFactory));
     }
 
-    /** set the {@link Recognizer#k} property.
+    /** Set the {@link Configuration#metricType} property.
      * <p>
-     * The value of {@link Recognizer#k} <strong>can affect the recognition error rate</strong>.
+     * The type of {@link Configuration#metricType} <strong>can't affect the recognition error rate</strong>.
+     * Queries that are already running finish with the previous metric.
      *
-     * @param k {@link Recognizer#k description}.
+     * @param metricType {@link Configuration#metricType description}.
      * */
-    public void setK(int k) {
-        this.k = k;
+    public synchronized void setMetricType(MetricTypes metricType) {
+        publish(configuration.withMetricType(metricType));
     }
 
-    /** Set the {@link Recognizer#trainMatrices} property.
+    /** Set the {@link Configuration#indexFactory} property.
      * <p>
-     * The value of {@link Recognizer#trainMatrices} <strong>can affect the recognition error rate</strong>.
+     * The index is rebuilt at once, approximate indexes <strong>can affect the recognition error rate</strong>.
+     * Queries that are already running finish with the previous index.
+     *
+     * @param indexFactory {@link Configuration#indexFactory description}.
+     * */
+    public synchronized void setIndexFactory(NeighborIndexFactory indexFactory) {
+        Configuration configuration = this.configuration;
+        publish(new Configuration(configuration.k, configuration.metricType, configuration.trainMatrices,
+                configuration.trainData, indexFactory));
+    }
+
+    /** Publishes a new configuration and invalidates the {@link Recognizer#cache}.
      *
-     * @param trainMatrices {@link Recognizer#trainMatrices description}.
+     * @param configuration the new {@link Configuration}.
      * */
-    public void setTrainMatrices(MnistMatrix[] trainMatrices) {
-        this.trainMatrices = trainMatrices;
+    private void publish(Configuration configuration) {
+        this.configuration = configuration;
+        RecognitionCache cache = this.cache;
+        if (cache != null) cache.invalidate();
     }
 
-    /** Set the {@link Recognizer#metricType} property.
+    /** Attaches instrumentation to the recognizer.
      * <p>
-     * The type of {@link Recognizer#metricType} <strong>can't affect the recognition error rate</strong>.
+     * Queries of {@link Recognizer#recognize(MnistMatrix)} and {@link Recognizer#recognizeBatch(MnistMatrix[])}
+     * are timed and counted while metrics are attached, without metrics they are not timed at all.
      *
-     * @param metricType {@link Recognizer#metricType description}.
+     * @param metrics {@link RecognizerMetrics}, or null to detach.
      * */
-    public void setMetricType(MetricTypes metricType) {
-        this.metricType = metricType;
+    public void setMetrics(RecognizerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return attached {@link RecognizerMetrics}, or null.
+     * */
+    public RecognizerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Attaches a result cache to the recognizer.
+     * <p>
+     * Exact duplicates of recognized images are answered from the cache by {@link Recognizer#recognize(MnistMatrix)},
+     * {@link Recognizer#findNeighbors(MnistMatrix)} and {@link Recognizer#recognizeBatch(MnistMatrix[])}.
+     * The cache is cleared when attached and whenever a setter changes the configuration,
+     * so a cache must not be shared by several recognizers.
+     *
+     * @param cache {@link RecognitionCache}, or null to detach.
+     * */
+    public synchronized void setCache(RecognitionCache cache) {
+        if (cache != null) cache.invalidate();
+        this.cache = cache;
+    }
+
+    /**
+     * @return attached {@link RecognitionCache}, or null.
+     * */
+    public RecognitionCache getCache() {
+        return cache;
+    }
+
+    /** Set the {@link Recognizer#queryBlockSize} property.
+     * <p>
+     * The value <strong>can't affect the recognition error rate</strong>, only the speed of
+     * {@link Recognizer#recognizeBatch(MnistMatrix[])}, see {@link AutoTuner}.
+     *
+     * @param queryBlockSize {@link Recognizer#queryBlockSize description}.
+     * */
+    public void setQueryBlockSize(int queryBlockSize) {
+        if (queryBlockSize < 1) throw new IllegalArgumentException("Query block size must be positive, but got " + queryBlockSize);
+        this.queryBlockSize = queryBlockSize;
+    }
+
+    /**
+     * @return {@link Recognizer#queryBlockSize}.
+     * */
+    public int getQueryBlockSize() {
+        return queryBlockSize;
+    }
+
+    /** Recognizes batches on an own pool of the given number of threads instead of the common pool.
+     * <p>
+     * The value <strong>can't affect the recognition error rate</strong>, only the speed of
+     * {@link Recognizer#recognizeBatch(MnistMatrix[])}, see {@link AutoTuner}. The previous own pool is shut down
+     * after its running batches complete.
+     *
+     * @param numberOfThreads parallelism of the pool.
+     * */
+    public synchronized void setParallelism(int numberOfThreads) {
+        if (numberOfThreads < 1) throw new IllegalArgumentException("Number of threads must be positive, but got " + numberOfThreads);
+        ForkJoinPool previous = pool;
+        pool = new ForkJoinPool(numberOfThreads);
+        if (previous != null) previous.shutdown();
+    }
+
+    /**
+     * @return number of threads that recognize batches, the parallelism of the common pool if no own pool is set.
+     * */
+    public int getParallelism() {
+        ForkJoinPool pool = this.pool;
+        return pool != null ? pool.getParallelism() : ForkJoinPool.getCommonPoolParallelism();
+    }
+
+    /**
+     * @return {@link Configuration#indexFactory}
+     * */
+    public NeighborIndexFactory getIndexFactory() {
+        return configuration.indexFactory;
+    }
+
+    /**
+     * @return {@link Configuration#index}
+     * */
+    public NeighborIndex getIndex() {
+        return configuration.index;
+    }
+
+    /** Immutable configuration of the recognizer.
+     * */
+    private static final class Configuration {
+        /** The number of neighbors.
+         * <p>
+         * Also known as the coefficient k.
+         *
+         * @see <a href="https://www.ibm.com/topics/knn">What is the k-nearest neighbors algorithm?</a>
+         */
+        private final int k;
+        /** The type of metric to use.
+         * <p>
+         * The selected metric will be responsible for the discrepancy in the color of the pixels in the image.
+         * <br>
+         * Metric types: {@link MetricTypes}.
+         * */
+        private final MetricTypes metricType;
+        /** Array of mnist images in grayscale value set format.
+         * <p>
+         * The MnistMatrix is used to conveniently store images in this format.
+         * <br>
+         * MnistMatrix: {@link MnistMatrix}.
+         * */
+        private final MnistMatrix[] trainMatrices;
+        /** Packed pixels and labels of {@link Configuration#trainMatrices}.
+         * <p>
+         * Distances are computed by scanning this block sequentially.
+         * <br>
+         * MnistDataSet: {@link MnistDataSet}.
+         * */
+        private final MnistDataSet trainData;
+        /** The factory of {@link Configuration#index}.
+         * <p>
+         * Default is {@link LinearScanIndex#factory()}, the exact brute force search.
+         * */
+        private final NeighborIndexFactory indexFactory;
+        /** The index that finds nearest neighbors.
+         * <p>
+         * Built by {@link Configuration#indexFactory} over {@link Configuration#trainData}.
+         * */
+        private final NeighborIndex index;
+
+        private Configuration(int k, MetricTypes metricType, MnistMatrix[] trainMatrices, MnistDataSet trainData,
+                              NeighborIndexFactory indexFactory) {
+            this.k = k;
+            this.metricType = metricType;
+            this.trainMatrices = trainMatrices;
+            this.trainData = trainData;
+            this.indexFactory = indexFactory;
+            this.index = indexFactory.build(trainData, metricType);
+        }
+
+        private Configuration(Configuration configuration, int k) {
+            this.k = k;
+            this.metricType = configuration.metricType;
+            this.trainMatrices = configuration.trainMatrices;
+            this.trainData = configuration.trainData;
+            this.indexFactory = configuration.indexFactory;
+            this.index = configuration.index;
+        }
+
+        private Configuration withK(int k) {
+            return new Configuration(this, k);
+        }
+
+        private Configuration withMetricType(MetricTypes metricType) {
+            return new Configuration(k, metricType, trainMatrices, trainData, indexFactory);
+        }
+    }
+
+    /** Scratch buffers of one thread.
+     * */
+    private static final class Scratch {
+
+        private final NeighborHeap neighbors = new NeighborHeap(0);
+
+        private double[] votes = new double[10];
+
+        private int[] labels = new int[0];
+
+        NeighborHeap neighbors(int k) {
+            neighbors.reset(k);
+            return neighbors;
+        }
+
+        double[] votes(int numberOfClasses) {
+            if (votes.length != numberOfClasses) votes = new double[numberOfClasses];
+            return votes;
+        }
+
+        int[] labels(int k) {
+            if (labels.length < k) labels = new int[k];
+            return labels;
+        }
     }
 }
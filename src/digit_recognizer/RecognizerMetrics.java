@@ -0,0 +1,354 @@
+package digit_recognizer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Instrumentation of the recognition hot path.</h1>
+ * <p>
+ * Once attached with {@link Recognizer#setMetrics(RecognizerMetrics)}, the recognizer times every query with
+ * {@link System#nanoTime()} and records the whole latency and the latency of every stage: the neighbor search
+ * (the distance scan of the {@link NeighborIndex}), the selection (sorting of the kept neighbors) and the vote.
+ * It also counts queries and the full distances reported by {@link NeighborIndex#search}.
+ * {@link EvaluationEngine} adds per-label error counts when it evaluates an instrumented recognizer.
+ * <br>
+ * All counters are striped ({@link LongAdder} and {@link LatencyHistogram}), so instrumented threads don't contend.
+ * Metrics are exposed as a JMX MBean by {@link RecognizerMetrics#register(String)} and pushed to
+ * a {@link MetricsReporter} by {@link RecognizerMetrics#startReporting}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class RecognizerMetrics implements RecognizerMetricsMBean {
+
+    /** Domain of the registered MBeans.
+     * */
+    public static final String JMX_DOMAIN = "digit_recognizer";
+
+    /** Latency of whole queries.
+     * */
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /** Latency of the neighbor search stage.
+     * */
+    private final LatencyHistogram searchLatency = new LatencyHistogram();
+
+    /** Latency of the neighbor sorting stage.
+     * */
+    private final LatencyHistogram selectionLatency = new LatencyHistogram();
+
+    /** Latency of the voting stage.
+     * */
+    private final LatencyHistogram voteLatency = new LatencyHistogram();
+
+    /** Number of recognized queries.
+     * */
+    private final LongAdder queries = new LongAdder();
+
+    /** Number of full distances computed by all searches.
+     * */
+    private final LongAdder distances = new LongAdder();
+
+    /** Number of evaluated queries per actual label.
+     * */
+    private final LongAdder[] evaluatedCounts;
+
+    /** Number of wrongly recognized queries per actual label.
+     * */
+    private final LongAdder[] errorCounts;
+
+    /** Number of reports that failed, see {@link RecognizerMetrics#startReporting}.
+     * */
+    private final LongAdder reportFailures = new LongAdder();
+
+    /** The last exception thrown by a {@link MetricsReporter}, null if no report failed.
+     * */
+    private volatile RuntimeException lastReportFailure;
+
+    /** Value of {@link System#nanoTime()} at the creation or the last reset.
+     * */
+    private volatile long startNanos = System.nanoTime();
+
+    /** Constructor for the {@link RecognizerMetrics} class for the ten MNIST digits.
+     * */
+    public RecognizerMetrics() {
+        this(10);
+    }
+
+    /** Constructor for the {@link RecognizerMetrics} class.
+     *
+     * @param numberOfClasses number of labels whose errors are counted.
+     * */
+    public RecognizerMetrics(int numberOfClasses) {
+        this.evaluatedCounts = new LongAdder[numberOfClasses];
+        this.errorCounts = new LongAdder[numberOfClasses];
+        for (int label = 0; label < numberOfClasses; label++) {
+            evaluatedCounts[label] = new LongAdder();
+            errorCounts[label] = new LongAdder();
+        }
+    }
+
+    /** Records one query.
+     *
+     * @param totalNanos latency of the whole query.
+     * @param searchNanos latency of the neighbor search.
+     * @param selectionNanos latency of the neighbor sorting.
+     * @param voteNanos latency of the vote.
+     * @param computedDistances number of full distances computed by the search.
+     * */
+    void recordQuery(long totalNanos, long searchNanos, long selectionNanos, long voteNanos, long computedDistances) {
+        latency.record(totalNanos);
+        searchLatency.record(searchNanos);
+        selectionLatency.record(selectionNanos);
+        voteLatency.record(voteNanos);
+        queries.increment();
+        distances.add(computedDistances);
+    }
+
+    /** Records a query answered by a {@link RecognitionCache}.
+     * <p>
+     * Only the whole latency is recorded, stage latencies describe searched queries.
+     *
+     * @param totalNanos latency of the whole query.
+     * */
+    void recordCacheHit(long totalNanos) {
+        latency.record(totalNanos);
+        queries.increment();
+    }
+
+    /** Records a block of queries recognized together.
+     * <p>
+     * Stages of a block are timed once, so every query of the block is recorded with an equal share of the block time.
+     *
+     * @param blockSize number of queries of the block.
+     * @param totalNanos latency of the whole block.
+     * @param searchNanos latency of the batch search.
+     * @param selectionNanos latency of sorting all neighbors of the block.
+     * @param voteNanos latency of all votes of the block.
+     * @param computedDistances number of full distances computed by the batch search.
+     * */
+    void recordBlock(int blockSize, long totalNanos, long searchNanos, long selectionNanos, long voteNanos, long computedDistances) {
+        if (blockSize <= 0) return;
+
+        latency.record(totalNanos / blockSize, blockSize);
+        searchLatency.record(searchNanos / blockSize, blockSize);
+        selectionLatency.record(selectionNanos / blockSize, blockSize);
+        voteLatency.record(voteNanos / blockSize, blockSize);
+        queries.add(blockSize);
+        distances.add(computedDistances);
+    }
+
+    /** Records the outcome of a query with a known label.
+     *
+     * @param actualLabel the true label.
+     * @param recognizedLabel the recognized label.
+     * */
+    public void recordResult(int actualLabel, int recognizedLabel) {
+        if (actualLabel < 0 || actualLabel >= evaluatedCounts.length) return;
+
+        evaluatedCounts[actualLabel].increment();
+        if (actualLabel != recognizedLabel) errorCounts[actualLabel].increment();
+    }
+
+    /** Returns an immutable snapshot of all metrics.
+     *
+     * @return {@link MetricsSnapshot}.
+     * */
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(System.nanoTime(), queries.sum(), getQueriesPerSecond(), distances.sum(),
+                MetricsSnapshot.Latency.of(latency), MetricsSnapshot.Latency.of(searchLatency),
+                MetricsSnapshot.Latency.of(selectionLatency), MetricsSnapshot.Latency.of(voteLatency),
+                getEvaluatedCounts(), getErrorCounts());
+    }
+
+    /** Starts reporting snapshots periodically on a background daemon thread.
+     * <p>
+     * A report that throws doesn't cancel the schedule, the exception is counted by
+     * {@link RecognizerMetrics#getReportFailures()} and kept by {@link RecognizerMetrics#getLastReportFailure()}.
+     *
+     * @param reporter {@link MetricsReporter}.
+     * @param period time between two reports.
+     * @param unit {@link TimeUnit} of the period.
+     * @return handle that stops reporting when closed.
+     * */
+    public Closeable startReporting(MetricsReporter reporter, long period, TimeUnit unit) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "recognizer-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        MetricsSnapshot[] previous = new MetricsSnapshot[1];
+        executor.scheduleAtFixedRate(() -> {
+            MetricsSnapshot snapshot = snapshot();
+            try {
+                reporter.report(snapshot, previous[0]);
+            } catch (RuntimeException e) {
+                // a failing reporter must not cancel the schedule
+                lastReportFailure = e;
+                reportFailures.increment();
+            }
+            previous[0] = snapshot;
+        }, period, period, unit);
+
+        return executor::shutdownNow;
+    }
+
+    /** Registers this instance in the platform MBean server.
+     *
+     * @param name value of the {@code name} key of the object name, such as the name of the recognizer.
+     * @return the {@link ObjectName} of the MBean.
+     * @throws JMException if the name is invalid or already registered.
+     * */
+    public ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=RecognizerMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+
+    /** Unregisters an MBean registered by {@link RecognizerMetrics#register(String)}.
+     *
+     * @param objectName the {@link ObjectName} of the MBean.
+     * @throws JMException if the MBean is not registered.
+     * */
+    public static void unregister(ObjectName objectName) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        server.unregisterMBean(objectName);
+    }
+
+    /**
+     * @return {@link RecognizerMetrics#latency}.
+     * */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return {@link RecognizerMetrics#searchLatency}.
+     * */
+    public LatencyHistogram getSearchLatency() {
+        return searchLatency;
+    }
+
+    /**
+     * @return {@link RecognizerMetrics#selectionLatency}.
+     * */
+    public LatencyHistogram getSelectionLatency() {
+        return selectionLatency;
+    }
+
+    /**
+     * @return {@link RecognizerMetrics#voteLatency}.
+     * */
+    public LatencyHistogram getVoteLatency() {
+        return voteLatency;
+    }
+
+    /**
+     * @return {@link RecognizerMetrics#lastReportFailure}.
+     * */
+    public RuntimeException getLastReportFailure() {
+        return lastReportFailure;
+    }
+
+    @Override
+    public long getReportFailures() {
+        return reportFailures.sum();
+    }
+
+    @Override
+    public long getQueries() {
+        return queries.sum();
+    }
+
+    @Override
+    public double getQueriesPerSecond() {
+        long nanos = System.nanoTime() - startNanos;
+        return nanos <= 0 ? 0 : queries.sum() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    @Override
+    public long getDistancesComputed() {
+        return distances.sum();
+    }
+
+    @Override
+    public double getAverageDistancesPerQuery() {
+        long count = queries.sum();
+        return count == 0 ? 0 : (double) distances.sum() / count;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency.getPercentile(0.5) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency.getPercentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return latency.getPercentile(0.999) / 1e3;
+    }
+
+    @Override
+    public double getSearchLatencyP99Micros() {
+        return searchLatency.getPercentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getSelectionLatencyP99Micros() {
+        return selectionLatency.getPercentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getVoteLatencyP99Micros() {
+        return voteLatency.getPercentile(0.99) / 1e3;
+    }
+
+    @Override
+    public long[] getEvaluatedCounts() {
+        long[] counts = new long[evaluatedCounts.length];
+        for (int label = 0; label < counts.length; label++) counts[label] = evaluatedCounts[label].sum();
+        return counts;
+    }
+
+    @Override
+    public long[] getErrorCounts() {
+        long[] counts = new long[errorCounts.length];
+        for (int label = 0; label < counts.length; label++) counts[label] = errorCounts[label].sum();
+        return counts;
+    }
+
+    @Override
+    public long getErrors() {
+        long errors = 0;
+        for (LongAdder counter : errorCounts) errors += counter.sum();
+        return errors;
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        searchLatency.reset();
+        selectionLatency.reset();
+        voteLatency.reset();
+        queries.reset();
+        distances.reset();
+        for (LongAdder counter : evaluatedCounts) counter.reset();
+        for (LongAdder counter : errorCounts) counter.reset();
+        reportFailures.reset();
+        lastReportFailure = null;
+        startNanos = System.nanoTime();
+    }
+}
@@ -0,0 +1,88 @@
+package digit_recognizer;
+
+/**
+ * <h1>JMX interface of {@link RecognizerMetrics}.</h1>
+ * <p>
+ * Latencies are exposed in microseconds, percentiles are upper bounds of histogram buckets.
+ * Register an instance with {@link RecognizerMetrics#register(String)}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public interface RecognizerMetricsMBean {
+
+    /**
+     * @return number of recognized queries.
+     * */
+    long getQueries();
+
+    /**
+     * @return mean number of queries per second since the creation or the last reset.
+     * */
+    double getQueriesPerSecond();
+
+    /**
+     * @return number of full distances computed by all searches.
+     * */
+    long getDistancesComputed();
+
+    /**
+     * @return mean number of full distances per query.
+     * */
+    double getAverageDistancesPerQuery();
+
+    /**
+     * @return median latency of a query in microseconds.
+     * */
+    double getLatencyP50Micros();
+
+    /**
+     * @return 99th percentile of the latency of a query in microseconds.
+     * */
+    double getLatencyP99Micros();
+
+    /**
+     * @return 99.9th percentile of the latency of a query in microseconds.
+     * */
+    double getLatencyP999Micros();
+
+    /**
+     * @return 99th percentile of the neighbor search stage in microseconds.
+     * */
+    double getSearchLatencyP99Micros();
+
+    /**
+     * @return 99th percentile of the neighbor sorting stage in microseconds.
+     * */
+    double getSelectionLatencyP99Micros();
+
+    /**
+     * @return 99th percentile of the voting stage in microseconds.
+     * */
+    double getVoteLatencyP99Micros();
+
+    /**
+     * @return number of evaluated queries per actual label.
+     * */
+    long[] getEvaluatedCounts();
+
+    /**
+     * @return number of wrongly recognized queries per actual label.
+     * */
+    long[] getErrorCounts();
+
+    /**
+     * @return total number of wrongly recognized queries.
+     * */
+    long getErrors();
+
+    /**
+     * @return number of periodic reports that failed.
+     * */
+    long getReportFailures();
+
+    /** Removes all recorded values.
+     * */
+    void reset();
+}
@@ -0,0 +1,554 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * <h1>Versioned binary snapshot of a recognizer.</h1>
+ * <p>
+ * A snapshot stores everything {@link Recognizer} derives from the IDX files: packed training pixels and labels,
+ * squared norms of the training images, and the built {@link NeighborIndex}, so a process can start serving
+ * without parsing the IDX files or rebuilding the index.
+ * <br>
+ * The file is big-endian, like the IDX format. It starts with a header:
+ * <pre>
+ * int magic number (0x4D4E5353), int version, int k, int metric type, int rows, int columns, int images,
+ * int number of sections, int CRC32 of the header
+ * </pre>
+ * and is followed by sections, each of them {@code int tag, int length, int CRC32, byte[length] payload}:
+ * pixels, labels, norms and the index. The index section starts with the index type and stores the arrays
+ * of the index, see {@link IndexTypes}. Indexes the {@link AutoTuner} chooses from also store the name of their
+ * {@link DistanceKernel}, and {@link LinearScanIndex} its train block size, so a tuned recognizer is restored as tuned.
+ * Version 1 snapshots, which don't store them, are still read with the defaults.
+ * <br>
+ * Snapshots are written to a temporary file which is moved into place, and read back through a memory-mapped channel.
+ * Every checksum is verified while reading, a mismatch or a truncated file fails with an {@link IOException}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class RecognizerSnapshot {
+
+    /** Magic number of the snapshot files, "MNSS" in ASCII.
+     * */
+    public static final int MAGIC_NUMBER = 0x4D4E5353;
+
+    /** Current version of the format.
+     * */
+    public static final int VERSION = 2;
+
+    /** Oldest version of the format that can be read.
+     * */
+    private static final int OLDEST_VERSION = 1;
+
+    /** Tag of the section with packed training pixels.
+     * */
+    private static final int PIXELS_SECTION = 1;
+
+    /** Tag of the section with training labels.
+     * */
+    private static final int LABELS_SECTION = 2;
+
+    /** Tag of the section with squared norms of the training images.
+     * */
+    private static final int NORMS_SECTION = 3;
+
+    /** Tag of the section with the index.
+     * */
+    private static final int INDEX_SECTION = 4;
+
+    /** Number of sections of the current version.
+     * */
+    private static final int NUMBER_OF_SECTIONS = 4;
+
+    /** Number of header bytes covered by the header checksum.
+     * */
+    private static final int HEADER_SIZE = 8 * Integer.BYTES;
+
+    /** Types of indexes a snapshot can store.
+     * */
+    enum IndexTypes {
+        LINEAR_SCAN,
+        PCA,
+        VANTAGE_POINT_TREE,
+        HNSW,
+        FINGERPRINT,
+        CASCADE,
+        INVERTED_FILE
+    }
+
+    private RecognizerSnapshot() {
+    }
+
+    /** Writes a snapshot of the recognizer.
+     * <p>
+     * The configuration is read under the recognizer's lock, so a concurrent setter can't mix two configurations.
+     *
+     * @param recognizer {@link Recognizer}.
+     * @param path the snapshot file, replaced atomically if it exists.
+     * @throws IOException if the file can't be written.
+     * @throws IllegalArgumentException if the index of the recognizer can't be stored.
+     * */
+    public static void write(Recognizer recognizer, Path path) throws IOException {
+        int k;
+        MetricTypes metricType;
+        MnistDataSet trainData;
+        NeighborIndex index;
+
+        synchronized (recognizer) {
+            k = recognizer.getK();
+            metricType = recognizer.getMetricType();
+            trainData = recognizer.getTrainData();
+            index = recognizer.getIndex();
+        }
+
+        byte[] indexSection = encodeIndex(index);
+        int[] norms = index instanceof LinearScanIndex && ((LinearScanIndex) index).getTrainNorms() != null
+                ? ((LinearScanIndex) index).getTrainNorms()
+                : LinearScanIndex.squaredNorms(trainData, DistanceKernels.getDefault());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC_NUMBER).putInt(VERSION).putInt(k).putInt(metricType.ordinal())
+                .putInt(trainData.getNumberOfRows()).putInt(trainData.getNumberOfColumns()).putInt(trainData.size())
+                .putInt(NUMBER_OF_SECTIONS);
+
+        Path directory = path.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                out.write(header.array());
+                out.writeInt(checksum(header.array()));
+                writeSection(out, PIXELS_SECTION, trainData.getPixels());
+                writeSection(out, LABELS_SECTION, trainData.getLabels());
+                writeSection(out, NORMS_SECTION, toBytes(norms));
+                writeSection(out, INDEX_SECTION, indexSection);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Reads a snapshot and returns a recognizer that uses the stored index.
+     * <p>
+     * The file is memory-mapped, checksums are verified and arrays are bulk-copied out of the mapping.
+     * If the recognizer is later reconfigured with another metric type or training data,
+     * a new index of the same type and parameters is built as usual.
+     *
+     * @param path the snapshot file.
+     * @return {@link Recognizer}.
+     * @throws IOException if the file can't be read, is not a snapshot, or is corrupted.
+     * */
+    public static Recognizer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) throw new IOException("Snapshot " + path + " is too large: " + fileSize + " bytes");
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            try {
+                return read(buffer, path);
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+                throw new IOException("Snapshot " + path + " is truncated", e);
+            }
+        }
+    }
+
+    private static Recognizer read(ByteBuffer buffer, Path path) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE + Integer.BYTES) throw new IOException("Snapshot " + path + " is truncated");
+
+        ByteBuffer header = buffer.slice().limit(HEADER_SIZE);
+        int magicNumber = buffer.getInt();
+        if (magicNumber != MAGIC_NUMBER)
+            throw new IOException("Invalid magic number of snapshot " + path + ": expected " + MAGIC_NUMBER + " but got " + magicNumber);
+
+        int version = buffer.getInt();
+        if (version < OLDEST_VERSION || version > VERSION)
+            throw new IOException("Unsupported version of snapshot " + path + ": expected " + OLDEST_VERSION + " to " + VERSION
+                    + " but got " + version);
+
+        int k = buffer.getInt();
+        int metricOrdinal = buffer.getInt();
+        int nRows = buffer.getInt();
+        int nCols = buffer.getInt();
+        int size = buffer.getInt();
+        int numberOfSections = buffer.getInt();
+        verify(header, buffer.getInt(), "header", path);
+
+        if (metricOrdinal < 0 || metricOrdinal >= MetricTypes.values().length)
+            throw new IOException("Unknown metric type " + metricOrdinal + " in snapshot " + path);
+        MetricTypes metricType = MetricTypes.values()[metricOrdinal];
+
+        byte[] pixels = null;
+        byte[] labels = null;
+        int[] norms = null;
+        ByteBuffer indexSection = null;
+
+        for (int section = 0; section < numberOfSections; section++) {
+            int tag = buffer.getInt();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) throw new IOException("Snapshot " + path + " is truncated");
+
+            ByteBuffer payload = buffer.slice().limit(length);
+            buffer.position(buffer.position() + length);
+            verify(payload.duplicate(), checksum, "section " + tag, path);
+
+            switch (tag) {
+                case PIXELS_SECTION:
+                    pixels = new byte[length];
+                    payload.get(pixels);
+                    break;
+                case LABELS_SECTION:
+                    labels = new byte[length];
+                    payload.get(labels);
+                    break;
+                case NORMS_SECTION:
+                    norms = new int[length / Integer.BYTES];
+                    payload.asIntBuffer().get(norms);
+                    break;
+                case INDEX_SECTION:
+                    indexSection = payload;
+                    break;
+                default:
+                    // sections of newer minor revisions are skipped
+                    break;
+            }
+        }
+
+        if (pixels == null || labels == null || norms == null || indexSection == null)
+            throw new IOException("Snapshot " + path + " misses a section");
+        if (labels.length != size)
+            throw new IOException("Snapshot " + path + " declares " + size + " images, but stores " + labels.length + " labels");
+        if (norms.length != size)
+            throw new IOException("Snapshot " + path + " declares " + size + " images, but stores " + norms.length + " norms");
+
+        MnistDataSet trainData;
+        try {
+            trainData = new MnistDataSet(pixels, labels, nRows, nCols);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid pixels section in snapshot " + path, e);
+        }
+
+        NeighborIndex index = decodeIndex(indexSection, version, trainData, metricType, norms, path);
+        NeighborIndexFactory fallback = factoryOf(index);
+        return new Recognizer(k, metricType, trainData, (data, metric) ->
+                data == trainData && metric == metricType ? index : fallback.build(data, metric));
+    }
+
+    /** Encodes the index section.
+     *
+     * @param index {@link NeighborIndex}.
+     * @return payload of the section.
+     * @throws IllegalArgumentException if the index type is not supported.
+     * */
+    private static byte[] encodeIndex(NeighborIndex index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        if (index instanceof LinearScanIndex) {
+            LinearScanIndex linearScanIndex = (LinearScanIndex) index;
+            out.writeInt(IndexTypes.LINEAR_SCAN.ordinal());
+            writeName(out, linearScanIndex.getKernel().getName());
+            out.writeInt(linearScanIndex.getTrainBlockBytes());
+        } else if (index instanceof PcaIndex) {
+            PcaIndex pcaIndex = (PcaIndex) index;
+            PcaProjection projection = pcaIndex.getProjection();
+            out.writeInt(IndexTypes.PCA.ordinal());
+            out.writeInt(projection.getImageSize());
+            out.writeInt(projection.getDimensions());
+            out.writeDouble(projection.getExplainedVariance());
+            writeFloats(out, projection.getComponents());
+            writeFloats(out, projection.getBias());
+            writeFloats(out, pcaIndex.getProjected());
+        } else if (index instanceof VantagePointTreeIndex) {
+            VantagePointTreeIndex treeIndex = (VantagePointTreeIndex) index;
+            VantagePointTreeIndex.Tree tree = treeIndex.getTree();
+            out.writeInt(IndexTypes.VANTAGE_POINT_TREE.ordinal());
+            writeName(out, treeIndex.getKernel().getName());
+            out.writeInt(treeIndex.getLeafSize());
+            out.writeInt(tree.numberOfNodes);
+            out.writeInt(tree.root);
+            writeInts(out, tree.items);
+            writeInts(out, tree.vantagePoints);
+            writeDoubles(out, tree.radii);
+            writeInts(out, tree.insideChildren);
+            writeInts(out, tree.outsideChildren);
+            writeInts(out, tree.leafFrom);
+            writeInts(out, tree.leafTo);
+        } else if (index instanceof HnswIndex) {
+            HnswIndex hnswIndex = (HnswIndex) index;
+            HnswIndex.Graph graph = hnswIndex.getGraph();
+            out.writeInt(IndexTypes.HNSW.ordinal());
+            out.writeInt(graph.m);
+            out.writeInt(hnswIndex.getEfConstruction());
+            out.writeInt(hnswIndex.getEfSearch());
+            out.writeInt(graph.entryPoint);
+            out.writeInt(graph.maxLevel);
+            writeInts(out, graph.levels);
+            writeInts(out, graph.bottomLinks);
+            for (int node = 0; node < graph.levels.length; node++)
+                for (int layer = 1; layer <= graph.levels[node]; layer++)
+                    writeInts(out, graph.upperLinks[node][layer - 1]);
+        } else if (index instanceof FingerprintIndex) {
+            FingerprintIndex fingerprintIndex = (FingerprintIndex) index;
+            out.writeInt(IndexTypes.FINGERPRINT.ordinal());
+            out.writeInt(fingerprintIndex.getShortlistSize());
+            out.writeInt(fingerprintIndex.getThreshold());
+            writeLongs(out, fingerprintIndex.getFingerprints());
+        } else if (index instanceof CascadeIndex) {
+            CascadeIndex cascadeIndex = (CascadeIndex) index;
+            int[][] pools = cascadeIndex.getPools();
+            out.writeInt(IndexTypes.CASCADE.ordinal());
+            writeName(out, cascadeIndex.getKernel().getName());
+            writeInts(out, cascadeIndex.getCellSizes());
+            for (int[] pool : pools) writeInts(out, pool);
+        } else if (index instanceof InvertedFileIndex) {
+            InvertedFileIndex invertedFileIndex = (InvertedFileIndex) index;
+            InvertedFileIndex.Cells cells = invertedFileIndex.getCells();
+            out.writeInt(IndexTypes.INVERTED_FILE.ordinal());
+            out.writeInt(invertedFileIndex.getNprobe());
+            out.writeInt(cells.centroids.length);
+            out.write(cells.centroids);
+            writeInts(out, cells.starts);
+            writeInts(out, cells.ids);
+        } else {
+            throw new IllegalArgumentException("Index " + index.getClass().getName() + " can't be stored in a snapshot");
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    /** Decodes the index section.
+     *
+     * @param in payload of the section.
+     * @param version version of the snapshot.
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param norms squared norms of the training images.
+     * @param path the snapshot file, used in error messages.
+     * @return {@link NeighborIndex}.
+     * @throws IOException if the index type is unknown.
+     * */
+    private static NeighborIndex decodeIndex(ByteBuffer in, int version, MnistDataSet trainData, MetricTypes metricType,
+                                             int[] norms, Path path) throws IOException {
+        int type = in.getInt();
+        if (type < 0 || type >= IndexTypes.values().length) throw new IOException("Unknown index type " + type + " in snapshot " + path);
+
+        DistanceKernel kernel = DistanceKernels.getDefault();
+        try {
+            switch (IndexTypes.values()[type]) {
+                case LINEAR_SCAN: {
+                    int trainBlockBytes = LinearScanIndex.DEFAULT_TRAIN_BLOCK_BYTES;
+                    if (version > 1) {
+                        kernel = DistanceKernels.select(readName(in));
+                        trainBlockBytes = in.getInt();
+                    }
+                    return new LinearScanIndex(trainData, metricType, kernel, metricType == MetricTypes.EUCLIDEAN ? norms : null,
+                            trainBlockBytes);
+                }
+                case PCA: {
+                    int imageSize = in.getInt();
+                    int dimensions = in.getInt();
+                    double explainedVariance = in.getDouble();
+                    float[] components = readFloats(in);
+                    float[] bias = readFloats(in);
+                    PcaProjection projection = new PcaProjection(imageSize, dimensions, components, bias, explainedVariance);
+                    return new PcaIndex(projection, metricType, readFloats(in));
+                }
+                case VANTAGE_POINT_TREE: {
+                    if (version > 1) kernel = DistanceKernels.select(readName(in));
+                    int leafSize = in.getInt();
+                    int numberOfNodes = in.getInt();
+                    int root = in.getInt();
+                    VantagePointTreeIndex.Tree tree = new VantagePointTreeIndex.Tree(readInts(in), readInts(in), readDoubles(in),
+                            readInts(in), readInts(in), readInts(in), readInts(in), numberOfNodes, root);
+                    return new VantagePointTreeIndex(trainData, metricType, kernel, leafSize, tree);
+                }
+                case HNSW: {
+                    int m = in.getInt();
+                    int efConstruction = in.getInt();
+                    int efSearch = in.getInt();
+                    int entryPoint = in.getInt();
+                    int maxLevel = in.getInt();
+                    int[] levels = readInts(in);
+                    int[] bottomLinks = readInts(in);
+                    int[][][] upperLinks = new int[levels.length][][];
+                    for (int node = 0; node < levels.length; node++) {
+                        if (levels[node] == 0) continue;
+                        upperLinks[node] = new int[levels[node]][];
+                        for (int layer = 1; layer <= levels[node]; layer++) upperLinks[node][layer - 1] = readInts(in);
+                    }
+                    HnswIndex.Graph graph = new HnswIndex.Graph(m, levels, bottomLinks, upperLinks, entryPoint, maxLevel);
+                    return new HnswIndex(trainData, metricType, kernel, efConstruction, efSearch, graph);
+                }
+                case FINGERPRINT: {
+                    int shortlistSize = in.getInt();
+                    int threshold = in.getInt();
+                    return new FingerprintIndex(trainData, metricType, kernel, shortlistSize, threshold, readLongs(in));
+                }
+                case CASCADE: {
+                    if (version > 1) kernel = DistanceKernels.select(readName(in));
+                    int[] cellSizes = readInts(in);
+                    int[][] pools = new int[cellSizes.length][];
+                    for (int level = 0; level < cellSizes.length; level++) pools[level] = readInts(in);
+                    return new CascadeIndex(trainData, metricType, kernel, cellSizes, pools);
+                }
+                case INVERTED_FILE: {
+                    int nprobe = in.getInt();
+                    byte[] centroids = new byte[in.getInt()];
+                    in.get(centroids);
+                    InvertedFileIndex.Cells cells = new InvertedFileIndex.Cells(centroids, readInts(in), readInts(in), trainData);
+                    return new InvertedFileIndex(trainData, metricType, kernel, nprobe, cells);
+                }
+                default:
+                    throw new IOException("Unknown index type " + type + " in snapshot " + path);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid index section in snapshot " + path, e);
+        }
+    }
+
+    /** Returns the factory that builds a new index of the same type and parameters.
+     *
+     * @param index {@link NeighborIndex} read from a snapshot.
+     * @return {@link NeighborIndexFactory}.
+     * */
+    private static NeighborIndexFactory factoryOf(NeighborIndex index) {
+        if (index instanceof LinearScanIndex) {
+            LinearScanIndex linearScanIndex = (LinearScanIndex) index;
+            return LinearScanIndex.factory(linearScanIndex.getKernel(), linearScanIndex.getTrainBlockBytes());
+        }
+        if (index instanceof PcaIndex) return PcaIndex.factory(((PcaIndex) index).getProjection());
+        if (index instanceof VantagePointTreeIndex) {
+            VantagePointTreeIndex treeIndex = (VantagePointTreeIndex) index;
+            DistanceKernel kernel = treeIndex.getKernel();
+            int leafSize = treeIndex.getLeafSize();
+            return (trainData, metricType) -> new VantagePointTreeIndex(trainData, metricType, kernel, leafSize);
+        }
+        if (index instanceof HnswIndex) {
+            HnswIndex hnswIndex = (HnswIndex) index;
+            return HnswIndex.factory(hnswIndex.getM(), hnswIndex.getEfConstruction(), hnswIndex.getEfSearch());
+        }
+        if (index instanceof FingerprintIndex) {
+            FingerprintIndex fingerprintIndex = (FingerprintIndex) index;
+            return FingerprintIndex.factory(fingerprintIndex.getShortlistSize(), fingerprintIndex.getThreshold());
+        }
+        if (index instanceof CascadeIndex) {
+            CascadeIndex cascadeIndex = (CascadeIndex) index;
+            DistanceKernel kernel = cascadeIndex.getKernel();
+            int[] cellSizes = cascadeIndex.getCellSizes();
+            return (trainData, metricType) -> new CascadeIndex(trainData, metricType, kernel, cellSizes);
+        }
+        if (index instanceof InvertedFileIndex) {
+            InvertedFileIndex invertedFileIndex = (InvertedFileIndex) index;
+            return InvertedFileIndex.factory(invertedFileIndex.getNumberOfCells(), invertedFileIndex.getNprobe());
+        }
+        return LinearScanIndex.factory();
+    }
+
+    private static void writeSection(DataOutputStream out, int tag, byte[] payload) throws IOException {
+        out.writeInt(tag);
+        out.writeInt(payload.length);
+        out.writeInt(checksum(payload));
+        out.write(payload);
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private static void verify(ByteBuffer bytes, int expected, String name, Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != expected) throw new IOException("Checksum mismatch of the " + name + " of snapshot " + path);
+    }
+
+    private static byte[] toBytes(int[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * Integer.BYTES);
+        buffer.asIntBuffer().put(values);
+        return buffer.array();
+    }
+
+    private static void writeInts(OutputStream out, int[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + values.length * Integer.BYTES);
+        buffer.putInt(values.length).asIntBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static void writeLongs(OutputStream out, long[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + values.length * Long.BYTES);
+        buffer.putInt(values.length).asLongBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static void writeFloats(OutputStream out, float[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + values.length * Float.BYTES);
+        buffer.putInt(values.length).asFloatBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static void writeDoubles(OutputStream out, double[] values) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + values.length * Double.BYTES);
+        buffer.putInt(values.length).asDoubleBuffer().put(values);
+        out.write(buffer.array());
+    }
+
+    private static void writeName(DataOutputStream out, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readName(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+
+    private static long[] readLongs(ByteBuffer in) {
+        long[] values = new long[in.getInt()];
+        in.asLongBuffer().get(values);
+        in.position(in.position() + values.length * Long.BYTES);
+        return values;
+    }
+
+    private static float[] readFloats(ByteBuffer in) {
+        float[] values = new float[in.getInt()];
+        in.asFloatBuffer().get(values);
+        in.position(in.position() + values.length * Float.BYTES);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer in) {
+        double[] values = new double[in.getInt()];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + values.length * Double.BYTES);
+        return values;
+    }
+}
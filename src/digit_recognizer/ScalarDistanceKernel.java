@@ -0,0 +1,132 @@
+package digit_recognizer;
+
+/**
+ * <h1>Scalar distance kernel.</h1>
+ * <p>
+ * Plain Java implementation of {@link DistanceKernel}, unrolled by four pixels so the JIT can keep
+ * independent partial sums in registers. It is used when the Vector API is not available.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class ScalarDistanceKernel implements DistanceKernel {
+
+    /** The only instance of the {@link ScalarDistanceKernel} class.
+     * */
+    public static final ScalarDistanceKernel INSTANCE = new ScalarDistanceKernel();
+
+    /** Number of pixels between two checks of the cutoff.
+     * */
+    private static final int CHECK_INTERVAL = 112;
+
+    private ScalarDistanceKernel() {}
+
+    @Override
+    public int taxicab(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+
+        for (; i + 3 < length; i += 4) {
+            sum0 += Math.abs((a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF));
+            sum1 += Math.abs((a[aOffset + i + 1] & 0xFF) - (b[bOffset + i + 1] & 0xFF));
+            sum2 += Math.abs((a[aOffset + i + 2] & 0xFF) - (b[bOffset + i + 2] & 0xFF));
+            sum3 += Math.abs((a[aOffset + i + 3] & 0xFF) - (b[bOffset + i + 3] & 0xFF));
+        }
+        for (; i < length; i++)
+            sum0 += Math.abs((a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF));
+
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    @Override
+    public int squaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+
+        for (; i + 3 < length; i += 4) {
+            int d0 = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            int d1 = (a[aOffset + i + 1] & 0xFF) - (b[bOffset + i + 1] & 0xFF);
+            int d2 = (a[aOffset + i + 2] & 0xFF) - (b[bOffset + i + 2] & 0xFF);
+            int d3 = (a[aOffset + i + 3] & 0xFF) - (b[bOffset + i + 3] & 0xFF);
+            sum0 += d0 * d0;
+            sum1 += d1 * d1;
+            sum2 += d2 * d2;
+            sum3 += d3 * d3;
+        }
+        for (; i < length; i++) {
+            int d = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            sum0 += d * d;
+        }
+
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    @Override
+    public long taxicabAndSquaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int taxicab0 = 0, taxicab1 = 0, squared0 = 0, squared1 = 0;
+        int i = 0;
+
+        for (; i + 1 < length; i += 2) {
+            int d0 = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            int d1 = (a[aOffset + i + 1] & 0xFF) - (b[bOffset + i + 1] & 0xFF);
+            taxicab0 += Math.abs(d0);
+            taxicab1 += Math.abs(d1);
+            squared0 += d0 * d0;
+            squared1 += d1 * d1;
+        }
+        if (i < length) {
+            int d = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            taxicab0 += Math.abs(d);
+            squared0 += d * d;
+        }
+
+        return DistanceKernel.pack(taxicab0 + taxicab1, squared0 + squared1);
+    }
+
+    @Override
+    public int taxicab(byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff) {
+        int sum = 0;
+
+        for (int from = 0; from < length; from += CHECK_INTERVAL) {
+            sum += taxicab(a, aOffset + from, b, bOffset + from, Math.min(CHECK_INTERVAL, length - from));
+            if (sum > cutoff) return sum;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public int squaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff) {
+        int sum = 0;
+
+        for (int from = 0; from < length; from += CHECK_INTERVAL) {
+            sum += squaredEuclidean(a, aOffset + from, b, bOffset + from, Math.min(CHECK_INTERVAL, length - from));
+            if (sum > cutoff) return sum;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public int dotProduct(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        int sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int i = 0;
+
+        for (; i + 3 < length; i += 4) {
+            sum0 += (a[aOffset + i] & 0xFF) * (b[bOffset + i] & 0xFF);
+            sum1 += (a[aOffset + i + 1] & 0xFF) * (b[bOffset + i + 1] & 0xFF);
+            sum2 += (a[aOffset + i + 2] & 0xFF) * (b[bOffset + i + 2] & 0xFF);
+            sum3 += (a[aOffset + i + 3] & 0xFF) * (b[bOffset + i + 3] & 0xFF);
+        }
+        for (; i < length; i++)
+            sum0 += (a[aOffset + i] & 0xFF) * (b[bOffset + i] & 0xFF);
+
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,135 @@
+package digit_recognizer;
+
+/**
+ * <h1>Result of the {@link HyperparameterSweep}.</h1>
+ * <p>
+ * Contains the number of errors of every k from 1 to {@link SweepResult#maxK}, every {@link MetricTypes}
+ * and every {@link VoteTypes}, counted over the same test matrices.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class SweepResult {
+
+    /** The number of evaluated test matrices.
+     * */
+    private final int numberOfMatrices;
+
+    /** The greatest evaluated k.
+     * */
+    private final int maxK;
+
+    /** The number of errors of every combination, see {@link SweepResult#index(MetricTypes, VoteTypes, int, int)}.
+     * */
+    private final int[] errors;
+
+    /** Wall clock time of the sweep in nanoseconds.
+     * */
+    private final long wallTimeNanos;
+
+    /** Constructor for the {@link SweepResult} class.
+     *
+     * @param numberOfMatrices {@link SweepResult#numberOfMatrices description}.
+     * @param maxK {@link SweepResult#maxK description}.
+     * @param errors {@link SweepResult#errors description}.
+     * @param wallTimeNanos {@link SweepResult#wallTimeNanos description}.
+     * */
+    public SweepResult(int numberOfMatrices, int maxK, int[] errors, long wallTimeNanos) {
+        this.numberOfMatrices = numberOfMatrices;
+        this.maxK = maxK;
+        this.errors = errors;
+        this.wallTimeNanos = wallTimeNanos;
+    }
+
+    /** Returns the position of a combination in {@link SweepResult#errors}.
+     *
+     * @param metricType {@link MetricTypes}.
+     * @param voteType {@link VoteTypes}.
+     * @param k the number of neighbors, from 1 to maxK.
+     * @param maxK the greatest evaluated k.
+     * @return index of the counter.
+     * */
+    static int index(MetricTypes metricType, VoteTypes voteType, int k, int maxK) {
+        return (metricType.ordinal() * VoteTypes.values().length + voteType.ordinal()) * maxK + k - 1;
+    }
+
+    /**
+     * @param metricType {@link MetricTypes}.
+     * @param voteType {@link VoteTypes}.
+     * @param k the number of neighbors, from 1 to {@link SweepResult#maxK}.
+     * @return the number of errors.
+     * */
+    public int getNumberOfErrors(MetricTypes metricType, VoteTypes voteType, int k) {
+        if (k < 1 || k > maxK) throw new IllegalArgumentException("k must be between 1 and " + maxK + ", got " + k);
+        return errors[index(metricType, voteType, k, maxK)];
+    }
+
+    /**
+     * @param metricType {@link MetricTypes}.
+     * @param voteType {@link VoteTypes}.
+     * @param k the number of neighbors, from 1 to {@link SweepResult#maxK}.
+     * @return the error rate in percent.
+     * */
+    public double getErrorRate(MetricTypes metricType, VoteTypes voteType, int k) {
+        return numberOfMatrices == 0 ? 0 : 100d * getNumberOfErrors(metricType, voteType, k) / numberOfMatrices;
+    }
+
+    /** Returns the k with the fewest errors, the smallest one on ties.
+     *
+     * @param metricType {@link MetricTypes}.
+     * @param voteType {@link VoteTypes}.
+     * @return the best k.
+     * */
+    public int getBestK(MetricTypes metricType, VoteTypes voteType) {
+        int bestK = 1;
+        for (int k = 2; k <= maxK; k++)
+            if (getNumberOfErrors(metricType, voteType, k) < getNumberOfErrors(metricType, voteType, bestK)) bestK = k;
+        return bestK;
+    }
+
+    /**
+     * @return {@link SweepResult#numberOfMatrices}.
+     * */
+    public int getNumberOfMatrices() {
+        return numberOfMatrices;
+    }
+
+    /**
+     * @return {@link SweepResult#maxK}.
+     * */
+    public int getMaxK() {
+        return maxK;
+    }
+
+    /**
+     * @return {@link SweepResult#wallTimeNanos}.
+     * */
+    public long getWallTimeNanos() {
+        return wallTimeNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Sweep of k = 1..%d over %d matrices in %.2fs, error rates in %%:%n",
+                maxK, numberOfMatrices, wallTimeNanos / 1e9));
+
+        builder.append(String.format("%4s", "k"));
+        for (MetricTypes metricType : MetricTypes.values())
+            for (VoteTypes voteType : VoteTypes.values())
+                builder.append(String.format("%28s", metricType + "/" + voteType));
+        builder.append(System.lineSeparator());
+
+        for (int k = 1; k <= maxK; k++) {
+            builder.append(String.format("%4d", k));
+            for (MetricTypes metricType : MetricTypes.values())
+                for (VoteTypes voteType : VoteTypes.values())
+                    builder.append(String.format("%27.2f%s", getErrorRate(metricType, voteType, k),
+                            getBestK(metricType, voteType) == k ? "*" : " "));
+            builder.append(System.lineSeparator());
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,228 @@
+package digit_recognizer;
+
+/**
+ * <h1>Eigen decomposition of symmetric matrices.</h1>
+ * <p>
+ * The matrix is reduced to a tridiagonal form by Householder transformations and then diagonalized
+ * by the implicit QL algorithm, following the public domain JAMA implementation (tred2 and tql2).
+ * Eigenvectors are kept as rows, so the Givens rotations of the QL step run over contiguous memory.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+final class SymmetricEigenDecomposition {
+
+    /** Size of the matrix.
+     * */
+    private final int n;
+
+    /** Eigenvalues, in no particular order.
+     * */
+    private final double[] d;
+
+    /** Off-diagonal elements of the tridiagonal form.
+     * */
+    private final double[] e;
+
+    /** Eigenvectors, {@code vectors[i]} belongs to {@code d[i]}.
+     * */
+    private final double[][] vectors;
+
+    /** Decomposes the matrix.
+     *
+     * @param matrix symmetric matrix, it is overwritten.
+     * */
+    SymmetricEigenDecomposition(double[][] matrix) {
+        this.n = matrix.length;
+        this.d = new double[n];
+        this.e = new double[n];
+
+        if (n == 0) {
+            this.vectors = new double[0][0];
+            return;
+        }
+
+        tridiagonalize(matrix);
+
+        double[][] vectors = new double[n][n];
+        for (int r = 0; r < n; r++)
+            for (int c = 0; c < n; c++)
+                vectors[c][r] = matrix[r][c];
+        this.vectors = vectors;
+
+        diagonalize();
+    }
+
+    /**
+     * @return eigenvalues.
+     * */
+    double[] getEigenvalues() {
+        return d;
+    }
+
+    /**
+     * @return eigenvectors as rows.
+     * */
+    double[][] getEigenvectors() {
+        return vectors;
+    }
+
+    /** Householder reduction to tridiagonal form, the accumulated transformations are left in v.
+     *
+     * @param v the matrix.
+     * */
+    private void tridiagonalize(double[][] v) {
+        for (int j = 0; j < n; j++) d[j] = v[n - 1][j];
+
+        for (int i = n - 1; i > 0; i--) {
+            double scale = 0.0;
+            double h = 0.0;
+            for (int k = 0; k < i; k++) scale += Math.abs(d[k]);
+
+            if (scale == 0.0) {
+                e[i] = d[i - 1];
+                for (int j = 0; j < i; j++) {
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0.0;
+                    v[j][i] = 0.0;
+                }
+            } else {
+                for (int k = 0; k < i; k++) {
+                    d[k] /= scale;
+                    h += d[k] * d[k];
+                }
+
+                double f = d[i - 1];
+                double g = Math.sqrt(h);
+                if (f > 0) g = -g;
+                e[i] = scale * g;
+                h = h - f * g;
+                d[i - 1] = f - g;
+                for (int j = 0; j < i; j++) e[j] = 0.0;
+
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    v[j][i] = f;
+                    g = e[j] + v[j][j] * f;
+                    for (int k = j + 1; k <= i - 1; k++) {
+                        g += v[k][j] * d[k];
+                        e[k] += v[k][j] * f;
+                    }
+                    e[j] = g;
+                }
+
+                f = 0.0;
+                for (int j = 0; j < i; j++) {
+                    e[j] /= h;
+                    f += e[j] * d[j];
+                }
+
+                double hh = f / (h + h);
+                for (int j = 0; j < i; j++) e[j] -= hh * d[j];
+
+                for (int j = 0; j < i; j++) {
+                    f = d[j];
+                    g = e[j];
+                    for (int k = j; k <= i - 1; k++) v[k][j] -= (f * e[k] + g * d[k]);
+                    d[j] = v[i - 1][j];
+                    v[i][j] = 0.0;
+                }
+            }
+            d[i] = h;
+        }
+
+        for (int i = 0; i < n - 1; i++) {
+            v[n - 1][i] = v[i][i];
+            v[i][i] = 1.0;
+            double h = d[i + 1];
+
+            if (h != 0.0) {
+                for (int k = 0; k <= i; k++) d[k] = v[k][i + 1] / h;
+                for (int j = 0; j <= i; j++) {
+                    double g = 0.0;
+                    for (int k = 0; k <= i; k++) g += v[k][i + 1] * v[k][j];
+                    for (int k = 0; k <= i; k++) v[k][j] -= g * d[k];
+                }
+            }
+            for (int k = 0; k <= i; k++) v[k][i + 1] = 0.0;
+        }
+
+        for (int j = 0; j < n; j++) {
+            d[j] = v[n - 1][j];
+            v[n - 1][j] = 0.0;
+        }
+        v[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    /** Implicit QL iterations on the tridiagonal form.
+     * */
+    private void diagonalize() {
+        for (int i = 1; i < n; i++) e[i - 1] = e[i];
+        e[n - 1] = 0.0;
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        double eps = Math.ulp(1.0);
+
+        for (int l = 0; l < n; l++) {
+            tst1 = Math.max(tst1, Math.abs(d[l]) + Math.abs(e[l]));
+            int m = l;
+            while (m < n - 1 && Math.abs(e[m]) > eps * tst1) m++;
+
+            if (m > l) {
+                do {
+                    double g = d[l];
+                    double p = (d[l + 1] - g) / (2.0 * e[l]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0) r = -r;
+
+                    d[l] = e[l] / (p + r);
+                    d[l + 1] = e[l] * (p + r);
+                    double dl1 = d[l + 1];
+                    double h = g - d[l];
+                    for (int i = l + 2; i < n; i++) d[i] -= h;
+                    f = f + h;
+
+                    p = d[m];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[l + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+
+                    for (int i = m - 1; i >= l; i--) {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[i];
+                        h = c * p;
+                        r = Math.hypot(p, e[i]);
+                        e[i + 1] = s * r;
+                        s = e[i] / r;
+                        c = p / r;
+                        p = c * d[i] - s * g;
+                        d[i + 1] = h + s * (c * g + s * d[i]);
+
+                        double[] next = vectors[i + 1];
+                        double[] current = vectors[i];
+                        for (int k = 0; k < n; k++) {
+                            h = next[k];
+                            next[k] = s * current[k] + c * h;
+                            current[k] = c * current[k] - s * h;
+                        }
+                    }
+
+                    p = -s * s2 * c3 * el1 * e[l] / dl1;
+                    e[l] = s * p;
+                    d[l] = c * p;
+                } while (Math.abs(e[l]) > eps * tst1);
+            }
+
+            d[l] = d[l] + f;
+            e[l] = 0.0;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * <h1>Configuration chosen by the {@link AutoTuner} for one host and one training set.</h1>
+ * <p>
+ * Contains the chosen number of threads, block sizes, {@link DistanceKernel} and {@link EngineTypes},
+ * the measured throughput and what it was measured on. A profile is stored as a properties file,
+ * so hosts with a different number of cores or cache, a JVM without the Vector API or another training set
+ * tune again instead of reusing it.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class TuningProfile {
+
+    /** Number of threads of the evaluation pool.
+     * */
+    private final int numberOfThreads;
+
+    /** Number of queries recognized together, see {@link Recognizer#setQueryBlockSize(int)}.
+     * */
+    private final int queryBlockSize;
+
+    /** Size in bytes of one tile of training data of {@link LinearScanIndex}.
+     * */
+    private final int trainBlockBytes;
+
+    /** Name of the {@link DistanceKernel}, {@code scalar} or {@code vector}.
+     * */
+    private final String kernelName;
+
+    /** The search engine.
+     * */
+    private final EngineTypes engineType;
+
+    /** Measured throughput of the chosen configuration, queries per second.
+     * */
+    private final double queriesPerSecond;
+
+    /** Number of processors of the host.
+     * */
+    private final int numberOfProcessors;
+
+    /** Size in bytes of the L2 cache of the host, -1 if unknown.
+     * */
+    private final long l2CacheBytes;
+
+    /** Whether the Vector API was available, so the {@code vector} kernel could be measured.
+     * */
+    private final boolean vectorAvailable;
+
+    /** Number of training images.
+     * */
+    private final int trainSize;
+
+    /** Number of pixels of every image.
+     * */
+    private final int imageSize;
+
+    /** The metric of the recognizer.
+     * */
+    private final MetricTypes metricType;
+
+    /** The number of neighbors of the recognizer.
+     * */
+    private final int k;
+
+    /** Constructor for the {@link TuningProfile} class.
+     *
+     * @param numberOfThreads {@link TuningProfile#numberOfThreads description}.
+     * @param queryBlockSize {@link TuningProfile#queryBlockSize description}.
+     * @param trainBlockBytes {@link TuningProfile#trainBlockBytes description}.
+     * @param kernelName {@link TuningProfile#kernelName description}.
+     * @param engineType {@link TuningProfile#engineType description}.
+     * @param queriesPerSecond {@link TuningProfile#queriesPerSecond description}.
+     * @param numberOfProcessors {@link TuningProfile#numberOfProcessors description}.
+     * @param l2CacheBytes {@link TuningProfile#l2CacheBytes description}.
+     * @param vectorAvailable {@link TuningProfile#vectorAvailable description}.
+     * @param trainSize {@link TuningProfile#trainSize description}.
+     * @param imageSize {@link TuningProfile#imageSize description}.
+     * @param metricType {@link TuningProfile#metricType description}.
+     * @param k {@link TuningProfile#k description}.
+     * */
+    public TuningProfile(int numberOfThreads, int queryBlockSize, int trainBlockBytes, String kernelName, EngineTypes engineType,
+                         double queriesPerSecond, int numberOfProcessors, long l2CacheBytes, boolean vectorAvailable,
+                         int trainSize, int imageSize, MetricTypes metricType, int k) {
+        this.numberOfThreads = numberOfThreads;
+        this.queryBlockSize = queryBlockSize;
+        this.trainBlockBytes = trainBlockBytes;
+        this.kernelName = kernelName;
+        this.engineType = engineType;
+        this.queriesPerSecond = queriesPerSecond;
+        this.numberOfProcessors = numberOfProcessors;
+        this.l2CacheBytes = l2CacheBytes;
+        this.vectorAvailable = vectorAvailable;
+        this.trainSize = trainSize;
+        this.imageSize = imageSize;
+        this.metricType = metricType;
+        this.k = k;
+    }
+
+    /** Reads a profile stored by {@link TuningProfile#store(Path)}.
+     *
+     * @param path the properties file.
+     * @throws IOException if the file can't be read or a value is missing or invalid.
+     * @return {@link TuningProfile}.
+     * */
+    public static TuningProfile load(Path path) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(path)) {
+            properties.load(in);
+        }
+
+        try {
+            return new TuningProfile(
+                    Integer.parseInt(get(properties, "threads", path)),
+                    Integer.parseInt(get(properties, "queryBlockSize", path)),
+                    Integer.parseInt(get(properties, "trainBlockBytes", path)),
+                    get(properties, "kernel", path),
+                    EngineTypes.valueOf(get(properties, "engine", path)),
+                    Double.parseDouble(get(properties, "queriesPerSecond", path)),
+                    Integer.parseInt(get(properties, "processors", path)),
+                    Long.parseLong(get(properties, "l2CacheBytes", path)),
+                    Boolean.parseBoolean(get(properties, "vectorAvailable", path)),
+                    Integer.parseInt(get(properties, "trainSize", path)),
+                    Integer.parseInt(get(properties, "imageSize", path)),
+                    MetricTypes.valueOf(get(properties, "metric", path)),
+                    Integer.parseInt(get(properties, "k", path)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid tuning profile " + path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static String get(Properties properties, String key, Path path) throws IOException {
+        String value = properties.getProperty(key);
+        if (value == null) throw new IOException("Missing " + key + " in tuning profile " + path);
+        return value.trim();
+    }
+
+    /** Writes the profile as a properties file.
+     *
+     * @param path the properties file, replaced atomically if it exists.
+     * @throws IOException if the file can't be written.
+     * */
+    public void store(Path path) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("threads", Integer.toString(numberOfThreads));
+        properties.setProperty("queryBlockSize", Integer.toString(queryBlockSize));
+        properties.setProperty("trainBlockBytes", Integer.toString(trainBlockBytes));
+        properties.setProperty("kernel", kernelName);
+        properties.setProperty("engine", engineType.name());
+        properties.setProperty("queriesPerSecond", Double.toString(queriesPerSecond));
+        properties.setProperty("processors", Integer.toString(numberOfProcessors));
+        properties.setProperty("l2CacheBytes", Long.toString(l2CacheBytes));
+        properties.setProperty("vectorAvailable", Boolean.toString(vectorAvailable));
+        properties.setProperty("trainSize", Integer.toString(trainSize));
+        properties.setProperty("imageSize", Integer.toString(imageSize));
+        properties.setProperty("metric", metricType.name());
+        properties.setProperty("k", Integer.toString(k));
+
+        Path absolute = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                properties.store(out, "Digit recognizer tuning profile");
+            }
+            Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /** Checks whether the profile was tuned for this host and recognizer.
+     *
+     * @param trainData training {@link MnistDataSet}.
+     * @param metricType {@link MetricTypes}.
+     * @param k the number of neighbors.
+     * @return true if the number of processors, the L2 cache size, the availability of the Vector API,
+     * the training set size, the image size, the metric and k are the same.
+     * */
+    public boolean matches(MnistDataSet trainData, MetricTypes metricType, int k) {
+        return numberOfProcessors == Runtime.getRuntime().availableProcessors()
+                && l2CacheBytes == AutoTuner.l2CacheBytes() && vectorAvailable == DistanceKernels.isVectorAvailable()
+                && trainSize == trainData.size() && imageSize == trainData.getImageSize()
+                && this.metricType == metricType && this.k == k;
+    }
+
+    /** Applies the engine, the kernel, the block sizes and the number of threads to the recognizer.
+     * <p>
+     * The index is rebuilt, results don't change. Batches are recognized on a pool of
+     * {@link TuningProfile#numberOfThreads}, see {@link Recognizer#setParallelism(int)}.
+     *
+     * @param recognizer {@link Recognizer}.
+     * */
+    public void apply(Recognizer recognizer) {
+        recognizer.setIndexFactory(getIndexFactory());
+        recognizer.setQueryBlockSize(queryBlockSize);
+        recognizer.setParallelism(numberOfThreads);
+    }
+
+    /**
+     * @return {@link NeighborIndexFactory} of the chosen engine, kernel and train block size.
+     * */
+    public NeighborIndexFactory getIndexFactory() {
+        return engineType.factory(getKernel(), trainBlockBytes);
+    }
+
+    /**
+     * @return the chosen {@link DistanceKernel}, the scalar one if the Vector API is not available.
+     * */
+    public DistanceKernel getKernel() {
+        return DistanceKernels.select(kernelName);
+    }
+
+    /**
+     * @return {@link TuningProfile#numberOfThreads}.
+     * */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * @return {@link TuningProfile#queryBlockSize}.
+     * */
+    public int getQueryBlockSize() {
+        return queryBlockSize;
+    }
+
+    /**
+     * @return {@link TuningProfile#trainBlockBytes}.
+     * */
+    public int getTrainBlockBytes() {
+        return trainBlockBytes;
+    }
+
+    /**
+     * @return {@link TuningProfile#kernelName}.
+     * */
+    public String getKernelName() {
+        return kernelName;
+    }
+
+    /**
+     * @return {@link TuningProfile#engineType}.
+     * */
+    public EngineTypes getEngineType() {
+        return engineType;
+    }
+
+    /**
+     * @return {@link TuningProfile#queriesPerSecond}.
+     * */
+    public double getQueriesPerSecond() {
+        return queriesPerSecond;
+    }
+
+    /**
+     * @return {@link TuningProfile#numberOfProcessors}.
+     * */
+    public int getNumberOfProcessors() {
+        return numberOfProcessors;
+    }
+
+    /**
+     * @return {@link TuningProfile#l2CacheBytes}.
+     * */
+    public long getL2CacheBytes() {
+        return l2CacheBytes;
+    }
+
+    /**
+     * @return {@link TuningProfile#vectorAvailable}.
+     * */
+    public boolean isVectorAvailable() {
+        return vectorAvailable;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Engine: %s, kernel: %s, threads: %d, query block: %d, train block: %dKiB, %.0f queries/s "
+                        + "(%d processors, L2: %s, Vector API: %s, %d training images, %s, k = %d)",
+                engineType, kernelName, numberOfThreads, queryBlockSize, trainBlockBytes / 1024, queriesPerSecond,
+                numberOfProcessors, l2CacheBytes < 0 ? "unknown" : l2CacheBytes / 1024 + "KiB", vectorAvailable ? "yes" : "no", trainSize, metricType, k);
+    }
+}
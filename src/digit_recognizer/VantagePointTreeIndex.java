@@ -0,0 +1,449 @@
+package digit_recognizer;
+
+import utils.mnist_data_io.MnistDataSet;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Exact nearest neighbor index on a vantage-point tree.</h1>
+ * <p>
+ * Every node picks a vantage point and splits the remaining training images at the median distance {@code mu} to it:
+ * images with distance at most {@code mu} go inside, the others outside. Both metric types are true metrics,
+ * so by the triangle inequality a subtree can be skipped when its lower bound {@code |d(q, vp) - mu|}
+ * exceeds the distance of the current k-th neighbor.
+ * <br>
+ * Subtrees are only skipped when the bound is strictly greater, and neighbors are ranked with the same distances
+ * and tie rule as {@link LinearScanIndex}, so results are identical to the brute force search.
+ * The index counts visited nodes and computed distances, see {@link VantagePointTreeIndex#getAverageVisitedNodes()}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class VantagePointTreeIndex implements NeighborIndex {
+
+    /** Default maximal number of images in a leaf.
+     * */
+    public static final int DEFAULT_LEAF_SIZE = 16;
+
+    /** Number of images below which subtrees are built sequentially.
+     * */
+    private static final int PARALLEL_BUILD_THRESHOLD = 4096;
+
+    /** Relative slack of Euclidean bounds, which covers rounding errors of square roots.
+     * */
+    private static final double EPSILON = 1e-9;
+
+    /** Training data.
+     * */
+    private final MnistDataSet trainData;
+
+    /** The type of metric to use.
+     * */
+    private final MetricTypes metricType;
+
+    /** The kernel that computes distances.
+     * */
+    private final DistanceKernel kernel;
+
+    /** Maximal number of images in a leaf.
+     * */
+    private final int leafSize;
+
+    /** Training indices, ordered so that every leaf is a contiguous range.
+     * */
+    private final int[] items;
+
+    /** Training index of the vantage point of every node, -1 for leaves.
+     * */
+    private final int[] vantagePoints;
+
+    /** Median distance of every inner node.
+     * */
+    private final double[] radii;
+
+    /** Inside child of every inner node, -1 if empty.
+     * */
+    private final int[] insideChildren;
+
+    /** Outside child of every inner node, -1 if empty.
+     * */
+    private final int[] outsideChildren;
+
+    /** First position of every leaf in {@link VantagePointTreeIndex#items}.
+     * */
+    private final int[] leafFrom;
+
+    /** Last position of every leaf in {@link VantagePointTreeIndex#items}, exclusive.
+     * */
+    private final int[] leafTo;
+
+    /** Number of nodes.
+     * */
+    private final int numberOfNodes;
+
+    /** The root node, -1 if there are no training images.
+     * */
+    private final int root;
+
+    /** Number of searches.
+     * */
+    private final LongAdder queries = new LongAdder();
+
+    /** Number of nodes visited by all searches.
+     * */
+    private final LongAdder visitedNodes = new LongAdder();
+
+    /** Number of distances computed by all searches.
+     * */
+    private final LongAdder computedDistances = new LongAdder();
+
+    /** Constructor for the {@link VantagePointTreeIndex} class.
+     * <p>
+     * Large subtrees are built in parallel on {@link ForkJoinPool#commonPool()}.
+     *
+     * @param trainData {@link VantagePointTreeIndex#trainData description}.
+     * @param metricType {@link VantagePointTreeIndex#metricType description}.
+     * @param kernel {@link VantagePointTreeIndex#kernel description}.
+     * @param leafSize {@link VantagePointTreeIndex#leafSize description}.
+     * */
+    public VantagePointTreeIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int leafSize) {
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.leafSize = Math.max(1, leafSize);
+
+        int n = trainData.size();
+        this.items = new int[n];
+        for (int i = 0; i < n; i++) items[i] = i;
+
+        int maxNodes = Math.max(1, n);
+        this.vantagePoints = new int[maxNodes];
+        this.radii = new double[maxNodes];
+        this.insideChildren = new int[maxNodes];
+        this.outsideChildren = new int[maxNodes];
+        this.leafFrom = new int[maxNodes];
+        this.leafTo = new int[maxNodes];
+
+        AtomicInteger nodeCounter = new AtomicInteger();
+        if (n == 0) {
+            this.root = -1;
+        } else {
+            BuildTask rootTask = new BuildTask(0, n, this.leafSize, new double[n], nodeCounter, 42);
+            ForkJoinPool.commonPool().invoke(rootTask);
+            this.root = rootTask.node;
+        }
+        this.numberOfNodes = nodeCounter.get();
+    }
+
+    /** Constructor for the {@link VantagePointTreeIndex} class with a built tree, used by {@link RecognizerSnapshot}.
+     *
+     * @param trainData {@link VantagePointTreeIndex#trainData description}.
+     * @param metricType {@link VantagePointTreeIndex#metricType description}.
+     * @param kernel {@link VantagePointTreeIndex#kernel description}.
+     * @param leafSize {@link VantagePointTreeIndex#leafSize description}.
+     * @param tree {@link Tree} with the node arrays.
+     * */
+    VantagePointTreeIndex(MnistDataSet trainData, MetricTypes metricType, DistanceKernel kernel, int leafSize, Tree tree) {
+        this.trainData = trainData;
+        this.metricType = metricType;
+        this.kernel = kernel;
+        this.leafSize = leafSize;
+        this.items = tree.items;
+        this.vantagePoints = tree.vantagePoints;
+        this.radii = tree.radii;
+        this.insideChildren = tree.insideChildren;
+        this.outsideChildren = tree.outsideChildren;
+        this.leafFrom = tree.leafFrom;
+        this.leafTo = tree.leafTo;
+        this.numberOfNodes = tree.numberOfNodes;
+        this.root = tree.root;
+    }
+
+    /**
+     * @return factory of {@link VantagePointTreeIndex} with {@link VantagePointTreeIndex#DEFAULT_LEAF_SIZE}.
+     * */
+    public static NeighborIndexFactory factory() {
+        return factory(DEFAULT_LEAF_SIZE);
+    }
+
+    /**
+     * @param leafSize maximal number of images in a leaf.
+     * @return factory of {@link VantagePointTreeIndex} that uses {@link DistanceKernels#getDefault()}.
+     * */
+    public static NeighborIndexFactory factory(int leafSize) {
+        return (trainData, metricType) -> new VantagePointTreeIndex(trainData, metricType, DistanceKernels.getDefault(), leafSize);
+    }
+
+    @Override
+    public int search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+        Search search = new Search(query, queryOffset, neighbors);
+        if (root >= 0) search(root, search);
+
+        queries.increment();
+        visitedNodes.add(search.nodes);
+        computedDistances.add(search.distances);
+        return search.distances;
+    }
+
+    /**
+     * @return average number of nodes visited per search.
+     * */
+    public double getAverageVisitedNodes() {
+        long count = queries.sum();
+        return count == 0 ? 0 : (double) visitedNodes.sum() / count;
+    }
+
+    /**
+     * @return average number of distances computed per search.
+     * */
+    public double getAverageDistances() {
+        long count = queries.sum();
+        return count == 0 ? 0 : (double) computedDistances.sum() / count;
+    }
+
+    /**
+     * @return number of searches.
+     * */
+    public long getNumberOfQueries() {
+        return queries.sum();
+    }
+
+    /** Resets the search statistics.
+     * */
+    public void resetStatistics() {
+        queries.reset();
+        visitedNodes.reset();
+        computedDistances.reset();
+    }
+
+    /**
+     * @return {@link VantagePointTreeIndex#numberOfNodes}.
+     * */
+    public int getNumberOfNodes() {
+        return numberOfNodes;
+    }
+
+    /**
+     * @return {@link VantagePointTreeIndex#leafSize}.
+     * */
+    public int getLeafSize() {
+        return leafSize;
+    }
+
+    /**
+     * @return {@link VantagePointTreeIndex#kernel}.
+     * */
+    public DistanceKernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * @return {@link Tree} that shares the node arrays of this index.
+     * */
+    Tree getTree() {
+        return new Tree(items, vantagePoints, radii, insideChildren, outsideChildren, leafFrom, leafTo, numberOfNodes, root);
+    }
+
+    private void search(int node, Search search) {
+        search.nodes++;
+        int vantagePoint = vantagePoints[node];
+
+        if (vantagePoint < 0) {
+            for (int position = leafFrom[node]; position < leafTo[node]; position++)
+                search.offer(items[position]);
+            return;
+        }
+
+        double distance = toMetric(search.offer(vantagePoint));
+        double radius = radii[node];
+
+        if (distance <= radius) {
+            if (insideChildren[node] >= 0 && !isPruned(distance - radius, search)) search(insideChildren[node], search);
+            if (outsideChildren[node] >= 0 && !isPruned(radius - distance, search)) search(outsideChildren[node], search);
+        } else {
+            if (outsideChildren[node] >= 0 && !isPruned(radius - distance, search)) search(outsideChildren[node], search);
+            if (insideChildren[node] >= 0 && !isPruned(distance - radius, search)) search(insideChildren[node], search);
+        }
+    }
+
+    /** Returns true if a subtree with the given lower bound can't contain a better neighbor.
+     *
+     * @param lowerBound lower bound of distances in the subtree.
+     * @param search {@link Search}.
+     * @return true if the subtree can be skipped.
+     * */
+    private boolean isPruned(double lowerBound, Search search) {
+        double worst = search.neighbors.worstDistance();
+        if (worst == Double.POSITIVE_INFINITY) return false;
+
+        double tau = toMetric(worst);
+        return metricType == MetricTypes.EUCLIDEAN ? lowerBound > tau + EPSILON * (1 + tau) : lowerBound > tau;
+    }
+
+    /** Converts a ranking distance into a metric distance.
+     *
+     * @param distance distance returned by {@link DistanceKernel#distance}.
+     * @return distance which satisfies the triangle inequality.
+     * */
+    private double toMetric(double distance) {
+        return metricType == MetricTypes.EUCLIDEAN ? Math.sqrt(distance) : distance;
+    }
+
+    /** State of one search.
+     * */
+    private final class Search {
+
+        private final byte[] query;
+        private final int queryOffset;
+        private final NeighborHeap neighbors;
+        private int nodes;
+        private int distances;
+
+        private Search(byte[] query, int queryOffset, NeighborHeap neighbors) {
+            this.query = query;
+            this.queryOffset = queryOffset;
+            this.neighbors = neighbors;
+        }
+
+        private double offer(int index) {
+            double distance = kernel.distance(metricType, query, queryOffset,
+                    trainData.getPixels(), trainData.getOffset(index), trainData.getImageSize());
+            distances++;
+            neighbors.offer(distance, index);
+            return distance;
+        }
+    }
+
+    /** Task that builds the subtree over a range of {@link VantagePointTreeIndex#items}.
+     * */
+    private final class BuildTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int leafSize;
+        private final double[] distances;
+        private final AtomicInteger nodeCounter;
+        private final long seed;
+        private int node;
+
+        private BuildTask(int from, int to, int leafSize, double[] distances, AtomicInteger nodeCounter, long seed) {
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+            this.distances = distances;
+            this.nodeCounter = nodeCounter;
+            this.seed = seed;
+        }
+
+        @Override
+        protected void compute() {
+            node = nodeCounter.getAndIncrement();
+
+            if (to - from <= leafSize) {
+                vantagePoints[node] = -1;
+                leafFrom[node] = from;
+                leafTo[node] = to;
+                return;
+            }
+
+            Random random = new Random(seed);
+            swap(from, from + random.nextInt(to - from));
+            int vantagePoint = items[from];
+
+            byte[] pixels = trainData.getPixels();
+            for (int position = from + 1; position < to; position++)
+                distances[position] = toMetric(kernel.distance(metricType, pixels, trainData.getOffset(vantagePoint),
+                        pixels, trainData.getOffset(items[position]), trainData.getImageSize()));
+
+            int middle = (from + 1 + to) >>> 1;
+            select(from + 1, to - 1, middle);
+
+            vantagePoints[node] = vantagePoint;
+            radii[node] = distances[middle];
+
+            BuildTask inside = middle > from + 1
+                    ? new BuildTask(from + 1, middle, leafSize, distances, nodeCounter, random.nextLong()) : null;
+            BuildTask outside = new BuildTask(middle, to, leafSize, distances, nodeCounter, random.nextLong());
+
+            if (to - from > PARALLEL_BUILD_THRESHOLD && inside != null) {
+                invokeAll(inside, outside);
+            } else {
+                if (inside != null) inside.compute();
+                outside.compute();
+            }
+
+            insideChildren[node] = inside != null ? inside.node : -1;
+            outsideChildren[node] = outside.node;
+        }
+
+        /** Partially sorts the range by distance, so that position k holds the k-th smallest distance,
+         * smaller or equal ones before it and greater or equal ones after it.
+         * */
+        private void select(int left, int right, int k) {
+            while (right > left) {
+                double pivot = distances[(left + right) >>> 1];
+                int i = left;
+                int j = right;
+
+                while (i <= j) {
+                    while (distances[i] < pivot) i++;
+                    while (distances[j] > pivot) j--;
+                    if (i <= j) {
+                        swap(i, j);
+                        i++;
+                        j--;
+                    }
+                }
+
+                if (k <= j) right = j;
+                else if (k >= i) left = i;
+                else return;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int item = items[i];
+            items[i] = items[j];
+            items[j] = item;
+
+            double distance = distances[i];
+            distances[i] = distances[j];
+            distances[j] = distance;
+        }
+    }
+
+    /** Node arrays of a built tree, see the fields of {@link VantagePointTreeIndex}.
+     * */
+    static final class Tree {
+
+        final int[] items;
+        final int[] vantagePoints;
+        final double[] radii;
+        final int[] insideChildren;
+        final int[] outsideChildren;
+        final int[] leafFrom;
+        final int[] leafTo;
+        final int numberOfNodes;
+        final int root;
+
+        Tree(int[] items, int[] vantagePoints, double[] radii, int[] insideChildren, int[] outsideChildren,
+             int[] leafFrom, int[] leafTo, int numberOfNodes, int root) {
+            this.items = items;
+            this.vantagePoints = vantagePoints;
+            this.radii = radii;
+            this.insideChildren = insideChildren;
+            this.outsideChildren = outsideChildren;
+            this.leafFrom = leafFrom;
+            this.leafTo = leafTo;
+            this.numberOfNodes = numberOfNodes;
+            this.root = root;
+        }
+    }
+}
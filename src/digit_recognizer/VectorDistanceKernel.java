@@ -0,0 +1,182 @@
+package digit_recognizer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <h1>SIMD distance kernel.</h1>
+ * <p>
+ * Implementation of {@link DistanceKernel} on top of the incubating Java Vector API.
+ * A full preferred-width vector of bytes is loaded at once and widened to unsigned int lanes part by part,
+ * differences are accumulated lane-wise and reduced once per image.
+ * <br>
+ * The class needs the {@code jdk.incubator.vector} module ({@code --add-modules jdk.incubator.vector}),
+ * it is only loaded by {@link DistanceKernels} after the module has been found.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public final class VectorDistanceKernel implements DistanceKernel {
+
+    /** Species used to load pixels.
+     * */
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+
+    /** Species used to accumulate differences.
+     * */
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    /** Number of int vectors in one byte vector.
+     * */
+    private static final int PARTS = BYTES.length() / INTS.length();
+
+    /** Number of vector iterations between two checks of the cutoff.
+     * */
+    private static final int CHECK_INTERVAL = 4;
+
+    /** The only instance of the {@link VectorDistanceKernel} class.
+     * */
+    public static final VectorDistanceKernel INSTANCE = new VectorDistanceKernel();
+
+    private VectorDistanceKernel() {}
+
+    @Override
+    public int taxicab(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        IntVector sum = IntVector.zero(INTS);
+        int bound = BYTES.loopBound(length);
+        int i = 0;
+
+        for (; i < bound; i += BYTES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, aOffset + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, bOffset + i);
+
+            for (int part = 0; part < PARTS; part++) {
+                IntVector ia = ((IntVector) va.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                IntVector ib = ((IntVector) vb.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                sum = sum.add(ia.sub(ib).abs());
+            }
+        }
+
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++)
+            result += Math.abs((a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF));
+
+        return result;
+    }
+
+    @Override
+    public int squaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        IntVector sum = IntVector.zero(INTS);
+        int bound = BYTES.loopBound(length);
+        int i = 0;
+
+        for (; i < bound; i += BYTES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, aOffset + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, bOffset + i);
+
+            for (int part = 0; part < PARTS; part++) {
+                IntVector ia = ((IntVector) va.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                IntVector ib = ((IntVector) vb.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                IntVector difference = ia.sub(ib);
+                sum = sum.add(difference.mul(difference));
+            }
+        }
+
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            int difference = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            result += difference * difference;
+        }
+
+        return result;
+    }
+
+    @Override
+    public long taxicabAndSquaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        IntVector taxicabSum = IntVector.zero(INTS);
+        IntVector squaredSum = IntVector.zero(INTS);
+        int bound = BYTES.loopBound(length);
+        int i = 0;
+
+        for (; i < bound; i += BYTES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, aOffset + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, bOffset + i);
+
+            for (int part = 0; part < PARTS; part++) {
+                IntVector ia = ((IntVector) va.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                IntVector ib = ((IntVector) vb.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                IntVector difference = ia.sub(ib);
+                taxicabSum = taxicabSum.add(difference.abs());
+                squaredSum = squaredSum.add(difference.mul(difference));
+            }
+        }
+
+        int taxicab = taxicabSum.reduceLanes(VectorOperators.ADD);
+        int squared = squaredSum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            int difference = (a[aOffset + i] & 0xFF) - (b[bOffset + i] & 0xFF);
+            taxicab += Math.abs(difference);
+            squared += difference * difference;
+        }
+
+        return DistanceKernel.pack(taxicab, squared);
+    }
+
+    @Override
+    public int taxicab(byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff) {
+        int step = BYTES.length() * CHECK_INTERVAL;
+        int sum = 0;
+
+        for (int from = 0; from < length; from += step) {
+            sum += taxicab(a, aOffset + from, b, bOffset + from, Math.min(step, length - from));
+            if (sum > cutoff) return sum;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public int squaredEuclidean(byte[] a, int aOffset, byte[] b, int bOffset, int length, int cutoff) {
+        int step = BYTES.length() * CHECK_INTERVAL;
+        int sum = 0;
+
+        for (int from = 0; from < length; from += step) {
+            sum += squaredEuclidean(a, aOffset + from, b, bOffset + from, Math.min(step, length - from));
+            if (sum > cutoff) return sum;
+        }
+
+        return sum;
+    }
+
+    @Override
+    public int dotProduct(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        IntVector sum = IntVector.zero(INTS);
+        int bound = BYTES.loopBound(length);
+        int i = 0;
+
+        for (; i < bound; i += BYTES.length()) {
+            ByteVector va = ByteVector.fromArray(BYTES, a, aOffset + i);
+            ByteVector vb = ByteVector.fromArray(BYTES, b, bOffset + i);
+
+            for (int part = 0; part < PARTS; part++) {
+                IntVector ia = ((IntVector) va.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                IntVector ib = ((IntVector) vb.convertShape(VectorOperators.B2I, INTS, part)).and(0xFF);
+                sum = sum.add(ia.mul(ib));
+            }
+        }
+
+        int result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++)
+            result += (a[aOffset + i] & 0xFF) * (b[bOffset + i] & 0xFF);
+
+        return result;
+    }
+
+    @Override
+    public String getName() {
+        return "vector";
+    }
+}
@@ -0,0 +1,39 @@
+package digit_recognizer;
+
+/**
+ * <h1>Enum that contains ways to vote among nearest neighbors.</h1>
+ * <p>
+ * Enum that contains vote types, compared by {@link HyperparameterSweep}.
+ * With every type the label with the greatest total weight wins, ties are broken by the nearest neighbor.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public enum VoteTypes {
+    /** Every neighbor has one vote, the way {@link Recognizer} votes.
+     * */
+    UNIFORM,
+    /** A neighbor at distance d has the weight {@code 1 / (1 + d)}.
+     * <p>
+     * The distance is the Taxicab or the Euclidean (not squared) one.
+     * */
+    INVERSE_DISTANCE,
+    /** The i-th nearest neighbor, counted from 1, has the weight {@code 1 / i}.
+     * */
+    INVERSE_RANK;
+
+    /** Returns the weight of a neighbor.
+     *
+     * @param rank position of the neighbor from 0, the nearest first.
+     * @param distance distance of the neighbor.
+     * @return weight of the vote.
+     * */
+    double weight(int rank, double distance) {
+        switch (this) {
+            case INVERSE_DISTANCE: return 1 / (1 + distance);
+            case INVERSE_RANK: return 1d / (rank + 1);
+            default: return 1;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package digit_recognizer.server;
+
+import digit_recognizer.LatencyHistogram;
+import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistDataSet;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Load generator of the {@link RecognitionServer}.</h1>
+ * <p>
+ * Runs a closed loop: every client thread posts test images one after another, each as soon as the previous one
+ * is answered, and the latency, throughput, rejections and the error rate are printed at the end.
+ * <br>
+ * Arguments, all optional: the URL of the recognition endpoint, number of clients, number of requests,
+ * the test images and labels files. To see the effect of batching, compare a server started with the greatest
+ * batch size 1 with a default one.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class BenchmarkClient {
+
+    /** Posts test images to the server and prints the results.
+     *
+     * @param args command line arguments.
+     * @throws IOException if the test data can't be read.
+     * @throws InterruptedException if the current thread is interrupted.
+     * */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://127.0.0.1:" + RecognitionServer.DEFAULT_PORT + RecognitionServer.RECOGNIZE_PATH);
+        int numberOfClients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int numberOfRequests = args.length > 2 ? Integer.parseInt(args[2]) : 10000;
+        String images = args.length > 3 ? args[3] : "./MNIST/t10k-images.idx3-ubyte";
+        String labels = args.length > 4 ? args[4] : "./MNIST/t10k-labels.idx1-ubyte";
+
+        MnistDataSet testData = new MnistDataReader().readDataSet(images, labels);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger next = new AtomicInteger();
+        LongAdder answered = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder failed = new LongAdder();
+
+        Thread[] clients = new Thread[numberOfClients];
+        long start = System.nanoTime();
+        for (int c = 0; c < numberOfClients; c++) {
+            clients[c] = new Thread(() -> {
+                for (int i = next.getAndIncrement(); i < numberOfRequests; i = next.getAndIncrement()) {
+                    int image = i % testData.size();
+                    int offset = testData.getOffset(image);
+                    byte[] body = Arrays.copyOfRange(testData.getPixels(), offset, offset + testData.getImageSize());
+                    HttpRequest request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+
+                    long sent = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latency.record(System.nanoTime() - sent);
+
+                        if (response.statusCode() == 200) {
+                            answered.increment();
+                            if (Integer.parseInt(response.body().trim()) != testData.getLabel(image)) errors.increment();
+                        } else if (response.statusCode() == 503) {
+                            rejected.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (IOException e) {
+                        failed.increment();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "benchmark-client-" + c);
+            clients[c].start();
+        }
+        for (Thread thread : clients) thread.join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("Requests: %d by %d clients in %.2fs, %.1f requests/s%n",
+                numberOfRequests, numberOfClients, seconds, answered.sum() / seconds);
+        System.out.printf("Latency: mean %.2fms, p50 %.2fms, p99 %.2fms, p999 %.2fms, max %.2fms%n",
+                latency.getMean() / 1e6, latency.getPercentile(0.5) / 1e6, latency.getPercentile(0.99) / 1e6,
+                latency.getPercentile(0.999) / 1e6, latency.getMax() / 1e6);
+        System.out.printf("Answered: %d, rejected: %d, failed: %d, error rate: %.2f%%%n",
+                answered.sum(), rejected.sum(), failed.sum(), answered.sum() == 0 ? 0.0 : 100.0 * errors.sum() / answered.sum());
+    }
+}
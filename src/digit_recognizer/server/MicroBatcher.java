@@ -0,0 +1,356 @@
+package digit_recognizer.server;
+
+import digit_recognizer.LatencyHistogram;
+import digit_recognizer.Recognizer;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * <h1>Coalesces concurrent recognition requests into micro-batches.</h1>
+ * <p>
+ * Requests wait in a bounded queue. Worker threads take up to {@link MicroBatcher#maxBatchSize} requests at once,
+ * pack their pixels into one block and recognize them by {@link Recognizer#recognizeBatch(MnistMatrix[])},
+ * which makes one cache-blocked pass over the training data for the whole batch.
+ * <br>
+ * A worker that took fewer requests than the batch size waits for more at most {@link MicroBatcher#maxWaitNanos}
+ * after the arrival of its first request. The wait is adaptive: it's skipped while the mean time between arrivals
+ * is longer than the wait, so a lone request under light load isn't delayed for nothing.
+ * <br>
+ * A full queue rejects new requests instead of buffering them, callers see the overload at once.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class MicroBatcher implements AutoCloseable {
+
+    /** Default greatest number of requests of one batch, one query block of the {@link Recognizer}.
+     * */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+
+    /** Default greatest wait for a batch to fill, in microseconds.
+     * */
+    public static final long DEFAULT_MAX_WAIT_MICROS = 500;
+
+    /** Default capacity of the queue.
+     * */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** Time a worker waits for the first request before checking whether the batcher is closed, in milliseconds.
+     * */
+    private static final long POLL_MILLIS = 100;
+
+    /** The recognizer of batches.
+     * */
+    private final Recognizer recognizer;
+
+    /** Greatest number of requests of one batch.
+     * */
+    private final int maxBatchSize;
+
+    /** Greatest wait for a batch to fill, counted from the arrival of its first request.
+     * */
+    private final long maxWaitNanos;
+
+    /** Bounded queue of waiting requests.
+     * */
+    private final BlockingQueue<Request> queue;
+
+    /** Threads that recognize batches.
+     * */
+    private final Thread[] workers;
+
+    private volatile boolean closed;
+
+    /** Submits check {@link MicroBatcher#closed} and queue their request under the read lock, {@link MicroBatcher#close()}
+     * sets it under the write lock, so no request is queued after the workers may have seen the batcher closed and empty.
+     * */
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    /** Arrival time of the latest request.
+     * */
+    private final AtomicLong lastArrivalNanos = new AtomicLong(System.nanoTime());
+
+    /** Exponential moving average of the time between arrivals, updated without synchronization.
+     * <p>
+     * Gaps are clamped to twice the wait, so an idle period doesn't disable batching for the burst that follows it.
+     * */
+    private volatile long meanInterArrivalNanos;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+
+    /** Time from the arrival of requests to the start of their batches.
+     * */
+    private final LatencyHistogram queueLatency = new LatencyHistogram();
+
+    /** Time of recognizing whole batches.
+     * */
+    private final LatencyHistogram batchLatency = new LatencyHistogram();
+
+    /** Constructor for the {@link MicroBatcher} class with default limits and one worker per processor.
+     *
+     * @param recognizer {@link MicroBatcher#recognizer description}.
+     * */
+    public MicroBatcher(Recognizer recognizer) {
+        this(recognizer, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_WAIT_MICROS, DEFAULT_QUEUE_CAPACITY,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /** Constructor for the {@link MicroBatcher} class.
+     *
+     * @param recognizer {@link MicroBatcher#recognizer description}.
+     * @param maxBatchSize {@link MicroBatcher#maxBatchSize description}.
+     * @param maxWaitMicros {@link MicroBatcher#maxWaitNanos description}, in microseconds.
+     * @param queueCapacity capacity of {@link MicroBatcher#queue}.
+     * @param numberOfWorkers number of {@link MicroBatcher#workers}.
+     * */
+    public MicroBatcher(Recognizer recognizer, int maxBatchSize, long maxWaitMicros, int queueCapacity, int numberOfWorkers) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("Batch size must be positive, but got " + maxBatchSize);
+        if (numberOfWorkers < 1) throw new IllegalArgumentException("Number of workers must be positive, but got " + numberOfWorkers);
+
+        this.recognizer = recognizer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MICROSECONDS.toNanos(maxWaitMicros);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.meanInterArrivalNanos = maxWaitNanos;
+
+        this.workers = new Thread[numberOfWorkers];
+        for (int i = 0; i < numberOfWorkers; i++) {
+            workers[i] = new Thread(this::work, "micro-batcher-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    /** Queues an image for recognition.
+     *
+     * @param pixels row-major pixels of the image, the array must not be modified afterwards.
+     * @return the future recognized digit.
+     * @throws IllegalArgumentException if the image size doesn't match the training images.
+     * @throws RejectedExecutionException if the queue is full or the batcher is closed.
+     * */
+    public CompletableFuture<Integer> submit(byte[] pixels) {
+        int imageSize = getImageSize();
+        if (pixels.length != imageSize)
+            throw new IllegalArgumentException("Expected " + imageSize + " pixels, but got " + pixels.length);
+
+        closeLock.readLock().lock();
+        try {
+            if (closed) throw new RejectedExecutionException("Batcher is closed");
+
+            long now = System.nanoTime();
+            long interArrival = now - lastArrivalNanos.getAndSet(now);
+            long mean = meanInterArrivalNanos;
+            meanInterArrivalNanos = mean + (Math.min(interArrival, 2 * maxWaitNanos) - mean) / 8;
+
+            Request request = new Request(pixels, now);
+            if (!queue.offer(request)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Queue of " + (queue.size() + queue.remainingCapacity()) + " requests is full");
+            }
+            accepted.increment();
+            return request.label;
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /** Main loop of a worker, runs until the batcher is closed and the queue is empty.
+     * */
+    private void work() {
+        List<Request> batch = new ArrayList<>(maxBatchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Request first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+
+                if (batch.size() < maxBatchSize && meanInterArrivalNanos < maxWaitNanos) {
+                    long deadline = first.arrivalNanos + maxWaitNanos;
+                    long remaining;
+                    while (batch.size() < maxBatchSize && (remaining = deadline - System.nanoTime()) > 0) {
+                        Request next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) break;
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatchSize - batch.size());
+                    }
+                }
+
+                process(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            for (Request request : batch) request.label.completeExceptionally(e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Recognizes one batch and completes its requests.
+     * <p>
+     * Any failure, also an {@link Error}, completes the requests of the batch exceptionally and the worker goes on,
+     * so no caller waits for an answer that never comes.
+     *
+     * @param batch requests of the batch.
+     * */
+    private void process(List<Request> batch) {
+        long start = System.nanoTime();
+        for (Request request : batch) queueLatency.record(start - request.arrivalNanos);
+
+        try {
+            MnistDataSet trainData = recognizer.getTrainData();
+            int imageSize = trainData.getImageSize();
+            byte[] pixels = new byte[batch.size() * imageSize];
+            for (int i = 0; i < batch.size(); i++) System.arraycopy(batch.get(i).pixels, 0, pixels, i * imageSize, imageSize);
+
+            MnistMatrix[] queries = new MnistDataSet(pixels, new byte[batch.size()],
+                    trainData.getNumberOfRows(), trainData.getNumberOfColumns()).toMatrices();
+            int[] labels = recognizer.recognizeBatch(queries);
+
+            batchLatency.record(System.nanoTime() - start);
+            batches.increment();
+            batchedRequests.add(batch.size());
+            for (int i = 0; i < batch.size(); i++) batch.get(i).label.complete(labels[i]);
+        } catch (Throwable e) {
+            for (Request request : batch) request.label.completeExceptionally(e);
+        }
+    }
+
+    /** Stops accepting requests, recognizes the queued ones and waits for the workers to finish.
+     * <p>
+     * Requests still queued after all workers finished, such as ones left by a worker that died,
+     * are completed with {@link RejectedExecutionException}.
+     * If the current thread is interrupted, it stops waiting and keeps the interrupt status.
+     * */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        try {
+            for (Thread worker : workers) worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Request request;
+        while ((request = queue.poll()) != null)
+            request.label.completeExceptionally(new RejectedExecutionException("Batcher is closed"));
+    }
+
+    /**
+     * @return number of pixels of accepted images.
+     * */
+    public int getImageSize() {
+        return recognizer.getTrainData().getImageSize();
+    }
+
+    /**
+     * @return {@link MicroBatcher#maxBatchSize}.
+     * */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * @return {@link MicroBatcher#maxWaitNanos} in microseconds.
+     * */
+    public long getMaxWaitMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(maxWaitNanos);
+    }
+
+    /**
+     * @return number of requests waiting in the queue.
+     * */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return number of accepted requests.
+     * */
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    /**
+     * @return number of requests rejected because the queue was full.
+     * */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of recognized batches.
+     * */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * @return mean number of requests per batch, 0 if no batch was recognized.
+     * */
+    public double getAverageBatchSize() {
+        long batches = this.batches.sum();
+        return batches == 0 ? 0 : (double) batchedRequests.sum() / batches;
+    }
+
+    /**
+     * @return {@link MicroBatcher#queueLatency}.
+     * */
+    public LatencyHistogram getQueueLatency() {
+        return queueLatency;
+    }
+
+    /**
+     * @return {@link MicroBatcher#batchLatency}.
+     * */
+    public LatencyHistogram getBatchLatency() {
+        return batchLatency;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Accepted: %d, rejected: %d, queued: %d, batches: %d, %.1f requests/batch%n"
+                        + "  queue wait: mean %.1fus, p99 %.1fus%n"
+                        + "  batch time: mean %.1fus, p99 %.1fus",
+                getAccepted(), getRejected(), getQueueSize(), getBatches(), getAverageBatchSize(),
+                queueLatency.getMean() / 1e3, queueLatency.getPercentile(0.99) / 1e3,
+                batchLatency.getMean() / 1e3, batchLatency.getPercentile(0.99) / 1e3);
+    }
+
+    /** One queued request.
+     * */
+    private static final class Request {
+
+        private final byte[] pixels;
+        private final long arrivalNanos;
+        private final CompletableFuture<Integer> label = new CompletableFuture<>();
+
+        private Request(byte[] pixels, long arrivalNanos) {
+            this.pixels = pixels;
+            this.arrivalNanos = arrivalNanos;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package digit_recognizer.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import digit_recognizer.MetricTypes;
+import digit_recognizer.Recognizer;
+import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistDataSet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <h1>Local HTTP server that recognizes raw images.</h1>
+ * <p>
+ * The server listens on the loopback address only:
+ * <ul>
+ *     <li>{@code POST /recognize} with the raw row-major pixels of one image as the body, 784 bytes for MNIST,
+ *     answers the recognized digit as text. A body of a wrong size gets {@code 400}, an overloaded server answers
+ *     {@code 503} with a {@code Retry-After} header.</li>
+ *     <li>{@code GET /stats} answers statistics of the {@link MicroBatcher}.</li>
+ * </ul>
+ * Concurrent requests are coalesced into micro-batches by the {@link MicroBatcher}. Handler threads never wait
+ * for recognition, the response is sent when the batch is done, so the number of requests in flight is bounded
+ * by the queue of the batcher and not by the number of threads.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class RecognitionServer implements AutoCloseable {
+
+    /** Path of the recognition endpoint.
+     * */
+    public static final String RECOGNIZE_PATH = "/recognize";
+
+    /** Path of the statistics endpoint.
+     * */
+    public static final String STATS_PATH = "/stats";
+
+    /** Default port of {@link RecognitionServer#main(String[])}.
+     * */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** Greatest number of seconds {@link RecognitionServer#close()} waits for answers to be written.
+     * */
+    public static final int STOP_DELAY_SECONDS = 1;
+
+    /** The batcher of requests.
+     * */
+    private final MicroBatcher batcher;
+
+    /** The underlying server.
+     * */
+    private final HttpServer server;
+
+    /** Threads that read requests and write responses.
+     * */
+    private final ExecutorService executor;
+
+    /** Constructor for the {@link RecognitionServer} class.
+     * <p>
+     * The server is bound at once and accepts requests after {@link RecognitionServer#start()}.
+     *
+     * @param batcher {@link RecognitionServer#batcher description}.
+     * @param port port to listen on, 0 for any free port.
+     * @throws IOException if the port can't be bound.
+     * */
+    public RecognitionServer(MicroBatcher batcher, int port) throws IOException {
+        this.batcher = batcher;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "recognition-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.setExecutor(executor);
+        server.createContext(RECOGNIZE_PATH, this::recognize);
+        server.createContext(STATS_PATH, exchange -> respond(exchange, 200, batcher.toString()));
+    }
+
+    /** Starts accepting requests.
+     * */
+    public void start() {
+        server.start();
+    }
+
+    /** Stops the server.
+     * <p>
+     * The batcher is closed first, so queued requests are recognized while their exchanges are still open, and
+     * requests that arrive meanwhile get {@code 503}. Then the server waits up to
+     * {@link RecognitionServer#STOP_DELAY_SECONDS} for the answers to be written before it closes the exchanges.
+     * */
+    @Override
+    public void close() {
+        batcher.close();
+        server.stop(STOP_DELAY_SECONDS);
+        executor.shutdown();
+    }
+
+    /**
+     * @return the bound port.
+     * */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * @return {@link RecognitionServer#batcher}.
+     * */
+    public MicroBatcher getBatcher() {
+        return batcher;
+    }
+
+    /** Handles {@code POST /recognize}.
+     *
+     * @param exchange {@link HttpExchange}.
+     * @throws IOException if the request can't be read.
+     * */
+    private void recognize(HttpExchange exchange) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set("Allow", "POST");
+            respond(exchange, 405, "Only POST is supported");
+            return;
+        }
+
+        byte[] pixels;
+        try (InputStream in = exchange.getRequestBody()) {
+            pixels = in.readNBytes(batcher.getImageSize() + 1);
+        }
+
+        CompletableFuture<Integer> label;
+        try {
+            label = batcher.submit(pixels);
+        } catch (IllegalArgumentException e) {
+            respond(exchange, 400, e.getMessage());
+            return;
+        } catch (RejectedExecutionException e) {
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            respond(exchange, 503, e.getMessage());
+            return;
+        }
+
+        label.whenCompleteAsync((digit, e) -> {
+            try {
+                if (e == null) respond(exchange, 200, digit.toString());
+                else respond(exchange, 500, String.valueOf(e.getMessage()));
+            } catch (IOException ignored) {
+                // the client is gone
+                exchange.close();
+            }
+        }, executor);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.US_ASCII);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=us-ascii");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Starts a server over the MNIST training data.
+     * <p>
+     * Arguments, all optional: port, greatest batch size, greatest wait in microseconds.
+     *
+     * @param args command line arguments.
+     * @throws IOException if the data can't be read or the port can't be bound.
+     * */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxBatchSize = args.length > 1 ? Integer.parseInt(args[1]) : MicroBatcher.DEFAULT_MAX_BATCH_SIZE;
+        long maxWaitMicros = args.length > 2 ? Long.parseLong(args[2]) : MicroBatcher.DEFAULT_MAX_WAIT_MICROS;
+
+        MnistDataSet trainData = new MnistDataReader().readDataSet("./MNIST/train-images.idx3-ubyte", "./MNIST/train-labels.idx1-ubyte");
+        Recognizer recognizer = new Recognizer(20, MetricTypes.TAXICAB, trainData);
+
+        MicroBatcher batcher = new MicroBatcher(recognizer, maxBatchSize, maxWaitMicros, MicroBatcher.DEFAULT_QUEUE_CAPACITY,
+                Runtime.getRuntime().availableProcessors());
+        RecognitionServer server = new RecognitionServer(batcher, port);
+        server.start();
+
+        System.out.println("Listening on http://" + server.server.getAddress().getHostString() + ":" + server.getPort() + RECOGNIZE_PATH);
+    }
+}
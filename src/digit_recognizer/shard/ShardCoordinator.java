@@ -0,0 +1,433 @@
+package digit_recognizer.shard;
+
+import digit_recognizer.NeighborHeap;
+import digit_recognizer.Recognizer;
+import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <h1>Coordinator of a recognizer sharded over several {@link ShardWorker}s.</h1>
+ * <p>
+ * Every request is sent to all shards at once, each shard answers the sorted local k nearest neighbors of every query.
+ * The coordinator merges the sorted lists, so the global k nearest neighbors are chosen by the same distances and
+ * the same tie rule as {@link NeighborHeap}, the lower index in the whole training set, and voted the same way
+ * as by {@link Recognizer}. With exact indexes on the workers, results match a single-node run exactly.
+ * <br>
+ * A shard that doesn't answer within {@link ShardCoordinator#timeoutMillis} or fails is handled by
+ * the {@link ShardFailurePolicies}. Connections are kept open and reused, a broken pooled connection
+ * is replaced once per request, so a restarted worker is picked up again. A request rejected by the worker,
+ * a {@link ShardWorkerException}, is not sent again.
+ * <br>
+ * Batches are sent in requests of at most {@link ShardCoordinator#QUERIES_PER_REQUEST} queries,
+ * so the time a shard needs for one request doesn't grow with the batch.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class ShardCoordinator implements AutoCloseable {
+
+    /** Default time to wait for all shards, in milliseconds.
+     * */
+    public static final int DEFAULT_TIMEOUT_MILLIS = 5000;
+
+    /** Greatest number of queries of one request, a few hundred queries are answered well within the default timeout.
+     * */
+    public static final int QUERIES_PER_REQUEST = 500;
+
+    /** Number of distinct labels, labels are unsigned bytes.
+     * */
+    private static final int NUMBER_OF_LABELS = 256;
+
+    /** The shards, one per worker.
+     * */
+    private final Shard[] shards;
+
+    /** The number of neighbors.
+     * */
+    private final int k;
+
+    /** Time to wait for all shards of a request, also the connect and read timeout of a connection, in milliseconds.
+     * */
+    private final int timeoutMillis;
+
+    /** What happens when a shard fails.
+     * */
+    private final ShardFailurePolicies failurePolicy;
+
+    /** Threads that talk to the shards.
+     * */
+    private final ExecutorService executor;
+
+    /** Number of requests sent to all shards.
+     * */
+    private final LongAdder requests = new LongAdder();
+
+    /** Number of failed or late answers of single shards.
+     * */
+    private final LongAdder shardFailures = new LongAdder();
+
+    /** Number of requests answered without some shards by {@link ShardFailurePolicies#PARTIAL}.
+     * */
+    private final LongAdder partialResults = new LongAdder();
+
+    /** Constructor for the {@link ShardCoordinator} class.
+     * <p>
+     * Connections are opened lazily by the first request.
+     *
+     * @param addresses addresses of the workers, one per shard.
+     * @param k {@link ShardCoordinator#k description}.
+     * @param timeoutMillis {@link ShardCoordinator#timeoutMillis description}.
+     * @param failurePolicy {@link ShardCoordinator#failurePolicy description}.
+     * */
+    public ShardCoordinator(List<InetSocketAddress> addresses, int k, int timeoutMillis, ShardFailurePolicies failurePolicy) {
+        if (addresses.isEmpty()) throw new IllegalArgumentException("At least one shard is required");
+        if (k < 1 || k > ShardProtocol.MAX_K) throw new IllegalArgumentException("k must be between 1 and " + ShardProtocol.MAX_K + ", got " + k);
+        if (timeoutMillis < 1) throw new IllegalArgumentException("Timeout must be positive, but got " + timeoutMillis);
+
+        this.shards = new Shard[addresses.size()];
+        for (int s = 0; s < shards.length; s++) shards[s] = new Shard(addresses.get(s));
+        this.k = k;
+        this.timeoutMillis = timeoutMillis;
+        this.failurePolicy = failurePolicy;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "shard-coordinator-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Returns the recognized digit.
+     *
+     * @param matrix a simple {@link MnistMatrix} that needs to be recognized.
+     * @throws UncheckedIOException if shards failed, see {@link ShardFailurePolicies}.
+     * @return recognized digit.
+     * */
+    public int recognize(MnistMatrix matrix) {
+        return recognizeBatch(new MnistMatrix[]{matrix})[0];
+    }
+
+    /** Returns recognized digits of many matrices.
+     * <p>
+     * Queries are sent to the shards in requests of at most {@link ShardCoordinator#QUERIES_PER_REQUEST},
+     * each of them with its own {@link ShardCoordinator#timeoutMillis}.
+     *
+     * @param queries an array of {@link MnistMatrix} of the same size.
+     * @throws UncheckedIOException if shards failed, see {@link ShardFailurePolicies}.
+     * @return recognized digits, in the order of queries.
+     * */
+    public int[] recognizeBatch(MnistMatrix[] queries) {
+        int[] labels = new int[queries.length];
+        double[] votes = new double[NUMBER_OF_LABELS];
+        int[] cursors = new int[shards.length];
+        int[] indices = new int[k];
+        int[] neighborLabels = new int[k];
+
+        for (int from = 0; from < queries.length; from += QUERIES_PER_REQUEST) {
+            int to = Math.min(from + QUERIES_PER_REQUEST, queries.length);
+            ShardProtocol.Response[] responses = search(queries, from, to);
+
+            for (int q = from; q < to; q++) {
+                int count = merge(responses, q - from, cursors, indices, neighborLabels);
+                labels[q] = Recognizer.majority(neighborLabels, count, votes);
+            }
+        }
+
+        return labels;
+    }
+
+    /** Returns the global nearest neighbors of the matrix.
+     *
+     * @param matrix a simple {@link MnistMatrix}.
+     * @throws UncheckedIOException if shards failed, see {@link ShardFailurePolicies}.
+     * @return indices in the whole training set of the k nearest images, from the nearest to the farthest.
+     * */
+    public int[] findNeighbors(MnistMatrix matrix) {
+        ShardProtocol.Response[] responses = search(new MnistMatrix[]{matrix}, 0, 1);
+        int[] indices = new int[k];
+        int count = merge(responses, 0, new int[shards.length], indices, new int[k]);
+        return Arrays.copyOf(indices, count);
+    }
+
+    /** Sends queries to all shards and waits for their answers.
+     *
+     * @param queries an array of {@link MnistMatrix} of the same size.
+     * @param from index of the first query, inclusive.
+     * @param to index of the last query, exclusive.
+     * @throws UncheckedIOException if shards failed, see {@link ShardFailurePolicies}.
+     * @return answer of every shard, null for failed shards.
+     * */
+    private ShardProtocol.Response[] search(MnistMatrix[] queries, int from, int to) {
+        int numberOfQueries = to - from;
+        int nRows = numberOfQueries > 0 ? queries[from].getNumberOfRows() : 0;
+        int nCols = numberOfQueries > 0 ? queries[from].getNumberOfColumns() : 0;
+        int imageSize = nRows * nCols;
+
+        byte[] pixels = new byte[numberOfQueries * imageSize];
+        for (int q = from; q < to; q++) {
+            MnistMatrix query = queries[q];
+            if (query.getNumberOfRows() != nRows || query.getNumberOfColumns() != nCols)
+                throw new IllegalArgumentException("All matrices must be " + nRows + "x" + nCols);
+            System.arraycopy(query.getData(), query.getOffset(), pixels, (q - from) * imageSize, imageSize);
+        }
+
+        requests.increment();
+        List<Future<ShardProtocol.Response>> futures = new ArrayList<>(shards.length);
+        for (Shard shard : shards) futures.add(executor.submit(() -> shard.search(k, numberOfQueries, imageSize, pixels)));
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        ShardProtocol.Response[] responses = new ShardProtocol.Response[shards.length];
+        IOException failure = null;
+        int numberOfFailures = 0;
+
+        for (int s = 0; s < shards.length; s++) {
+            Future<ShardProtocol.Response> future = futures.get(s);
+            try {
+                responses[s] = future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                continue;
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                if (failure == null) failure = new SocketTimeoutException("Shard " + shards[s].address + " didn't answer in " + timeoutMillis + "ms");
+            } catch (ExecutionException e) {
+                if (failure == null) failure = new IOException("Shard " + shards[s].address + " failed", e.getCause());
+            } catch (InterruptedException e) {
+                for (Future<ShardProtocol.Response> pending : futures) pending.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for shards"));
+            }
+            numberOfFailures++;
+            shardFailures.increment();
+        }
+
+        if (numberOfFailures > 0) {
+            if (failurePolicy == ShardFailurePolicies.FAIL || numberOfFailures == shards.length)
+                throw new UncheckedIOException(numberOfFailures + " of " + shards.length + " shards failed", failure);
+            partialResults.increment();
+        }
+        return responses;
+    }
+
+    /** Merges the neighbors of one query from all shards, keeping the k nearest.
+     * <p>
+     * Every shard sends its neighbors sorted, so the lists are merged with one cursor per shard in {@code O(k * shards)},
+     * ties are broken by {@link NeighborHeap#isWorse} like in a single {@link Recognizer}. The label of every neighbor
+     * is taken along with its index.
+     *
+     * @param responses answers of the shards, null for failed ones.
+     * @param q position of the query in the request.
+     * @param cursors reused positions in the lists of the shards, one per shard.
+     * @param indices receives indices of the merged neighbors, from the nearest to the farthest.
+     * @param labels receives labels of the merged neighbors, in the same order.
+     * @return number of merged neighbors, at most k.
+     * */
+    private int merge(ShardProtocol.Response[] responses, int q, int[] cursors, int[] indices, int[] labels) {
+        Arrays.fill(cursors, 0);
+        int count = 0;
+
+        while (count < k) {
+            int nearest = -1;
+            for (int s = 0; s < responses.length; s++) {
+                ShardProtocol.Response response = responses[s];
+                if (response == null || cursors[s] == response.indices[q].length) continue;
+                if (nearest == -1 || NeighborHeap.isWorse(
+                        responses[nearest].distances[q][cursors[nearest]], responses[nearest].indices[q][cursors[nearest]],
+                        response.distances[q][cursors[s]], response.indices[q][cursors[s]])) nearest = s;
+            }
+            if (nearest == -1) break;
+
+            int i = cursors[nearest]++;
+            indices[count] = responses[nearest].indices[q][i];
+            labels[count] = responses[nearest].labels[q][i] & 0xFF;
+            count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * @return number of shards.
+     * */
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * @return {@link ShardCoordinator#k}.
+     * */
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * @return number of requests sent to all shards.
+     * */
+    public long getNumberOfRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of failed or late answers of single shards.
+     * */
+    public long getNumberOfShardFailures() {
+        return shardFailures.sum();
+    }
+
+    /**
+     * @return number of requests answered without some shards.
+     * */
+    public long getNumberOfPartialResults() {
+        return partialResults.sum();
+    }
+
+    /** Stops the threads and closes all connections.
+     * */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (Shard shard : shards) shard.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Shards: %d, requests: %d, shard failures: %d, partial results: %d (%s)",
+                shards.length, getNumberOfRequests(), getNumberOfShardFailures(), getNumberOfPartialResults(), failurePolicy);
+    }
+
+    /** Connections to one worker.
+     * */
+    private final class Shard {
+
+        /** Address of the worker.
+         * */
+        private final InetSocketAddress address;
+
+        /** Open connections that are not used by a request.
+         * */
+        private final Queue<Connection> idle = new ConcurrentLinkedQueue<>();
+
+        private Shard(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /** Sends a request over an idle connection, or a new one.
+         *
+         * @param k the number of neighbors.
+         * @param numberOfQueries number of queries.
+         * @param imageSize number of pixels of every query.
+         * @param pixels pixels of all queries.
+         * @throws ShardWorkerException if the worker rejects the request.
+         * @throws IOException if the request fails.
+         * @return {@link ShardProtocol.Response}.
+         * */
+        private ShardProtocol.Response search(int k, int numberOfQueries, int imageSize, byte[] pixels) throws IOException {
+            Connection connection = idle.poll();
+            if (connection != null) {
+                try {
+                    return search(connection, k, numberOfQueries, imageSize, pixels);
+                } catch (SocketTimeoutException | ShardWorkerException e) {
+                    // a late or rejecting worker would answer a new connection the same way
+                    throw e;
+                } catch (IOException e) {
+                    // the worker may have been restarted since the connection was opened, so try a new one
+                }
+            }
+            return search(new Connection(address, timeoutMillis), k, numberOfQueries, imageSize, pixels);
+        }
+
+        private ShardProtocol.Response search(Connection connection, int k, int numberOfQueries, int imageSize, byte[] pixels) throws IOException {
+            try {
+                ShardProtocol.writeRequest(connection.out, k, numberOfQueries, imageSize, pixels);
+                ShardProtocol.Response response = ShardProtocol.readResponse(connection.in, numberOfQueries);
+                idle.offer(connection);
+                return response;
+            } catch (IOException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            for (Connection connection = idle.poll(); connection != null; connection = idle.poll()) connection.close();
+        }
+    }
+
+    /** One open connection to a worker.
+     * */
+    private static final class Connection {
+
+        private final Socket socket;
+
+        private final DataInputStream in;
+
+        private final DataOutputStream out;
+
+        private Connection(InetSocketAddress address, int timeoutMillis) throws IOException {
+            this.socket = new Socket();
+            try {
+                socket.connect(address, timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 64 * 1024));
+                this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        private void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // the socket is closed anyway
+            }
+        }
+    }
+
+    /** Recognizes the MNIST test data with workers started by {@link ShardWorker#main(String[])}.
+     * <p>
+     * Arguments: k, then the addresses of the workers as {@code host:port}, in the order of their shards.
+     *
+     * @param args command line arguments.
+     * @throws IOException if the test data can't be read.
+     * */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardCoordinator <k> <host:port>...");
+            return;
+        }
+        int k = Integer.parseInt(args[0]);
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            int colon = args[i].lastIndexOf(':');
+            addresses.add(new InetSocketAddress(args[i].substring(0, colon), Integer.parseInt(args[i].substring(colon + 1))));
+        }
+
+        MnistMatrix[] testMatrices = new MnistDataReader().readData("./MNIST/t10k-images.idx3-ubyte", "./MNIST/t10k-labels.idx1-ubyte");
+        try (ShardCoordinator coordinator = new ShardCoordinator(addresses, k, DEFAULT_TIMEOUT_MILLIS, ShardFailurePolicies.FAIL)) {
+            long start = System.nanoTime();
+            int errors = 0;
+            int[] labels = coordinator.recognizeBatch(testMatrices);
+            for (int i = 0; i < labels.length; i++) if (labels[i] != testMatrices[i].getLabel()) errors++;
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("Recognized: %d, errors: %d (%.2f%%), time: %.2fs%n",
+                    testMatrices.length, errors, 100d * errors / Math.max(1, testMatrices.length), elapsed / 1e9);
+            System.out.println(coordinator);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package digit_recognizer.shard;
+
+/**
+ * <h1>Enum that contains failure policies of the {@link ShardCoordinator}.</h1>
+ * <p>
+ * Enum that decides what happens when a shard fails or doesn't answer in time.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public enum ShardFailurePolicies {
+    /** The whole request fails.
+     * <p>
+     * Results always match a single-node run, or there are none.
+     * */
+    FAIL,
+    /** Neighbors of the shards that answered are voted.
+     * <p>
+     * The service stays available, but results may differ from a single-node run while a shard is down.
+     * The request still fails if no shard answers.
+     * */
+    PARTIAL
+}
@@ -0,0 +1,136 @@
+package digit_recognizer.shard;
+
+import digit_recognizer.NeighborHeap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * <h1>Binary protocol between {@link ShardCoordinator} and {@link ShardWorker}.</h1>
+ * <p>
+ * A connection carries any number of requests, one after another, all numbers are big-endian.
+ * <ul>
+ *     <li>Request: magic, {@link ShardProtocol#SEARCH}, {@code int k}, {@code int numberOfQueries},
+ *     {@code int imageSize}, then {@code numberOfQueries * imageSize} unsigned pixels.</li>
+ *     <li>Response: magic, {@link ShardProtocol#OK}, then for every query {@code int numberOfNeighbors} and
+ *     for every neighbor {@code double distance}, {@code int index} in the whole training set, {@code byte label},
+ *     neighbors are sorted from the nearest, by the order of {@link NeighborHeap#isWorse}; or magic, {@link ShardProtocol#ERROR} and the message as modified UTF-8.</li>
+ * </ul>
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+final class ShardProtocol {
+
+    /** First int of every request and response, "KNN1".
+     * */
+    static final int MAGIC = 0x4B4E4E31;
+
+    /** Opcode of a search request.
+     * */
+    static final byte SEARCH = 1;
+
+    /** Status of a successful response.
+     * */
+    static final byte OK = 0;
+
+    /** Status of a failed response.
+     * */
+    static final byte ERROR = 1;
+
+    /** Greatest number of neighbors per query.
+     * */
+    static final int MAX_K = 4096;
+
+    /** Greatest number of queries per request.
+     * */
+    static final int MAX_QUERIES = 65536;
+
+    private ShardProtocol() {}
+
+    /** Writes a search request.
+     *
+     * @param out stream of the connection.
+     * @param k the number of neighbors.
+     * @param numberOfQueries number of queries.
+     * @param imageSize number of pixels of every query.
+     * @param pixels pixels of all queries, one after another.
+     * @throws IOException if the connection fails.
+     * */
+    static void writeRequest(DataOutputStream out, int k, int numberOfQueries, int imageSize, byte[] pixels) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(SEARCH);
+        out.writeInt(k);
+        out.writeInt(numberOfQueries);
+        out.writeInt(imageSize);
+        out.write(pixels, 0, numberOfQueries * imageSize);
+        out.flush();
+    }
+
+    /** Reads a response.
+     *
+     * @param in stream of the connection.
+     * @param numberOfQueries number of queries of the request.
+     * @throws ShardWorkerException if the worker reports an error.
+     * @throws IOException if the connection fails or the response is malformed or unsorted.
+     * @return {@link Response}.
+     * */
+    static Response readResponse(DataInputStream in, int numberOfQueries) throws IOException {
+        checkMagic(in.readInt());
+        byte status = in.readByte();
+        if (status == ERROR) throw new ShardWorkerException(in.readUTF());
+        if (status != OK) throw new IOException("Unknown status " + status);
+
+        Response response = new Response(numberOfQueries);
+        for (int q = 0; q < numberOfQueries; q++) {
+            int numberOfNeighbors = in.readInt();
+            if (numberOfNeighbors < 0 || numberOfNeighbors > MAX_K) throw new IOException("Invalid number of neighbors " + numberOfNeighbors);
+
+            response.distances[q] = new double[numberOfNeighbors];
+            response.indices[q] = new int[numberOfNeighbors];
+            response.labels[q] = new byte[numberOfNeighbors];
+            for (int i = 0; i < numberOfNeighbors; i++) {
+                response.distances[q][i] = in.readDouble();
+                response.indices[q][i] = in.readInt();
+                response.labels[q][i] = in.readByte();
+                if (i > 0 && NeighborHeap.isWorse(response.distances[q][i - 1], response.indices[q][i - 1],
+                        response.distances[q][i], response.indices[q][i])) throw new IOException("Neighbors are not sorted");
+            }
+        }
+        return response;
+    }
+
+    /** Checks the first int of a message.
+     *
+     * @param magic the read int.
+     * @throws IOException if it is not {@link ShardProtocol#MAGIC}.
+     * */
+    static void checkMagic(int magic) throws IOException {
+        if (magic != MAGIC) throw new IOException("Expected magic number " + MAGIC + ", got " + magic);
+    }
+
+    /** Local neighbors of every query of one request.
+     * */
+    static final class Response {
+
+        /** Distances of neighbors of every query.
+         * */
+        final double[][] distances;
+
+        /** Indices of neighbors in the whole training set.
+         * */
+        final int[][] indices;
+
+        /** Labels of neighbors.
+         * */
+        final byte[][] labels;
+
+        private Response(int numberOfQueries) {
+            this.distances = new double[numberOfQueries][];
+            this.indices = new int[numberOfQueries][];
+            this.labels = new byte[numberOfQueries][];
+        }
+    }
+}
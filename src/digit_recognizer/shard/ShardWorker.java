@@ -0,0 +1,300 @@
+package digit_recognizer.shard;
+
+import digit_recognizer.MetricTypes;
+import digit_recognizer.NeighborHeap;
+import digit_recognizer.NeighborIndex;
+import digit_recognizer.Recognizer;
+import utils.mnist_data_io.MnistDataReader;
+import utils.mnist_data_io.MnistDataSet;
+import utils.mnist_data_io.MnistMatrix;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>Worker that searches one shard of the training set.</h1>
+ * <p>
+ * The worker owns a {@link Recognizer} over a contiguous range of the training set which starts at
+ * {@link ShardWorker#globalOffset}. For every request of a {@link ShardCoordinator} it runs the neighbor search
+ * of the recognizer's {@link NeighborIndex} and answers only the local k nearest neighbors of every query,
+ * with their distances, labels and indices in the whole training set, see {@link ShardProtocol}.
+ * <br>
+ * Every connection is served by its own thread, queries of one request are searched in parallel blocks.
+ * The training data of the recognizer must not be replaced while the worker runs.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class ShardWorker implements AutoCloseable {
+
+    /** Number of queries searched together by {@link NeighborIndex#searchBatch}.
+     * */
+    private static final int QUERY_BLOCK_SIZE = 32;
+
+    /** Size in bytes of the stream buffers.
+     * */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The recognizer over the shard.
+     * */
+    private final Recognizer recognizer;
+
+    /** Index of the first image of the shard in the whole training set.
+     * */
+    private final int globalOffset;
+
+    /** The listening socket.
+     * */
+    private final ServerSocket serverSocket;
+
+    /** Thread that accepts connections.
+     * */
+    private final Thread acceptor;
+
+    /** Open connections, closed by {@link ShardWorker#close()}.
+     * */
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    /** Constructor for the {@link ShardWorker} class, the worker starts listening at once.
+     *
+     * @param recognizer {@link ShardWorker#recognizer description}.
+     * @param globalOffset {@link ShardWorker#globalOffset description}.
+     * @param address address to listen on, port 0 picks a free port.
+     * @throws IOException if the address can't be bound.
+     * */
+    public ShardWorker(Recognizer recognizer, int globalOffset, InetSocketAddress address) throws IOException {
+        this.recognizer = recognizer;
+        this.globalOffset = globalOffset;
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+
+        this.acceptor = new Thread(this::accept, "shard-worker-" + getPort());
+        acceptor.start();
+    }
+
+    /** Returns the index of the first image of a shard.
+     * <p>
+     * The training set is split into contiguous shards whose sizes differ by at most one.
+     *
+     * @param size number of images of the training set.
+     * @param shard index of the shard.
+     * @param numberOfShards number of shards.
+     * @return index of the first image of the shard, {@code shardStart(size, numberOfShards, numberOfShards)} is the size.
+     * */
+    public static int shardStart(int size, int shard, int numberOfShards) {
+        return (int) ((long) size * shard / numberOfShards);
+    }
+
+    /** Accepts connections until the worker is closed.
+     * */
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+
+                Thread thread = new Thread(() -> serve(socket), "shard-worker-connection-" + socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) System.err.println("Shard worker failed to accept a connection: " + e);
+            }
+        }
+    }
+
+    /** Answers requests of one connection until it is closed.
+     *
+     * @param socket the connection.
+     * */
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), BUFFER_SIZE))) {
+
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                ShardProtocol.checkMagic(magic);
+                byte opcode = in.readByte();
+                int k = in.readInt();
+                int numberOfQueries = in.readInt();
+                int imageSize = in.readInt();
+
+                String error = validate(opcode, k, numberOfQueries, imageSize);
+                if (error != null) {
+                    // the payload can't be skipped safely, so the connection is closed after the error
+                    writeError(out, error);
+                    return;
+                }
+
+                byte[] pixels = new byte[numberOfQueries * imageSize];
+                in.readFully(pixels);
+
+                NeighborHeap[] neighbors;
+                try {
+                    neighbors = search(k, numberOfQueries, pixels);
+                } catch (RuntimeException e) {
+                    writeError(out, String.valueOf(e));
+                    continue;
+                }
+                writeNeighbors(out, neighbors);
+            }
+        } catch (SocketException | EOFException e) {
+            // the coordinator or close() closed the connection
+        } catch (IOException e) {
+            System.err.println("Shard worker connection failed: " + e);
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    /** Checks a request header.
+     *
+     * @param opcode opcode of the request.
+     * @param k the number of neighbors.
+     * @param numberOfQueries number of queries.
+     * @param imageSize number of pixels of every query.
+     * @return the error message, or null if the request is valid.
+     * */
+    private String validate(byte opcode, int k, int numberOfQueries, int imageSize) {
+        if (opcode != ShardProtocol.SEARCH) return "Unknown opcode " + opcode;
+        if (k < 1 || k > ShardProtocol.MAX_K) return "k must be between 1 and " + ShardProtocol.MAX_K + ", got " + k;
+        if (numberOfQueries < 0 || numberOfQueries > ShardProtocol.MAX_QUERIES)
+            return "Number of queries must be between 0 and " + ShardProtocol.MAX_QUERIES + ", got " + numberOfQueries;
+        int expected = recognizer.getTrainData().getImageSize();
+        if (imageSize != expected) return "Expected images of " + expected + " pixels, got " + imageSize;
+        return null;
+    }
+
+    /** Finds local neighbors of all queries.
+     *
+     * @param k the number of neighbors.
+     * @param numberOfQueries number of queries.
+     * @param pixels pixels of all queries.
+     * @return sorted {@link NeighborHeap} of every query, indices are local.
+     * */
+    private NeighborHeap[] search(int k, int numberOfQueries, byte[] pixels) {
+        MnistDataSet trainData = recognizer.getTrainData();
+        NeighborIndex index = recognizer.getIndex();
+        MnistMatrix[] queries = new MnistDataSet(pixels, new byte[numberOfQueries],
+                trainData.getNumberOfRows(), trainData.getNumberOfColumns()).toMatrices();
+
+        NeighborHeap[] neighbors = new NeighborHeap[numberOfQueries];
+        for (int q = 0; q < numberOfQueries; q++) neighbors[q] = new NeighborHeap(k);
+
+        int numberOfBlocks = (numberOfQueries + QUERY_BLOCK_SIZE - 1) / QUERY_BLOCK_SIZE;
+        IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+            int from = block * QUERY_BLOCK_SIZE;
+            int to = Math.min(from + QUERY_BLOCK_SIZE, numberOfQueries);
+            index.searchBatch(queries, from, to, Arrays.copyOfRange(neighbors, from, to));
+        });
+
+        for (NeighborHeap heap : neighbors) heap.sort();
+        return neighbors;
+    }
+
+    private void writeNeighbors(DataOutputStream out, NeighborHeap[] neighbors) throws IOException {
+        MnistDataSet trainData = recognizer.getTrainData();
+        out.writeInt(ShardProtocol.MAGIC);
+        out.writeByte(ShardProtocol.OK);
+        for (NeighborHeap heap : neighbors) {
+            out.writeInt(heap.size());
+            for (int i = 0; i < heap.size(); i++) {
+                out.writeDouble(heap.getDistance(i));
+                out.writeInt(globalOffset + heap.getIndex(i));
+                out.writeByte(trainData.getLabel(heap.getIndex(i)));
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeError(DataOutputStream out, String message) throws IOException {
+        out.writeInt(ShardProtocol.MAGIC);
+        out.writeByte(ShardProtocol.ERROR);
+        out.writeUTF(message);
+        out.flush();
+    }
+
+    /**
+     * @return the port the worker listens on.
+     * */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return {@link ShardWorker#globalOffset}.
+     * */
+    public int getGlobalOffset() {
+        return globalOffset;
+    }
+
+    /** Stops listening and closes all connections.
+     * <p>
+     * If the current thread is interrupted, it stops waiting and keeps the interrupt status.
+     * */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // the socket is closed anyway
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // the socket is closed anyway
+            }
+        }
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Starts a worker over one shard of the MNIST training data.
+     * <p>
+     * Arguments: index of the shard, number of shards, port, and optionally the metric and the address to listen on,
+     * {@link MetricTypes#TAXICAB} and the loopback address by default. All workers of a coordinator must use the same metric.
+     *
+     * @param args command line arguments.
+     * @throws IOException if the data can't be read or the port can't be bound.
+     * */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: ShardWorker <shard> <number of shards> <port> [TAXICAB|EUCLIDEAN] [address]");
+            return;
+        }
+        int shard = Integer.parseInt(args[0]);
+        int numberOfShards = Integer.parseInt(args[1]);
+        int port = Integer.parseInt(args[2]);
+        MetricTypes metricType = args.length > 3 ? MetricTypes.valueOf(args[3]) : MetricTypes.TAXICAB;
+        InetAddress address = args.length > 4 ? InetAddress.getByName(args[4]) : InetAddress.getLoopbackAddress();
+
+        MnistDataSet trainData = new MnistDataReader().readDataSet("./MNIST/train-images.idx3-ubyte", "./MNIST/train-labels.idx1-ubyte");
+        int start = shardStart(trainData.size(), shard, numberOfShards);
+        int end = shardStart(trainData.size(), shard + 1, numberOfShards);
+        MnistDataSet shardData = trainData.subset(IntStream.range(start, end).toArray());
+
+        // k of the recognizer is not used, every request carries its own k
+        ShardWorker worker = new ShardWorker(new Recognizer(1, metricType, shardData), start, new InetSocketAddress(address, port));
+        System.out.println("Shard " + shard + "/" + numberOfShards + " with images " + start + ".." + (end - 1)
+                + " listens on " + address.getHostAddress() + ":" + worker.getPort());
+    }
+}
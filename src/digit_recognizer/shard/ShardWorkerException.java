@@ -0,0 +1,27 @@
+package digit_recognizer.shard;
+
+import java.io.IOException;
+
+/**
+ * <h1>Error reported by a {@link ShardWorker} in a response.</h1>
+ * <p>
+ * The worker received the request and rejected it, such as a request with an invalid k or image size.
+ * Sending the same request again gives the same answer, so unlike transport failures it is not retried
+ * by the {@link ShardCoordinator}.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class ShardWorkerException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Constructor for the {@link ShardWorkerException} class.
+     *
+     * @param message the message sent by the worker.
+     * */
+    public ShardWorkerException(String message) {
+        super("Worker error: " + message);
+    }
+}
@@ -1,6 +1,13 @@
 package utils.mnist_data_io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * <h1>MNIST data reader class.</h1>
@@ -13,6 +20,14 @@ import java.io.*;
  */
 public class MnistDataReader  {
 
+    /** Magic number of IDX files with unsigned byte images, the idx3-ubyte files.
+     * */
+    public static final int IMAGES_MAGIC_NUMBER = 0x00000803;
+
+    /** Magic number of IDX files with unsigned byte labels, the idx1-ubyte files.
+     * */
+    public static final int LABELS_MAGIC_NUMBER = 0x00000801;
+
     /** The show info trigger.
      * <p>
      * If set to true, print Mnist dataset info.
@@ -41,42 +56,147 @@ public class MnistDataReader  {
      * @return {@link MnistMatrix[]}.
      * */
     public MnistMatrix[] readData(String dataFilePath, String labelFilePath) throws IOException {
+        return readDataSet(dataFilePath, labelFilePath).toMatrices();
+    }
 
-        DataInputStream dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(dataFilePath)));
-        int magicNumber = dataInputStream.readInt();
-        int numberOfItems = dataInputStream.readInt();
-        int nRows = dataInputStream.readInt();
-        int nCols = dataInputStream.readInt();
-
-        DataInputStream labelInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(labelFilePath)));
-        int labelMagicNumber = labelInputStream.readInt();
-        int numberOfLabels = labelInputStream.readInt();
-
-        if (showInfo) {
-            System.out.println("magic number is " + magicNumber);
-            System.out.println("number of items is " + numberOfItems);
-            System.out.println("number of rows is: " + nRows);
-            System.out.println("number of cols is: " + nCols);
-            System.out.println("labels magic number is: " + labelMagicNumber);
-            System.out.println("number of labels is: " + numberOfLabels);
+    /** Returns {@link MnistDataSet}.
+     * <p>
+     * Memory-maps both IDX files, validates their headers and copies pixels and labels
+     * into one packed {@link MnistDataSet} with two bulk copies.
+     * Gzip-compressed files, ending with ".gz", are decompressed into the data set instead.
+     *
+     * @param dataFilePath path to the MNIST dataset file.
+     * @param labelFilePath path to the MNIST label file.
+     * @throws IOException if something wrong with files.
+     * @return {@link MnistDataSet}.
+     * */
+    public MnistDataSet readDataSet(String dataFilePath, String labelFilePath) throws IOException {
+        if (MnistSpliterator.isGzip(dataFilePath) || MnistSpliterator.isGzip(labelFilePath)) {
+            try (MnistSpliterator spliterator = spliterator(dataFilePath, labelFilePath)) {
+                return spliterator.readAll();
+            }
         }
 
-        MnistMatrix[] data = new MnistMatrix[numberOfItems];
+        try (FileChannel dataChannel = FileChannel.open(Paths.get(dataFilePath), StandardOpenOption.READ);
+             FileChannel labelChannel = FileChannel.open(Paths.get(labelFilePath), StandardOpenOption.READ)) {
+
+            MappedByteBuffer dataBuffer = map(dataChannel, dataFilePath);
+            MappedByteBuffer labelBuffer = map(labelChannel, labelFilePath);
+
+            int magicNumber = readHeaderInt(dataBuffer, dataFilePath);
+            int numberOfItems = readHeaderInt(dataBuffer, dataFilePath);
+            int nRows = readHeaderInt(dataBuffer, dataFilePath);
+            int nCols = readHeaderInt(dataBuffer, dataFilePath);
 
-        assert numberOfItems == numberOfLabels;
+            int labelMagicNumber = readHeaderInt(labelBuffer, labelFilePath);
+            int numberOfLabels = readHeaderInt(labelBuffer, labelFilePath);
 
-        for(int i = 0; i < numberOfItems; i++) {
-            MnistMatrix mnistMatrix = new MnistMatrix(nRows, nCols);
-            mnistMatrix.setLabel(labelInputStream.readUnsignedByte());
-            for (int r = 0; r < nRows; r++) {
-                for (int c = 0; c < nCols; c++) {
-                    mnistMatrix.setValue(r, c, dataInputStream.readUnsignedByte());
-                }
+            if (showInfo) {
+                System.out.println("magic number is " + magicNumber);
+                System.out.println("number of items is " + numberOfItems);
+                System.out.println("number of rows is: " + nRows);
+                System.out.println("number of cols is: " + nCols);
+                System.out.println("labels magic number is: " + labelMagicNumber);
+                System.out.println("number of labels is: " + numberOfLabels);
             }
-            data[i] = mnistMatrix;
+
+            validateHeaders(dataFilePath, labelFilePath, magicNumber, numberOfItems, nRows, nCols, labelMagicNumber, numberOfLabels);
+
+            long numberOfPixels = (long) numberOfItems * nRows * nCols;
+            if (numberOfPixels > Integer.MAX_VALUE - 8)
+                throw new IOException(dataFilePath + ": " + numberOfPixels + " pixels don't fit into one data set, use stream() instead");
+            if (dataBuffer.remaining() != numberOfPixels)
+                throw new IOException(dataFilePath + ": expected " + numberOfPixels + " bytes of pixels, got " + dataBuffer.remaining());
+            if (labelBuffer.remaining() != numberOfLabels)
+                throw new IOException(labelFilePath + ": expected " + numberOfLabels + " labels, got " + labelBuffer.remaining());
+
+            byte[] pixels = new byte[(int) numberOfPixels];
+            byte[] labels = new byte[numberOfLabels];
+            dataBuffer.get(pixels);
+            labelBuffer.get(labels);
+
+            return new MnistDataSet(pixels, labels, nRows, nCols);
         }
-        dataInputStream.close();
-        labelInputStream.close();
-        return data;
+    }
+
+    /** Returns a {@link MnistSpliterator} over image and label pairs of the files.
+     * <p>
+     * Images are read lazily, files may be gzip-compressed and larger than the heap.
+     * The spliterator must be closed after use.
+     *
+     * @param dataFilePath path to the MNIST dataset file, gzip-compressed if it ends with ".gz".
+     * @param labelFilePath path to the MNIST label file, gzip-compressed if it ends with ".gz".
+     * @throws IOException if something wrong with files.
+     * @return {@link MnistSpliterator}.
+     * */
+    public MnistSpliterator spliterator(String dataFilePath, String labelFilePath) throws IOException {
+        return new MnistSpliterator(dataFilePath, labelFilePath, MnistSpliterator.DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /** Returns a {@link Stream} of image and label pairs of the files.
+     * <p>
+     * Images are read lazily through {@link MnistSpliterator}, so only a bounded number of them is kept in memory.
+     * A parallel stream splits off batches of images which are processed while the next ones are read.
+     * The stream must be closed after use, I/O errors are thrown as {@link UncheckedIOException}.
+     *
+     * @param dataFilePath path to the MNIST dataset file, gzip-compressed if it ends with ".gz".
+     * @param labelFilePath path to the MNIST label file, gzip-compressed if it ends with ".gz".
+     * @throws IOException if something wrong with files.
+     * @return {@link Stream} of {@link MnistMatrix}.
+     * */
+    public Stream<MnistMatrix> stream(String dataFilePath, String labelFilePath) throws IOException {
+        MnistSpliterator spliterator = spliterator(dataFilePath, labelFilePath);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /** Checks headers of the IDX files.
+     *
+     * @param dataFilePath path to the MNIST dataset file, used in error messages.
+     * @param labelFilePath path to the MNIST label file, used in error messages.
+     * @param magicNumber magic number of the dataset file.
+     * @param numberOfItems number of images.
+     * @param nRows number of rows of every image.
+     * @param nCols number of columns of every image.
+     * @param labelMagicNumber magic number of the label file.
+     * @param numberOfLabels number of labels.
+     * @throws IOException if headers are invalid or don't match each other.
+     * */
+    static void validateHeaders(String dataFilePath, String labelFilePath, int magicNumber, int numberOfItems, int nRows, int nCols,
+                                int labelMagicNumber, int numberOfLabels) throws IOException {
+        if (magicNumber != IMAGES_MAGIC_NUMBER)
+            throw new IOException(dataFilePath + ": expected magic number " + IMAGES_MAGIC_NUMBER + ", got " + magicNumber);
+        if (labelMagicNumber != LABELS_MAGIC_NUMBER)
+            throw new IOException(labelFilePath + ": expected magic number " + LABELS_MAGIC_NUMBER + ", got " + labelMagicNumber);
+        if (numberOfItems < 0 || nRows <= 0 || nCols <= 0)
+            throw new IOException(dataFilePath + ": invalid dimensions " + numberOfItems + "x" + nRows + "x" + nCols);
+        if (numberOfItems != numberOfLabels)
+            throw new IOException("Number of images (" + numberOfItems + ") doesn't match number of labels (" + numberOfLabels + ")");
+    }
+
+    /** Maps the whole file into memory.
+     *
+     * @param channel {@link FileChannel} of the file.
+     * @param filePath path to the file, used in error messages.
+     * @throws IOException if the file is too large to be mapped.
+     * @return {@link MappedByteBuffer}.
+     * */
+    private static MappedByteBuffer map(FileChannel channel, String filePath) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+            throw new IOException(filePath + ": file of " + size + " bytes is too large");
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /** Reads one big-endian int of the IDX header.
+     *
+     * @param buffer {@link ByteBuffer} of the file.
+     * @param filePath path to the file, used in error messages.
+     * @throws IOException if the file is shorter than its header.
+     * @return the value.
+     * */
+    private static int readHeaderInt(ByteBuffer buffer, String filePath) throws IOException {
+        if (buffer.remaining() < Integer.BYTES)
+            throw new IOException(filePath + ": unexpected end of file in header");
+        return buffer.getInt();
     }
 }
@@ -0,0 +1,213 @@
+package utils.mnist_data_io;
+
+/**
+ * <h1>Packed MNIST data set class.</h1>
+ * <p>
+ * Class stores all images of a data set in one contiguous row-major {@code byte[]} block,
+ * one unsigned byte per grayscale pixel, plus a parallel {@code byte[]} of labels.
+ * <br>
+ * Images are laid out one after another, so the image with index {@code i} starts at
+ * {@code i * getImageSize()} in {@link MnistDataSet#pixels}. {@link MnistMatrix} instances
+ * returned by {@link MnistDataSet#getMatrix(int)} are thin views over this block.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class MnistDataSet {
+
+    /** Pixels of all images, row-major, {@link MnistDataSet#imageSize} bytes per image.
+     * */
+    private final byte[] pixels;
+
+    /** Labels of all images, one byte per image.
+     * */
+    private final byte[] labels;
+
+    /** Number of rows of every image.
+     * */
+    private final int nRows;
+
+    /** Number of columns of every image.
+     * */
+    private final int nCols;
+
+    /** Number of pixels of every image.
+     * */
+    private final int imageSize;
+
+    /** Number of images in the data set.
+     * */
+    private final int size;
+
+    /** Number of classes, the greatest label plus one.
+     * */
+    private final int numberOfClasses;
+
+    /** Constructor for the {@link MnistDataSet} class.
+     * <p>
+     * Arrays are not copied, the data set takes ownership of them.
+     *
+     * @param pixels {@link MnistDataSet#pixels description}.
+     * @param labels {@link MnistDataSet#labels description}.
+     * @param nRows {@link MnistDataSet#nRows description}.
+     * @param nCols {@link MnistDataSet#nCols description}.
+     * @throws IllegalArgumentException if the arrays lengths don't match the image size.
+     * */
+    public MnistDataSet(byte[] pixels, byte[] labels, int nRows, int nCols) {
+        if ((long) labels.length * nRows * nCols != pixels.length)
+            throw new IllegalArgumentException("Expected " + labels.length + " images of " + nRows + "x" + nCols
+                    + " pixels, but got " + pixels.length + " bytes");
+
+        this.pixels = pixels;
+        this.labels = labels;
+        this.nRows = nRows;
+        this.nCols = nCols;
+        this.imageSize = nRows * nCols;
+        this.size = labels.length;
+
+        int maxLabel = -1;
+        for (byte label : labels) maxLabel = Math.max(maxLabel, label & 0xFF);
+        this.numberOfClasses = maxLabel + 1;
+    }
+
+    /** Returns {@link MnistDataSet} that contains given matrices.
+     * <p>
+     * If the matrices already are consecutive views over one packed block, the block is shared,
+     * otherwise pixels are copied into a new one.
+     *
+     * @param matrices array of {@link MnistMatrix} of the same size.
+     * @return {@link MnistDataSet}.
+     * */
+    public static MnistDataSet of(MnistMatrix[] matrices) {
+        if (matrices.length == 0) return new MnistDataSet(new byte[0], new byte[0], 0, 0);
+
+        int nRows = matrices[0].getNumberOfRows();
+        int nCols = matrices[0].getNumberOfColumns();
+        int imageSize = nRows * nCols;
+
+        byte[] labels = new byte[matrices.length];
+        byte[] shared = matrices[0].getData();
+        boolean contiguous = shared.length == matrices.length * imageSize;
+
+        for (int i = 0; i < matrices.length; i++) {
+            MnistMatrix matrix = matrices[i];
+            if (matrix.getNumberOfRows() != nRows || matrix.getNumberOfColumns() != nCols)
+                throw new IllegalArgumentException("All matrices must be " + nRows + "x" + nCols);
+
+            labels[i] = (byte) matrix.getLabel();
+            contiguous &= matrix.getData() == shared && matrix.getOffset() == i * imageSize;
+        }
+
+        if (contiguous) return new MnistDataSet(shared, labels, nRows, nCols);
+
+        byte[] pixels = new byte[matrices.length * imageSize];
+        for (int i = 0; i < matrices.length; i++)
+            System.arraycopy(matrices[i].getData(), matrices[i].getOffset(), pixels, i * imageSize, imageSize);
+
+        return new MnistDataSet(pixels, labels, nRows, nCols);
+    }
+
+    /** Returns a new {@link MnistDataSet} with copies of the selected images.
+     *
+     * @param indices indices of the images, in the order of the new data set.
+     * @return {@link MnistDataSet}.
+     * */
+    public MnistDataSet subset(int[] indices) {
+        byte[] subsetPixels = new byte[indices.length * imageSize];
+        byte[] subsetLabels = new byte[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            System.arraycopy(pixels, getOffset(indices[i]), subsetPixels, i * imageSize, imageSize);
+            subsetLabels[i] = labels[indices[i]];
+        }
+        return new MnistDataSet(subsetPixels, subsetLabels, nRows, nCols);
+    }
+
+    /** Returns a {@link MnistMatrix} view over the image with given index.
+     * <p>
+     * The view shares pixels with this data set.
+     *
+     * @param index index of the image.
+     * @return {@link MnistMatrix}.
+     * */
+    public MnistMatrix getMatrix(int index) {
+        MnistMatrix mnistMatrix = new MnistMatrix(nRows, nCols, pixels, getOffset(index));
+        mnistMatrix.setLabel(getLabel(index));
+        return mnistMatrix;
+    }
+
+    /** Returns views over all images of this data set.
+     *
+     * @return {@link MnistMatrix[]}.
+     * */
+    public MnistMatrix[] toMatrices() {
+        MnistMatrix[] matrices = new MnistMatrix[size];
+        for (int i = 0; i < size; i++) matrices[i] = getMatrix(i);
+        return matrices;
+    }
+
+    /**
+     * @param index index of the image.
+     * @return offset of the first pixel of the image in {@link MnistDataSet#pixels}.
+     * */
+    public int getOffset(int index) {
+        return index * imageSize;
+    }
+
+    /**
+     * @param index index of the image.
+     * @return label of the image.
+     * */
+    public int getLabel(int index) {
+        return labels[index] & 0xFF;
+    }
+
+    /**
+     * @return {@link MnistDataSet#pixels}.
+     * */
+    public byte[] getPixels() {
+        return pixels;
+    }
+
+    /**
+     * @return {@link MnistDataSet#labels}.
+     * */
+    public byte[] getLabels() {
+        return labels;
+    }
+
+    /**
+     * @return {@link MnistDataSet#nRows}.
+     * */
+    public int getNumberOfRows() {
+        return nRows;
+    }
+
+    /**
+     * @return {@link MnistDataSet#nCols}.
+     * */
+    public int getNumberOfColumns() {
+        return nCols;
+    }
+
+    /**
+     * @return {@link MnistDataSet#imageSize}.
+     * */
+    public int getImageSize() {
+        return imageSize;
+    }
+
+    /**
+     * @return {@link MnistDataSet#size}.
+     * */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return {@link MnistDataSet#numberOfClasses}.
+     * */
+    public int getNumberOfClasses() {
+        return numberOfClasses;
+    }
+}
@@ -0,0 +1,69 @@
+package utils.mnist_data_io;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <h1>MNIST data writer class.</h1>
+ * <p>
+ * Writes a {@link MnistDataSet} as a pair of IDX files which {@link MnistDataReader} reads back,
+ * such as a reduced training set.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class MnistDataWriter {
+
+    /** Size in bytes of the output buffers.
+     * */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** Default Constructor for the {@link MnistDataWriter} class.
+     * */
+    public MnistDataWriter() {}
+
+    /** Writes the data set into an images file and a labels file.
+     * <p>
+     * Files ending with ".gz" are gzip-compressed, existing files are overwritten.
+     *
+     * @param data {@link MnistDataSet} to write.
+     * @param dataFilePath path to the MNIST dataset file, gzip-compressed if it ends with ".gz".
+     * @param labelFilePath path to the MNIST label file, gzip-compressed if it ends with ".gz".
+     * @throws IOException if something wrong with files.
+     * */
+    public void writeDataSet(MnistDataSet data, String dataFilePath, String labelFilePath) throws IOException {
+        try (DataOutputStream dataStream = open(dataFilePath)) {
+            dataStream.writeInt(MnistDataReader.IMAGES_MAGIC_NUMBER);
+            dataStream.writeInt(data.size());
+            dataStream.writeInt(data.getNumberOfRows());
+            dataStream.writeInt(data.getNumberOfColumns());
+            dataStream.write(data.getPixels(), 0, data.size() * data.getImageSize());
+        }
+
+        try (DataOutputStream labelStream = open(labelFilePath)) {
+            labelStream.writeInt(MnistDataReader.LABELS_MAGIC_NUMBER);
+            labelStream.writeInt(data.size());
+            labelStream.write(data.getLabels(), 0, data.size());
+        }
+    }
+
+    /** Opens a buffered big-endian stream of the file.
+     *
+     * @param filePath path to the file, gzip-compressed if it ends with ".gz".
+     * @throws IOException if the file can't be created.
+     * @return {@link DataOutputStream}.
+     * */
+    private static DataOutputStream open(String filePath) throws IOException {
+        OutputStream outputStream = Files.newOutputStream(Paths.get(filePath));
+        try {
+            if (MnistSpliterator.isGzip(filePath)) outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        } catch (IOException e) {
+            outputStream.close();
+            throw e;
+        }
+        return new DataOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+    }
+}
@@ -4,17 +4,23 @@ package utils.mnist_data_io;
  * <h1>MNIST matrix class.</h1>
  * <p>
  * Class contains all info about MNIST image.
+ * <br>
+ * Pixels are stored as unsigned bytes in a row-major block, which may be shared with a {@link MnistDataSet}.
  *
  * @author  Orest Maiatskyi
  * @version 1.0
  * @since   04.07.2022
  */
 public class MnistMatrix implements Comparable<MnistMatrix> {
-    /** Two-dimensional array "matrix".
+    /** Row-major block of unsigned bytes.
      * <p>
-     * Contains the pixels of a grayscale image.
+     * Contains the pixels of a grayscale image starting at {@link MnistMatrix#offset}.
      * */
-    private final int [][] data;
+    private final byte[] data;
+
+    /** Offset of the first pixel in {@link MnistMatrix#data}.
+     * */
+    private final int offset;
 
     /** Number of {@link MnistMatrix#data} rows.
      * */
@@ -31,6 +37,8 @@ public class MnistMatrix implements Comparable<MnistMatrix> {
     /** Color difference between grayscale pixels
      * <p>
      * This property is used to sort an array of {@link MnistMatrix}.
+     * It is not used by the recognizer anymore, which keeps distances in per-thread buffers
+     * so that matrices can be shared between concurrent queries.
      * */
     private double distance;
 
@@ -40,9 +48,21 @@ public class MnistMatrix implements Comparable<MnistMatrix> {
      * @param nCols {@link MnistMatrix#nCols description}.
      * */
     public MnistMatrix(int nRows, int nCols) {
+        this(nRows, nCols, new byte[nRows * nCols], 0);
+    }
+
+    /** Constructor for the {@link MnistMatrix} view over a packed block.
+     *
+     * @param nRows {@link MnistMatrix#nRows description}.
+     * @param nCols {@link MnistMatrix#nCols description}.
+     * @param data {@link MnistMatrix#data description}.
+     * @param offset {@link MnistMatrix#offset description}.
+     * */
+    MnistMatrix(int nRows, int nCols, byte[] data, int offset) {
         this.nRows = nRows;
         this.nCols = nCols;
-        this.data = new int[nRows][nCols];
+        this.data = data;
+        this.offset = offset;
     }
 
     /**
@@ -51,7 +71,21 @@ public class MnistMatrix implements Comparable<MnistMatrix> {
      * @return grayscale value of pixel in {@link MnistMatrix#data}.
      * */
     public int getValue(int r, int c) {
-        return data[r][c];
+        return data[offset + r * nCols + c] & 0xFF;
+    }
+
+    /**
+     * @return {@link MnistMatrix#data}.
+     * */
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return {@link MnistMatrix#offset}.
+     * */
+    public int getOffset() {
+        return offset;
     }
 
     /**
@@ -82,14 +116,14 @@ public class MnistMatrix implements Comparable<MnistMatrix> {
         return distance;
     }
 
-    /** Set the {@link MnistMatrix#data}[r][c] property.
+    /** Set the pixel of {@link MnistMatrix#data} at row r and column c.
      *
      * @param r number of row.
      * @param c number of column.
-     * @param value value of grayscale pixel.
+     * @param value value of grayscale pixel, from 0 to 255.
      * */
     public void setValue(int r, int c, int value) {
-        data[r][c] = value;
+        data[offset + r * nCols + c] = (byte) value;
     }
 
     /** Set the {@link MnistMatrix#label} property.
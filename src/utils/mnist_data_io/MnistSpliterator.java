@@ -0,0 +1,204 @@
+package utils.mnist_data_io;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * <h1>Streaming MNIST data reader class.</h1>
+ * <p>
+ * {@link Spliterator} over image and label pairs of IDX files, which reads them lazily,
+ * so data sets larger than the heap can be processed. Files ending with ".gz" are decompressed on the fly.
+ * <br>
+ * {@link MnistSpliterator#trySplit()} reads the next batch of images into one packed {@link MnistDataSet}
+ * and hands it off to another thread. Batches grow up to {@link MnistSpliterator#maxBatchSize} images,
+ * which bounds the memory used by a parallel stream.
+ *
+ * @author  Orest Maiatskyi
+ * @version 1.0
+ * @since   18.10.2026
+ */
+public class MnistSpliterator implements Spliterator<MnistMatrix>, Closeable {
+
+    /** Default maximal number of images in one split batch.
+     * */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 4096;
+
+    /** Number of images in the first split batch.
+     * */
+    private static final int INITIAL_BATCH_SIZE = 256;
+
+    /** Stream of the dataset file, positioned at the next image.
+     * */
+    private final DataInputStream dataInputStream;
+
+    /** Stream of the label file, positioned at the next label.
+     * */
+    private final DataInputStream labelInputStream;
+
+    /** Number of rows of every image.
+     * */
+    private final int nRows;
+
+    /** Number of columns of every image.
+     * */
+    private final int nCols;
+
+    /** Maximal number of images in one split batch.
+     * */
+    private final int maxBatchSize;
+
+    /** Number of images that weren't read yet.
+     * */
+    private int remaining;
+
+    /** Number of images in the next split batch.
+     * */
+    private int batchSize = INITIAL_BATCH_SIZE;
+
+    /** Constructor for the {@link MnistSpliterator} class.
+     *
+     * @param dataFilePath path to the MNIST dataset file.
+     * @param labelFilePath path to the MNIST label file.
+     * @param maxBatchSize {@link MnistSpliterator#maxBatchSize description}.
+     * @throws IOException if something wrong with files.
+     * */
+    public MnistSpliterator(String dataFilePath, String labelFilePath, int maxBatchSize) throws IOException {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.dataInputStream = open(dataFilePath);
+
+        try {
+            this.labelInputStream = open(labelFilePath);
+        } catch (IOException e) {
+            dataInputStream.close();
+            throw e;
+        }
+
+        try {
+            int magicNumber = dataInputStream.readInt();
+            int numberOfItems = dataInputStream.readInt();
+            this.nRows = dataInputStream.readInt();
+            this.nCols = dataInputStream.readInt();
+            int labelMagicNumber = labelInputStream.readInt();
+            int numberOfLabels = labelInputStream.readInt();
+
+            MnistDataReader.validateHeaders(dataFilePath, labelFilePath, magicNumber, numberOfItems, nRows, nCols,
+                    labelMagicNumber, numberOfLabels);
+            this.remaining = numberOfItems;
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /** Returns true if the file is gzip-compressed.
+     *
+     * @param filePath path to the file.
+     * @return true if the path ends with ".gz".
+     * */
+    public static boolean isGzip(String filePath) {
+        return filePath.endsWith(".gz");
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super MnistMatrix> action) {
+        if (remaining == 0) return false;
+
+        MnistMatrix mnistMatrix = new MnistMatrix(nRows, nCols);
+        try {
+            dataInputStream.readFully(mnistMatrix.getData());
+            mnistMatrix.setLabel(labelInputStream.readUnsignedByte());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        remaining--;
+        action.accept(mnistMatrix);
+        return true;
+    }
+
+    @Override
+    public Spliterator<MnistMatrix> trySplit() {
+        if (remaining <= 1) return null;
+
+        int size = Math.min(batchSize, remaining);
+        batchSize = Math.min(batchSize * 2, maxBatchSize);
+
+        try {
+            return Arrays.spliterator(readBatch(size).toMatrices());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** Reads all remaining images into one packed {@link MnistDataSet}.
+     *
+     * @throws IOException if something wrong with files.
+     * @return {@link MnistDataSet}.
+     * */
+    public MnistDataSet readAll() throws IOException {
+        return readBatch(remaining);
+    }
+
+    @Override
+    public long estimateSize() {
+        return remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE | SIZED;
+    }
+
+    @Override
+    public void close() {
+        try {
+            dataInputStream.close();
+        } catch (IOException ignored) {
+        }
+
+        try {
+            if (labelInputStream != null) labelInputStream.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Reads the next images into one packed {@link MnistDataSet}.
+     *
+     * @param size number of images.
+     * @throws IOException if something wrong with files.
+     * @return {@link MnistDataSet}.
+     * */
+    private MnistDataSet readBatch(int size) throws IOException {
+        long numberOfPixels = (long) size * nRows * nCols;
+        if (numberOfPixels > Integer.MAX_VALUE - 8)
+            throw new IOException(numberOfPixels + " pixels don't fit into one data set");
+
+        byte[] pixels = new byte[(int) numberOfPixels];
+        byte[] labels = new byte[size];
+        dataInputStream.readFully(pixels);
+        labelInputStream.readFully(labels);
+        remaining -= size;
+
+        return new MnistDataSet(pixels, labels, nRows, nCols);
+    }
+
+    /** Opens the file, decompressing it if it is gzip-compressed.
+     *
+     * @param filePath path to the file.
+     * @throws IOException if something wrong with the file.
+     * @return {@link DataInputStream}.
+     * */
+    private static DataInputStream open(String filePath) throws IOException {
+        InputStream inputStream = new FileInputStream(filePath);
+        try {
+            if (isGzip(filePath)) inputStream = new GZIPInputStream(inputStream, 64 * 1024);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+        return new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+    }
+}